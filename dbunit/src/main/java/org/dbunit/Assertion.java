@@ -22,10 +22,12 @@
 package org.dbunit;
 
 import java.sql.SQLException;
+import java.util.Comparator;
 
 import org.dbunit.assertion.DbUnitAssert;
 import org.dbunit.assertion.FailureHandler;
 import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.database.IDatabaseConnectionSupplier;
 import org.dbunit.dataset.Column;
 import org.dbunit.dataset.IDataSet;
 import org.dbunit.dataset.ITable;
@@ -139,4 +141,89 @@ public class Assertion {
         INSTANCE.assertEquals(expectedTable, actualTable, failureHandler);
     }
 
+    /**
+     * @see DbUnitAssert#assertEqualsByKey(IDataSet, IDataSet, FailureHandler)
+     * @since 2.5.2
+     */
+    public static void assertEqualsByKey(IDataSet expectedDataSet,
+            IDataSet actualDataSet, FailureHandler failureHandler)
+    throws DatabaseUnitException {
+        INSTANCE.assertEqualsByKey(expectedDataSet, actualDataSet, failureHandler);
+    }
+
+    /**
+     * @see DbUnitAssert#assertEqualsByKey(ITable, ITable, String[])
+     * @since 2.5.2
+     */
+    public static void assertEqualsByKey(ITable expectedTable, ITable actualTable,
+            String[] keyColumnNames) throws DatabaseUnitException {
+        INSTANCE.assertEqualsByKey(expectedTable, actualTable, keyColumnNames);
+    }
+
+    /**
+     * @see DbUnitAssert#assertEqualsByKey(ITable, ITable, String[], FailureHandler)
+     * @since 2.5.2
+     */
+    public static void assertEqualsByKey(ITable expectedTable, ITable actualTable,
+            String[] keyColumnNames, FailureHandler failureHandler)
+    throws DatabaseUnitException {
+        INSTANCE.assertEqualsByKey(expectedTable, actualTable, keyColumnNames,
+                failureHandler);
+    }
+
+    /**
+     * @see DbUnitAssert#assertEqualsOrderedByKey(IDataSet, IDataSet, FailureHandler)
+     * @since 2.5.2
+     */
+    public static void assertEqualsOrderedByKey(IDataSet expectedDataSet,
+            IDataSet actualDataSet, FailureHandler failureHandler)
+    throws DatabaseUnitException {
+        INSTANCE.assertEqualsOrderedByKey(expectedDataSet, actualDataSet,
+                failureHandler);
+    }
+
+    /**
+     * @see DbUnitAssert#assertEqualsOrderedByKey(ITable, ITable, String[], FailureHandler)
+     * @since 2.5.2
+     */
+    public static void assertEqualsOrderedByKey(ITable expectedTable,
+            ITable actualTable, String[] keyColumnNames,
+            FailureHandler failureHandler) throws DatabaseUnitException {
+        INSTANCE.assertEqualsOrderedByKey(expectedTable, actualTable,
+                keyColumnNames, failureHandler);
+    }
+
+    /**
+     * @see DbUnitAssert#assertEqualsOrderedByKey(ITable, ITable, String[], Comparator, FailureHandler)
+     * @since 2.5.2
+     */
+    public static void assertEqualsOrderedByKey(ITable expectedTable,
+            ITable actualTable, String[] keyColumnNames, Comparator keyComparator,
+            FailureHandler failureHandler) throws DatabaseUnitException {
+        INSTANCE.assertEqualsOrderedByKey(expectedTable, actualTable,
+                keyColumnNames, keyComparator, failureHandler);
+    }
+
+    /**
+     * @see DbUnitAssert#assertEqualsParallel(IDataSet, IDatabaseConnection, FailureHandler)
+     * @since 2.5.2
+     */
+    public static void assertEqualsParallel(IDataSet expectedDataSet,
+            IDatabaseConnection connection, FailureHandler failureHandler)
+    throws DatabaseUnitException {
+        INSTANCE.assertEqualsParallel(expectedDataSet, connection,
+                failureHandler);
+    }
+
+    /**
+     * @see DbUnitAssert#assertEqualsParallel(IDataSet, IDatabaseConnectionSupplier, int, FailureHandler)
+     * @since 2.5.2
+     */
+    public static void assertEqualsParallel(IDataSet expectedDataSet,
+            IDatabaseConnectionSupplier connectionSupplier, int threadCount,
+            FailureHandler failureHandler) throws DatabaseUnitException {
+        INSTANCE.assertEqualsParallel(expectedDataSet, connectionSupplier,
+                threadCount, failureHandler);
+    }
+
 }
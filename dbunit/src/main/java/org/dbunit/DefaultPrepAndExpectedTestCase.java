@@ -31,6 +31,7 @@ import org.dbunit.dataset.IDataSet;
 import org.dbunit.dataset.ITable;
 import org.dbunit.dataset.SortedTable;
 import org.dbunit.dataset.filter.DefaultColumnFilter;
+import org.dbunit.util.fileloader.AbstractDataFileLoader;
 import org.dbunit.util.fileloader.DataFileLoader;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -445,7 +446,9 @@ PrepAndExpectedTestCase {
     }
 
     /**
-     * Make a <code>IDataSet</code> from the specified files.
+     * Make a <code>IDataSet</code> from the specified files. The files are
+     * loaded concurrently when the data file loader is an
+     * {@link AbstractDataFileLoader} with parallel loading enabled.
      * 
      * @param dataFiles
      *            Represents the array of dbUnit data files.
@@ -466,13 +469,19 @@ PrepAndExpectedTestCase {
             LOG.info("makeCompositeDataSet: Specified zero data files");
         }
 
-        List list = new ArrayList();
-        for (int i = 0; i < count; i++) {
-            IDataSet ds = dataFileLoader.load(dataFiles[i]);
-            list.add(ds);
+        IDataSet[] dataSet;
+        if (dataFileLoader instanceof AbstractDataFileLoader) {
+            // Loads the files concurrently when parallel loading is enabled
+            dataSet = ((AbstractDataFileLoader) dataFileLoader).loadAll(dataFiles);
+        } else {
+            List list = new ArrayList();
+            for (int i = 0; i < count; i++) {
+                IDataSet ds = dataFileLoader.load(dataFiles[i]);
+                list.add(ds);
+            }
+            dataSet = (IDataSet[]) list.toArray(new IDataSet[] {});
         }
 
-        IDataSet[] dataSet = (IDataSet[]) list.toArray(new IDataSet[] {});
         IDataSet compositeDS = new CompositeDataSet(dataSet);
         return compositeDS;
     }
@@ -133,6 +133,9 @@ public class Operation extends AbstractStep
         } else if ("REFRESH".equals(type)) {
             _operation = DatabaseOperation.REFRESH;
             _forwardOperation = true;
+        } else if ("UPSERT".equals(type)) {
+            _operation = DatabaseOperation.UPSERT;
+            _forwardOperation = true;
         } else if ("DELETE".equals(type)) {
             _operation = DatabaseOperation.DELETE;
             _forwardOperation = false;
@@ -156,7 +159,7 @@ public class Operation extends AbstractStep
             _forwardOperation = true;
         } else {
             throw new IllegalArgumentException("Type must be one of: UPDATE, INSERT,"
-                    + " REFRESH, DELETE, DELETE_ALL, CLEAN_INSERT, MSSQL_INSERT, "
+                    + " REFRESH, UPSERT, DELETE, DELETE_ALL, CLEAN_INSERT, MSSQL_INSERT, "
                     + " or MSSQL_REFRESH but was: " + type);
         }
         _type = type;
@@ -20,19 +20,32 @@
  */
 package org.dbunit.assertion;
 
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import org.dbunit.Assertion;
 import org.dbunit.DatabaseUnitException;
+import org.dbunit.database.DatabaseConfig;
 import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.database.IDatabaseConnectionSupplier;
 import org.dbunit.dataset.Column;
 import org.dbunit.dataset.Columns;
 import org.dbunit.dataset.DataSetException;
 import org.dbunit.dataset.IDataSet;
 import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.ITableIterator;
 import org.dbunit.dataset.ITableMetaData;
+import org.dbunit.dataset.Tables;
 import org.dbunit.dataset.datatype.DataType;
+import org.dbunit.dataset.datatype.StringIgnoreCaseDataType;
+import org.dbunit.dataset.datatype.TypeCastException;
 import org.dbunit.dataset.datatype.UnknownDataType;
 import org.dbunit.dataset.filter.DefaultColumnFilter;
 import org.slf4j.Logger;
@@ -229,6 +242,121 @@ public class DbUnitAssert
             failureHandler = getDefaultFailureHandler();
         }
 
+        String[] expectedNames = getComparedTableNames(expectedDataSet, actualDataSet,
+                failureHandler);
+
+        // tables
+        for (int i = 0; i < expectedNames.length; i++) {
+            if (isExhausted(failureHandler)) {
+                logger.debug("Difference limit reached, skipping the remaining tables");
+                break;
+            }
+            String name = expectedNames[i];
+            assertEquals(expectedDataSet.getTable(name), actualDataSet.getTable(name), failureHandler);
+        }
+
+    }
+
+    /**
+     * Asserts that the tables of the expected dataset are equal to the same tables
+     * in the database. If a connection supplier is configured with
+     * {@link DatabaseConfig#PROPERTY_PARALLEL_CONNECTION_SUPPLIER} the tables are
+     * fetched and compared concurrently by
+     * {@link DatabaseConfig#PROPERTY_PARALLEL_THREAD_COUNT} threads, otherwise one
+     * after another using the given connection. The worker threads do not read
+     * through the given connection and so do not see its uncommitted changes.
+     * 
+     * @param expectedDataSet
+     *            Dataset containing all expected results.
+     * @param connection
+     *            The connection to the database holding the actual results
+     * @param failureHandler
+     *            The failure handler notified of the differences or
+     *            <code>null</code> for the default one
+     * @throws DatabaseUnitException
+     * @see #assertEqualsParallel(IDataSet, IDatabaseConnectionSupplier, int, FailureHandler)
+     * @since 2.5.2
+     */
+    public void assertEqualsParallel(IDataSet expectedDataSet, IDatabaseConnection connection,
+            FailureHandler failureHandler) throws DatabaseUnitException
+    {
+        logger.debug("assertEqualsParallel(expectedDataSet={}, connection={}, failureHandler={}) - start",
+                new Object[] { expectedDataSet, connection, failureHandler });
+
+        DatabaseConfig config = connection.getConfig();
+        IDatabaseConnectionSupplier connectionSupplier = (IDatabaseConnectionSupplier) config
+                .getProperty(DatabaseConfig.PROPERTY_PARALLEL_CONNECTION_SUPPLIER);
+        if (connectionSupplier == null) {
+            try {
+                IDataSet actualDataSet = connection.createDataSet(expectedDataSet.getTableNames());
+                assertEquals(expectedDataSet, actualDataSet, failureHandler);
+            }
+            catch (SQLException e) {
+                throw new DatabaseUnitException(e);
+            }
+            return;
+        }
+
+        Integer threadCount = (Integer) config.getProperty(
+                DatabaseConfig.PROPERTY_PARALLEL_THREAD_COUNT);
+        assertEqualsParallel(expectedDataSet, connectionSupplier, threadCount.intValue(),
+                failureHandler);
+    }
+
+    /**
+     * Asserts that the tables of the expected dataset are equal to the same tables
+     * in the database, fetching and comparing several tables concurrently. Every
+     * worker thread reads its tables through its own connection created by the
+     * given supplier. The differences found are reported to the failure handler on
+     * the calling thread, table by table in the order of the table names, so a
+     * {@link DiffCollectingFailureHandler} receives the same differences in the same
+     * order as with {@link #assertEquals(IDataSet, IDataSet, FailureHandler)}. The
+     * default failure handler fails with the first difference in that order, and
+     * the workers stop comparing a table at its first difference.
+     * <p>
+     * As the workers use connections of their own, they do not see rows the caller
+     * inserted, updated or deleted in a transaction that is not yet committed.
+     * Commit the changes to be verified before the assertion or use
+     * {@link #assertEquals(IDataSet, IDataSet, FailureHandler)} with the caller's
+     * connection instead.
+     * </p>
+     * 
+     * @param expectedDataSet
+     *            Dataset containing all expected results. Its tables are read on the
+     *            calling thread.
+     * @param connectionSupplier
+     *            Supplies the connections of the worker threads
+     * @param threadCount
+     *            The maximum number of tables compared at the same time
+     * @param failureHandler
+     *            The failure handler notified of the differences or
+     *            <code>null</code> for the default one
+     * @throws DatabaseUnitException
+     * @since 2.5.2
+     */
+    public void assertEqualsParallel(IDataSet expectedDataSet,
+            IDatabaseConnectionSupplier connectionSupplier, int threadCount,
+            FailureHandler failureHandler) throws DatabaseUnitException
+    {
+        logger.debug("assertEqualsParallel(expectedDataSet={}, threadCount={}, failureHandler={}) - start",
+                new Object[] { expectedDataSet, new Integer(threadCount), failureHandler });
+
+        if (failureHandler == null) {
+            logger.debug("FailureHandler is null. Using default implementation");
+            failureHandler = getDefaultFailureHandler();
+        }
+
+        new ParallelTableComparison(this, connectionSupplier, threadCount).compare(
+                expectedDataSet, failureHandler);
+    }
+
+    /**
+     * Verifies that both datasets have the same tables.
+     * @return The sorted upper case names of the tables to be compared
+     */
+    private String[] getComparedTableNames(IDataSet expectedDataSet, IDataSet actualDataSet,
+            FailureHandler failureHandler) throws DataSetException
+    {
         String[] expectedNames = getSortedUpperTableNames(expectedDataSet);
         String[] actualNames = getSortedUpperTableNames(actualDataSet);
 
@@ -246,13 +374,7 @@ public class DbUnitAssert
             }
 
         }
-
-        // tables
-        for (int i = 0; i < expectedNames.length; i++) {
-            String name = expectedNames[i];
-            assertEquals(expectedDataSet.getTable(name), actualDataSet.getTable(name), failureHandler);
-        }
-
+        return expectedNames;
     }
 
     /**
@@ -384,6 +506,21 @@ public class DbUnitAssert
             return;
         }
 
+        ComparisonColumn[] comparisonCols = getComparedColumns(expectedMetaData,
+                actualMetaData, failureHandler);
+
+        // Finally compare the data
+        compareData(expectedTable, actualTable, comparisonCols, failureHandler);
+    }
+
+    /**
+     * Verifies that both tables have the same columns.
+     * @return The columns to be compared, including the datatypes for comparing them
+     */
+    private ComparisonColumn[] getComparedColumns(ITableMetaData expectedMetaData,
+            ITableMetaData actualMetaData, FailureHandler failureHandler)
+            throws DataSetException
+    {
         // Put the columns into the same order
         Column[] expectedColumns = Columns.getSortedColumns(expectedMetaData);
         Column[] actualColumns = Columns.getSortedColumns(actualMetaData);
@@ -402,11 +539,159 @@ public class DbUnitAssert
         }
 
         // Get the datatypes to be used for comparing the sorted columns
-        ComparisonColumn[] comparisonCols = getComparisonColumns(expectedTableName,
+        return getComparisonColumns(expectedMetaData.getTableName(),
                 expectedColumns, actualColumns, failureHandler);
+    }
 
-        // Finally compare the data
-        compareData(expectedTable, actualTable, comparisonCols, failureHandler);
+    /**
+     * Asserts that the two specified datasets contain the same rows, matching the
+     * rows of each table by their primary key instead of by their position.
+     * The primary keys are taken from the actual dataset, typically read from
+     * the database, or from the expected one if the actual tables have none.
+     * 
+     * @param expectedDataSet
+     *            Dataset containing all expected results.
+     * @param actualDataSet
+     *            Dataset containing all actual results.
+     * @param failureHandler
+     *            The failure handler notified of every difference or
+     *            <code>null</code> for the default one
+     * @throws DatabaseUnitException
+     * @see #assertEqualsByKey(ITable, ITable, String[], FailureHandler)
+     * @since 2.5.2
+     */
+    public void assertEqualsByKey(IDataSet expectedDataSet, IDataSet actualDataSet,
+            FailureHandler failureHandler) throws DatabaseUnitException
+    {
+        logger.debug("assertEqualsByKey(expectedDataSet={}, actualDataSet={}, failureHandler={}) - start",
+                new Object[] { expectedDataSet, actualDataSet, failureHandler });
+
+        // do not continue if same instance
+        if (expectedDataSet == actualDataSet) {
+            return;
+        }
+
+        if (failureHandler == null) {
+            logger.debug("FailureHandler is null. Using default implementation");
+            failureHandler = getDefaultFailureHandler();
+        }
+
+        String[] expectedNames = getComparedTableNames(expectedDataSet, actualDataSet,
+                failureHandler);
+
+        for (int i = 0; i < expectedNames.length; i++) {
+            if (isExhausted(failureHandler)) {
+                logger.debug("Difference limit reached, skipping the remaining tables");
+                break;
+            }
+            String name = expectedNames[i];
+            assertEqualsByKey(expectedDataSet.getTable(name), actualDataSet.getTable(name),
+                    null, failureHandler);
+        }
+    }
+
+    /**
+     * Asserts that the two specified tables contain the same rows in any order.
+     * 
+     * @param expectedTable
+     *            Table containing all expected results.
+     * @param actualTable
+     *            Table containing all actual results.
+     * @param keyColumnNames
+     *            The columns identifying a row or <code>null</code> for the
+     *            primary key
+     * @throws DatabaseUnitException
+     * @see #assertEqualsByKey(ITable, ITable, String[], FailureHandler)
+     * @since 2.5.2
+     */
+    public void assertEqualsByKey(ITable expectedTable, ITable actualTable,
+            String[] keyColumnNames) throws DatabaseUnitException
+    {
+        assertEqualsByKey(expectedTable, actualTable, keyColumnNames, null);
+    }
+
+    /**
+     * Asserts that the two specified tables contain the same rows in any order.
+     * Other than {@link #assertEquals(ITable, ITable, FailureHandler)} the rows
+     * are not compared by position, so the tables need not be wrapped into
+     * {@link org.dbunit.dataset.SortedTable}s. Instead the actual rows are
+     * indexed by their key in a hash table which is probed with every expected
+     * row, so both tables are read only once.
+     * <p>
+     * The failure handler is notified of every expected row without actual row
+     * ({@link Difference#isMissingRow()}), of every changed value of the matched
+     * rows and finally of every actual row without expected row
+     * ({@link Difference#isUnexpectedRow()}). The row counts are not compared
+     * separately.
+     * </p>
+     * 
+     * @param expectedTable
+     *            Table containing all expected results.
+     * @param actualTable
+     *            Table containing all actual results.
+     * @param keyColumnNames
+     *            The columns identifying a row or <code>null</code> for the
+     *            primary key of the actual table, or of the expected table if the
+     *            actual one has none
+     * @param failureHandler
+     *            The failure handler notified of every difference or
+     *            <code>null</code> for the default one
+     * @throws DatabaseUnitException
+     * @since 2.5.2
+     */
+    public void assertEqualsByKey(ITable expectedTable, ITable actualTable,
+            String[] keyColumnNames, FailureHandler failureHandler)
+            throws DatabaseUnitException
+    {
+        logger.debug("assertEqualsByKey(expectedTable={}, actualTable={}, failureHandler={}) - start",
+                new Object[] { expectedTable, actualTable, failureHandler });
+
+        // Do not continue if same instance
+        if (expectedTable == actualTable) {
+            return;
+        }
+
+        if (failureHandler == null) {
+            logger.debug("FailureHandler is null. Using default implementation");
+            failureHandler = getDefaultFailureHandler();
+        }
+
+        ITableMetaData expectedMetaData = expectedTable.getTableMetaData();
+        ITableMetaData actualMetaData = actualTable.getTableMetaData();
+
+        if (expectedTable.getRowCount() == 0 && actualTable.getRowCount() == 0) {
+            logger.debug("Tables are empty, hence equals.");
+            return;
+        }
+
+        ComparisonColumn[] comparisonCols = getComparedColumns(expectedMetaData,
+                actualMetaData, failureHandler);
+
+        if (keyColumnNames == null) {
+            keyColumnNames = getKeyColumnNames(expectedMetaData, actualMetaData);
+        }
+
+        compareDataByKey(expectedTable, actualTable, comparisonCols, keyColumnNames,
+                failureHandler);
+    }
+
+    /**
+     * @return The primary key of the actual table or of the expected table if the
+     * actual one has none
+     * @throws DatabaseUnitException If neither table has a primary key
+     */
+    private String[] getKeyColumnNames(ITableMetaData expectedMetaData,
+            ITableMetaData actualMetaData) throws DatabaseUnitException
+    {
+        Column[] keys = actualMetaData.getPrimaryKeys();
+        if (keys.length == 0) {
+            keys = expectedMetaData.getPrimaryKeys();
+        }
+        if (keys.length == 0) {
+            throw new DatabaseUnitException("The table " + expectedMetaData.getTableName()
+                    + " has no primary key, specify the key columns to match the rows by");
+        }
+        return Columns.getColumnNames(keys);
     }
 
     /**
@@ -492,40 +777,687 @@ public class DbUnitAssert
                     "The parameter 'failureHandler' must not be null");
         }
 
+        // resolve the column indexes once instead of per cell
+        ITableMetaData expectedMetaData = expectedTable.getTableMetaData();
+        ITableMetaData actualMetaData = actualTable.getTableMetaData();
+        int[] expectedIndexes = new int[comparisonCols.length];
+        int[] actualIndexes = new int[comparisonCols.length];
+        for (int j = 0; j < comparisonCols.length; j++) {
+            String columnName = comparisonCols[j].getColumnName();
+            expectedIndexes[j] = expectedMetaData.getColumnIndex(columnName);
+            actualIndexes[j] = actualMetaData.getColumnIndex(columnName);
+        }
+
         // iterate over all rows
-        for (int i = 0; i < expectedTable.getRowCount(); i++) {
-            // iterate over all columns of the current row
-            for (int j = 0; j < comparisonCols.length; j++) {
-                ComparisonColumn compareColumn = comparisonCols[j];
-
-                String columnName = compareColumn.getColumnName();
-                DataType dataType = compareColumn.getDataType();
-
-                Object expectedValue = expectedTable.getValue(i, columnName);
-                Object actualValue = actualTable.getValue(i, columnName);
-
-                // Compare the values
-                if (skipCompare(columnName, expectedValue, actualValue)) {
-                    if (logger.isTraceEnabled()) {
-                        logger.trace( "ignoring comparison " + expectedValue + "=" +
-                                actualValue + " on column " + columnName);                        
-                    }
-                    continue;
+        String tableName = expectedMetaData.getTableName();
+        for (int i = 0; Tables.hasRow(expectedTable, i); i++) {
+            if (isExhausted(failureHandler, tableName)) {
+                logger.debug("Difference limit reached, skipping the remaining rows of {}",
+                        tableName);
+                break;
+            }
+            compareRow(expectedTable, actualTable, i, i, comparisonCols,
+                    expectedIndexes, actualIndexes, failureHandler);
+        }
+
+    }
+
+    /**
+     * Compares all columns of one expected row with one actual row.
+     */
+    private void compareRow(ITable expectedTable, ITable actualTable,
+            int expectedRow, int actualRow, ComparisonColumn[] comparisonCols,
+            int[] expectedIndexes, int[] actualIndexes, FailureHandler failureHandler)
+            throws DataSetException
+    {
+        // iterate over all columns of the current row
+        for (int j = 0; j < comparisonCols.length; j++) {
+            compareValue(expectedTable, actualTable, expectedRow, actualRow,
+                    comparisonCols[j],
+                    Tables.getValue(expectedTable, expectedRow, expectedIndexes[j]),
+                    Tables.getValue(actualTable, actualRow, actualIndexes[j]),
+                    failureHandler);
+        }
+    }
+
+    /**
+     * Compares a single value and notifies the failure handler of a difference.
+     */
+    private void compareValue(ITable expectedTable, ITable actualTable,
+            int expectedRow, int actualRow, ComparisonColumn compareColumn,
+            Object expectedValue, Object actualValue, FailureHandler failureHandler)
+            throws DataSetException
+    {
+        String columnName = compareColumn.getColumnName();
+        DataType dataType = compareColumn.getDataType();
+
+        // Compare the values
+        if (skipCompare(columnName, expectedValue, actualValue)) {
+            if (logger.isTraceEnabled()) {
+                logger.trace( "ignoring comparison " + expectedValue + "=" +
+                        actualValue + " on column " + columnName);                        
+            }
+            return;
+        }
+
+        if (dataType.compare(expectedValue, actualValue) != 0) {
+
+            if (!isReported(failureHandler, expectedTable)) {
+                return;
+            }
+
+            Difference diff = new Difference(
+                    expectedTable, actualTable, 
+                    expectedRow, actualRow, columnName, 
+                    expectedValue, actualValue);
+
+            // Handle the difference (throw error immediately or something else)
+            failureHandler.handle(diff);
+        }
+    }
+
+    /**
+     * Compares the rows of both tables matched by the given key columns, see
+     * {@link #assertEqualsByKey(ITable, ITable, String[], FailureHandler)}.
+     * 
+     * @param expectedTable
+     *            Table containing all expected results.
+     * @param actualTable
+     *            Table containing all actual results.
+     * @param comparisonCols
+     *            The columns to be compared, also including the correct
+     *            {@link DataType}s for comparison
+     * @param keyColumnNames
+     *            The columns identifying a row
+     * @param failureHandler
+     *            The failure handler notified of the differences. Must not be
+     *            <code>null</code> at this stage
+     * @throws DataSetException
+     * @since 2.5.2
+     */
+    protected void compareDataByKey(ITable expectedTable, ITable actualTable,
+            ComparisonColumn[] comparisonCols, String[] keyColumnNames,
+            FailureHandler failureHandler) throws DataSetException
+    {
+        logger.debug("compareDataByKey(expectedTable={}, actualTable={}, "
+                + "keyColumnNames={}) - start",
+                new Object[] {expectedTable, actualTable, keyColumnNames});
+
+        ITableMetaData expectedMetaData = expectedTable.getTableMetaData();
+        ITableMetaData actualMetaData = actualTable.getTableMetaData();
+        int[] expectedIndexes = new int[comparisonCols.length];
+        int[] actualIndexes = new int[comparisonCols.length];
+        for (int j = 0; j < comparisonCols.length; j++) {
+            String columnName = comparisonCols[j].getColumnName();
+            expectedIndexes[j] = expectedMetaData.getColumnIndex(columnName);
+            actualIndexes[j] = actualMetaData.getColumnIndex(columnName);
+        }
+
+        int[] keys = getKeyPositions(expectedMetaData, keyColumnNames, expectedIndexes);
+
+        // Index the actual rows by key. Rows sharing a key are chained in
+        // nextRow and the map points to the first one not matched yet.
+        int actualRowCount = actualTable.getRowCount();
+        Map firstRows = new HashMap(Math.max(16, actualRowCount * 4 / 3 + 1));
+        int[] nextRows = new int[actualRowCount];
+        for (int row = actualRowCount - 1; row >= 0; row--) {
+            Object key = createKey(actualTable, row, keys, actualIndexes, comparisonCols);
+            Integer next = (Integer) firstRows.put(key, new Integer(row));
+            nextRows[row] = next == null ? -1 : next.intValue();
+        }
+
+        // Probe the index with every expected row
+        String tableName = expectedMetaData.getTableName();
+        boolean[] matched = new boolean[actualRowCount];
+        for (int i = 0; Tables.hasRow(expectedTable, i); i++) {
+            if (isExhausted(failureHandler, tableName)) {
+                return;
+            }
+            Object key = createKey(expectedTable, i, keys, expectedIndexes, comparisonCols);
+            Integer first = (Integer) firstRows.get(key);
+            if (first == null) {
+                if (isReported(failureHandler, expectedTable)) {
+                    failureHandler.handle(new Difference(expectedTable, actualTable, i, -1, null,
+                            describeKey(expectedTable, i, keys, expectedIndexes, comparisonCols),
+                            null));
                 }
+                continue;
+            }
 
-                if (dataType.compare(expectedValue, actualValue) != 0) {
+            int actualRow = first.intValue();
+            matched[actualRow] = true;
+            if (nextRows[actualRow] < 0) {
+                firstRows.remove(key);
+            }
+            else {
+                firstRows.put(key, new Integer(nextRows[actualRow]));
+            }
 
-                    Difference diff = new Difference(
-                            expectedTable, actualTable, 
-                            i, columnName, 
-                            expectedValue, actualValue);
+            compareRow(expectedTable, actualTable, i, actualRow, comparisonCols,
+                    expectedIndexes, actualIndexes, failureHandler);
+        }
+
+        for (int row = 0; row < actualRowCount; row++) {
+            if (isExhausted(failureHandler, tableName)) {
+                return;
+            }
+            if (!matched[row] && isReported(failureHandler, expectedTable)) {
+                failureHandler.handle(new Difference(expectedTable, actualTable, -1, row, null,
+                        null, describeKey(actualTable, row, keys, actualIndexes, comparisonCols)));
+            }
+        }
+    }
+
+    /**
+     * @return The positions of the key columns in the comparison columns
+     */
+    private int[] getKeyPositions(ITableMetaData expectedMetaData, String[] keyColumnNames,
+            int[] expectedIndexes) throws DataSetException
+    {
+        int[] keys = new int[keyColumnNames.length];
+        for (int k = 0; k < keys.length; k++) {
+            int index = expectedMetaData.getColumnIndex(keyColumnNames[k]);
+            for (int j = 0; j < expectedIndexes.length; j++) {
+                if (expectedIndexes[j] == index) {
+                    keys[k] = j;
+                }
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Asserts that the two specified datasets are equal, reading them only forward.
+     * The tables must come in the same order in both datasets and their rows must
+     * be ordered by primary key in the order of the key data types, as for example
+     * the tables of a {@link org.dbunit.dataset.stream.StreamingDataSet} written in
+     * that order. Tables of a database dataset using the
+     * {@link org.dbunit.database.ForwardOnlyResultSetTableFactory} are sorted by the
+     * database and only qualify under the conditions given at
+     * {@link #assertEqualsOrderedByKey(ITable, ITable, String[], Comparator, FailureHandler)}.
+     * 
+     * @param expectedDataSet
+     *            Dataset containing all expected results.
+     * @param actualDataSet
+     *            Dataset containing all actual results.
+     * @param failureHandler
+     *            The failure handler notified of every difference or
+     *            <code>null</code> for the default one
+     * @throws DatabaseUnitException
+     * @see #assertEqualsOrderedByKey(ITable, ITable, String[], FailureHandler)
+     * @since 2.5.2
+     */
+    public void assertEqualsOrderedByKey(IDataSet expectedDataSet, IDataSet actualDataSet,
+            FailureHandler failureHandler) throws DatabaseUnitException
+    {
+        logger.debug("assertEqualsOrderedByKey(expectedDataSet={}, actualDataSet={}, failureHandler={}) - start",
+                new Object[] { expectedDataSet, actualDataSet, failureHandler });
+
+        // do not continue if same instance
+        if (expectedDataSet == actualDataSet) {
+            return;
+        }
+
+        if (failureHandler == null) {
+            logger.debug("FailureHandler is null. Using default implementation");
+            failureHandler = getDefaultFailureHandler();
+        }
+
+        ITableIterator expectedIterator = expectedDataSet.iterator();
+        ITableIterator actualIterator = actualDataSet.iterator();
+        for (int i = 0; ; i++) {
+            if (isExhausted(failureHandler)) {
+                logger.debug("Difference limit reached, skipping the remaining tables");
+                break;
+            }
+            boolean hasExpected = expectedIterator.next();
+            boolean hasActual = actualIterator.next();
+            if (!hasExpected && !hasActual) {
+                break;
+            }
+
+            String expectedName = hasExpected
+                    ? expectedIterator.getTableMetaData().getTableName() : null;
+            String actualName = hasActual
+                    ? actualIterator.getTableMetaData().getTableName() : null;
+            if (expectedName == null || !expectedName.equalsIgnoreCase(actualName)) {
+                throw failureHandler.createFailure("table (index=" + i + ")",
+                        expectedName, actualName);
+            }
+
+            assertEqualsOrderedByKey(expectedIterator.getTable(), actualIterator.getTable(),
+                    null, failureHandler);
+        }
+    }
+
+    /**
+     * Asserts that the two specified tables contain the same rows, ordering the keys
+     * like their comparison {@link DataType}s.
+     * 
+     * @param expectedTable
+     *            Table containing all expected results.
+     * @param actualTable
+     *            Table containing all actual results.
+     * @param keyColumnNames
+     *            The columns the tables are ordered by or <code>null</code> for the
+     *            primary key of the actual table, or of the expected table if the
+     *            actual one has none
+     * @param failureHandler
+     *            The failure handler notified of every difference or
+     *            <code>null</code> for the default one
+     * @throws DatabaseUnitException
+     *             Also if a table turns out not to be ordered by the key
+     * @see #assertEqualsOrderedByKey(ITable, ITable, String[], Comparator, FailureHandler)
+     * @since 2.5.2
+     */
+    public void assertEqualsOrderedByKey(ITable expectedTable, ITable actualTable,
+            String[] keyColumnNames, FailureHandler failureHandler)
+            throws DatabaseUnitException
+    {
+        assertEqualsOrderedByKey(expectedTable, actualTable, keyColumnNames, null,
+                failureHandler);
+    }
+
+    /**
+     * Asserts that the two specified tables contain the same rows, reading both
+     * tables only forward and one row at a time. Both tables must be ordered by the
+     * key columns according to the given comparator. The rows are merged like in a
+     * merge join, so the memory used does not depend on the table size and forward
+     * only tables such as {@link org.dbunit.database.ForwardOnlyResultSetTable} can
+     * be compared without caching them.
+     * <p>
+     * Without comparator the keys are ordered like their comparison {@link DataType}s:
+     * numbers and dates by value, strings by the binary order of their characters and
+     * <code>null</code> before all values. A table sorted by the database, for example
+     * with an <code>order by</code> clause, only qualifies if the database sorts the
+     * keys the same way. This holds for numeric and date keys, but string keys need a
+     * binary collation, and keys must not be <code>null</code> since some databases,
+     * like Oracle and PostgreSQL, sort <code>null</code>s last. Otherwise pass a
+     * comparator implementing the order of the database.
+     * </p>
+     * <p>
+     * The failure handler is notified of the differences in key order: expected
+     * rows without actual row ({@link Difference#isMissingRow()}), changed values of
+     * the matched rows and actual rows without expected row
+     * ({@link Difference#isUnexpectedRow()}).
+     * </p>
+     * 
+     * @param expectedTable
+     *            Table containing all expected results.
+     * @param actualTable
+     *            Table containing all actual results.
+     * @param keyColumnNames
+     *            The columns the tables are ordered by or <code>null</code> for the
+     *            primary key of the actual table, or of the expected table if the
+     *            actual one has none
+     * @param keyComparator
+     *            Compares the keys of two rows, given as <code>Object[]</code>
+     *            holding the values of the key columns, or <code>null</code> for
+     *            the order of the comparison data types
+     * @param failureHandler
+     *            The failure handler notified of every difference or
+     *            <code>null</code> for the default one
+     * @throws DatabaseUnitException
+     *             Also if a table turns out not to be ordered by the key
+     * @since 2.5.2
+     */
+    public void assertEqualsOrderedByKey(ITable expectedTable, ITable actualTable,
+            String[] keyColumnNames, Comparator keyComparator,
+            FailureHandler failureHandler) throws DatabaseUnitException
+    {
+        logger.debug("assertEqualsOrderedByKey(expectedTable={}, actualTable={}, failureHandler={}) - start",
+                new Object[] { expectedTable, actualTable, failureHandler });
+
+        // Do not continue if same instance
+        if (expectedTable == actualTable) {
+            return;
+        }
+
+        if (failureHandler == null) {
+            logger.debug("FailureHandler is null. Using default implementation");
+            failureHandler = getDefaultFailureHandler();
+        }
+
+        if (!Tables.hasRow(expectedTable, 0) && !Tables.hasRow(actualTable, 0)) {
+            logger.debug("Tables are empty, hence equals.");
+            return;
+        }
+
+        ITableMetaData expectedMetaData = expectedTable.getTableMetaData();
+        ITableMetaData actualMetaData = actualTable.getTableMetaData();
+        ComparisonColumn[] comparisonCols = getComparedColumns(expectedMetaData,
+                actualMetaData, failureHandler);
+
+        if (keyColumnNames == null) {
+            keyColumnNames = getKeyColumnNames(expectedMetaData, actualMetaData);
+        }
+
+        compareDataOrderedByKey(expectedTable, actualTable, comparisonCols, keyColumnNames,
+                keyComparator, failureHandler);
+    }
+
+    /**
+     * Merges the rows of both key ordered tables, see
+     * {@link #assertEqualsOrderedByKey(ITable, ITable, String[], Comparator, FailureHandler)}.
+     * 
+     * @param expectedTable
+     *            Table containing all expected results.
+     * @param actualTable
+     *            Table containing all actual results.
+     * @param comparisonCols
+     *            The columns to be compared, also including the correct
+     *            {@link DataType}s for comparison
+     * @param keyColumnNames
+     *            The columns both tables are ordered by
+     * @param keyComparator
+     *            The order of the keys or <code>null</code> for the order of the
+     *            comparison data types
+     * @param failureHandler
+     *            The failure handler notified of the differences. Must not be
+     *            <code>null</code> at this stage
+     * @throws DataSetException
+     *             Also if a table turns out not to be ordered by the key
+     * @since 2.5.2
+     */
+    protected void compareDataOrderedByKey(ITable expectedTable, ITable actualTable,
+            ComparisonColumn[] comparisonCols, String[] keyColumnNames,
+            Comparator keyComparator, FailureHandler failureHandler) throws DataSetException
+    {
+        logger.debug("compareDataOrderedByKey(expectedTable={}, actualTable={}, "
+                + "keyColumnNames={}) - start",
+                new Object[] {expectedTable, actualTable, keyColumnNames});
+
+        ITableMetaData expectedMetaData = expectedTable.getTableMetaData();
+        ITableMetaData actualMetaData = actualTable.getTableMetaData();
+        int[] expectedIndexes = new int[comparisonCols.length];
+        int[] actualIndexes = new int[comparisonCols.length];
+        for (int j = 0; j < comparisonCols.length; j++) {
+            String columnName = comparisonCols[j].getColumnName();
+            expectedIndexes[j] = expectedMetaData.getColumnIndex(columnName);
+            actualIndexes[j] = actualMetaData.getColumnIndex(columnName);
+        }
+        int[] keys = getKeyPositions(expectedMetaData, keyColumnNames, expectedIndexes);
+        KeyOrder keyOrder = new KeyOrder(keys, comparisonCols, keyComparator);
+
+        // Each row is read once into a buffer, the previous one is kept for
+        // verifying the order
+        RowCursor expected = new RowCursor(expectedTable, expectedIndexes, keys,
+                comparisonCols, keyOrder);
+        RowCursor actual = new RowCursor(actualTable, actualIndexes, keys,
+                comparisonCols, keyOrder);
+
+        String tableName = expectedMetaData.getTableName();
+        while (expected.hasRow() || actual.hasRow()) {
+            if (isExhausted(failureHandler, tableName)) {
+                logger.debug("Difference limit reached, skipping the remaining rows of {}",
+                        tableName);
+                break;
+            }
+
+            int cmp;
+            if (!actual.hasRow()) {
+                cmp = -1;
+            }
+            else if (!expected.hasRow()) {
+                cmp = 1;
+            }
+            else {
+                cmp = keyOrder.compare(expected.values, actual.values);
+            }
+
+            if (cmp < 0) {
+                if (isReported(failureHandler, expectedTable)) {
+                    failureHandler.handle(new Difference(expectedTable, actualTable,
+                            expected.row, -1, null, expected.describeKey(), null));
+                }
+                expected.next();
+            }
+            else if (cmp > 0) {
+                if (isReported(failureHandler, expectedTable)) {
+                    failureHandler.handle(new Difference(expectedTable, actualTable,
+                            -1, actual.row, null, null, actual.describeKey()));
+                }
+                actual.next();
+            }
+            else {
+                for (int j = 0; j < comparisonCols.length; j++) {
+                    compareValue(expectedTable, actualTable, expected.row, actual.row,
+                            comparisonCols[j], expected.values[j], actual.values[j],
+                            failureHandler);
+                }
+                expected.next();
+                actual.next();
+            }
+        }
+    }
+
+    /**
+     * Order of the rows of key ordered tables, given the values of the compared
+     * columns of two rows.
+     */
+    private static class KeyOrder
+    {
+        private final int[] keys;
+        private final ComparisonColumn[] comparisonCols;
+        private final Comparator comparator;
+        private final Object[] leftKey;
+        private final Object[] rightKey;
+
+        KeyOrder(int[] keys, ComparisonColumn[] comparisonCols, Comparator comparator)
+        {
+            this.keys = keys;
+            this.comparisonCols = comparisonCols;
+            this.comparator = comparator;
+            this.leftKey = new Object[keys.length];
+            this.rightKey = new Object[keys.length];
+        }
+
+        int compare(Object[] left, Object[] right) throws DataSetException
+        {
+            if (comparator != null) {
+                for (int k = 0; k < keys.length; k++) {
+                    leftKey[k] = left[keys[k]];
+                    rightKey[k] = right[keys[k]];
+                }
+                return comparator.compare(leftKey, rightKey);
+            }
+
+            for (int k = 0; k < keys.length; k++) {
+                int j = keys[k];
+                int cmp = comparisonCols[j].getDataType().compare(left[j], right[j]);
+                if (cmp != 0) {
+                    return cmp;
+                }
+            }
+            return 0;
+        }
+    }
+
+    /**
+     * Forward only position in a table holding the values of the current row.
+     */
+    private static class RowCursor
+    {
+        private final ITable table;
+        private final int[] indexes;
+        private final int[] keys;
+        private final ComparisonColumn[] comparisonCols;
+        private final KeyOrder keyOrder;
+        private Object[] values;
+        private Object[] previousValues;
+        private int row;
+        private boolean hasRow;
+
+        RowCursor(ITable table, int[] indexes, int[] keys,
+                ComparisonColumn[] comparisonCols, KeyOrder keyOrder) throws DataSetException
+        {
+            this.table = table;
+            this.indexes = indexes;
+            this.keys = keys;
+            this.comparisonCols = comparisonCols;
+            this.keyOrder = keyOrder;
+            this.values = new Object[indexes.length];
+            this.previousValues = new Object[indexes.length];
+            read();
+        }
+
+        boolean hasRow()
+        {
+            return hasRow;
+        }
 
-                    // Handle the difference (throw error immediately or something else)
-                    failureHandler.handle(diff);
+        void next() throws DataSetException
+        {
+            Object[] swap = previousValues;
+            previousValues = values;
+            values = swap;
+            row++;
+            read();
+
+            if (hasRow && keyOrder.compare(previousValues, values) > 0) {
+                throw new DataSetException("The table "
+                        + table.getTableMetaData().getTableName()
+                        + " is not ordered by its key: row " + row + " " + describeKey()
+                        + " comes after " + describeKey(previousValues));
+            }
+        }
+
+        private void read() throws DataSetException
+        {
+            hasRow = Tables.hasRow(table, row);
+            if (hasRow) {
+                for (int j = 0; j < indexes.length; j++) {
+                    values[j] = Tables.getValue(table, row, indexes[j]);
                 }
             }
         }
 
+        String describeKey()
+        {
+            return describeKey(values);
+        }
+
+        private String describeKey(Object[] rowValues)
+        {
+            StringBuffer sb = new StringBuffer("[");
+            for (int k = 0; k < keys.length; k++) {
+                int j = keys[k];
+                if (k > 0) {
+                    sb.append(", ");
+                }
+                sb.append(comparisonCols[j].getColumnName()).append('=');
+                sb.append(rowValues[j]);
+            }
+            return sb.append(']').toString();
+        }
+    }
+
+    /**
+     * @return The key of the given row, equal for all rows whose key columns are
+     * equal according to the comparison datatypes
+     */
+    private Object createKey(ITable table, int row, int[] keys, int[] indexes,
+            ComparisonColumn[] comparisonCols) throws DataSetException
+    {
+        if (keys.length == 1) {
+            int j = keys[0];
+            return normalizeKeyValue(Tables.getValue(table, row, indexes[j]),
+                    comparisonCols[j].getDataType());
+        }
+
+        List key = new ArrayList(keys.length);
+        for (int k = 0; k < keys.length; k++) {
+            int j = keys[k];
+            key.add(normalizeKeyValue(Tables.getValue(table, row, indexes[j]),
+                    comparisonCols[j].getDataType()));
+        }
+        return key;
+    }
+
+    private Object normalizeKeyValue(Object value, DataType dataType)
+    {
+        if (value == null || value == ITable.NO_VALUE) {
+            return null;
+        }
+
+        try {
+            if (dataType instanceof UnknownDataType) {
+                // compared as strings
+                return DataType.asString(value);
+            }
+
+            Object castValue = dataType.typeCast(value);
+            if (dataType instanceof StringIgnoreCaseDataType && castValue != null) {
+                return castValue.toString().toUpperCase();
+            }
+            if (castValue instanceof BigDecimal) {
+                // 1.0 and 1.00 are the same key
+                return ((BigDecimal) castValue).stripTrailingZeros();
+            }
+            if (castValue instanceof byte[]) {
+                return ByteBuffer.wrap((byte[]) castValue);
+            }
+            return castValue;
+        }
+        catch (TypeCastException e) {
+            logger.debug("Cannot cast key value {}, using its string value", value);
+            return String.valueOf(value);
+        }
+    }
+
+    private String describeKey(ITable table, int row, int[] keys, int[] indexes,
+            ComparisonColumn[] comparisonCols) throws DataSetException
+    {
+        StringBuffer sb = new StringBuffer("[");
+        for (int k = 0; k < keys.length; k++) {
+            int j = keys[k];
+            if (k > 0) {
+                sb.append(", ");
+            }
+            sb.append(comparisonCols[j].getColumnName()).append('=');
+            sb.append(Tables.getValue(table, row, indexes[j]));
+        }
+        return sb.append(']').toString();
+    }
+
+    /**
+     * Checks the limits of a {@link LimitingFailureHandler} before a difference is
+     * created and counts the difference if it is not going to be reported.
+     * @return Whether the difference has to be created and handled
+     */
+    private boolean isReported(FailureHandler failureHandler, ITable expectedTable)
+    {
+        if (!(failureHandler instanceof LimitingFailureHandler)) {
+            return true;
+        }
+
+        LimitingFailureHandler limitingHandler = (LimitingFailureHandler) failureHandler;
+        String tableName = expectedTable.getTableMetaData().getTableName();
+        if (limitingHandler.accepts(tableName)) {
+            return true;
+        }
+        limitingHandler.countDifferences(tableName, 1);
+        return false;
+    }
+
+    /**
+     * @return Whether the remaining rows of the table need not be compared
+     * because a fail fast {@link LimitingFailureHandler} reached its limit
+     */
+    private boolean isExhausted(FailureHandler failureHandler, String tableName)
+    {
+        return failureHandler instanceof LimitingFailureHandler
+                && ((LimitingFailureHandler) failureHandler).isExhausted(tableName);
+    }
+
+    /**
+     * @return Whether the remaining tables need not be compared because a fail
+     * fast {@link LimitingFailureHandler} reached its limit
+     */
+    private boolean isExhausted(FailureHandler failureHandler)
+    {
+        return failureHandler instanceof LimitingFailureHandler
+                && ((LimitingFailureHandler) failureHandler).isExhausted();
     }
 
     /**
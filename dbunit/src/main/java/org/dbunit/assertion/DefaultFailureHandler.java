@@ -111,6 +111,12 @@ public class DefaultFailureHandler implements FailureHandler
     }
 
     private String buildAdditionalColumnInfo(ITable expectedTable, ITable actualTable, int rowIndex)
+    {
+        return buildAdditionalColumnInfo(expectedTable, actualTable, rowIndex, rowIndex);
+    }
+
+    private String buildAdditionalColumnInfo(ITable expectedTable, ITable actualTable,
+            int rowIndex, int actualRowIndex)
     {
         if(logger.isDebugEnabled())
         {
@@ -132,7 +138,7 @@ public class DefaultFailureHandler implements FailureHandler
             Object expectedKeyValue =
                     getColumnValue(expectedTable, rowIndex, columnName);
             Object actualKeyValue =
-                    getColumnValue(actualTable, rowIndex, columnName);
+                    getColumnValue(actualTable, actualRowIndex, columnName);
 
             sb.append(" ('");
             sb.append(columnName);
@@ -232,6 +238,28 @@ public class DefaultFailureHandler implements FailureHandler
         String columnName = diff.getColumnName();
         String tableName = diff.getExpectedTable().getTableMetaData().getTableName();
 
+        // rows matched by key, see DbUnitAssert#assertEqualsByKey
+        if (diff.isMissingRow())
+        {
+            return "missing row (table=" + tableName + ", row=" + row + ")";
+        }
+        if (diff.isUnexpectedRow())
+        {
+            return "unexpected row (table=" + tableName + ", actualRow=" + diff.getActualRowIndex() + ")";
+        }
+        if (row != diff.getActualRowIndex())
+        {
+            String msg = "value (table=" + tableName + ", row=" + row
+                    + ", actualRow=" + diff.getActualRowIndex() + ", col=" + columnName;
+            String additionalInfo = buildAdditionalColumnInfo(diff.getExpectedTable(),
+                    diff.getActualTable(), row, diff.getActualRowIndex());
+            if (additionalInfo != null)
+            {
+                msg += ", " + additionalInfo;
+            }
+            return msg + ")";
+        }
+
         // example message:
         // "value (table=MYTAB, row=232, column=MYCOL, Additional row info: (column=MyIdCol, expected=444, actual=555)): expected:<123> but was:<1234>"
         String msg = "value (table=" + tableName + ", row=" + row + ", col=" + columnName;
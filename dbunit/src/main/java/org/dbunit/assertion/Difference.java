@@ -39,6 +39,7 @@ public class Difference
     private ITable expectedTable;
     private ITable actualTable;
     private int rowIndex;
+    private int actualRowIndex;
     private String columnName;
     private Object expectedValue;
     private Object actualValue;
@@ -46,11 +47,34 @@ public class Difference
     public Difference(ITable expectedTable, ITable actualTable, 
             int rowIndex, String columnName,
             Object expectedValue, Object actualValue) 
+    {
+        this(expectedTable, actualTable, rowIndex, rowIndex, columnName,
+                expectedValue, actualValue);
+    }
+
+    /**
+     * Creates the difference of rows matched by key rather than by position.
+     * @param expectedTable
+     * @param actualTable
+     * @param rowIndex The row of the expected table or <code>-1</code> if the
+     * actual row has no expected counterpart
+     * @param actualRowIndex The row of the actual table or <code>-1</code> if the
+     * expected row has no actual counterpart
+     * @param columnName The differing column or <code>null</code> for a missing or
+     * unexpected row
+     * @param expectedValue The expected value or the key of a missing row
+     * @param actualValue The actual value or the key of an unexpected row
+     * @since 2.5.2
+     */
+    public Difference(ITable expectedTable, ITable actualTable,
+            int rowIndex, int actualRowIndex, String columnName,
+            Object expectedValue, Object actualValue)
     {
         super();
         this.expectedTable = expectedTable;
         this.actualTable = actualTable;
         this.rowIndex = rowIndex;
+        this.actualRowIndex = actualRowIndex;
         this.columnName = columnName;
         this.expectedValue = expectedValue;
         this.actualValue = actualValue;
@@ -70,6 +94,31 @@ public class Difference
         return rowIndex;
     }
 
+    /**
+     * @return The row of the actual table, which is the same as {@link #getRowIndex()}
+     * unless the rows were matched by key
+     * @since 2.5.2
+     */
+    public int getActualRowIndex() {
+        return actualRowIndex;
+    }
+
+    /**
+     * @return Whether an expected row has no actual row with the same key
+     * @since 2.5.2
+     */
+    public boolean isMissingRow() {
+        return actualRowIndex < 0;
+    }
+
+    /**
+     * @return Whether an actual row has no expected row with the same key
+     * @since 2.5.2
+     */
+    public boolean isUnexpectedRow() {
+        return rowIndex < 0;
+    }
+
     public String getColumnName() {
         return columnName;
     }
@@ -89,6 +138,7 @@ public class Difference
         sb.append("expectedTable=").append(expectedTable);
         sb.append(", actualTable=").append(actualTable);
         sb.append(", rowIndex=").append(rowIndex);
+        sb.append(", actualRowIndex=").append(actualRowIndex);
         sb.append(", columnName=").append(columnName);
         sb.append(", expectedValue=").append(expectedValue);
         sb.append(", actualValue=").append(actualValue);
@@ -0,0 +1,319 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.assertion;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.dbunit.dataset.ITable;
+
+/**
+ * A {@link FailureHandler} that passes at most a given number of
+ * {@link Difference}s per table and per assertion on to another handler and
+ * only counts the remaining ones. {@link DbUnitAssert} recognizes it and does
+ * not create the {@link Difference} objects beyond the limits at all. In fail
+ * fast mode the comparison stops as soon as a limit is reached, so large tables
+ * are not scanned to the end.
+ * <p>
+ * You can use it as follows:
+ * <code><pre>
+ * DiffCollectingFailureHandler collector = new DiffCollectingFailureHandler();
+ * LimitingFailureHandler myHandler = new LimitingFailureHandler(collector);
+ * myHandler.setMaxDifferencesPerTable(10);
+ * myHandler.setMaxDifferences(50);
+ * myHandler.setFailFast(true);
+ * assertion.assertEquals(expectedDataSet, actualDataSet, myHandler);
+ * // Evaluate the results
+ * List diffList = collector.getDiffList();
+ * String summary = myHandler.getSummary();
+ * ...
+ * </pre></code>
+ * </p>
+ * 
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.5.2
+ */
+public class LimitingFailureHandler implements FailureHandler
+{
+    /**
+     * The limit value that does not restrict the number of differences
+     */
+    public static final int UNLIMITED = Integer.MAX_VALUE;
+
+    private final FailureHandler delegate;
+    private int maxDifferencesPerTable = UNLIMITED;
+    private int maxDifferences = UNLIMITED;
+    private boolean failFast;
+
+    /**
+     * The counters of each table: differences found and differences reported
+     */
+    private final Map tableCounts = new LinkedHashMap();
+    private int differenceCount;
+    private int reportedCount;
+    private boolean stopped;
+
+    /**
+     * @param delegate The handler the differences within the limits are passed to.
+     * It also creates the failures.
+     */
+    public LimitingFailureHandler(FailureHandler delegate)
+    {
+        if (delegate == null)
+        {
+            throw new NullPointerException("The parameter 'delegate' must not be null");
+        }
+        this.delegate = delegate;
+    }
+
+    /**
+     * @param maxDifferencesPerTable The maximum number of differences reported
+     * for one table, {@link #UNLIMITED} by default
+     */
+    public void setMaxDifferencesPerTable(int maxDifferencesPerTable)
+    {
+        this.maxDifferencesPerTable = checkLimit(maxDifferencesPerTable);
+    }
+
+    public int getMaxDifferencesPerTable()
+    {
+        return maxDifferencesPerTable;
+    }
+
+    /**
+     * @param maxDifferences The maximum number of differences reported for all
+     * tables of the assertion, {@link #UNLIMITED} by default
+     */
+    public void setMaxDifferences(int maxDifferences)
+    {
+        this.maxDifferences = checkLimit(maxDifferences);
+    }
+
+    public int getMaxDifferences()
+    {
+        return maxDifferences;
+    }
+
+    /**
+     * @param failFast Whether the comparison of a table stops when its limit or
+     * the limit of the assertion is reached. The difference counts are then only
+     * lower bounds. Default is <code>false</code> which compares all rows and
+     * counts every difference.
+     */
+    public void setFailFast(boolean failFast)
+    {
+        this.failFast = failFast;
+    }
+
+    public boolean isFailFast()
+    {
+        return failFast;
+    }
+
+    private static int checkLimit(int limit)
+    {
+        if (limit < 1)
+        {
+            throw new IllegalArgumentException("The limit must be positive but was " + limit);
+        }
+        return limit;
+    }
+
+    /**
+     * Counts the difference and passes it on to the delegate if neither limit
+     * has been reached yet.
+     */
+    public void handle(Difference diff)
+    {
+        String tableName = diff.getExpectedTable().getTableMetaData().getTableName();
+        int[] counts = getCounts(tableName);
+        counts[0]++;
+        differenceCount++;
+        if (accepts(counts))
+        {
+            counts[1]++;
+            reportedCount++;
+            delegate.handle(diff);
+        }
+    }
+
+    /**
+     * @param tableName The name of the expected table
+     * @return Whether the next difference of the table would be reported. If not,
+     * {@link DbUnitAssert} only counts it with {@link #countDifferences(String, int)}
+     */
+    public boolean accepts(String tableName)
+    {
+        return accepts(getCounts(tableName));
+    }
+
+    private boolean accepts(int[] counts)
+    {
+        return reportedCount < maxDifferences && counts[1] < maxDifferencesPerTable;
+    }
+
+    /**
+     * Counts differences that are not reported.
+     * @param tableName The name of the expected table
+     * @param count The number of differences
+     */
+    public void countDifferences(String tableName, int count)
+    {
+        getCounts(tableName)[0] += count;
+        differenceCount += count;
+    }
+
+    /**
+     * @param tableName The name of the expected table
+     * @return Whether the remaining rows of the table need not be compared,
+     * which is the case in fail fast mode when no more difference is reported
+     */
+    public boolean isExhausted(String tableName)
+    {
+        boolean exhausted = failFast && !accepts(tableName);
+        stopped |= exhausted;
+        return exhausted;
+    }
+
+    /**
+     * @return Whether the remaining tables need not be compared, which is the
+     * case in fail fast mode when the limit of the assertion has been reached
+     */
+    public boolean isExhausted()
+    {
+        boolean exhausted = failFast && reportedCount >= maxDifferences;
+        stopped |= exhausted;
+        return exhausted;
+    }
+
+    /**
+     * @return Whether the comparison was stopped before all rows were compared,
+     * so the difference counts are lower bounds
+     */
+    public boolean isStopped()
+    {
+        return stopped;
+    }
+
+    /**
+     * Records that a comparison on behalf of this handler was stopped early.
+     */
+    void markStopped()
+    {
+        stopped = true;
+    }
+
+    private int[] getCounts(String tableName)
+    {
+        int[] counts = (int[]) tableCounts.get(tableName);
+        if (counts == null)
+        {
+            counts = new int[2];
+            tableCounts.put(tableName, counts);
+        }
+        return counts;
+    }
+
+    /**
+     * @return The number of differences found, including those not reported
+     */
+    public int getDifferenceCount()
+    {
+        return differenceCount;
+    }
+
+    /**
+     * @param tableName The name of the expected table
+     * @return The number of differences found in the table, including those not
+     * reported
+     */
+    public int getDifferenceCount(String tableName)
+    {
+        int[] counts = (int[]) tableCounts.get(tableName);
+        return counts == null ? 0 : counts[0];
+    }
+
+    /**
+     * @return The number of differences passed on to the delegate
+     */
+    public int getReportedDifferenceCount()
+    {
+        return reportedCount;
+    }
+
+    /**
+     * @return A one line summary of the differences found per table, for example
+     * <code>12 differences (5 reported): TEST_TABLE=10, SECOND_TABLE=2</code>
+     */
+    public String getSummary()
+    {
+        StringBuffer sb = new StringBuffer();
+        if (stopped)
+        {
+            sb.append("at least ");
+        }
+        sb.append(differenceCount).append(" differences (");
+        sb.append(reportedCount).append(" reported)");
+        String separator = ": ";
+        for (Iterator it = tableCounts.entrySet().iterator(); it.hasNext();)
+        {
+            Map.Entry entry = (Map.Entry) it.next();
+            int[] counts = (int[]) entry.getValue();
+            if (counts[0] > 0)
+            {
+                sb.append(separator).append(entry.getKey()).append("=").append(counts[0]);
+                separator = ", ";
+            }
+        }
+        return sb.toString();
+    }
+
+    public String getAdditionalInfo(ITable expectedTable, ITable actualTable,
+            int row, String columnName)
+    {
+        return delegate.getAdditionalInfo(expectedTable, actualTable, row, columnName);
+    }
+
+    public Error createFailure(String message, String expected, String actual)
+    {
+        return delegate.createFailure(message, expected, actual);
+    }
+
+    public Error createFailure(String message)
+    {
+        return delegate.createFailure(message);
+    }
+
+    public String toString()
+    {
+        StringBuffer sb = new StringBuffer();
+        sb.append(LimitingFailureHandler.class.getName()).append("[");
+        sb.append("delegate=").append(delegate);
+        sb.append(", maxDifferencesPerTable=").append(maxDifferencesPerTable);
+        sb.append(", maxDifferences=").append(maxDifferences);
+        sb.append(", failFast=").append(failFast);
+        sb.append(", summary=").append(getSummary());
+        sb.append("]");
+        return sb.toString();
+    }
+}
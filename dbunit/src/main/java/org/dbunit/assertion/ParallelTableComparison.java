@@ -0,0 +1,379 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.assertion;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.dbunit.DatabaseUnitException;
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.database.IDatabaseConnectionSupplier;
+import org.dbunit.dataset.IDataSet;
+import org.dbunit.dataset.ITable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Compares the tables of an expected dataset with the database on several threads.
+ * <p>
+ * Each worker owns a connection created by the {@link IDatabaseConnectionSupplier} and
+ * takes the next table to be compared until all tables are done. The differences of
+ * every table are collected separately and replayed into the caller's
+ * {@link FailureHandler} on the calling thread in the order of the table names, so the
+ * caller sees the same differences in the same order as with a sequential assertion,
+ * independently of the order in which the workers finished. If the caller's handler
+ * fails with the first difference like the {@link DefaultFailureHandler} does, a worker
+ * stops comparing a table at its first difference.
+ * </p>
+ * <p>
+ * The workers read the tables through their own connections, so they only see
+ * changes committed before the comparison.
+ * </p>
+ *
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.5.2
+ */
+class ParallelTableComparison
+{
+
+    /**
+     * Logger for this class
+     */
+    private static final Logger logger = LoggerFactory.getLogger(ParallelTableComparison.class);
+
+    private final DbUnitAssert _assert;
+    private final IDatabaseConnectionSupplier _connectionSupplier;
+    private final int _threadCount;
+
+    /**
+     * @param dbUnitAssert The assertion comparing the single tables
+     * @param connectionSupplier Supplies one connection per worker
+     * @param threadCount The maximum number of concurrently compared tables
+     */
+    ParallelTableComparison(DbUnitAssert dbUnitAssert,
+            IDatabaseConnectionSupplier connectionSupplier, int threadCount)
+    {
+        if (connectionSupplier == null) {
+            throw new NullPointerException("The parameter 'connectionSupplier' must not be null");
+        }
+        if (threadCount < 1) {
+            throw new IllegalArgumentException("The thread count must be at least 1 but is " + threadCount);
+        }
+        _assert = dbUnitAssert;
+        _connectionSupplier = connectionSupplier;
+        _threadCount = threadCount;
+    }
+
+    /**
+     * Compares every table of the expected dataset with the table of the same name
+     * in the database.
+     * @param expectedDataSet The expected tables, read on the calling thread
+     * @param failureHandler The handler the differences are reported to
+     */
+    void compare(IDataSet expectedDataSet, FailureHandler failureHandler)
+            throws DatabaseUnitException
+    {
+        logger.debug("compare(expectedDataSet={}, failureHandler={}) - start",
+                expectedDataSet, failureHandler);
+
+        // Same order as the sequential assertion
+        String[] tableNames = _assert.getSortedUpperTableNames(expectedDataSet);
+        ITable[] expectedTables = new ITable[tableNames.length];
+        for (int i = 0; i < tableNames.length; i++)
+        {
+            expectedTables[i] = expectedDataSet.getTable(tableNames[i]);
+        }
+
+        TableResult[] results = new TableResult[tableNames.length];
+        for (int i = 0; i < tableNames.length; i++)
+        {
+            results[i] = new TableResult(expectedTables[i], failureHandler);
+        }
+
+        int workerCount = Math.min(_threadCount, tableNames.length);
+        if (workerCount == 0)
+        {
+            return;
+        }
+
+        AtomicInteger nextTable = new AtomicInteger();
+        Worker[] workers = new Worker[workerCount];
+        ExecutorService executorService = Executors.newFixedThreadPool(
+                workerCount, new WorkerThreadFactory());
+        try
+        {
+            List futures = new ArrayList(workerCount);
+            for (int i = 0; i < workerCount; i++)
+            {
+                workers[i] = new Worker(tableNames, results, nextTable);
+                futures.add(executorService.submit(workers[i]));
+            }
+            for (int i = 0; i < futures.size(); i++)
+            {
+                ((Future)futures.get(i)).get();
+            }
+
+            // Replay in table name order
+            for (int i = 0; i < results.length; i++)
+            {
+                results[i].replay(failureHandler);
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new DatabaseUnitException("Interrupted while waiting for the parallel workers", e);
+        }
+        catch (ExecutionException e)
+        {
+            // Workers record their failures per table, so this is unexpected
+            throw new DatabaseUnitException(e.getCause());
+        }
+        finally
+        {
+            executorService.shutdownNow();
+            for (int i = 0; i < workers.length; i++)
+            {
+                if (workers[i] != null)
+                {
+                    workers[i].closeConnection();
+                }
+            }
+        }
+    }
+
+    /**
+     * Compares tables until none is left, using its own connection.
+     */
+    private class Worker implements Runnable
+    {
+        private final String[] _tableNames;
+        private final TableResult[] _results;
+        private final AtomicInteger _nextTable;
+        private IDatabaseConnection _connection;
+
+        Worker(String[] tableNames, TableResult[] results, AtomicInteger nextTable)
+        {
+            _tableNames = tableNames;
+            _results = results;
+            _nextTable = nextTable;
+        }
+
+        public void run()
+        {
+            for (int i = _nextTable.getAndIncrement(); i < _tableNames.length;
+                    i = _nextTable.getAndIncrement())
+            {
+                TableResult result = _results[i];
+                try
+                {
+                    if (_connection == null)
+                    {
+                        _connection = _connectionSupplier.createConnection();
+                    }
+                    ITable actualTable = _connection.createDataSet(
+                            new String[] {_tableNames[i]}).getTable(_tableNames[i]);
+                    _assert.assertEquals(result._expectedTable, actualTable,
+                            result.getTableHandler());
+                }
+                catch (FirstDifferenceFound e)
+                {
+                    // The difference is recorded, the caller's handler fails on replay
+                }
+                catch (Throwable e)
+                {
+                    // Assertion errors and exceptions are rethrown in table order
+                    result._failure = e;
+                }
+            }
+        }
+
+        void closeConnection()
+        {
+            if (_connection != null)
+            {
+                try
+                {
+                    _connection.close();
+                }
+                catch (SQLException e)
+                {
+                    logger.warn("Exception while closing worker connection", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Collects the differences of one table. Failures are created by the caller's
+     * handler so that they have the type the caller expects.
+     */
+    private static class TableResult implements FailureHandler
+    {
+        private final ITable _expectedTable;
+        private final FailureHandler _failureHandler;
+        private final List _differences = new ArrayList();
+        private Throwable _failure;
+
+        /**
+         * Whether the caller's handler fails with the first difference, so the
+         * remaining rows of the table need not be compared
+         */
+        private final boolean _stopAtFirstDifference;
+
+        /**
+         * Applies the per table limit of a {@link LimitingFailureHandler} in the
+         * worker, the limit of the whole assertion is applied on replay
+         */
+        private LimitingFailureHandler _tableLimit;
+
+        TableResult(ITable expectedTable, FailureHandler failureHandler)
+        {
+            _expectedTable = expectedTable;
+            _failureHandler = failureHandler;
+            _stopAtFirstDifference = isFailingOnFirstDifference(failureHandler);
+            if (failureHandler instanceof LimitingFailureHandler)
+            {
+                LimitingFailureHandler limitingHandler = (LimitingFailureHandler)failureHandler;
+                _tableLimit = new LimitingFailureHandler(this);
+                _tableLimit.setMaxDifferencesPerTable(limitingHandler.getMaxDifferencesPerTable());
+                _tableLimit.setFailFast(limitingHandler.isFailFast());
+            }
+        }
+
+        FailureHandler getTableHandler()
+        {
+            return _tableLimit == null ? (FailureHandler)this : _tableLimit;
+        }
+
+        public void handle(Difference diff)
+        {
+            _differences.add(diff);
+            if (_stopAtFirstDifference)
+            {
+                throw new FirstDifferenceFound();
+            }
+        }
+
+        /**
+         * @return <code>true</code> if the handler inherits
+         * {@link DefaultFailureHandler#handle(Difference)} which throws the failure
+         * of the first difference
+         */
+        private static boolean isFailingOnFirstDifference(FailureHandler failureHandler)
+        {
+            if (!(failureHandler instanceof DefaultFailureHandler))
+            {
+                return false;
+            }
+            try
+            {
+                return failureHandler.getClass().getMethod("handle", new Class[] {Difference.class})
+                        .getDeclaringClass() == DefaultFailureHandler.class;
+            }
+            catch (NoSuchMethodException e)
+            {
+                return false;
+            }
+        }
+
+        public String getAdditionalInfo(ITable expectedTable, ITable actualTable,
+                int row, String columnName)
+        {
+            return _failureHandler.getAdditionalInfo(expectedTable, actualTable, row, columnName);
+        }
+
+        public Error createFailure(String message, String expected, String actual)
+        {
+            return _failureHandler.createFailure(message, expected, actual);
+        }
+
+        public Error createFailure(String message)
+        {
+            return _failureHandler.createFailure(message);
+        }
+
+        void replay(FailureHandler failureHandler) throws DatabaseUnitException
+        {
+            for (int i = 0; i < _differences.size(); i++)
+            {
+                failureHandler.handle((Difference)_differences.get(i));
+            }
+            if (_tableLimit != null)
+            {
+                ((LimitingFailureHandler)failureHandler).countDifferences(
+                        _expectedTable.getTableMetaData().getTableName(),
+                        _tableLimit.getDifferenceCount() - _differences.size());
+                if (_tableLimit.isStopped())
+                {
+                    ((LimitingFailureHandler)failureHandler).markStopped();
+                }
+            }
+
+            if (_failure instanceof Error)
+            {
+                throw (Error)_failure;
+            }
+            if (_failure instanceof DatabaseUnitException)
+            {
+                throw (DatabaseUnitException)_failure;
+            }
+            if (_failure instanceof RuntimeException)
+            {
+                throw (RuntimeException)_failure;
+            }
+            if (_failure != null)
+            {
+                throw new DatabaseUnitException("Exception comparing table "
+                        + _expectedTable.getTableMetaData().getTableName(), _failure);
+            }
+        }
+    }
+
+    /**
+     * Aborts the comparison of a table after the difference the caller's handler
+     * fails with has been recorded.
+     */
+    private static class FirstDifferenceFound extends Error
+    {
+        private static final long serialVersionUID = 1L;
+    }
+
+    private static class WorkerThreadFactory implements ThreadFactory
+    {
+        private final AtomicInteger _count = new AtomicInteger();
+
+        public Thread newThread(Runnable runnable)
+        {
+            Thread thread = new Thread(runnable, "ParallelTableComparison-" + _count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -25,6 +25,7 @@ import java.sql.SQLException;
 
 import org.dbunit.dataset.DataSetException;
 import org.dbunit.dataset.ITableMetaData;
+import org.dbunit.dataset.SpillThreshold;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -49,8 +50,8 @@ public class CachedResultSetTableFactory implements IResultSetTableFactory
     		logger.trace("createTable(tableName={}, selectStatement={}, connection={}) - start", 
     				new Object[] { tableName, selectStatement, connection });
 
-        return new CachedResultSetTable(new ForwardOnlyResultSetTable(
-                tableName, selectStatement, connection));
+        return createCachedTable(new ForwardOnlyResultSetTable(
+                tableName, selectStatement, connection), connection);
     }
 
     public IResultSetTable createTable(ITableMetaData metaData,
@@ -58,7 +59,7 @@ public class CachedResultSetTableFactory implements IResultSetTableFactory
     {
         logger.trace("createTable(metaData={}, connection={}) - start", metaData, connection);
         ForwardOnlyResultSetTable resultSetTable = new ForwardOnlyResultSetTable(metaData, connection);
-        return new CachedResultSetTable(resultSetTable);
+        return createCachedTable(resultSetTable, connection);
     }
     
     public IResultSetTable createTable(String tableName,
@@ -72,6 +73,22 @@ public class CachedResultSetTableFactory implements IResultSetTableFactory
         // Reuse method from ForwardOnly factory
         ForwardOnlyResultSetTable table = new ForwardOnlyResultSetTableFactory()
                     .createForwardOnlyResultSetTable(tableName, preparedStatement, connection);
+        return createCachedTable(table, connection);
+    }
+
+    /**
+     * Caches the given table in the heap, or in a {@link SpillingResultSetTable} if
+     * {@link DatabaseConfig#PROPERTY_SPILL_THRESHOLD} is set.
+     */
+    private IResultSetTable createCachedTable(IResultSetTable table, IDatabaseConnection connection)
+    throws SQLException, DataSetException
+    {
+        SpillThreshold threshold = (SpillThreshold) connection.getConfig().getProperty(
+                DatabaseConfig.PROPERTY_SPILL_THRESHOLD);
+        if (threshold != null)
+        {
+            return new SpillingResultSetTable(table, threshold);
+        }
         return new CachedResultSetTable(table);
     }
 
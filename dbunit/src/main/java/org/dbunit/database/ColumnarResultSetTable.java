@@ -0,0 +1,689 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.database;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.dbunit.dataset.AbstractTable;
+import org.dbunit.dataset.DataSetException;
+import org.dbunit.dataset.ITableMetaData;
+import org.dbunit.dataset.Tables;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Result set table caching all rows like {@link CachedResultSetTable} but storing them
+ * column by column. Numeric, date, time and timestamp values are kept in primitive arrays
+ * with a bitmap for the <code>null</code>s, and strings are dictionary encoded so that
+ * repeated values are held only once. String columns whose values turn out to be mostly
+ * distinct are kept as objects instead, since the dictionary would only add to their
+ * size. The values are boxed again on each
+ * {@link #getValue(int, int)} call. This needs a fraction of the memory of a row based
+ * table for large tables.
+ * <p>
+ * The storage of a column is chosen by the class of its first non <code>null</code> value.
+ * Big integers and decimals are kept in primitive arrays as long as they fit into a long.
+ * Columns with values of other classes (for example binary data or vendor specific
+ * types) or of mixed classes are kept as objects.
+ * </p>
+ *
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.5.2
+ * @see ColumnarResultSetTableFactory
+ */
+public class ColumnarResultSetTable extends AbstractTable implements IResultSetTable
+{
+
+    /**
+     * Logger for this class
+     */
+    private static final Logger logger = LoggerFactory.getLogger(ColumnarResultSetTable.class);
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * Number of rows a string column is dictionary encoded before the share of its
+     * distinct values is checked
+     */
+    private static final int DICTIONARY_SAMPLE_ROWS = 1000;
+
+    /**
+     * Highest share of distinct values of a dictionary encoded string column
+     */
+    private static final double MAX_DISTINCT_RATIO = 0.5;
+
+    private final ITableMetaData _metaData;
+    private final ColumnStore[] _columns;
+    private int _rowCount;
+
+    public ColumnarResultSetTable(IResultSetTable table) throws DataSetException, SQLException
+    {
+        _metaData = table.getTableMetaData();
+        int columnCount = _metaData.getColumns().length;
+        _columns = new ColumnStore[columnCount];
+        for (int i = 0; i < columnCount; i++)
+        {
+            _columns[i] = new PendingColumn();
+        }
+
+        try
+        {
+            for (int row = 0; Tables.hasRow(table, row); row++)
+            {
+                for (int i = 0; i < columnCount; i++)
+                {
+                    add(i, Tables.getValue(table, row, i));
+                }
+                _rowCount++;
+            }
+        }
+        finally
+        {
+            table.close();
+        }
+        for (int i = 0; i < columnCount; i++)
+        {
+            _columns[i].trim(_rowCount);
+        }
+        logger.debug("Cached {} rows of table {}", new Integer(_rowCount), _metaData.getTableName());
+    }
+
+    private void add(int column, Object value)
+    {
+        ColumnStore store = _columns[column];
+        if (!store.accepts(value))
+        {
+            if (store instanceof PendingColumn)
+            {
+                store = createColumn(value);
+            }
+            else
+            {
+                store = new ObjectColumn();
+            }
+            for (int row = 0; row < _rowCount; row++)
+            {
+                store.add(row, _columns[column].get(row));
+            }
+            _columns[column] = store;
+        }
+        store.add(_rowCount, value);
+    }
+
+    /**
+     * @return The storage for the values of the class of the given value
+     */
+    private static ColumnStore createColumn(Object value)
+    {
+        Class type = value.getClass();
+        if (type == String.class)
+        {
+            return new StringColumn();
+        }
+        if (type == Integer.class)
+        {
+            return new IntColumn();
+        }
+        if (type == Long.class)
+        {
+            return new LongColumn(Long.class);
+        }
+        if (type == BigInteger.class)
+        {
+            return new LongColumn(BigInteger.class);
+        }
+        if (type == java.sql.Date.class)
+        {
+            return new LongColumn(java.sql.Date.class);
+        }
+        if (type == Time.class)
+        {
+            return new LongColumn(Time.class);
+        }
+        if (type == Double.class || type == Float.class)
+        {
+            return new DoubleColumn(type);
+        }
+        if (type == BigDecimal.class)
+        {
+            return new DecimalColumn();
+        }
+        if (type == Timestamp.class)
+        {
+            return new TimestampColumn();
+        }
+        return new ObjectColumn();
+    }
+
+    ////////////////////////////////////////////////////////////////////////////
+    // ITable interface
+
+    public ITableMetaData getTableMetaData()
+    {
+        return _metaData;
+    }
+
+    public int getRowCount()
+    {
+        return _rowCount;
+    }
+
+    public Object getValue(int row, String columnName) throws DataSetException
+    {
+        return getValue(row, getColumnIndex(columnName));
+    }
+
+    public Object getValue(int row, int column) throws DataSetException
+    {
+        assertValidRowIndex(row, _rowCount);
+        return _columns[column].get(row);
+    }
+
+    ////////////////////////////////////////////////////////////////////////////
+    // IResultSetTable interface
+
+    public void close() throws DataSetException
+    {
+        // nothing to do, resultset already been closed
+    }
+
+    public String toString()
+    {
+        StringBuffer sb = new StringBuffer();
+        sb.append(getClass().getName()).append("[");
+        sb.append("_metaData=").append(_metaData);
+        sb.append(", _rowCount=").append(_rowCount);
+        sb.append(", _columns=[");
+        for (int i = 0; i < _columns.length; i++)
+        {
+            if (i > 0)
+            {
+                sb.append(", ");
+            }
+            String storeName = _columns[i].getClass().getName();
+            sb.append(storeName.substring(storeName.lastIndexOf('$') + 1));
+        }
+        sb.append("]]");
+        return sb.toString();
+    }
+
+    /**
+     * The values of one column
+     */
+    private static abstract class ColumnStore
+    {
+        /**
+         * @return Whether the given value can be stored in this column without losing information
+         */
+        abstract boolean accepts(Object value);
+
+        /**
+         * Stores the value of the next row
+         */
+        abstract void add(int row, Object value);
+
+        abstract Object get(int row);
+
+        /**
+         * Releases the capacity beyond the given number of rows
+         */
+        void trim(int rowCount)
+        {
+        }
+    }
+
+    /**
+     * Column having only <code>null</code> values so far
+     */
+    private static class PendingColumn extends ColumnStore
+    {
+        boolean accepts(Object value)
+        {
+            return value == null;
+        }
+
+        void add(int row, Object value)
+        {
+        }
+
+        Object get(int row)
+        {
+            return null;
+        }
+    }
+
+    /**
+     * Column storing its values as objects
+     */
+    private static class ObjectColumn extends ColumnStore
+    {
+        private final List _values = new ArrayList();
+
+        boolean accepts(Object value)
+        {
+            return true;
+        }
+
+        void add(int row, Object value)
+        {
+            _values.add(value);
+        }
+
+        Object get(int row)
+        {
+            return _values.get(row);
+        }
+
+        void trim(int rowCount)
+        {
+            ((ArrayList) _values).trimToSize();
+        }
+    }
+
+    /**
+     * Column storing its values in a primitive array, with a bitmap of the <code>null</code> rows
+     */
+    private static abstract class PrimitiveColumn extends ColumnStore
+    {
+        private final BitSet _nulls = new BitSet();
+        private final Class _type;
+
+        PrimitiveColumn(Class type)
+        {
+            _type = type;
+        }
+
+        boolean accepts(Object value)
+        {
+            return value == null || value.getClass() == _type;
+        }
+
+        void add(int row, Object value)
+        {
+            ensureCapacity(row + 1);
+            if (value == null)
+            {
+                _nulls.set(row);
+            }
+            else
+            {
+                set(row, value);
+            }
+        }
+
+        Object get(int row)
+        {
+            return _nulls.get(row) ? null : getNotNull(row);
+        }
+
+        /**
+         * @return The new capacity for the given number of rows
+         */
+        static int grow(int capacity, int rowCount)
+        {
+            return rowCount <= capacity ? capacity : Math.max(rowCount, Math.max(INITIAL_CAPACITY, capacity * 2));
+        }
+
+        abstract void ensureCapacity(int rowCount);
+
+        abstract void set(int row, Object value);
+
+        abstract Object getNotNull(int row);
+    }
+
+    private static class IntColumn extends PrimitiveColumn
+    {
+        private int[] _values = new int[0];
+
+        IntColumn()
+        {
+            super(Integer.class);
+        }
+
+        void ensureCapacity(int rowCount)
+        {
+            int capacity = grow(_values.length, rowCount);
+            if (capacity != _values.length)
+            {
+                int[] values = new int[capacity];
+                System.arraycopy(_values, 0, values, 0, _values.length);
+                _values = values;
+            }
+        }
+
+        void set(int row, Object value)
+        {
+            _values[row] = ((Integer) value).intValue();
+        }
+
+        Object getNotNull(int row)
+        {
+            return new Integer(_values[row]);
+        }
+
+        void trim(int rowCount)
+        {
+            int[] values = new int[rowCount];
+            System.arraycopy(_values, 0, values, 0, rowCount);
+            _values = values;
+        }
+    }
+
+    /**
+     * Column of longs, big integers, dates or times stored as their long value. Big integers
+     * not fitting into a long are not accepted.
+     */
+    private static class LongColumn extends PrimitiveColumn
+    {
+        private final Class _type;
+        private long[] _values = new long[0];
+
+        LongColumn(Class type)
+        {
+            super(type);
+            _type = type;
+        }
+
+        boolean accepts(Object value)
+        {
+            return super.accepts(value) && (_type != BigInteger.class
+                    || value == null || ((BigInteger) value).bitLength() < 64);
+        }
+
+        void ensureCapacity(int rowCount)
+        {
+            int capacity = grow(_values.length, rowCount);
+            if (capacity != _values.length)
+            {
+                long[] values = new long[capacity];
+                System.arraycopy(_values, 0, values, 0, _values.length);
+                _values = values;
+            }
+        }
+
+        void set(int row, Object value)
+        {
+            if (value instanceof Number)
+            {
+                _values[row] = ((Number) value).longValue();
+            }
+            else
+            {
+                _values[row] = ((java.util.Date) value).getTime();
+            }
+        }
+
+        Object getNotNull(int row)
+        {
+            long value = _values[row];
+            if (_type == java.sql.Date.class)
+            {
+                return new java.sql.Date(value);
+            }
+            if (_type == Time.class)
+            {
+                return new Time(value);
+            }
+            if (_type == BigInteger.class)
+            {
+                return BigInteger.valueOf(value);
+            }
+            return new Long(value);
+        }
+
+        void trim(int rowCount)
+        {
+            long[] values = new long[rowCount];
+            System.arraycopy(_values, 0, values, 0, rowCount);
+            _values = values;
+        }
+    }
+
+    /**
+     * Column of doubles or floats
+     */
+    private static class DoubleColumn extends PrimitiveColumn
+    {
+        private final Class _type;
+        private double[] _values = new double[0];
+
+        DoubleColumn(Class type)
+        {
+            super(type);
+            _type = type;
+        }
+
+        void ensureCapacity(int rowCount)
+        {
+            int capacity = grow(_values.length, rowCount);
+            if (capacity != _values.length)
+            {
+                double[] values = new double[capacity];
+                System.arraycopy(_values, 0, values, 0, _values.length);
+                _values = values;
+            }
+        }
+
+        void set(int row, Object value)
+        {
+            _values[row] = ((Number) value).doubleValue();
+        }
+
+        Object getNotNull(int row)
+        {
+            if (_type == Float.class)
+            {
+                return new Float((float) _values[row]);
+            }
+            return new Double(_values[row]);
+        }
+
+        void trim(int rowCount)
+        {
+            double[] values = new double[rowCount];
+            System.arraycopy(_values, 0, values, 0, rowCount);
+            _values = values;
+        }
+    }
+
+    /**
+     * Column of decimals stored as unscaled long value and scale. Values whose unscaled
+     * value does not fit into a long are not accepted.
+     */
+    private static class DecimalColumn extends PrimitiveColumn
+    {
+        private long[] _unscaledValues = new long[0];
+        private int[] _scales = new int[0];
+
+        DecimalColumn()
+        {
+            super(BigDecimal.class);
+        }
+
+        boolean accepts(Object value)
+        {
+            return super.accepts(value)
+                    && (value == null || ((BigDecimal) value).unscaledValue().bitLength() < 64);
+        }
+
+        void ensureCapacity(int rowCount)
+        {
+            int capacity = grow(_unscaledValues.length, rowCount);
+            if (capacity != _unscaledValues.length)
+            {
+                trim(capacity);
+            }
+        }
+
+        void set(int row, Object value)
+        {
+            BigDecimal decimal = (BigDecimal) value;
+            _unscaledValues[row] = decimal.unscaledValue().longValue();
+            _scales[row] = decimal.scale();
+        }
+
+        Object getNotNull(int row)
+        {
+            return new BigDecimal(BigInteger.valueOf(_unscaledValues[row]), _scales[row]);
+        }
+
+        void trim(int rowCount)
+        {
+            long[] unscaledValues = new long[rowCount];
+            System.arraycopy(_unscaledValues, 0, unscaledValues, 0,
+                    Math.min(rowCount, _unscaledValues.length));
+            _unscaledValues = unscaledValues;
+            int[] scales = new int[rowCount];
+            System.arraycopy(_scales, 0, scales, 0, Math.min(rowCount, _scales.length));
+            _scales = scales;
+        }
+    }
+
+    /**
+     * Column of timestamps stored as milliseconds and nanoseconds
+     */
+    private static class TimestampColumn extends PrimitiveColumn
+    {
+        private long[] _times = new long[0];
+        private int[] _nanos = new int[0];
+
+        TimestampColumn()
+        {
+            super(Timestamp.class);
+        }
+
+        void ensureCapacity(int rowCount)
+        {
+            int capacity = grow(_times.length, rowCount);
+            if (capacity != _times.length)
+            {
+                trim(capacity);
+            }
+        }
+
+        void set(int row, Object value)
+        {
+            Timestamp timestamp = (Timestamp) value;
+            _times[row] = timestamp.getTime();
+            _nanos[row] = timestamp.getNanos();
+        }
+
+        Object getNotNull(int row)
+        {
+            Timestamp timestamp = new Timestamp(_times[row]);
+            timestamp.setNanos(_nanos[row]);
+            return timestamp;
+        }
+
+        void trim(int rowCount)
+        {
+            long[] times = new long[rowCount];
+            System.arraycopy(_times, 0, times, 0, Math.min(rowCount, _times.length));
+            _times = times;
+            int[] nanos = new int[rowCount];
+            System.arraycopy(_nanos, 0, nanos, 0, Math.min(rowCount, _nanos.length));
+            _nanos = nanos;
+        }
+    }
+
+    /**
+     * Column of dictionary encoded strings: each distinct value is held once and the rows
+     * refer to it by index. Stops accepting values once the share of distinct values
+     * exceeds {@link #MAX_DISTINCT_RATIO}, so that the column is replaced by an
+     * {@link ObjectColumn}.
+     */
+    private static class StringColumn extends PrimitiveColumn
+    {
+        private final Map _codes = new HashMap();
+        private final List _dictionary = new ArrayList();
+        private int[] _values = new int[0];
+        private int _rowCount;
+
+        StringColumn()
+        {
+            super(String.class);
+        }
+
+        boolean accepts(Object value)
+        {
+            if (!super.accepts(value))
+            {
+                return false;
+            }
+            return _rowCount < DICTIONARY_SAMPLE_ROWS
+                    || _dictionary.size() <= _rowCount * MAX_DISTINCT_RATIO;
+        }
+
+        void add(int row, Object value)
+        {
+            super.add(row, value);
+            _rowCount = row + 1;
+        }
+
+        void ensureCapacity(int rowCount)
+        {
+            int capacity = grow(_values.length, rowCount);
+            if (capacity != _values.length)
+            {
+                int[] values = new int[capacity];
+                System.arraycopy(_values, 0, values, 0, _values.length);
+                _values = values;
+            }
+        }
+
+        void set(int row, Object value)
+        {
+            Integer code = (Integer) _codes.get(value);
+            if (code == null)
+            {
+                code = new Integer(_dictionary.size());
+                _dictionary.add(value);
+                _codes.put(value, code);
+            }
+            _values[row] = code.intValue();
+        }
+
+        Object getNotNull(int row)
+        {
+            return _dictionary.get(_values[row]);
+        }
+
+        void trim(int rowCount)
+        {
+            int[] values = new int[rowCount];
+            System.arraycopy(_values, 0, values, 0, rowCount);
+            _values = values;
+            // The codes are only needed while adding rows
+            _codes.clear();
+            ((ArrayList) _dictionary).trimToSize();
+        }
+    }
+}
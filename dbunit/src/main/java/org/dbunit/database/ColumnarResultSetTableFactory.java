@@ -0,0 +1,80 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.database;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+import org.dbunit.dataset.DataSetException;
+import org.dbunit.dataset.ITableMetaData;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Creates {@link ColumnarResultSetTable}s. Set it as
+ * {@link DatabaseConfig#PROPERTY_RESULTSET_TABLE_FACTORY} to cache large tables, for
+ * example for exports or comparisons, with less memory than the default
+ * {@link CachedResultSetTableFactory}.
+ *
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.5.2
+ */
+public class ColumnarResultSetTableFactory implements IResultSetTableFactory
+{
+
+    /**
+     * Logger for this class
+     */
+    private static final Logger logger = LoggerFactory.getLogger(ColumnarResultSetTableFactory.class);
+
+    public IResultSetTable createTable(String tableName, String selectStatement,
+            IDatabaseConnection connection) throws SQLException, DataSetException
+    {
+        if (logger.isTraceEnabled())
+            logger.trace("createTable(tableName={}, selectStatement={}, connection={}) - start",
+                    new Object[] { tableName, selectStatement, connection });
+
+        return new ColumnarResultSetTable(new ForwardOnlyResultSetTable(
+                tableName, selectStatement, connection));
+    }
+
+    public IResultSetTable createTable(ITableMetaData metaData,
+            IDatabaseConnection connection) throws SQLException, DataSetException
+    {
+        logger.trace("createTable(metaData={}, connection={}) - start", metaData, connection);
+
+        return new ColumnarResultSetTable(new ForwardOnlyResultSetTable(metaData, connection));
+    }
+
+    public IResultSetTable createTable(String tableName,
+            PreparedStatement preparedStatement, IDatabaseConnection connection)
+    throws SQLException, DataSetException
+    {
+        if (logger.isTraceEnabled())
+            logger.trace("createTable(tableName={}, preparedStatement={}, connection={}) - start",
+                new Object[]{ tableName, preparedStatement, connection});
+
+        ForwardOnlyResultSetTable table = new ForwardOnlyResultSetTableFactory()
+                .createForwardOnlyResultSetTable(tableName, preparedStatement, connection);
+        return new ColumnarResultSetTable(table);
+    }
+}
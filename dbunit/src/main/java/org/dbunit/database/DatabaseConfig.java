@@ -29,10 +29,14 @@ import java.util.Properties;
 
 import org.dbunit.DatabaseUnitException;
 import org.dbunit.database.statement.IStatementFactory;
+import org.dbunit.database.statement.PreparedStatementCache;
 import org.dbunit.database.statement.PreparedStatementFactory;
+import org.dbunit.dataset.SpillThreshold;
 import org.dbunit.dataset.datatype.DefaultDataTypeFactory;
 import org.dbunit.dataset.datatype.IDataTypeFactory;
 import org.dbunit.dataset.filter.IColumnFilter;
+import org.dbunit.operation.IBulkLoader;
+import org.dbunit.operation.IUpsertSqlBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -71,6 +75,24 @@ public class DatabaseConfig
 			"http://www.dbunit.org/properties/fetchSize";
 	public static final String PROPERTY_METADATA_HANDLER =
 	        "http://www.dbunit.org/properties/metadataHandler";
+    public static final String PROPERTY_PARALLEL_CONNECTION_SUPPLIER =
+            "http://www.dbunit.org/properties/parallelConnectionSupplier";
+    public static final String PROPERTY_PARALLEL_THREAD_COUNT =
+            "http://www.dbunit.org/properties/parallelThreadCount";
+    public static final String PROPERTY_UPSERT_SQL_BUILDER =
+            "http://www.dbunit.org/properties/upsertSqlBuilder";
+    public static final String PROPERTY_BULK_LOADER =
+            "http://www.dbunit.org/properties/bulkLoader";
+    public static final String PROPERTY_BULK_LOAD_THRESHOLD =
+            "http://www.dbunit.org/properties/bulkLoadThreshold";
+    public static final String PROPERTY_PREPARED_STATEMENT_CACHE =
+            "http://www.dbunit.org/properties/preparedStatementCache";
+    public static final String PROPERTY_METADATA_SNAPSHOT_STORE =
+            "http://www.dbunit.org/properties/metadataSnapshotStore";
+    public static final String PROPERTY_METADATA_CACHE =
+            "http://www.dbunit.org/properties/metadataCache";
+    public static final String PROPERTY_SPILL_THRESHOLD =
+            "http://www.dbunit.org/properties/spillThreshold";
 
     public static final String FEATURE_CASE_SENSITIVE_TABLE_NAMES =
         "http://www.dbunit.org/features/caseSensitiveTableNames";
@@ -84,6 +106,10 @@ public class DatabaseConfig
         "http://www.dbunit.org/features/skipOracleRecycleBinTables";
     public static final String FEATURE_ALLOW_EMPTY_FIELDS =
             "http://www.dbunit.org/features/allowEmptyFields";
+    public static final String FEATURE_GROUP_ROWS_BY_IGNORE_MAPPING =
+            "http://www.dbunit.org/features/groupRowsByIgnoreMapping";
+    public static final String FEATURE_PREFETCH_METADATA =
+            "http://www.dbunit.org/features/prefetchMetadata";
 
     /**
      * A list of all properties as {@link ConfigProperty} objects. 
@@ -99,12 +125,23 @@ public class DatabaseConfig
         new ConfigProperty(PROPERTY_BATCH_SIZE, Integer.class, false),
         new ConfigProperty(PROPERTY_FETCH_SIZE, Integer.class, false),
         new ConfigProperty(PROPERTY_METADATA_HANDLER, IMetadataHandler.class, false),
+        new ConfigProperty(PROPERTY_PARALLEL_CONNECTION_SUPPLIER, IDatabaseConnectionSupplier.class, true),
+        new ConfigProperty(PROPERTY_PARALLEL_THREAD_COUNT, Integer.class, false),
+        new ConfigProperty(PROPERTY_UPSERT_SQL_BUILDER, IUpsertSqlBuilder.class, true),
+        new ConfigProperty(PROPERTY_BULK_LOADER, IBulkLoader.class, true),
+        new ConfigProperty(PROPERTY_BULK_LOAD_THRESHOLD, Integer.class, false),
+        new ConfigProperty(PROPERTY_PREPARED_STATEMENT_CACHE, PreparedStatementCache.class, true),
+        new ConfigProperty(PROPERTY_METADATA_SNAPSHOT_STORE, MetadataSnapshotStore.class, true),
+        new ConfigProperty(PROPERTY_METADATA_CACHE, MetadataCache.class, true),
+        new ConfigProperty(PROPERTY_SPILL_THRESHOLD, SpillThreshold.class, true),
         new ConfigProperty(FEATURE_CASE_SENSITIVE_TABLE_NAMES, Boolean.class, false),
         new ConfigProperty(FEATURE_QUALIFIED_TABLE_NAMES, Boolean.class, false),
         new ConfigProperty(FEATURE_BATCHED_STATEMENTS, Boolean.class, false),
         new ConfigProperty(FEATURE_DATATYPE_WARNING, Boolean.class, false),
         new ConfigProperty(FEATURE_SKIP_ORACLE_RECYCLEBIN_TABLES, Boolean.class, false),
         new ConfigProperty(FEATURE_ALLOW_EMPTY_FIELDS, Boolean.class, false),
+        new ConfigProperty(FEATURE_GROUP_ROWS_BY_IGNORE_MAPPING, Boolean.class, false),
+        new ConfigProperty(FEATURE_PREFETCH_METADATA, Boolean.class, false),
     };
 
     /**
@@ -117,7 +154,9 @@ public class DatabaseConfig
         FEATURE_BATCHED_STATEMENTS,
         FEATURE_DATATYPE_WARNING,
         FEATURE_SKIP_ORACLE_RECYCLEBIN_TABLES,
-        FEATURE_ALLOW_EMPTY_FIELDS
+        FEATURE_ALLOW_EMPTY_FIELDS,
+        FEATURE_GROUP_ROWS_BY_IGNORE_MAPPING,
+        FEATURE_PREFETCH_METADATA
     };
     
     private static final DefaultDataTypeFactory DEFAULT_DATA_TYPE_FACTORY =
@@ -130,6 +169,8 @@ public class DatabaseConfig
     private static final String[] DEFAULT_TABLE_TYPE = {"TABLE"};
     private static final Integer DEFAULT_BATCH_SIZE = new Integer(100);
     private static final Integer DEFAULT_FETCH_SIZE = new Integer(100);
+    private static final Integer DEFAULT_PARALLEL_THREAD_COUNT = new Integer(4);
+    private static final Integer DEFAULT_BULK_LOAD_THRESHOLD = new Integer(10000);
 
 
 
@@ -144,6 +185,8 @@ public class DatabaseConfig
         setFeature(FEATURE_CASE_SENSITIVE_TABLE_NAMES, false);
         setFeature(FEATURE_DATATYPE_WARNING, true);
         setFeature(FEATURE_ALLOW_EMPTY_FIELDS, false);
+        setFeature(FEATURE_GROUP_ROWS_BY_IGNORE_MAPPING, false);
+        setFeature(FEATURE_PREFETCH_METADATA, false);
 
         setProperty(PROPERTY_STATEMENT_FACTORY, PREPARED_STATEMENT_FACTORY);
         setProperty(PROPERTY_RESULTSET_TABLE_FACTORY, RESULT_SET_TABLE_FACTORY);
@@ -153,6 +196,8 @@ public class DatabaseConfig
         setProperty(PROPERTY_BATCH_SIZE, DEFAULT_BATCH_SIZE);
         setProperty(PROPERTY_FETCH_SIZE, DEFAULT_FETCH_SIZE);
         setProperty(PROPERTY_METADATA_HANDLER, new DefaultMetadataHandler());
+        setProperty(PROPERTY_PARALLEL_THREAD_COUNT, DEFAULT_PARALLEL_THREAD_COUNT);
+        setProperty(PROPERTY_BULK_LOAD_THRESHOLD, DEFAULT_BULK_LOAD_THRESHOLD);
 
         this.configurator = new Configurator(this);
     }
@@ -25,6 +25,7 @@ import java.sql.Connection;
 import java.sql.SQLException;
 
 import org.dbunit.DatabaseUnitException;
+import org.dbunit.database.statement.PreparedStatementCache;
 import org.dbunit.util.SQLHelper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -141,6 +142,13 @@ public class DatabaseConnection extends AbstractDatabaseConnection
     public void close() throws SQLException
     {
         logger.debug("close() - start");
+
+        PreparedStatementCache statementCache = PreparedStatementCache.getCache(this);
+        if (statementCache != null)
+        {
+            statementCache.clear();
+        }
+        MetadataSnapshotStore.save(this);
         _connection.close();
     }
     
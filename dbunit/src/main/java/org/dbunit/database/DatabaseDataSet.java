@@ -25,8 +25,14 @@ import java.sql.Connection;
 import java.sql.DatabaseMetaData;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+
 import org.dbunit.DatabaseUnitRuntimeException;
 import org.dbunit.dataset.AbstractDataSet;
 import org.dbunit.dataset.Column;
@@ -62,7 +68,15 @@ public class DatabaseDataSet extends AbstractDataSet
 
     private final IDatabaseConnection _connection;
     private OrderedTableNameMap _tableMap = null;
+    /**
+     * Table map key to the table name exactly as listed by the database metadata
+     */
+    private final Map _listedTableNames = new HashMap();
     private SchemaSet _schemaSet = new SchemaSet(isCaseSensitiveTableNames());
+    /**
+     * Schema to its {@link PrefetchedSchemaMetaData} if {@link DatabaseConfig#FEATURE_PREFETCH_METADATA} is enabled
+     */
+    private final Map _prefetchedMetaData = new HashMap();
 
     private final ITableFilterSimple _tableFilter;
     private final ITableFilterSimple _oracleRecycleBinTableFilter;
@@ -192,67 +206,94 @@ public class DatabaseDataSet extends AbstractDataSet
         {
             logger.debug("Initializing the data set from the database...");
 
-            Connection jdbcConnection = _connection.getConnection();
-            DatabaseMetaData databaseMetaData = jdbcConnection.getMetaData();
-
-            if(SQLHelper.isSybaseDb(jdbcConnection.getMetaData()) && !jdbcConnection.getMetaData().getUserName().equals(schema) ){
-                logger.warn("For sybase the schema name should be equal to the user name. " +
-                        "Otherwise the DatabaseMetaData#getTables() method might not return any columns. " +
-                "See dbunit tracker #1628896 and http://issues.apache.org/jira/browse/TORQUE-40?page=all");
+            final String tableSchema = schema;
+            final String[] tableType = (String[])config.getProperty(DatabaseConfig.PROPERTY_TABLE_TYPE);
+            List tables = MetadataSnapshot.getSnapshot(_connection).getTables(schema, tableType,
+                    new MetadataSnapshot.Loader()
+                    {
+                        public Object load() throws SQLException
+                        {
+                            return getTables(tableSchema, tableType);
+                        }
+                    });
+
+            if (_tableMap == null) {
+                _tableMap = super.createTableNameMap();
             }
+            _schemaSet.add(schema);
+            for (Iterator iter = tables.iterator(); iter.hasNext();)
+            {
+                String[] table = (String[]) iter.next();
+                String schemaName = table[0];
+                String tableName = table[1];
 
-            String[] tableType = (String[])config.getProperty(DatabaseConfig.PROPERTY_TABLE_TYPE);
-            IMetadataHandler metadataHandler = (IMetadataHandler) config.getProperty(DatabaseConfig.PROPERTY_METADATA_HANDLER);
+                if(_tableFilter != null && !_tableFilter.accept(tableName))
+                {
+                    logger.debug("Skipping table '{}'", tableName);
+                    continue;
+                }
+                if(!_oracleRecycleBinTableFilter.accept(tableName))
+                {
+                    logger.debug("Skipping oracle recycle bin table '{}'", tableName);
+                    continue;
+                }
+                if (schema == null && !_schemaSet.contains(schemaName)) {
+                    _schemaSet.add(schemaName);
+                }
 
-            ResultSet resultSet = metadataHandler.getTables(databaseMetaData, schema, tableType);
+                QualifiedTableName qualifiedTableName = new QualifiedTableName(tableName, schemaName);
+                tableName = qualifiedTableName.getQualifiedNameIfEnabled(config);
 
-            if(logger.isDebugEnabled())
-            {
-                logger.debug(SQLHelper.getDatabaseInfo(jdbcConnection.getMetaData()));
-                logger.debug("metadata resultset={}", resultSet);
+                // Put the table into the table map
+                _tableMap.add(tableName, null);
+                _listedTableNames.put(_tableMap.getTableName(tableName), tableName);
             }
+        }
+        catch (SQLException e)
+        {
+            throw new DataSetException(e);
+        }
+    }
 
-            try
-            {
-        if (_tableMap == null) {
-          _tableMap = super.createTableNameMap();
+    /**
+     * Lists the tables of the given schema using the metadata handler.
+     * @return The <code>{schema, table}</code> pairs of the tables
+     */
+    private List getTables(String schema, String[] tableType) throws SQLException
+    {
+        Connection jdbcConnection = _connection.getConnection();
+        DatabaseMetaData databaseMetaData = jdbcConnection.getMetaData();
+
+        if(SQLHelper.isSybaseDb(jdbcConnection.getMetaData()) && !jdbcConnection.getMetaData().getUserName().equals(schema) ){
+            logger.warn("For sybase the schema name should be equal to the user name. " +
+                    "Otherwise the DatabaseMetaData#getTables() method might not return any columns. " +
+            "See dbunit tracker #1628896 and http://issues.apache.org/jira/browse/TORQUE-40?page=all");
         }
-        _schemaSet.add(schema);
-                while (resultSet.next())
-                {
-                    String schemaName = metadataHandler.getSchema(resultSet);
-                    String tableName = resultSet.getString(3);
 
-                    if(_tableFilter != null && !_tableFilter.accept(tableName))
-                    {
-                        logger.debug("Skipping table '{}'", tableName);
-                        continue;
-                    }
-                    if(!_oracleRecycleBinTableFilter.accept(tableName))
-                    {
-                        logger.debug("Skipping oracle recycle bin table '{}'", tableName);
-                        continue;
-                    }
-                    if (schema == null && !_schemaSet.contains(schemaName)) {
-                      _schemaSet.add(schemaName);
-                    }
-
-                    QualifiedTableName qualifiedTableName = new QualifiedTableName(tableName, schemaName);
-                    tableName = qualifiedTableName.getQualifiedNameIfEnabled(config);
-
-                    // Put the table into the table map
-                    _tableMap.add(tableName, null);
-                }
-            }
-            finally
+        IMetadataHandler metadataHandler = (IMetadataHandler) _connection.getConfig().getProperty(
+                DatabaseConfig.PROPERTY_METADATA_HANDLER);
+
+        ResultSet resultSet = metadataHandler.getTables(databaseMetaData, schema, tableType);
+
+        if(logger.isDebugEnabled())
+        {
+            logger.debug(SQLHelper.getDatabaseInfo(jdbcConnection.getMetaData()));
+            logger.debug("metadata resultset={}", resultSet);
+        }
+
+        List tables = new ArrayList();
+        try
+        {
+            while (resultSet.next())
             {
-                resultSet.close();
+                tables.add(new String[] {metadataHandler.getSchema(resultSet), resultSet.getString(3)});
             }
         }
-        catch (SQLException e)
+        finally
         {
-            throw new DataSetException(e);
+            resultSet.close();
         }
+        return tables;
     }
 
   private String getDefaultSchema() {
@@ -312,14 +353,45 @@ public class DatabaseDataSet extends AbstractDataSet
             return metaData;
         }
 
-        // Create metadata and cache it
-        metaData = new DatabaseTableMetaData(tableName, _connection, true, super.isCaseSensitiveTableNames());
+        // Create metadata and cache it. The table was just listed by the database, so
+        // neither its name nor its existence need to be checked again.
+        PrefetchedSchemaMetaData prefetchedMetaData = getPrefetchedMetaData(qualifiedTableName.getSchema());
+        String listedTableName = (String) _listedTableNames.get(_tableMap.getTableName(tableName));
+        if (listedTableName != null)
+        {
+            metaData = new DatabaseTableMetaData(_connection, listedTableName,
+                    super.isCaseSensitiveTableNames(), prefetchedMetaData);
+        }
+        else
+        {
+            metaData = new DatabaseTableMetaData(tableName, _connection, true,
+                    super.isCaseSensitiveTableNames(), prefetchedMetaData);
+        }
         // Put the metadata object into the cache map
         _tableMap.update(tableName, metaData);
 
         return metaData;
     }
 
+    /**
+     * @return The shared bulk read metadata of all tables of the given schema or <code>null</code>
+     * if {@link DatabaseConfig#FEATURE_PREFETCH_METADATA} is disabled
+     */
+    private PrefetchedSchemaMetaData getPrefetchedMetaData(String schema)
+    {
+        if (!_connection.getConfig().getFeature(DatabaseConfig.FEATURE_PREFETCH_METADATA))
+        {
+            return null;
+        }
+        PrefetchedSchemaMetaData prefetchedMetaData = (PrefetchedSchemaMetaData) _prefetchedMetaData.get(schema);
+        if (prefetchedMetaData == null)
+        {
+            prefetchedMetaData = new PrefetchedSchemaMetaData(_connection, schema, isCaseSensitiveTableNames());
+            _prefetchedMetaData.put(schema, prefetchedMetaData);
+        }
+        return prefetchedMetaData;
+    }
+
     public ITable getTable(String tableName) throws DataSetException
     {
         logger.debug("getTable(tableName={}) - start", tableName);
@@ -28,6 +28,7 @@ import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 
 import org.dbunit.dataset.AbstractTableMetaData;
@@ -70,6 +71,10 @@ public class DatabaseTableMetaData extends AbstractTableMetaData
     private Column[] _columns;
     private Column[] _primaryKeys;
     private boolean _caseSensitiveMetaData;
+    /**
+     * Bulk read metadata of the schema of this table, <code>null</code> if not prefetched
+     */
+    private PrefetchedSchemaMetaData _prefetchedMetaData;
 	//added by hzhan032
     private IColumnFilter lastKeyFilter;
 
@@ -105,6 +110,23 @@ public class DatabaseTableMetaData extends AbstractTableMetaData
      * @since 2.4.1
      */
     DatabaseTableMetaData(final String tableName, IDatabaseConnection connection, boolean validate, boolean caseSensitiveMetaData) throws DataSetException
+    {
+        this(tableName, connection, validate, caseSensitiveMetaData, null);
+    }
+
+    /**
+     * Creates a new database table metadata
+     * @param tableName The name of the table - can be fully qualified
+     * @param connection The database connection
+     * @param validate Whether or not to validate the given input data
+     * @param caseSensitiveMetaData Whether or not the metadata looked up in a case sensitive way
+     * @param prefetchedMetaData The bulk read metadata of the schema to take the columns and
+     * primary keys from. Can be <code>null</code>. Ignored if the table is in another schema.
+     * @throws DataSetException
+     * @since 2.5.2
+     */
+    DatabaseTableMetaData(final String tableName, IDatabaseConnection connection, boolean validate,
+            boolean caseSensitiveMetaData, PrefetchedSchemaMetaData prefetchedMetaData) throws DataSetException
     {
     	if (tableName == null) {
 			throw new NullPointerException("The parameter 'tableName' must not be null");
@@ -131,17 +153,29 @@ public class DatabaseTableMetaData extends AbstractTableMetaData
              
              // qualified names support - table name and schema is stored here
              _qualifiedTableNameSupport = new QualifiedTableName(_originalTableName, _connection.getSchema());
+             if (prefetchedMetaData != null && prefetchedMetaData.covers(_qualifiedTableNameSupport.getSchema()))
+             {
+                 _prefetchedMetaData = prefetchedMetaData;
+             }
 
              if(validate) 
              {
-                 String schemaName = _qualifiedTableNameSupport.getSchema();
-                 String plainTableName = _qualifiedTableNameSupport.getTable();
+                 final String schemaName = _qualifiedTableNameSupport.getSchema();
+                 final String plainTableName = _qualifiedTableNameSupport.getTable();
                  logger.debug("Validating if table '{}' exists in schema '{}' ...", plainTableName, schemaName);
                  try {
-                     DatabaseConfig config = connection.getConfig();
-                     IMetadataHandler metadataHandler = (IMetadataHandler) config.getProperty(DatabaseConfig.PROPERTY_METADATA_HANDLER);
-                     DatabaseMetaData databaseMetaData = jdbcConnection.getMetaData();
-                     if(!metadataHandler.tableExists(databaseMetaData, schemaName, plainTableName))
+                     final DatabaseConfig config = connection.getConfig();
+                     final DatabaseMetaData databaseMetaData = jdbcConnection.getMetaData();
+                     boolean tableExists = MetadataSnapshot.getSnapshot(connection).getTableExists(
+                             schemaName, plainTableName, new MetadataSnapshot.Loader()
+                             {
+                                 public Object load() throws SQLException
+                                 {
+                                     IMetadataHandler metadataHandler = (IMetadataHandler) config.getProperty(DatabaseConfig.PROPERTY_METADATA_HANDLER);
+                                     return Boolean.valueOf(metadataHandler.tableExists(databaseMetaData, schemaName, plainTableName));
+                                 }
+                             });
+                     if(!tableExists)
                      {
                          throw new NoSuchTableException("Did not find table '" + plainTableName + "' in schema '" + schemaName + "'");
                      }
@@ -163,6 +197,37 @@ public class DatabaseTableMetaData extends AbstractTableMetaData
         
     }
 
+    /**
+     * Creates the metadata of a table just listed by the database. The name is trusted: its case
+     * is not corrected and the existence of the table is not validated, which saves catalog queries.
+     * @param connection The database connection
+     * @param listedTableName The name of the table exactly as listed by the database metadata,
+     * qualified with the listed schema if {@link DatabaseConfig#FEATURE_QUALIFIED_TABLE_NAMES} is enabled
+     * @param caseSensitiveMetaData Whether or not the metadata looked up in a case sensitive way
+     * @param prefetchedMetaData The bulk read metadata of the schema to take the columns and
+     * primary keys from. Can be <code>null</code>. Ignored if the table is in another schema.
+     * @since 2.5.2
+     */
+    DatabaseTableMetaData(IDatabaseConnection connection, String listedTableName,
+            boolean caseSensitiveMetaData, PrefetchedSchemaMetaData prefetchedMetaData)
+    {
+        if (listedTableName == null) {
+            throw new NullPointerException("The parameter 'listedTableName' must not be null");
+        }
+        if (connection == null) {
+            throw new NullPointerException("The parameter 'connection' must not be null");
+        }
+
+        _connection = connection;
+        _caseSensitiveMetaData = caseSensitiveMetaData;
+        _originalTableName = listedTableName;
+        _qualifiedTableNameSupport = new QualifiedTableName(_originalTableName, _connection.getSchema());
+        if (prefetchedMetaData != null && prefetchedMetaData.covers(_qualifiedTableNameSupport.getSchema()))
+        {
+            _prefetchedMetaData = prefetchedMetaData;
+        }
+    }
+
     /**
      * @param tableName
      * @param resultSet
@@ -215,6 +280,23 @@ public class DatabaseTableMetaData extends AbstractTableMetaData
     	String schemaName = _qualifiedTableNameSupport.getSchema();
     	String tableName = _qualifiedTableNameSupport.getTable();
 
+        final String tableSchema = schemaName;
+        final String plainTableName = tableName;
+        return MetadataSnapshot.getSnapshot(_connection).getPrimaryKeys(schemaName, tableName,
+                new MetadataSnapshot.Loader()
+                {
+                    public Object load() throws SQLException
+                    {
+                        String[] keys = _prefetchedMetaData == null ? null
+                                : _prefetchedMetaData.getPrimaryKeyNames(plainTableName);
+                        return keys != null ? keys : readPrimaryKeyNames(tableSchema, plainTableName);
+                    }
+                });
+    }
+
+    private String[] readPrimaryKeyNames(String schemaName, String tableName) throws SQLException
+    {
+
         Connection connection = _connection.getConnection();
         DatabaseMetaData databaseMetaData = connection.getMetaData();
         
@@ -308,53 +390,42 @@ public class DatabaseTableMetaData extends AbstractTableMetaData
             	String schemaName = _qualifiedTableNameSupport.getSchema();
             	String tableName = _qualifiedTableNameSupport.getTable();
             	
-                Connection jdbcConnection = _connection.getConnection();
-                DatabaseMetaData databaseMetaData = jdbcConnection.getMetaData();
-                
                 DatabaseConfig config = _connection.getConfig();
-                
-                IMetadataHandler metadataHandler = (IMetadataHandler)config.getProperty(DatabaseConfig.PROPERTY_METADATA_HANDLER);
-                ResultSet resultSet = metadataHandler.getColumns(databaseMetaData, schemaName, tableName);
-
-                try
-                {
-                    IDataTypeFactory dataTypeFactory = super.getDataTypeFactory(_connection);
-                    boolean datatypeWarning = config.getFeature(
-                            DatabaseConfig.FEATURE_DATATYPE_WARNING);
-
-                    List columnList = new ArrayList();
-                    while (resultSet.next())
-                    {
-                        // Check for exact table/schema name match because
-                        // databaseMetaData.getColumns() uses patterns for the lookup
-                        boolean match = metadataHandler.matches(resultSet, schemaName, tableName, _caseSensitiveMetaData);
-                        if(match)
+                final String tableSchema = schemaName;
+                final String plainTableName = tableName;
+                List columnDataList = MetadataSnapshot.getSnapshot(_connection).getColumns(
+                        schemaName, tableName, _caseSensitiveMetaData, new MetadataSnapshot.Loader()
                         {
-                            Column column = SQLHelper.createColumn(resultSet, dataTypeFactory, datatypeWarning);
-                            if(column != null)
+                            public Object load() throws SQLException
                             {
-                                columnList.add(column);
+                                List columns = _prefetchedMetaData == null ? null
+                                        : _prefetchedMetaData.getColumns(plainTableName);
+                                return columns != null ? columns : readColumnData(tableSchema, plainTableName);
                             }
-                        }
-                        else
-                        {
-                            logger.debug("Skipping <schema.table> '" + resultSet.getString(2) + "." + 
-                                    resultSet.getString(3) + "' because names do not exactly match.");
-                        }
-                    }
+                        });
 
-                    if (columnList.size() == 0)
+                IDataTypeFactory dataTypeFactory = super.getDataTypeFactory(_connection);
+                boolean datatypeWarning = config.getFeature(
+                        DatabaseConfig.FEATURE_DATATYPE_WARNING);
+
+                List columnList = new ArrayList();
+                for (Iterator iter = columnDataList.iterator(); iter.hasNext();)
+                {
+                    MetadataSnapshot.ColumnData columnData = (MetadataSnapshot.ColumnData) iter.next();
+                    Column column = columnData.createColumn(dataTypeFactory, datatypeWarning);
+                    if(column != null)
                     {
-                    	logger.warn("No columns found for table '"+ tableName +"' that are supported by dbunit. " +
-                    			"Will return an empty column list");
+                        columnList.add(column);
                     }
-
-                    _columns = (Column[])columnList.toArray(new Column[0]);
                 }
-                finally
+
+                if (columnList.size() == 0)
                 {
-                    resultSet.close();
+                    logger.warn("No columns found for table '"+ tableName +"' that are supported by dbunit. " +
+                            "Will return an empty column list");
                 }
+
+                _columns = (Column[])columnList.toArray(new Column[0]);
             }
             catch (SQLException e)
             {
@@ -364,6 +435,45 @@ public class DatabaseTableMetaData extends AbstractTableMetaData
         return _columns;
     }
 
+    /**
+     * Reads the columns of the table from the database metadata.
+     * @return The {@link MetadataSnapshot.ColumnData} of the columns matching the table exactly
+     */
+    private List readColumnData(String schemaName, String tableName) throws SQLException
+    {
+        Connection jdbcConnection = _connection.getConnection();
+        DatabaseMetaData databaseMetaData = jdbcConnection.getMetaData();
+
+        IMetadataHandler metadataHandler = (IMetadataHandler)_connection.getConfig().getProperty(
+                DatabaseConfig.PROPERTY_METADATA_HANDLER);
+        ResultSet resultSet = metadataHandler.getColumns(databaseMetaData, schemaName, tableName);
+
+        try
+        {
+            List columnDataList = new ArrayList();
+            while (resultSet.next())
+            {
+                // Check for exact table/schema name match because
+                // databaseMetaData.getColumns() uses patterns for the lookup
+                boolean match = metadataHandler.matches(resultSet, schemaName, tableName, _caseSensitiveMetaData);
+                if(match)
+                {
+                    columnDataList.add(new MetadataSnapshot.ColumnData(resultSet));
+                }
+                else
+                {
+                    logger.debug("Skipping <schema.table> '" + resultSet.getString(2) + "." + 
+                            resultSet.getString(3) + "' because names do not exactly match.");
+                }
+            }
+            return columnDataList;
+        }
+        finally
+        {
+            resultSet.close();
+        }
+    }
+
     private boolean primaryKeyFilterChanged(IColumnFilter keyFilter)
     {
         return (keyFilter != lastKeyFilter);
@@ -78,6 +78,11 @@ public class ForwardOnlyResultSetTable extends AbstractResultSetTable
         if(logger.isDebugEnabled())
             logger.debug("getValue(row={}, columnName={}) - start", Integer.toString(row), columnName);
 
+        return getValue(row, getColumnIndex(columnName));
+    }
+
+    public Object getValue(int row, int columnIndex) throws DataSetException
+    {
         try
         {
             // Move cursor forward up to specified row
@@ -99,7 +104,6 @@ public class ForwardOnlyResultSetTable extends AbstractResultSetTable
                 throw new RowOutOfBoundsException(row + " > " + _lastRow);
             }
 
-            int columnIndex = getColumnIndex(columnName);
             Column column = _metaData.getColumns()[columnIndex];
             return column.getDataType().getSqlValue(columnIndex + 1, _resultSet);
         }
@@ -109,6 +113,34 @@ public class ForwardOnlyResultSetTable extends AbstractResultSetTable
         }
     }
 
+    public boolean hasRow(int row) throws DataSetException
+    {
+        if(logger.isDebugEnabled())
+            logger.debug("hasRow(row={}) - start", Integer.toString(row));
+
+        try
+        {
+            // Move cursor forward up to specified row
+            while (!_eot && row > _lastRow)
+            {
+                _eot = !_resultSet.next();
+                _lastRow++;
+                if (_eot)
+                {
+                    // Proactively close the resultset
+                    close();
+                }
+            }
+        }
+        catch (SQLException e)
+        {
+            throw new DataSetException(e);
+        }
+
+        // At the end of table the cursor has moved one step past the last row
+        return row >= 0 && (_eot ? row < _lastRow : row <= _lastRow);
+    }
+
     /**
      * {@inheritDoc}
      */
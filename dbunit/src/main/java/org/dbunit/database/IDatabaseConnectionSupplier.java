@@ -0,0 +1,49 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.database;
+
+import java.sql.SQLException;
+
+import org.dbunit.DatabaseUnitException;
+
+/**
+ * Supplies additional connections to the database of an {@link IDatabaseConnection}.
+ * Used by dbunit whenever work is spread over several connections, for example by
+ * the parallel execution mode configured with
+ * {@link DatabaseConfig#PROPERTY_PARALLEL_CONNECTION_SUPPLIER}.
+ *
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.5.2
+ */
+public interface IDatabaseConnectionSupplier
+{
+    /**
+     * Creates a new connection to the same database and schema. The returned connection
+     * is expected to be configured like the one it is supplied for (data type factory,
+     * escape pattern, ...). The caller owns the connection and closes it when it is
+     * no longer needed.
+     * @return A new connection
+     * @throws DatabaseUnitException
+     * @throws SQLException
+     */
+    public IDatabaseConnection createConnection() throws DatabaseUnitException, SQLException;
+}
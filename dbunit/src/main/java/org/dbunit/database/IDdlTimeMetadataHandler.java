@@ -0,0 +1,51 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.database;
+
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+
+/**
+ * Optional extension of {@link IMetadataHandler} for databases that can tell
+ * whether the DDL of a schema changed. Only handlers implementing it make use
+ * of a {@link MetadataSnapshotStore}.
+ *
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.5.2
+ */
+public interface IDdlTimeMetadataHandler extends IMetadataHandler
+{
+
+    /**
+     * Returns a value that changes whenever the DDL of the given schema changes, for
+     * example the time of the last DDL statement. The value is only compared for
+     * equality, to decide whether a {@link MetadataSnapshotStore metadata snapshot}
+     * recorded earlier still describes the schema.
+     * @param databaseMetaData The database meta data
+     * @param schemaName The schema; <code>null</code> for the default schema of the connection
+     * @return The value or <code>null</code> if the database does not provide one
+     * @throws SQLException
+     */
+    public String getLastDdlTime(DatabaseMetaData databaseMetaData, String schemaName)
+    throws SQLException;
+
+}
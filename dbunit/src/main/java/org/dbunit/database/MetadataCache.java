@@ -0,0 +1,313 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.database;
+
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+import org.dbunit.DatabaseUnitRuntimeException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Metadata cache shared by all connections it is configured for with
+ * {@link DatabaseConfig#PROPERTY_METADATA_CACHE}, usually the JVM-wide
+ * {@link #getSharedInstance() shared instance}. Connections to the same JDBC URL,
+ * user, schema and case sensitivity settings share the tables, columns, primary
+ * keys and foreign keys read from the database metadata, so a test suite opening
+ * a new connection per test reads them only once.
+ * <p>
+ * Entries are loaded lazily. When several threads need the same entry it is read
+ * by one of them while the others wait for the result. The cache holds at most
+ * the given number of entries and evicts the least recently used ones. It does
+ * not notice schema changes: call one of the <code>invalidate</code> methods
+ * after executing DDL.
+ * </p>
+ *
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.5.2
+ */
+public class MetadataCache
+{
+
+    /**
+     * Logger for this class
+     */
+    private static final Logger logger = LoggerFactory.getLogger(MetadataCache.class);
+
+    public static final int DEFAULT_MAX_SIZE = 10000;
+
+    private static final MetadataCache SHARED_INSTANCE = new MetadataCache(DEFAULT_MAX_SIZE);
+
+    private final int _maxSize;
+    /**
+     * Fingerprint and entry key to the {@link Future} of the entry value
+     */
+    private final Map _entries;
+    /**
+     * Connection to the fingerprint of its metadata
+     */
+    private final Map _fingerprints = new WeakHashMap();
+
+    private int _hitCount;
+    private int _missCount;
+
+    /**
+     * @param maxSize The maximum number of entries (table listings, columns, primary
+     * keys, ... of one table) held by the cache
+     */
+    public MetadataCache(int maxSize)
+    {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("The maximum size must be positive but is " + maxSize);
+        }
+        _maxSize = maxSize;
+        _entries = new LinkedHashMap(16, 0.75f, true)
+        {
+            private static final long serialVersionUID = 1L;
+
+            protected boolean removeEldestEntry(Map.Entry eldest)
+            {
+                return size() > _maxSize;
+            }
+        };
+    }
+
+    /**
+     * @return The cache shared by the whole JVM
+     */
+    public static MetadataCache getSharedInstance()
+    {
+        return SHARED_INSTANCE;
+    }
+
+    /**
+     * @return The snapshot view of the cache configured for the given connection or
+     * <code>null</code> if no cache is configured
+     */
+    public static MetadataSnapshot getSnapshot(IDatabaseConnection connection)
+    {
+        MetadataCache cache = (MetadataCache) connection.getConfig().getProperty(
+                DatabaseConfig.PROPERTY_METADATA_CACHE);
+        return cache == null ? null : cache.getConnectionSnapshot(connection);
+    }
+
+    /**
+     * @return A snapshot recording into this cache, shared with all connections to
+     * the same database, user and schema
+     */
+    public MetadataSnapshot getConnectionSnapshot(IDatabaseConnection connection)
+    {
+        String fingerprint;
+        synchronized (_fingerprints)
+        {
+            fingerprint = (String) _fingerprints.get(connection);
+            if (fingerprint == null)
+            {
+                try
+                {
+                    fingerprint = MetadataSnapshot.getFingerprint(connection);
+                }
+                catch (SQLException e)
+                {
+                    throw new DatabaseUnitRuntimeException("Exception while reading the database metadata", e);
+                }
+                _fingerprints.put(connection, fingerprint);
+            }
+        }
+        return new CachedSnapshot(fingerprint, connection.getSchema());
+    }
+
+    /**
+     * Removes all entries.
+     */
+    public synchronized void invalidate()
+    {
+        logger.debug("invalidate() - start");
+        _entries.clear();
+    }
+
+    /**
+     * Removes all entries of the database, user and schema of the given connection.
+     */
+    public void invalidate(IDatabaseConnection connection)
+    {
+        logger.debug("invalidate(connection={}) - start", connection);
+        invalidate(getConnectionSnapshot(connection).getFingerprint(), null);
+    }
+
+    /**
+     * Removes the entries of the given table and the table listings of the database,
+     * user and schema of the given connection.
+     * @param tableName The table name, compared case insensitively
+     */
+    public void invalidate(IDatabaseConnection connection, String tableName)
+    {
+        logger.debug("invalidate(connection={}, tableName={}) - start", connection, tableName);
+        invalidate(getConnectionSnapshot(connection).getFingerprint(), tableName);
+    }
+
+    private synchronized void invalidate(String fingerprint, String tableName)
+    {
+        String prefix = fingerprint + "#";
+        for (Iterator iter = _entries.keySet().iterator(); iter.hasNext();)
+        {
+            String key = (String) iter.next();
+            if (key.startsWith(prefix) && (tableName == null
+                    || MetadataSnapshot.isEntryOf(key.substring(prefix.length()), tableName)))
+            {
+                iter.remove();
+            }
+        }
+    }
+
+    /**
+     * Returns the value of the given entry, loading it unless it is cached or being
+     * loaded by another thread.
+     */
+    private Object load(String key, final MetadataSnapshot.Loader loader) throws SQLException
+    {
+        Future future;
+        FutureTask task = null;
+        synchronized (this)
+        {
+            future = (Future) _entries.get(key);
+            if (future == null)
+            {
+                _missCount++;
+                task = new FutureTask(new Callable()
+                {
+                    public Object call() throws Exception
+                    {
+                        return loader.load();
+                    }
+                });
+                _entries.put(key, task);
+                future = task;
+            }
+            else
+            {
+                _hitCount++;
+            }
+        }
+
+        if (task != null)
+        {
+            task.run();
+        }
+
+        try
+        {
+            return future.get();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new DatabaseUnitRuntimeException("Interrupted while waiting for the metadata of " + key, e);
+        }
+        catch (ExecutionException e)
+        {
+            if (task != null)
+            {
+                // Let the next lookup try again
+                synchronized (this)
+                {
+                    if (_entries.get(key) == task)
+                    {
+                        _entries.remove(key);
+                    }
+                }
+            }
+            Throwable cause = e.getCause();
+            if (cause instanceof SQLException)
+            {
+                throw (SQLException) cause;
+            }
+            if (cause instanceof RuntimeException)
+            {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error)
+            {
+                throw (Error) cause;
+            }
+            throw new DatabaseUnitRuntimeException(cause);
+        }
+    }
+
+    public int getMaxSize()
+    {
+        return _maxSize;
+    }
+
+    public synchronized int getSize()
+    {
+        return _entries.size();
+    }
+
+    public synchronized int getHitCount()
+    {
+        return _hitCount;
+    }
+
+    public synchronized int getMissCount()
+    {
+        return _missCount;
+    }
+
+    public String toString()
+    {
+        StringBuffer sb = new StringBuffer();
+        sb.append(getClass().getName()).append("[");
+        sb.append("_maxSize=").append(_maxSize);
+        sb.append(", size=").append(getSize());
+        sb.append(", _hitCount=").append(getHitCount());
+        sb.append(", _missCount=").append(getMissCount());
+        sb.append("]");
+        return sb.toString();
+    }
+
+    /**
+     * Snapshot view of the entries of one fingerprint.
+     */
+    private class CachedSnapshot extends MetadataSnapshot
+    {
+        private static final long serialVersionUID = 1L;
+
+        private CachedSnapshot(String fingerprint, String schema)
+        {
+            super(fingerprint, schema, null);
+        }
+
+        protected Object load(String key, MetadataSnapshot.Loader loader) throws SQLException
+        {
+            return MetadataCache.this.load(getFingerprint() + "#" + key, loader);
+        }
+    }
+}
@@ -0,0 +1,405 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.database;
+
+import java.io.Serializable;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.datatype.DataTypeException;
+import org.dbunit.dataset.datatype.IDataTypeFactory;
+import org.dbunit.util.SQLHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Recorded {@link java.sql.DatabaseMetaData} results of one schema: the table
+ * listings, table existence checks, columns, primary keys and imported keys that
+ * dbunit looked up. Lookups for other schemas are not recorded. Snapshots are
+ * managed by a {@link MetadataSnapshotStore}, which persists them and decides
+ * whether they are still valid, or by a {@link MetadataCache}.
+ *
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.5.2
+ */
+public class MetadataSnapshot implements Serializable
+{
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Logger for this class
+     */
+    private static final Logger logger = LoggerFactory.getLogger(MetadataSnapshot.class);
+
+    private static final String TABLES = "tables:";
+    private static final String TABLE_EXISTS = "exists:";
+    private static final String COLUMNS = "columns:";
+    private static final String PRIMARY_KEYS = "pk:";
+    private static final String IMPORTED_KEYS = "fk:";
+
+    /**
+     * Reads everything from the database
+     */
+    private static final MetadataSnapshot NO_SNAPSHOT = new MetadataSnapshot(null, null, null)
+    {
+        private static final long serialVersionUID = 1L;
+
+        protected Object load(String key, Loader loader) throws SQLException
+        {
+            return loader.load();
+        }
+    };
+
+    private final String _fingerprint;
+    private final String _schema;
+    private final String _lastDdlTime;
+
+    /**
+     * Entry key to the recorded value. The keys start with the kind of the entry,
+     * followed by the table name or the table types.
+     */
+    private final Map _entries = new HashMap();
+
+    private transient boolean _modified;
+
+    /**
+     * @param fingerprint Identifies the database, user, schema and settings the snapshot was taken for
+     * @param schema The schema described by the snapshot
+     * @param lastDdlTime The DDL time of the schema when the snapshot was taken
+     */
+    public MetadataSnapshot(String fingerprint, String schema, String lastDdlTime)
+    {
+        _fingerprint = fingerprint;
+        _schema = schema;
+        _lastDdlTime = lastDdlTime;
+    }
+
+    /**
+     * Returns the snapshot to use for the given connection: the one of the configured
+     * {@link DatabaseConfig#PROPERTY_METADATA_SNAPSHOT_STORE snapshot store}, or else
+     * the one of the configured {@link DatabaseConfig#PROPERTY_METADATA_CACHE metadata cache}.
+     * @return The snapshot. If neither is configured or usable, a snapshot which always
+     * reads the metadata from the database without recording it.
+     */
+    public static MetadataSnapshot getSnapshot(IDatabaseConnection connection)
+    {
+        MetadataSnapshot snapshot = MetadataSnapshotStore.getSnapshot(connection);
+        if (snapshot == null)
+        {
+            snapshot = MetadataCache.getSnapshot(connection);
+        }
+        return snapshot == null ? NO_SNAPSHOT : snapshot;
+    }
+
+    /**
+     * Identifies the metadata seen by a connection: the JDBC URL, user, database product
+     * and version, schema, metadata handler and case sensitivity of table names.
+     */
+    static String getFingerprint(IDatabaseConnection connection) throws SQLException
+    {
+        DatabaseMetaData metaData = connection.getConnection().getMetaData();
+        DatabaseConfig config = connection.getConfig();
+        StringBuffer sb = new StringBuffer();
+        sb.append(metaData.getURL());
+        sb.append("|").append(metaData.getUserName());
+        sb.append("|").append(metaData.getDatabaseProductName());
+        sb.append("|").append(metaData.getDatabaseProductVersion());
+        sb.append("|").append(connection.getSchema());
+        sb.append("|").append(config.getProperty(DatabaseConfig.PROPERTY_METADATA_HANDLER).getClass().getName());
+        sb.append("|").append(config.getFeature(DatabaseConfig.FEATURE_CASE_SENSITIVE_TABLE_NAMES));
+        return sb.toString();
+    }
+
+    public String getFingerprint()
+    {
+        return _fingerprint;
+    }
+
+    public String getSchema()
+    {
+        return _schema;
+    }
+
+    public String getLastDdlTime()
+    {
+        return _lastDdlTime;
+    }
+
+    /**
+     * @return <code>true</code> if something was recorded since the snapshot was
+     * created, loaded or last saved
+     */
+    public synchronized boolean isModified()
+    {
+        return _modified;
+    }
+
+    synchronized void setModified(boolean modified)
+    {
+        _modified = modified;
+    }
+
+    /**
+     * @return Whether lookups of the given schema are recorded in this snapshot
+     */
+    public boolean covers(String schema)
+    {
+        return _schema == null ? schema == null : _schema.equals(schema);
+    }
+
+    /**
+     * @param loader Reads the <code>{schema, table}</code> pairs of the tables of the given
+     * types from the database
+     * @return The <code>{schema, table}</code> pairs listed for the given table types
+     */
+    public List getTables(String schema, String[] tableTypes, Loader loader) throws SQLException
+    {
+        String typesKey = tableTypes == null ? "*" : Arrays.asList(tableTypes).toString();
+        return (List) get(schema, TABLES + typesKey, loader);
+    }
+
+    /**
+     * @param loader Returns {@link Boolean#TRUE} if the table exists
+     * @return Whether the table exists
+     */
+    public boolean getTableExists(String schema, String tableName, Loader loader) throws SQLException
+    {
+        return ((Boolean) get(schema, TABLE_EXISTS + tableName, loader)).booleanValue();
+    }
+
+    /**
+     * @param loader Reads the list of {@link ColumnData} of the table from the database
+     * @return The {@link ColumnData} of the table
+     */
+    public List getColumns(String schema, String tableName, boolean caseSensitive, Loader loader)
+            throws SQLException
+    {
+        return (List) get(schema, COLUMNS + (caseSensitive ? "S:" : "I:") + tableName, loader);
+    }
+
+    /**
+     * @param loader Reads the primary key column names of the table in key sequence
+     * @return The primary key column names in key sequence
+     */
+    public String[] getPrimaryKeys(String schema, String tableName, Loader loader) throws SQLException
+    {
+        return ((String[]) get(schema, PRIMARY_KEYS + tableName, loader)).clone();
+    }
+
+    /**
+     * @param loader Reads the <code>{schema, table}</code> pairs of the tables referenced
+     * by the foreign keys of the table
+     * @return The <code>{schema, table}</code> pairs of the referenced tables
+     */
+    public List getImportedKeys(String schema, String tableName, Loader loader) throws SQLException
+    {
+        return (List) get(schema, IMPORTED_KEYS + tableName, loader);
+    }
+
+    private Object get(String schema, String key, Loader loader) throws SQLException
+    {
+        if (!covers(schema))
+        {
+            return immutable(loader.load());
+        }
+        return load(key, new ImmutableLoader(loader));
+    }
+
+    /**
+     * Returns the recorded value of the given entry, recording the value of the
+     * loader first if there is none yet.
+     * @param key The entry key
+     * @param loader Reads the value of the entry from the database
+     * @return The value of the entry
+     * @throws SQLException
+     */
+    protected Object load(String key, Loader loader) throws SQLException
+    {
+        synchronized (this)
+        {
+            Object value = _entries.get(key);
+            if (value != null)
+            {
+                return value;
+            }
+        }
+
+        Object value = loader.load();
+        synchronized (this)
+        {
+            _entries.put(key, value);
+            _modified = true;
+        }
+        return value;
+    }
+
+    /**
+     * @return Whether the given entry key records metadata of the given table. The table
+     * listings count as metadata of every table.
+     */
+    static boolean isEntryOf(String key, String tableName)
+    {
+        if (key.startsWith(TABLES))
+        {
+            return true;
+        }
+        String entryTable = key.substring(key.indexOf(':') + 1);
+        if (key.startsWith(COLUMNS))
+        {
+            entryTable = entryTable.substring(2);
+        }
+        return entryTable.equalsIgnoreCase(tableName);
+    }
+
+    private static Object immutable(Object value)
+    {
+        if (value instanceof List)
+        {
+            return Collections.unmodifiableList(new ArrayList((List) value));
+        }
+        return value;
+    }
+
+    public synchronized String toString()
+    {
+        StringBuffer sb = new StringBuffer();
+        sb.append(getClass().getName()).append("[");
+        sb.append("_fingerprint=").append(_fingerprint);
+        sb.append(", _schema=").append(_schema);
+        sb.append(", _lastDdlTime=").append(_lastDdlTime);
+        sb.append(", entries=").append(_entries.size());
+        sb.append(", _modified=").append(_modified);
+        sb.append("]");
+        return sb.toString();
+    }
+
+    /**
+     * Reads one entry of a snapshot from the database metadata when it is not recorded yet.
+     */
+    public static interface Loader
+    {
+        /**
+         * @return The value of the entry, never <code>null</code>
+         * @throws SQLException
+         */
+        public Object load() throws SQLException;
+    }
+
+    private static class ImmutableLoader implements Loader
+    {
+        private final Loader _loader;
+
+        private ImmutableLoader(Loader loader)
+        {
+            _loader = loader;
+        }
+
+        public Object load() throws SQLException
+        {
+            return immutable(_loader.load());
+        }
+    }
+
+    /**
+     * One row of {@link java.sql.DatabaseMetaData#getColumns(String, String, String, String)}
+     * as needed to create a {@link Column}.
+     */
+    public static class ColumnData implements Serializable
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final String _tableName;
+        private final String _columnName;
+        private final int _sqlType;
+        private final String _sqlTypeName;
+        private final int _nullable;
+        private final String _remarks;
+        private final String _defaultValue;
+        private final String _autoIncrement;
+
+        /**
+         * Reads the current row of the given result set the same way as
+         * {@link SQLHelper#createColumn(ResultSet, IDataTypeFactory, boolean)}.
+         * @param resultSet A result set produced via
+         * {@link java.sql.DatabaseMetaData#getColumns(String, String, String, String)}
+         * @throws SQLException
+         */
+        public ColumnData(ResultSet resultSet) throws SQLException
+        {
+            _tableName = resultSet.getString(3);
+            _columnName = resultSet.getString(4);
+            int sqlType = resultSet.getInt(5);
+            if (sqlType == Types.DISTINCT)
+            {
+                sqlType = resultSet.getInt("SOURCE_DATA_TYPE");
+            }
+            _sqlType = sqlType;
+            _sqlTypeName = resultSet.getString(6);
+            _nullable = resultSet.getInt(11);
+            _remarks = resultSet.getString(12);
+            _defaultValue = resultSet.getString(13);
+
+            String autoIncrement = Column.AutoIncrement.NO.getKey();
+            try
+            {
+                autoIncrement = resultSet.getString(23);
+            }
+            catch (Exception e)
+            {
+                logger.debug("Could not retrieve the 'isAutoIncrement' property - defaulting to NO. "
+                        + "Table={}, Column={}", _tableName, _columnName);
+            }
+            _autoIncrement = autoIncrement;
+        }
+
+        /**
+         * @return The column or <code>null</code> if the data type is unknown
+         * @see SQLHelper#createColumn(String, String, int, String, int, String, String, String, IDataTypeFactory, boolean)
+         */
+        public Column createColumn(IDataTypeFactory dataTypeFactory, boolean datatypeWarning)
+                throws DataTypeException
+        {
+            return SQLHelper.createColumn(_tableName, _columnName, _sqlType, _sqlTypeName,
+                    _nullable, _remarks, _defaultValue, _autoIncrement,
+                    dataTypeFactory, datatypeWarning);
+        }
+
+        public String getColumnName()
+        {
+            return _columnName;
+        }
+
+        public String toString()
+        {
+            return _tableName + "." + _columnName + "(" + _sqlTypeName + ")";
+        }
+    }
+}
@@ -0,0 +1,334 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.database;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps {@link MetadataSnapshot}s in a directory so that later JVMs, for example
+ * forked test JVMs, do not have to introspect the database catalog again.
+ * Configure it with {@link DatabaseConfig#PROPERTY_METADATA_SNAPSHOT_STORE}.
+ * <p>
+ * There is one snapshot file per
+ * {@link MetadataSnapshot#getFingerprint() fingerprint}: the JDBC URL, user,
+ * database product and version, schema, metadata handler and case sensitivity
+ * of table names. A snapshot is only used if the
+ * {@link IDdlTimeMetadataHandler#getLastDdlTime(DatabaseMetaData, String) DDL time}
+ * reported by the metadata handler still equals the one recorded in the
+ * snapshot. This check runs once per connection. Databases whose handler
+ * does not implement {@link IDdlTimeMetadataHandler} or reports no DDL time
+ * never use snapshots.
+ * </p>
+ * <p>
+ * Snapshots record what dbunit looks up while they are in use and are written
+ * back by {@link #save()}, which {@link DatabaseConnection#close()} calls.
+ * </p>
+ *
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.5.2
+ */
+public class MetadataSnapshotStore
+{
+
+    /**
+     * Logger for this class
+     */
+    private static final Logger logger = LoggerFactory.getLogger(MetadataSnapshotStore.class);
+
+    private static final String FILE_PREFIX = "dbunit-metadata-";
+    private static final String FILE_SUFFIX = ".ser.gz";
+
+    /**
+     * Marks connections for which no snapshot can be used
+     */
+    private static final Object NO_SNAPSHOT = new Object();
+
+    private final File _directory;
+
+    /**
+     * Fingerprint to the snapshot currently in use
+     */
+    private final Map _snapshots = new HashMap();
+    /**
+     * Connection to its validated snapshot or {@link #NO_SNAPSHOT}
+     */
+    private final Map _connectionSnapshots = new WeakHashMap();
+
+    /**
+     * @param directory The directory holding the snapshot files. It is created
+     * when the first snapshot is saved.
+     */
+    public MetadataSnapshotStore(File directory)
+    {
+        if (directory == null) {
+            throw new NullPointerException("The parameter 'directory' must not be null");
+        }
+        _directory = directory;
+    }
+
+    public File getDirectory()
+    {
+        return _directory;
+    }
+
+    /**
+     * @return The snapshot to use for the given connection or <code>null</code> if
+     * no store is configured or the database does not support snapshots
+     */
+    public static MetadataSnapshot getSnapshot(IDatabaseConnection connection)
+    {
+        MetadataSnapshotStore store = (MetadataSnapshotStore) connection.getConfig().getProperty(
+                DatabaseConfig.PROPERTY_METADATA_SNAPSHOT_STORE);
+        return store == null ? null : store.getConnectionSnapshot(connection);
+    }
+
+    /**
+     * Saves the modified snapshots of the store configured for the given connection,
+     * if any. Failures are logged only since the snapshots are merely an optimization.
+     */
+    public static void save(IDatabaseConnection connection)
+    {
+        MetadataSnapshotStore store = (MetadataSnapshotStore) connection.getConfig().getProperty(
+                DatabaseConfig.PROPERTY_METADATA_SNAPSHOT_STORE);
+        if (store != null)
+        {
+            try
+            {
+                store.save();
+            }
+            catch (IOException e)
+            {
+                logger.warn("Could not save the metadata snapshots to " + store.getDirectory(), e);
+            }
+        }
+    }
+
+    /**
+     * Returns the snapshot for the given connection, validating or loading it on
+     * the first call for the connection.
+     * @return The snapshot or <code>null</code> if the database reports no DDL time
+     */
+    public synchronized MetadataSnapshot getConnectionSnapshot(IDatabaseConnection connection)
+    {
+        Object snapshot = _connectionSnapshots.get(connection);
+        if (snapshot == null)
+        {
+            snapshot = createConnectionSnapshot(connection);
+            _connectionSnapshots.put(connection, snapshot == null ? NO_SNAPSHOT : snapshot);
+        }
+        return snapshot == NO_SNAPSHOT ? null : (MetadataSnapshot) snapshot;
+    }
+
+    private MetadataSnapshot createConnectionSnapshot(IDatabaseConnection connection)
+    {
+        String fingerprint;
+        String lastDdlTime;
+        try
+        {
+            DatabaseMetaData metaData = connection.getConnection().getMetaData();
+            IMetadataHandler metadataHandler = (IMetadataHandler) connection.getConfig().getProperty(
+                    DatabaseConfig.PROPERTY_METADATA_HANDLER);
+            lastDdlTime = null;
+            if (metadataHandler instanceof IDdlTimeMetadataHandler)
+            {
+                lastDdlTime = ((IDdlTimeMetadataHandler) metadataHandler).getLastDdlTime(
+                        metaData, connection.getSchema());
+            }
+            if (lastDdlTime == null)
+            {
+                logger.info("The metadata handler {} does not report DDL times. "
+                        + "Metadata snapshots are not used.", metadataHandler.getClass().getName());
+                return null;
+            }
+            fingerprint = MetadataSnapshot.getFingerprint(connection);
+        }
+        catch (SQLException e)
+        {
+            logger.warn("Could not validate the metadata snapshot, metadata snapshots are not used", e);
+            return null;
+        }
+
+        MetadataSnapshot snapshot = (MetadataSnapshot) _snapshots.get(fingerprint);
+        if (snapshot == null || !lastDdlTime.equals(snapshot.getLastDdlTime()))
+        {
+            snapshot = load(fingerprint);
+            if (snapshot == null || !lastDdlTime.equals(snapshot.getLastDdlTime()))
+            {
+                logger.debug("Starting a new metadata snapshot for {}", fingerprint);
+                snapshot = new MetadataSnapshot(fingerprint, connection.getSchema(), lastDdlTime);
+            }
+            _snapshots.put(fingerprint, snapshot);
+        }
+        return snapshot;
+    }
+
+    private MetadataSnapshot load(String fingerprint)
+    {
+        File file = getFile(fingerprint);
+        if (!file.exists())
+        {
+            return null;
+        }
+
+        try
+        {
+            ObjectInputStream in = new ObjectInputStream(new GZIPInputStream(
+                    new BufferedInputStream(new FileInputStream(file))));
+            try
+            {
+                MetadataSnapshot snapshot = (MetadataSnapshot) in.readObject();
+                if (!fingerprint.equals(snapshot.getFingerprint()))
+                {
+                    return null;
+                }
+                logger.debug("Loaded metadata snapshot {}", snapshot);
+                return snapshot;
+            }
+            finally
+            {
+                in.close();
+            }
+        }
+        catch (IOException e)
+        {
+            logger.warn("Could not read the metadata snapshot " + file + ", ignoring it", e);
+        }
+        catch (ClassNotFoundException e)
+        {
+            logger.warn("Could not read the metadata snapshot " + file + ", ignoring it", e);
+        }
+        return null;
+    }
+
+    /**
+     * Writes all snapshots that recorded new metadata since they were loaded or saved.
+     * Every snapshot is written to a temporary file first which then replaces the
+     * snapshot file.
+     * @throws IOException
+     */
+    public synchronized void save() throws IOException
+    {
+        for (Iterator iter = _snapshots.values().iterator(); iter.hasNext();)
+        {
+            MetadataSnapshot snapshot = (MetadataSnapshot) iter.next();
+            if (!snapshot.isModified())
+            {
+                continue;
+            }
+
+            if (!_directory.isDirectory() && !_directory.mkdirs())
+            {
+                throw new IOException("Could not create the directory " + _directory);
+            }
+            File file = getFile(snapshot.getFingerprint());
+            File tempFile = File.createTempFile(FILE_PREFIX, ".tmp", _directory);
+            ObjectOutputStream out = new ObjectOutputStream(new GZIPOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(tempFile))));
+            boolean written = false;
+            try
+            {
+                synchronized (snapshot)
+                {
+                    out.writeObject(snapshot);
+                    snapshot.setModified(false);
+                }
+                written = true;
+            }
+            finally
+            {
+                out.close();
+                if (!written)
+                {
+                    tempFile.delete();
+                }
+            }
+
+            if (!tempFile.renameTo(file))
+            {
+                file.delete();
+                if (!tempFile.renameTo(file))
+                {
+                    tempFile.delete();
+                    throw new IOException("Could not replace the metadata snapshot " + file);
+                }
+            }
+            logger.debug("Saved metadata snapshot {} to {}", snapshot, file);
+        }
+    }
+
+    private File getFile(String fingerprint)
+    {
+        return new File(_directory, FILE_PREFIX + digest(fingerprint) + FILE_SUFFIX);
+    }
+
+    private static String digest(String value)
+    {
+        try
+        {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(value.getBytes("UTF-8"));
+            StringBuffer sb = new StringBuffer(digest.length * 2);
+            for (int i = 0; i < digest.length; i++)
+            {
+                sb.append(Integer.toHexString((digest[i] & 0xFF) | 0x100).substring(1));
+            }
+            return sb.toString();
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            throw new IllegalStateException("SHA-1 is not available: " + e);
+        }
+        catch (IOException e)
+        {
+            throw new IllegalStateException("UTF-8 is not available: " + e);
+        }
+    }
+
+    public String toString()
+    {
+        StringBuffer sb = new StringBuffer();
+        sb.append(getClass().getName()).append("[");
+        sb.append("_directory=").append(_directory);
+        sb.append(", _snapshots=").append(_snapshots.keySet());
+        sb.append("]");
+        return sb.toString();
+    }
+}
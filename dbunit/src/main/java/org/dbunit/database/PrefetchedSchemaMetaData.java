@@ -0,0 +1,230 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.database;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.dbunit.util.SQLHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Column and primary key metadata of all tables of one schema, read with a single
+ * {@link DatabaseMetaData#getColumns(String, String, String, String)} and a single
+ * {@link DatabaseMetaData#getPrimaryKeys(String, String, String)} call instead of one
+ * call per table. Used by the {@link DatabaseDataSet} when
+ * {@link DatabaseConfig#FEATURE_PREFETCH_METADATA} is enabled.
+ * <p>
+ * The metadata is read on the first lookup. Tables missing from the result (for example
+ * because the name was given in a different case) return <code>null</code> so that
+ * the caller reads them one by one as usual. The primary keys are read table by table
+ * as well if the driver does not list any primary key for a <code>null</code> table
+ * name, which the JDBC specification does not require it to support.
+ * </p>
+ *
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.5.2
+ */
+class PrefetchedSchemaMetaData
+{
+
+    /**
+     * Logger for this class
+     */
+    private static final Logger logger = LoggerFactory.getLogger(PrefetchedSchemaMetaData.class);
+
+    private final IDatabaseConnection _connection;
+    private final String _schema;
+    private final boolean _caseSensitiveMetaData;
+
+    /**
+     * Table name to the list of its {@link MetadataSnapshot.ColumnData}
+     */
+    private Map _columns;
+    /**
+     * Table name to the {@link TreeMap} of key sequence to primary key column name,
+     * <code>null</code> if the driver cannot list the keys of all tables
+     */
+    private Map _primaryKeys;
+
+    PrefetchedSchemaMetaData(IDatabaseConnection connection, String schema,
+            boolean caseSensitiveMetaData)
+    {
+        _connection = connection;
+        _schema = schema;
+        _caseSensitiveMetaData = caseSensitiveMetaData;
+    }
+
+    /**
+     * @return Whether the metadata of the given schema was prefetched
+     */
+    boolean covers(String schema)
+    {
+        return _schema == null ? schema == null : _schema.equals(schema);
+    }
+
+    /**
+     * @param tableName The table name as stored in the database
+     * @return The {@link MetadataSnapshot.ColumnData} of the table or <code>null</code> if
+     * the table was not found
+     */
+    synchronized List getColumns(String tableName) throws SQLException
+    {
+        load();
+        return (List) _columns.get(tableName);
+    }
+
+    /**
+     * @param tableName The table name as stored in the database
+     * @return The primary key column names in key sequence or <code>null</code> if the
+     * table was not found
+     */
+    synchronized String[] getPrimaryKeyNames(String tableName) throws SQLException
+    {
+        load();
+        if (_primaryKeys == null || !_columns.containsKey(tableName))
+        {
+            return null;
+        }
+        TreeMap keys = (TreeMap) _primaryKeys.get(tableName);
+        if (keys == null)
+        {
+            return new String[0];
+        }
+        return (String[]) keys.values().toArray(new String[keys.size()]);
+    }
+
+    private void load() throws SQLException
+    {
+        if (_columns != null)
+        {
+            return;
+        }
+        logger.debug("Prefetching the column and primary key metadata of schema '{}'", _schema);
+
+        DatabaseMetaData databaseMetaData = _connection.getConnection().getMetaData();
+        IMetadataHandler metadataHandler = (IMetadataHandler) _connection.getConfig().getProperty(
+                DatabaseConfig.PROPERTY_METADATA_HANDLER);
+
+        Map columns = new HashMap();
+        // Without a schema the table names of several schemas may clash
+        Map schemaByTable = new HashMap();
+        Set ambiguousTables = new HashSet();
+        ResultSet resultSet = metadataHandler.getColumns(databaseMetaData, _schema, "%");
+        try
+        {
+            while (resultSet.next())
+            {
+                String tableName = resultSet.getString(3);
+                // The schema is a pattern as well
+                if (!metadataHandler.matches(resultSet, _schema, tableName, _caseSensitiveMetaData))
+                {
+                    continue;
+                }
+                String schemaName = resultSet.getString(2);
+                if (schemaByTable.containsKey(tableName)
+                        && !SQLHelper.areEqualIgnoreNull(schemaName, (String) schemaByTable.get(tableName), true))
+                {
+                    ambiguousTables.add(tableName);
+                    continue;
+                }
+                schemaByTable.put(tableName, schemaName);
+                List columnDataList = (List) columns.get(tableName);
+                if (columnDataList == null)
+                {
+                    columnDataList = new ArrayList();
+                    columns.put(tableName, columnDataList);
+                }
+                columnDataList.add(new MetadataSnapshot.ColumnData(resultSet));
+            }
+        }
+        finally
+        {
+            resultSet.close();
+        }
+        columns.keySet().removeAll(ambiguousTables);
+        _columns = columns;
+
+        Map primaryKeys = new HashMap();
+        try
+        {
+            resultSet = metadataHandler.getPrimaryKeys(databaseMetaData, _schema, null);
+        }
+        catch (SQLException e)
+        {
+            logger.info("The primary keys of all tables of schema '" + _schema
+                    + "' cannot be read at once. Reading them table by table: " + e);
+            return;
+        }
+        try
+        {
+            while (resultSet.next())
+            {
+                String tableName = resultSet.getString(3);
+                if (!SQLHelper.areEqualIgnoreNull(resultSet.getString(2), (String) schemaByTable.get(tableName), true))
+                {
+                    continue;
+                }
+                TreeMap keys = (TreeMap) primaryKeys.get(tableName);
+                if (keys == null)
+                {
+                    keys = new TreeMap();
+                    primaryKeys.put(tableName, keys);
+                }
+                keys.put(new Integer(resultSet.getInt(5)), resultSet.getString(4));
+            }
+        }
+        finally
+        {
+            resultSet.close();
+        }
+        if (primaryKeys.isEmpty())
+        {
+            // An empty list of a table is only reliable if the driver listed any key
+            logger.info("No primary keys listed for all tables of schema '{}'. "
+                    + "Reading them table by table.", _schema);
+            return;
+        }
+        _primaryKeys = primaryKeys;
+
+        if (logger.isDebugEnabled())
+        {
+            int columnCount = 0;
+            for (Iterator iter = columns.values().iterator(); iter.hasNext();)
+            {
+                columnCount += ((List) iter.next()).size();
+            }
+            logger.debug("Prefetched {} columns of {} tables", new Integer(columnCount),
+                    new Integer(columns.size()));
+        }
+    }
+}
@@ -28,9 +28,11 @@ import java.util.Set;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.dbunit.dataset.DataSetException;
+import org.dbunit.dataset.IIndexedTable;
 import org.dbunit.dataset.ITable;
 import org.dbunit.dataset.ITableMetaData;
 import org.dbunit.dataset.RowOutOfBoundsException;
+import org.dbunit.dataset.Tables;
 
 /**
  * This class is a wrapper for another table with the condition that only a subset
@@ -41,7 +43,7 @@ import org.dbunit.dataset.RowOutOfBoundsException;
  * @version $Revision$
  * @since Sep 9, 2005
  */
-public class PrimaryKeyFilteredTableWrapper implements ITable {
+public class PrimaryKeyFilteredTableWrapper implements IIndexedTable {
   
   /** reference to the original table being wrapped */
   private final ITable originalTable;
@@ -128,6 +130,11 @@ public class PrimaryKeyFilteredTableWrapper implements ITable {
     return this.filteredRowsMapping.size();
   }
 
+  public boolean hasRow(int row) throws DataSetException
+  {
+    return row >= 0 && row < this.filteredRowsMapping.size();
+  }
+
   public Object getValue(int row, String column) throws DataSetException 
   {
       if(logger.isDebugEnabled())
@@ -144,4 +151,16 @@ public class PrimaryKeyFilteredTableWrapper implements ITable {
     }
   }
 
+  public Object getValue(int row, int column) throws DataSetException 
+  {
+    int max = this.filteredRowsMapping.size();
+    if ( row < max ) {
+      int realRow = ((Integer) this.filteredRowsMapping.get( row )).intValue();
+      return Tables.getValue(this.originalTable, realRow, column);
+    } else {
+      throw new RowOutOfBoundsException( "tried to access row " + row + 
+          " but rowCount is " + max );
+    }
+  }
+
 }
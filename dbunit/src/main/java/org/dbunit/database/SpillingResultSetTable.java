@@ -0,0 +1,66 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.database;
+
+import java.sql.SQLException;
+
+import org.dbunit.dataset.DataSetException;
+import org.dbunit.dataset.SpillThreshold;
+import org.dbunit.dataset.SpillingTable;
+
+/**
+ * Cached result set table like {@link CachedResultSetTable} whose rows are moved
+ * to disk when they exceed a {@link SpillThreshold}. Created by the
+ * {@link CachedResultSetTableFactory} when {@link DatabaseConfig#PROPERTY_SPILL_THRESHOLD}
+ * is set.
+ *
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.5.2
+ */
+public class SpillingResultSetTable extends SpillingTable implements IResultSetTable
+{
+    public SpillingResultSetTable(IResultSetTable table, SpillThreshold threshold)
+    throws DataSetException, SQLException
+    {
+        super(table.getTableMetaData(), threshold);
+        try
+        {
+            addTableRows(table);
+        }
+        finally
+        {
+            table.close();
+        }
+    }
+
+    ////////////////////////////////////////////////////////////////////////////
+    // IResultSetTable interface
+
+    /**
+     * Does nothing since the result set has already been closed. The temporary file of
+     * the rows is deleted when the table is garbage collected.
+     */
+    public void close() throws DataSetException
+    {
+        // nothing to do, resultset already been closed
+    }
+}
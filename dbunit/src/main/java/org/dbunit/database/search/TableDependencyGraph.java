@@ -0,0 +1,500 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.database.search;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.dbunit.database.CyclicTablesDependencyException;
+import org.dbunit.database.DatabaseConfig;
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.database.IMetadataHandler;
+import org.dbunit.database.MetadataSnapshot;
+import org.dbunit.dataset.DataSetException;
+import org.dbunit.dataset.NoSuchTableException;
+import org.dbunit.util.QualifiedTableName;
+import org.dbunit.util.SQLHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Foreign key graph of the tables of a database, used to bring tables into
+ * insertion order. The imported keys of every table are read only once per
+ * graph, when the table is first needed, and the existence of the tables is
+ * checked against one listing of the tables per schema. A graph does not notice
+ * schema changes made after it read the tables, so a new graph is created for
+ * every ordering of tables. Lookups are shared beyond one graph only through
+ * the {@link MetadataSnapshot} of the connection.
+ *
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.5.2
+ */
+public class TableDependencyGraph
+{
+
+    /**
+     * Logger for this class
+     */
+    private static final Logger logger = LoggerFactory.getLogger(TableDependencyGraph.class);
+
+    private final boolean _caseSensitive;
+    private final boolean _qualifiedTableNames;
+
+    /**
+     * Normalized table name to the normalized names of the tables it has foreign keys to
+     */
+    private final Map _importedTables = new HashMap();
+    /**
+     * Normalized table name to the table name as first seen
+     */
+    private final Map _tableNames = new HashMap();
+    /**
+     * Schema to the set of table names it contains
+     */
+    private final Map _schemaTables = new HashMap();
+
+    /**
+     * @param caseSensitive Whether table names are compared case sensitively
+     * @param qualifiedTableNames Whether table names are prefixed with their schema
+     */
+    public TableDependencyGraph(boolean caseSensitive, boolean qualifiedTableNames)
+    {
+        _caseSensitive = caseSensitive;
+        _qualifiedTableNames = qualifiedTableNames;
+    }
+
+    /**
+     * Creates an empty graph using the case sensitivity and qualified table names
+     * features of the given connection.
+     * @param connection The connection
+     * @return The new graph
+     */
+    public static TableDependencyGraph createGraph(IDatabaseConnection connection)
+    {
+        DatabaseConfig config = connection.getConfig();
+        return new TableDependencyGraph(
+                config.getFeature(DatabaseConfig.FEATURE_CASE_SENSITIVE_TABLE_NAMES),
+                config.getFeature(DatabaseConfig.FEATURE_QUALIFIED_TABLE_NAMES));
+    }
+
+    /**
+     * Returns the tables the given table has a foreign key to, excluding the table
+     * itself.
+     * @param connection The connection used to read the metadata if the table is not
+     * known yet
+     * @param tableName The table name
+     * @return The names of the referenced tables, sorted
+     * @throws DataSetException If the table does not exist or the metadata cannot be read
+     */
+    public synchronized Set getDirectDependsOnTables(IDatabaseConnection connection,
+            String tableName) throws DataSetException
+    {
+        String key = load(connection, tableName);
+        Set result = new TreeSet();
+        for (Iterator iter = ((Set) _importedTables.get(key)).iterator(); iter.hasNext();)
+        {
+            String importedTable = (String) iter.next();
+            if (!importedTable.equals(key))
+            {
+                result.add(_tableNames.get(importedTable));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Orders the given tables so that every table comes after the tables it has
+     * foreign keys to. Tables without a foreign key relationship keep their
+     * relative order. Foreign keys of a table to itself are ignored.
+     * @param connection The connection used to read the metadata of unknown tables
+     * @param tableNames The table names
+     * @return The table names in insertion order
+     * @throws CyclicTablesDependencyException If one of the tables is part of a foreign
+     * key cycle. The message names the first such table of <code>tableNames</code> and
+     * the other tables of the cycle.
+     * @throws DataSetException If a table does not exist or the metadata cannot be read
+     */
+    public synchronized String[] sortTableNames(IDatabaseConnection connection,
+            String[] tableNames) throws DataSetException
+    {
+        logger.debug("sortTableNames(connection={}, tableNames={}) - start", connection, tableNames);
+
+        String[] keys = new String[tableNames.length];
+        Map indexByKey = new HashMap();
+        for (int i = 0; i < tableNames.length; i++)
+        {
+            keys[i] = load(connection, tableNames[i]);
+            indexByKey.put(keys[i], new Integer(i));
+        }
+
+        checkCycles(connection, tableNames, keys);
+
+        // Kahn's algorithm on the requested tables, always taking the first ready table
+        int[] pending = new int[tableNames.length];
+        List[] dependents = new List[tableNames.length];
+        for (int i = 0; i < keys.length; i++)
+        {
+            dependents[i] = new ArrayList();
+        }
+        for (int i = 0; i < keys.length; i++)
+        {
+            for (Iterator iter = ((Set) _importedTables.get(keys[i])).iterator(); iter.hasNext();)
+            {
+                Integer index = (Integer) indexByKey.get(iter.next());
+                if (index != null && index.intValue() != i)
+                {
+                    pending[i]++;
+                    dependents[index.intValue()].add(new Integer(i));
+                }
+            }
+        }
+
+        Set ready = new TreeSet();
+        for (int i = 0; i < pending.length; i++)
+        {
+            if (pending[i] == 0)
+            {
+                ready.add(new Integer(i));
+            }
+        }
+
+        String[] result = new String[tableNames.length];
+        int count = 0;
+        while (!ready.isEmpty())
+        {
+            Integer next = (Integer) ready.iterator().next();
+            ready.remove(next);
+            result[count++] = tableNames[next.intValue()];
+
+            for (Iterator iter = dependents[next.intValue()].iterator(); iter.hasNext();)
+            {
+                int dependent = ((Integer) iter.next()).intValue();
+                if (--pending[dependent] == 0)
+                {
+                    ready.add(new Integer(dependent));
+                }
+            }
+        }
+        if (count != result.length)
+        {
+            // Only possible for duplicate table names
+            throw new IllegalStateException("Could not order all tables of " + tableNames.length
+                    + ", duplicate table names?");
+        }
+        return result;
+    }
+
+    /**
+     * Finds the strongly connected components of the tables reachable from the
+     * given ones (Tarjan) and fails for the first table that belongs to a
+     * component of more than one table.
+     */
+    private void checkCycles(IDatabaseConnection connection, String[] tableNames,
+            String[] keys) throws DataSetException
+    {
+        Tarjan tarjan = new Tarjan(connection);
+        for (int i = 0; i < keys.length; i++)
+        {
+            if (!tarjan._index.containsKey(keys[i]))
+            {
+                tarjan.strongConnect(keys[i]);
+            }
+        }
+
+        for (int i = 0; i < keys.length; i++)
+        {
+            Set component = (Set) tarjan._components.get(keys[i]);
+            if (component.size() > 1)
+            {
+                Set cyclicTableNames = new TreeSet();
+                for (Iterator iter = component.iterator(); iter.hasNext();)
+                {
+                    String key = (String) iter.next();
+                    if (!key.equals(keys[i]))
+                    {
+                        cyclicTableNames.add(_tableNames.get(key));
+                    }
+                }
+                throw new CyclicTablesDependencyException(tableNames[i], cyclicTableNames);
+            }
+        }
+    }
+
+    /**
+     * Reads the imported keys of the given table unless they are known already.
+     * @return The normalized table name
+     */
+    private String load(final IDatabaseConnection connection, String tableName) throws DataSetException
+    {
+        String key = normalize(tableName);
+        if (_importedTables.containsKey(key))
+        {
+            return key;
+        }
+
+        logger.debug("Reading the imported keys of table {}", tableName);
+
+        QualifiedTableName qualifiedTableName = new QualifiedTableName(tableName, connection.getSchema());
+        final String schema = qualifiedTableName.getSchema();
+        final String table = getExistingTableName(connection, schema, qualifiedTableName.getTable());
+
+        List importedKeys;
+        try
+        {
+            importedKeys = MetadataSnapshot.getSnapshot(connection).getImportedKeys(schema, table,
+                    new MetadataSnapshot.Loader()
+                    {
+                        public Object load() throws SQLException
+                        {
+                            return readImportedKeys(connection, schema, table);
+                        }
+                    });
+        }
+        catch (SQLException e)
+        {
+            throw new DataSetException(e);
+        }
+
+        Set importedTables = new LinkedHashSet();
+        DatabaseConfig config = connection.getConfig();
+        for (Iterator iter = importedKeys.iterator(); iter.hasNext();)
+        {
+            String[] importedKey = (String[]) iter.next();
+            String importedTable = new QualifiedTableName(importedKey[1], importedKey[0])
+                    .getQualifiedNameIfEnabled(config);
+            String importedTableKey = normalize(importedTable);
+            if (!_tableNames.containsKey(importedTableKey))
+            {
+                _tableNames.put(importedTableKey, importedTable);
+            }
+            importedTables.add(importedTableKey);
+        }
+
+        _importedTables.put(key, importedTables);
+        if (!_tableNames.containsKey(key))
+        {
+            _tableNames.put(key, tableName);
+        }
+        return key;
+    }
+
+    /**
+     * @return The <code>{schema, table}</code> pairs of the tables referenced by the
+     * foreign keys of the given table
+     */
+    private List readImportedKeys(IDatabaseConnection connection, String schema, String table)
+            throws SQLException
+    {
+        List importedKeys = new ArrayList();
+        ResultSet rs = null;
+        try
+        {
+            DatabaseMetaData metaData = connection.getConnection().getMetaData();
+            rs = metaData.getImportedKeys(null, schema, table);
+            while (rs.next())
+            {
+                importedKeys.add(new String[] {rs.getString(2), rs.getString(3)});
+            }
+        }
+        finally
+        {
+            SQLHelper.close(rs);
+        }
+        return importedKeys;
+    }
+
+    /**
+     * Looks the table up in the listing of its schema, which is read once per schema.
+     * @return The table name as stored in the database
+     * @throws NoSuchTableException If the schema has no such table
+     */
+    private String getExistingTableName(final IDatabaseConnection connection, final String schema,
+            String tableName) throws DataSetException
+    {
+        Set tables = (Set) _schemaTables.get(schema);
+        if (tables == null)
+        {
+            List tableList;
+            try
+            {
+                tableList = MetadataSnapshot.getSnapshot(connection).getTables(schema, null,
+                        new MetadataSnapshot.Loader()
+                        {
+                            public Object load() throws SQLException
+                            {
+                                return readTables(connection, schema);
+                            }
+                        });
+            }
+            catch (SQLException e)
+            {
+                throw new DataSetException(e);
+            }
+            tables = new HashSet();
+            for (Iterator iter = tableList.iterator(); iter.hasNext();)
+            {
+                tables.add(((String[]) iter.next())[1]);
+            }
+            _schemaTables.put(schema, tables);
+        }
+
+        if (tables.contains(tableName))
+        {
+            return tableName;
+        }
+        if (!_caseSensitive)
+        {
+            for (Iterator iter = tables.iterator(); iter.hasNext();)
+            {
+                String existingTable = (String) iter.next();
+                if (existingTable.equalsIgnoreCase(tableName))
+                {
+                    return existingTable;
+                }
+            }
+        }
+        throw new NoSuchTableException("The table '" + tableName + "' does not exist in schema '"
+                + schema + "'");
+    }
+
+    /**
+     * @return The <code>{schema, table}</code> pairs of all tables of the given schema
+     */
+    private List readTables(IDatabaseConnection connection, String schema) throws SQLException
+    {
+        List tables = new ArrayList();
+        ResultSet rs = null;
+        try
+        {
+            IMetadataHandler metadataHandler = (IMetadataHandler) connection.getConfig()
+                    .getProperty(DatabaseConfig.PROPERTY_METADATA_HANDLER);
+            rs = metadataHandler.getTables(connection.getConnection().getMetaData(), schema, null);
+            while (rs.next())
+            {
+                tables.add(new String[] {metadataHandler.getSchema(rs), rs.getString(3)});
+            }
+        }
+        finally
+        {
+            SQLHelper.close(rs);
+        }
+        return tables;
+    }
+
+    private String normalize(String tableName)
+    {
+        return _caseSensitive ? tableName : tableName.toUpperCase();
+    }
+
+    public String toString()
+    {
+        StringBuffer sb = new StringBuffer();
+        sb.append(getClass().getName()).append("[");
+        sb.append("_caseSensitive=").append(_caseSensitive);
+        sb.append(", _qualifiedTableNames=").append(_qualifiedTableNames);
+        sb.append(", _importedTables=").append(_importedTables);
+        sb.append("]");
+        return sb.toString();
+    }
+
+    /**
+     * State of one run of Tarjan's strongly connected components algorithm.
+     */
+    private class Tarjan
+    {
+        private final IDatabaseConnection _connection;
+        private final Map _index = new HashMap();
+        private final Map _lowLink = new HashMap();
+        private final List _stack = new ArrayList();
+        private final Set _onStack = new HashSet();
+        private final Map _components = new HashMap();
+
+        private Tarjan(IDatabaseConnection connection)
+        {
+            _connection = connection;
+        }
+
+        private int strongConnect(String key) throws DataSetException
+        {
+            int index = _index.size();
+            int lowLink = index;
+            _index.put(key, new Integer(index));
+            _stack.add(key);
+            _onStack.add(key);
+
+            for (Iterator iter = ((Set) _importedTables.get(key)).iterator(); iter.hasNext();)
+            {
+                String importedKey = (String) iter.next();
+                Integer importedIndex = (Integer) _index.get(importedKey);
+                if (importedIndex == null)
+                {
+                    loadReferencedTable(importedKey);
+                    lowLink = Math.min(lowLink, strongConnect(importedKey));
+                }
+                else if (_onStack.contains(importedKey))
+                {
+                    lowLink = Math.min(lowLink, importedIndex.intValue());
+                }
+            }
+
+            if (lowLink == index)
+            {
+                Set component = new HashSet();
+                String member;
+                do
+                {
+                    member = (String) _stack.remove(_stack.size() - 1);
+                    _onStack.remove(member);
+                    component.add(member);
+                    _components.put(member, component);
+                }
+                while (!member.equals(key));
+            }
+            return lowLink;
+        }
+
+        private void loadReferencedTable(String key) throws DataSetException
+        {
+            try
+            {
+                load(_connection, (String) _tableNames.get(key));
+            }
+            catch (NoSuchTableException e)
+            {
+                // A referenced table of another schema while qualified table names are
+                // disabled. It exists, only its name cannot be resolved: treat it as a leaf.
+                logger.debug("Cannot read the imported keys of referenced table {}", _tableNames.get(key));
+                _importedTables.put(key, new HashSet());
+            }
+        }
+    }
+}
@@ -42,17 +42,43 @@ public abstract class AbstractPreparedBatchStatement implements IPreparedBatchSt
     private static final Logger logger = LoggerFactory.getLogger(AbstractPreparedBatchStatement.class);
 
     protected final PreparedStatement _statement;
+    private final PreparedStatementCache _statementCache;
 
     AbstractPreparedBatchStatement(String sql, Connection connection)
             throws SQLException
     {
-        _statement = connection.prepareStatement(sql);
+        this(sql, connection, null);
+    }
+
+    /**
+     * @param statementCache The cache to take the statement from and to release
+     * it to on {@link #close()}, <code>null</code> to prepare a new statement
+     */
+    AbstractPreparedBatchStatement(String sql, Connection connection,
+            PreparedStatementCache statementCache) throws SQLException
+    {
+        _statementCache = statementCache;
+        if (statementCache == null)
+        {
+            _statement = connection.prepareStatement(sql);
+        }
+        else
+        {
+            _statement = statementCache.prepareStatement(sql, connection);
+        }
     }
 
     public void close() throws SQLException
     {
         logger.debug("close() - start");
 
-        _statement.close();
+        if (_statementCache == null)
+        {
+            _statement.close();
+        }
+        else
+        {
+            _statementCache.release(_statement);
+        }
     }
 }
@@ -0,0 +1,225 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.database.statement;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.datatype.DataType;
+import org.dbunit.dataset.datatype.TypeCastException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Inserts several rows with a single <code>INSERT INTO ... VALUES (...), (...)</code>
+ * statement. The rows added are buffered until the configured number of rows per
+ * statement is reached; the remaining rows are inserted by {@link #executeBatch()}
+ * with a statement for exactly that many rows. Each statement is prepared once per
+ * number of rows and reused.
+ *
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.5.2
+ * @see MultiRowInsertStatementFactory
+ */
+public class MultiRowInsertStatement implements IPreparedBatchStatement
+{
+
+    /**
+     * Logger for this class
+     */
+    private static final Logger logger = LoggerFactory.getLogger(MultiRowInsertStatement.class);
+
+    private final Connection _connection;
+    private final String _sqlPrefix;
+    private final String _rowValues;
+    private final int _rowsPerStatement;
+    private final PreparedStatementCache _statementCache;
+
+    /** The prepared statements by number of rows */
+    private final Map _statements = new HashMap();
+    private final List _values = new ArrayList();
+    private final List _dataTypes = new ArrayList();
+    private int _rowCount;
+    private int _result;
+
+    /**
+     * @param sqlPrefix The statement up to the values, e.g.
+     * <code>insert into T (A, B) values </code>
+     * @param rowValues The parameter markers of one row, e.g. <code>(?, ?)</code>
+     * @param rowsPerStatement The maximum number of rows inserted by one statement
+     * @param connection The connection to prepare the statements with
+     * @param statementCache The cache to take the statements from, may be <code>null</code>
+     */
+    MultiRowInsertStatement(String sqlPrefix, String rowValues, int rowsPerStatement,
+            Connection connection, PreparedStatementCache statementCache)
+    {
+        _sqlPrefix = sqlPrefix;
+        _rowValues = rowValues;
+        _rowsPerStatement = rowsPerStatement;
+        _connection = connection;
+        _statementCache = statementCache;
+    }
+
+    /**
+     * @return The SQL inserting the given number of rows
+     */
+    String getSql(int rowCount)
+    {
+        StringBuffer sqlBuffer = new StringBuffer(_sqlPrefix.length()
+                + rowCount * (_rowValues.length() + 2));
+        sqlBuffer.append(_sqlPrefix);
+        for (int i = 0; i < rowCount; i++)
+        {
+            if (i > 0)
+            {
+                sqlBuffer.append(", ");
+            }
+            sqlBuffer.append(_rowValues);
+        }
+        return sqlBuffer.toString();
+    }
+
+    private void execute() throws SQLException
+    {
+        Integer key = new Integer(_rowCount);
+        PreparedStatement statement = (PreparedStatement)_statements.get(key);
+        if (statement == null)
+        {
+            String sql = getSql(_rowCount);
+            statement = _statementCache == null ? _connection.prepareStatement(sql)
+                    : _statementCache.prepareStatement(sql, _connection);
+            _statements.put(key, statement);
+        }
+
+        try
+        {
+            for (int i = 0; i < _values.size(); i++)
+            {
+                Object value = _values.get(i);
+                DataType dataType = (DataType)_dataTypes.get(i);
+
+                // Special NULL handling
+                if (value == null || value == ITable.NO_VALUE)
+                {
+                    statement.setNull(i + 1, dataType.getSqlType());
+                }
+                else
+                {
+                    dataType.setSqlValue(value, i + 1, statement);
+                }
+            }
+        }
+        catch (TypeCastException e)
+        {
+            SQLException exception = new SQLException("Cannot bind value: " + e.getMessage());
+            exception.initCause(e);
+            throw exception;
+        }
+
+        _result += statement.executeUpdate();
+        clearBatch();
+    }
+
+    ////////////////////////////////////////////////////////////////////////////
+    // IPreparedBatchStatement interface
+
+    public void addValue(Object value, DataType dataType)
+            throws TypeCastException, SQLException
+    {
+        logger.debug("addValue(value={}, dataType={}) - start", value, dataType);
+
+        _values.add(value);
+        _dataTypes.add(dataType);
+    }
+
+    public void addBatch() throws SQLException
+    {
+        logger.debug("addBatch() - start");
+
+        _rowCount++;
+        if (_rowCount == _rowsPerStatement)
+        {
+            execute();
+        }
+    }
+
+    public int executeBatch() throws SQLException
+    {
+        logger.debug("executeBatch() - start");
+
+        if (_rowCount > 0)
+        {
+            execute();
+        }
+        int result = _result;
+        _result = 0;
+        return result;
+    }
+
+    public void clearBatch() throws SQLException
+    {
+        logger.debug("clearBatch() - start");
+
+        _values.clear();
+        _dataTypes.clear();
+        _rowCount = 0;
+    }
+
+    public void close() throws SQLException
+    {
+        logger.debug("close() - start");
+
+        SQLException exception = null;
+        for (Iterator it = _statements.values().iterator(); it.hasNext();)
+        {
+            try
+            {
+                PreparedStatement statement = (PreparedStatement)it.next();
+                if (_statementCache == null)
+                {
+                    statement.close();
+                }
+                else
+                {
+                    _statementCache.release(statement);
+                }
+            }
+            catch (SQLException e)
+            {
+                exception = e;
+            }
+        }
+        _statements.clear();
+
+        if (exception != null)
+        {
+            throw exception;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.database.statement;
+
+import java.sql.SQLException;
+
+import org.dbunit.database.IDatabaseConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Statement factory inserting several rows per statement with the multi-row
+ * <code>VALUES</code> syntax supported by MySQL, PostgreSQL, H2, HSQLDB 2 and
+ * others. Single row insert statements of the form
+ * <code>insert into T (A, B) values (?, ?)</code>, as generated by the
+ * {@link org.dbunit.operation.InsertOperation}, are turned into a
+ * {@link MultiRowInsertStatement}; all other statements are handled like by the
+ * {@link PreparedStatementFactory}.
+ * <p>
+ * The number of rows per statement times the number of columns must stay below the
+ * parameter limit of the driver, e.g. 2100 for MS SQL Server.
+ * </p>
+ *
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.5.2
+ */
+public class MultiRowInsertStatementFactory extends PreparedStatementFactory
+{
+
+    /**
+     * Logger for this class
+     */
+    private static final Logger logger = LoggerFactory.getLogger(MultiRowInsertStatementFactory.class);
+
+    public static final int DEFAULT_ROWS_PER_STATEMENT = 50;
+
+    private static final String VALUES = "values ";
+
+    private final int _rowsPerStatement;
+
+    public MultiRowInsertStatementFactory()
+    {
+        this(DEFAULT_ROWS_PER_STATEMENT);
+    }
+
+    /**
+     * @param rowsPerStatement The maximum number of rows inserted by one statement
+     */
+    public MultiRowInsertStatementFactory(int rowsPerStatement)
+    {
+        if (rowsPerStatement <= 0)
+        {
+            throw new IllegalArgumentException("The rows per statement must be positive but are "
+                    + rowsPerStatement);
+        }
+        _rowsPerStatement = rowsPerStatement;
+    }
+
+    public int getRowsPerStatement()
+    {
+        return _rowsPerStatement;
+    }
+
+    public IPreparedBatchStatement createPreparedBatchStatement(String sql,
+            IDatabaseConnection connection) throws SQLException
+    {
+        if (logger.isDebugEnabled())
+        {
+            logger.debug("createPreparedBatchStatement(sql={}, connection={}) - start", sql, connection);
+        }
+
+        int valuesIndex = getRowValuesIndex(sql);
+        if (valuesIndex < 0 || _rowsPerStatement == 1)
+        {
+            return super.createPreparedBatchStatement(sql, connection);
+        }
+
+        return new MultiRowInsertStatement(sql.substring(0, valuesIndex),
+                sql.substring(valuesIndex), _rowsPerStatement, connection.getConnection(),
+                PreparedStatementCache.getCache(connection));
+    }
+
+    /**
+     * Returns the index of the parameter list of a single row insert statement.
+     * @return The index of the opening parenthesis of the values or -1 if the
+     * given statement does not end with a single row value list
+     */
+    static int getRowValuesIndex(String sql)
+    {
+        if (!sql.regionMatches(true, 0, "insert ", 0, 7))
+        {
+            return -1;
+        }
+
+        int index = sql.lastIndexOf('(');
+        if (index < VALUES.length()
+                || !sql.regionMatches(true, index - VALUES.length(), VALUES, 0, VALUES.length()))
+        {
+            return -1;
+        }
+
+        // the values must be parameter markers only
+        for (int i = index + 1; i < sql.length() - 1; i++)
+        {
+            char c = sql.charAt(i);
+            if (c != '?' && c != ',' && c != ' ')
+            {
+                return -1;
+            }
+        }
+        return sql.charAt(sql.length() - 1) == ')' ? index : -1;
+    }
+}
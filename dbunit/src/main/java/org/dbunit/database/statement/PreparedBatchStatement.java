@@ -49,7 +49,13 @@ public class PreparedBatchStatement extends AbstractPreparedBatchStatement
     PreparedBatchStatement(String sql, Connection connection)
             throws SQLException
     {
-        super(sql, connection);
+        this(sql, connection, null);
+    }
+
+    PreparedBatchStatement(String sql, Connection connection,
+            PreparedStatementCache statementCache) throws SQLException
+    {
+        super(sql, connection, statementCache);
         _index = 0;
     }
 
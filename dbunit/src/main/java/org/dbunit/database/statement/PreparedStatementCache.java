@@ -0,0 +1,299 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.database.statement;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.dbunit.database.DatabaseConfig;
+import org.dbunit.database.IDatabaseConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps the prepared statements of a connection open between operations so that
+ * the same SQL is prepared only once, e.g. when a test suite executes a
+ * <code>CLEAN_INSERT</code> of the same dataset before each test. The statements
+ * are keyed by their SQL text; the least recently used one is closed when the
+ * maximum size is exceeded.
+ * <p>
+ * A cache belongs to a single connection and is enabled by setting it as the
+ * {@link DatabaseConfig#PROPERTY_PREPARED_STATEMENT_CACHE} of that connection.
+ * A statement obtained with {@link #prepareStatement(String, Connection)} is
+ * exclusively used by the caller until it is handed back with
+ * {@link #release(PreparedStatement)}; a concurrent request for the same SQL gets
+ * a new statement which is closed on release.
+ * </p>
+ *
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.5.2
+ */
+public class PreparedStatementCache
+{
+
+    /**
+     * Logger for this class
+     */
+    private static final Logger logger = LoggerFactory.getLogger(PreparedStatementCache.class);
+
+    public static final int DEFAULT_MAX_SIZE = 100;
+
+    private final int _maxSize;
+    /** The cached statements by SQL, in access order */
+    private final Map _statements;
+    private final Set _statementsInUse = new HashSet();
+    private Connection _connection;
+    private int _hitCount;
+    private int _missCount;
+
+    public PreparedStatementCache()
+    {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * @param maxSize The maximum number of statements kept open
+     */
+    public PreparedStatementCache(int maxSize)
+    {
+        if (maxSize <= 0)
+        {
+            throw new IllegalArgumentException("The maximum size must be positive but is " + maxSize);
+        }
+        _maxSize = maxSize;
+        _statements = new LinkedHashMap(16, 0.75f, true)
+        {
+            private static final long serialVersionUID = 1L;
+
+            protected boolean removeEldestEntry(Map.Entry eldest)
+            {
+                if (size() <= _maxSize)
+                {
+                    return false;
+                }
+
+                // statements in use are closed on release
+                PreparedStatement statement = (PreparedStatement)eldest.getValue();
+                if (!_statementsInUse.contains(statement))
+                {
+                    closeQuietly(statement);
+                }
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached statement for the given SQL or prepares a new one.
+     * @param sql The SQL of the statement
+     * @param connection The connection to prepare the statement with. All cached
+     * statements are closed when it differs from the connection of the previous call.
+     * @return The statement, to be handed back with {@link #release(PreparedStatement)}
+     * instead of being closed
+     * @throws SQLException
+     */
+    public synchronized PreparedStatement prepareStatement(String sql, Connection connection)
+            throws SQLException
+    {
+        logger.debug("prepareStatement(sql={}, connection={}) - start", sql, connection);
+
+        if (connection != _connection)
+        {
+            clear();
+            _connection = connection;
+        }
+
+        PreparedStatement statement = (PreparedStatement)_statements.get(sql);
+        if (statement != null && !_statementsInUse.contains(statement))
+        {
+            _hitCount++;
+            _statementsInUse.add(statement);
+            return statement;
+        }
+
+        _missCount++;
+        PreparedStatement newStatement = connection.prepareStatement(sql);
+        if (statement == null)
+        {
+            _statements.put(sql, newStatement);
+        }
+        _statementsInUse.add(newStatement);
+        return newStatement;
+    }
+
+    /**
+     * Hands a statement back to the cache. Its parameters and pending batch are
+     * cleared; statements which are not cached are closed.
+     * @param statement A statement obtained from {@link #prepareStatement(String, Connection)}
+     * @throws SQLException
+     */
+    public synchronized void release(PreparedStatement statement) throws SQLException
+    {
+        logger.debug("release(statement={}) - start", statement);
+
+        _statementsInUse.remove(statement);
+        if (!_statements.containsValue(statement))
+        {
+            statement.close();
+            return;
+        }
+
+        try
+        {
+            statement.clearParameters();
+            statement.clearBatch();
+        }
+        catch (SQLException e)
+        {
+            // do not hand out a statement in an unknown state
+            _statements.values().remove(statement);
+            closeQuietly(statement);
+            throw e;
+        }
+    }
+
+    /**
+     * Closes all cached statements. Statements in use are closed when released.
+     */
+    public synchronized void clear()
+    {
+        logger.debug("clear() - start");
+
+        List statements = new ArrayList(_statements.values());
+        _statements.clear();
+        for (Iterator it = statements.iterator(); it.hasNext();)
+        {
+            PreparedStatement statement = (PreparedStatement)it.next();
+            if (!_statementsInUse.contains(statement))
+            {
+                closeQuietly(statement);
+            }
+        }
+    }
+
+    /**
+     * @return The number of statements currently cached
+     */
+    public synchronized int getSize()
+    {
+        return _statements.size();
+    }
+
+    public int getMaxSize()
+    {
+        return _maxSize;
+    }
+
+    /**
+     * @return The number of requests served by a cached statement
+     */
+    public synchronized int getHitCount()
+    {
+        return _hitCount;
+    }
+
+    /**
+     * @return The number of requests which prepared a new statement
+     */
+    public synchronized int getMissCount()
+    {
+        return _missCount;
+    }
+
+    private void closeQuietly(PreparedStatement statement)
+    {
+        try
+        {
+            statement.close();
+        }
+        catch (SQLException e)
+        {
+            logger.warn("Cannot close statement " + statement, e);
+        }
+    }
+
+    /**
+     * Prepares a statement with the cache configured for the given connection,
+     * if any.
+     * @return The statement, to be handed back with
+     * {@link #release(PreparedStatement, IDatabaseConnection)}
+     * @throws SQLException
+     */
+    public static PreparedStatement prepareStatement(String sql, IDatabaseConnection connection)
+            throws SQLException
+    {
+        PreparedStatementCache cache = getCache(connection);
+        if (cache == null)
+        {
+            return connection.getConnection().prepareStatement(sql);
+        }
+        return cache.prepareStatement(sql, connection.getConnection());
+    }
+
+    /**
+     * Releases a statement obtained with {@link #prepareStatement(String, IDatabaseConnection)}
+     * to the cache configured for the given connection or closes it.
+     * @throws SQLException
+     */
+    public static void release(PreparedStatement statement, IDatabaseConnection connection)
+            throws SQLException
+    {
+        PreparedStatementCache cache = getCache(connection);
+        if (cache == null)
+        {
+            statement.close();
+        }
+        else
+        {
+            cache.release(statement);
+        }
+    }
+
+    /**
+     * @return The cache configured for the given connection or <code>null</code>
+     */
+    public static PreparedStatementCache getCache(IDatabaseConnection connection)
+    {
+        return (PreparedStatementCache)connection.getConfig().getProperty(
+                DatabaseConfig.PROPERTY_PREPARED_STATEMENT_CACHE);
+    }
+
+    public String toString()
+    {
+        StringBuffer sb = new StringBuffer();
+        sb.append(getClass().getName()).append("[");
+        sb.append("_maxSize=").append(_maxSize);
+        sb.append(", size=").append(getSize());
+        sb.append(", _hitCount=").append(getHitCount());
+        sb.append(", _missCount=").append(getMissCount());
+        sb.append("]");
+        return sb.toString();
+    }
+}
@@ -67,15 +67,18 @@ public class PreparedStatementFactory extends AbstractStatementFactory
     	}
     	
     	Integer batchSize = (Integer)connection.getConfig().getProperty(DatabaseConfig.PROPERTY_BATCH_SIZE);
+        PreparedStatementCache statementCache = PreparedStatementCache.getCache(connection);
 
         IPreparedBatchStatement statement = null;
         if (supportBatchStatement(connection))
         {
-            statement = new PreparedBatchStatement(sql, connection.getConnection());
+            statement = new PreparedBatchStatement(sql, connection.getConnection(),
+                    statementCache);
         }
         else
         {
-            statement = new SimplePreparedStatement(sql, connection.getConnection());
+            statement = new SimplePreparedStatement(sql, connection.getConnection(),
+                    statementCache);
         }
         return new AutomaticPreparedBatchStatement(statement, batchSize.intValue());
     }
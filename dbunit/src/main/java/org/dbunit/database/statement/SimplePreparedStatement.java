@@ -50,7 +50,17 @@ public class SimplePreparedStatement extends AbstractPreparedBatchStatement
     public SimplePreparedStatement(String sql, Connection connection)
             throws SQLException
     {
-        super(sql, connection);
+        this(sql, connection, null);
+    }
+
+    /**
+     * @param statementCache The cache to take the statement from, may be <code>null</code>
+     * @since 2.5.2
+     */
+    public SimplePreparedStatement(String sql, Connection connection,
+            PreparedStatementCache statementCache) throws SQLException
+    {
+        super(sql, connection, statementCache);
         _index = 0;
         _result = 0;
     }
@@ -28,7 +28,7 @@ import org.slf4j.LoggerFactory;
  * @version $Revision$
  * @since Feb 17, 2002
  */
-public abstract class AbstractTable implements ITable {
+public abstract class AbstractTable implements IIndexedTable {
 
     /**
      * Logger for this class
@@ -36,6 +36,38 @@ public abstract class AbstractTable implements ITable {
     private static final Logger logger =
             LoggerFactory.getLogger(AbstractTable.class);
 
+    /**
+     * Default implementation based on {@link #getRowCount()}. Forward only
+     * tables throwing an {@link UnsupportedOperationException} from
+     * {@link #getRowCount()} are checked by reading the row, subclasses can
+     * override this method with a cheaper check.
+     * @see org.dbunit.dataset.IIndexedTable#hasRow(int)
+     * @since 2.5.2
+     */
+    public boolean hasRow(int row) throws DataSetException {
+        if (row < 0) {
+            return false;
+        }
+        try {
+            return row < getRowCount();
+        }
+        catch (UnsupportedOperationException e) {
+            return Tables.probeRow(this, row);
+        }
+    }
+
+    /**
+     * Default implementation resolving the column name and delegating to
+     * {@link #getValue(int, String)}. Subclasses should override this method
+     * with a direct index based access where possible.
+     * @see org.dbunit.dataset.IIndexedTable#getValue(int, int)
+     * @since 2.5.2
+     */
+    public Object getValue(int row, int column) throws DataSetException {
+        Column[] columns = getTableMetaData().getColumns();
+        return getValue(row, columns[column].getColumnName());
+    }
+
     protected void assertValidRowIndex(int row) throws DataSetException {
         if (logger.isDebugEnabled()) {
             logger.debug("assertValidRowIndex(row={}) - start", Integer
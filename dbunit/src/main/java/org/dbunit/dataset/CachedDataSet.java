@@ -45,7 +45,12 @@ public class CachedDataSet extends AbstractDataSet implements IDataSetConsumer
     private OrderedTableNameMap _tables;
 
     private DefaultTable _activeTable;
-    
+    /**
+     * Size above which the tables are moved to disk, <code>null</code> to keep them in the heap
+     */
+    private final SpillThreshold _spillThreshold;
+    private SpillingTable _activeSpillingTable;
+
 
     /**
      * Default constructor.
@@ -53,6 +58,7 @@ public class CachedDataSet extends AbstractDataSet implements IDataSetConsumer
     public CachedDataSet()
     {
         super();
+        _spillThreshold = null;
         initialize();
     }
 
@@ -60,8 +66,23 @@ public class CachedDataSet extends AbstractDataSet implements IDataSetConsumer
      * Creates a copy of the specified dataset.
      */
     public CachedDataSet(IDataSet dataSet) throws DataSetException
+    {
+        this(dataSet, null);
+    }
+
+    /**
+     * Creates a copy of the specified dataset, moving the tables exceeding the given
+     * threshold to disk.
+     * @param dataSet The dataset to copy
+     * @param spillThreshold The size above which a table is kept in a {@link DiskBackedTable}
+     * or <code>null</code> to keep all tables in the heap
+     * @throws DataSetException
+     * @since 2.5.2
+     */
+    public CachedDataSet(IDataSet dataSet, SpillThreshold spillThreshold) throws DataSetException
     {
         super(dataSet.isCaseSensitiveTableNames());
+        _spillThreshold = spillThreshold;
 
         initialize();
 
@@ -69,7 +90,18 @@ public class CachedDataSet extends AbstractDataSet implements IDataSetConsumer
         while (iterator.next())
         {
             ITable table = iterator.getTable();
-            _tables.add(table.getTableMetaData().getTableName(), new CachedTable(table));
+            ITable cachedTable;
+            if (spillThreshold == null)
+            {
+                cachedTable = new CachedTable(table);
+            }
+            else
+            {
+                SpillingTable spillingTable = new SpillingTable(table.getTableMetaData(), spillThreshold);
+                spillingTable.addTableRows(table);
+                cachedTable = spillingTable;
+            }
+            _tables.add(table.getTableMetaData().getTableName(), cachedTable);
         }
     }
 
@@ -88,9 +120,26 @@ public class CachedDataSet extends AbstractDataSet implements IDataSetConsumer
      * @throws DataSetException
      */
     public CachedDataSet(IDataSetProducer producer, boolean caseSensitiveTableNames) throws DataSetException
+    {
+        this(producer, caseSensitiveTableNames, null);
+    }
+
+    /**
+     * Creates a CachedDataSet that synchronously consume the specified producer, moving
+     * the tables exceeding the given threshold to disk.
+     * @param producer
+     * @param caseSensitiveTableNames Whether or not case sensitive table names should be used
+     * @param spillThreshold The size above which a table is kept in a {@link DiskBackedTable}
+     * or <code>null</code> to keep all tables in the heap
+     * @throws DataSetException
+     * @since 2.5.2
+     */
+    public CachedDataSet(IDataSetProducer producer, boolean caseSensitiveTableNames,
+            SpillThreshold spillThreshold) throws DataSetException
     {
         super(caseSensitiveTableNames);
-        
+        _spillThreshold = spillThreshold;
+
         initialize();
 
         producer.setConsumer(this);
@@ -133,19 +182,39 @@ public class CachedDataSet extends AbstractDataSet implements IDataSetConsumer
     public void startTable(ITableMetaData metaData) throws DataSetException
     {
         logger.debug("startTable(metaData={}) - start", metaData);
-        _activeTable = new DefaultTable(metaData);
+        if (_spillThreshold != null && !_tables.containsTable(metaData.getTableName()))
+        {
+            _activeSpillingTable = new SpillingTable(metaData, _spillThreshold);
+        }
+        else
+        {
+            _activeTable = new DefaultTable(metaData);
+        }
     }
 
     public void endTable() throws DataSetException
     {
         logger.debug("endTable() - start");
+        if (_activeSpillingTable != null)
+        {
+            _tables.add(_activeSpillingTable.getTableMetaData().getTableName(), _activeSpillingTable);
+            _activeSpillingTable = null;
+            return;
+        }
         String tableName = _activeTable.getTableMetaData().getTableName();
         // Check whether the table appeared once before
         if(_tables.containsTable(tableName))
         {
-            DefaultTable existingTable = (DefaultTable)_tables.get(tableName);
             // Add all newly collected rows to the existing table
-            existingTable.addTableRows(_activeTable);
+            Object existingTable = _tables.get(tableName);
+            if (existingTable instanceof SpillingTable)
+            {
+                ((SpillingTable)existingTable).addTableRows(_activeTable);
+            }
+            else
+            {
+                ((DefaultTable)existingTable).addTableRows(_activeTable);
+            }
         }
         else
         {
@@ -157,6 +226,13 @@ public class CachedDataSet extends AbstractDataSet implements IDataSetConsumer
     public void row(Object[] values) throws DataSetException
     {
         logger.debug("row(values={}) - start", values);
-        _activeTable.addRow(values);
+        if (_activeSpillingTable != null)
+        {
+            _activeSpillingTable.addRow(values);
+        }
+        else
+        {
+            _activeTable.addRow(values);
+        }
     }
 }
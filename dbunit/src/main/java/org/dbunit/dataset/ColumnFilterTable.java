@@ -32,7 +32,7 @@ import org.slf4j.LoggerFactory;
  * @version $Revision$ $Date$
  * @since 2.4.0
  */
-public class ColumnFilterTable implements ITable 
+public class ColumnFilterTable implements IIndexedTable 
 {
     /** 
      * logger 
@@ -49,6 +49,11 @@ public class ColumnFilterTable implements ITable
      */
     private final ITableMetaData tableMetaData;
 
+    /**
+     * The index of each filtered column in the original table
+     */
+    private final int[] originalColumnIndexes;
+
     
     /**
      * @param table The table from which some columns should be filtered
@@ -70,6 +75,14 @@ public class ColumnFilterTable implements ITable
         this.tableMetaData = new FilteredTableMetaData(
                 table.getTableMetaData(), columnFilter);
         this.originalTable = table;
+
+        Column[] columns = this.tableMetaData.getColumns();
+        ITableMetaData originalMetaData = table.getTableMetaData();
+        this.originalColumnIndexes = new int[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            this.originalColumnIndexes[i] =
+                    originalMetaData.getColumnIndex(columns[i].getColumnName());
+        }
     }
 
     
@@ -93,6 +106,16 @@ public class ColumnFilterTable implements ITable
         return this.originalTable.getValue(row, column);
     }
 
+    public Object getValue(int row, int column) throws DataSetException
+    {
+        return Tables.getValue(this.originalTable, row, this.originalColumnIndexes[column]);
+    }
+
+    public boolean hasRow(int row) throws DataSetException
+    {
+        return Tables.hasRow(this.originalTable, row);
+    }
+
     public ITableMetaData getOriginalMetaData() 
     {
         logger.debug("getOriginalMetaData() - start");
@@ -42,6 +42,12 @@ public class CompositeTable extends AbstractTable {
     private final ITableMetaData _metaData;
     private final ITable[] _tables;
 
+    /**
+     * Column index of each of the composite columns in each of the tables,
+     * lazily resolved by {@link #getValue(int, int)}
+     */
+    private int[][] _columnIndexes;
+
     /**
      * Creates a composite table that combines the specified metadata with the
      * specified table.
@@ -124,6 +130,67 @@ public class CompositeTable extends AbstractTable {
         throw new RowOutOfBoundsException(row + " > " + totalCount);
     }
 
+    public Object getValue(int row, int column) throws DataSetException {
+        if (row < 0) {
+            throw new RowOutOfBoundsException(row + " < 0 ");
+        }
+
+        int totalCount = 0;
+        for (int i = 0; i < _tables.length; i++) {
+            ITable table = _tables[i];
+
+            int count = table.getRowCount();
+            if (totalCount + count > row) {
+                int tableColumn = getColumnIndexes(i)[column];
+                if (tableColumn < 0) {
+                    // Let the table report the missing column
+                    String columnName = _metaData.getColumns()[column].getColumnName();
+                    return table.getValue(row - totalCount, columnName);
+                }
+                return Tables.getValue(table, row - totalCount, tableColumn);
+            }
+            totalCount += count;
+        }
+
+        throw new RowOutOfBoundsException(row + " > " + totalCount);
+    }
+
+    /**
+     * Maps the columns of this composite table to the column indexes of the
+     * table at the given position. The tables may have been created with
+     * different metadata, hence their column order can differ.
+     * @param tableIndex The position of the table in this composite table
+     * @return The column indexes in the table, -1 for missing columns
+     */
+    private int[] getColumnIndexes(int tableIndex) throws DataSetException {
+        if (_columnIndexes == null) {
+            _columnIndexes = new int[_tables.length][];
+        }
+
+        int[] indexes = _columnIndexes[tableIndex];
+        if (indexes == null) {
+            Column[] columns = _metaData.getColumns();
+            ITableMetaData tableMetaData =
+                    _tables[tableIndex].getTableMetaData();
+            Column[] tableColumns = tableMetaData.getColumns();
+            indexes = new int[columns.length];
+            for (int i = 0; i < columns.length; i++) {
+                String columnName = columns[i].getColumnName();
+                if (i < tableColumns.length
+                        && columnName.equals(tableColumns[i].getColumnName())) {
+                    indexes[i] = i;
+                } else {
+                    Column tableColumn =
+                            Columns.getColumn(columnName, tableColumns);
+                    indexes[i] = tableColumn == null ? -1 : tableMetaData
+                            .getColumnIndex(columnName);
+                }
+            }
+            _columnIndexes[tableIndex] = indexes;
+        }
+        return indexes;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -121,30 +121,22 @@ public class DefaultTable extends AbstractTable
     {
         logger.debug("addTableRows(table={}) - start", table);
 
-        try
+        Column[] columns = _metaData.getColumns();
+        if (columns.length <= 0)
         {
-            Column[] columns = _metaData.getColumns();
-            if (columns.length <= 0)
-            {
-            	logger.warn("The table '" + table + "' does not have any columns. Cannot add table rows. This should never happen...");
-            	return;
-            }
-            
-            for (int i = 0; ; i++)
-            {
-                Object[] rowValues = new Object[columns.length];
-                for (int j = 0; j < columns.length; j++)
-                {
-                    Column column = columns[j];
-                    rowValues[j] = table.getValue(i, column.getColumnName());
-                }
-                _rowList.add(rowValues);
-            }
+        	logger.warn("The table '" + table + "' does not have any columns. Cannot add table rows. This should never happen...");
+        	return;
         }
-        catch(RowOutOfBoundsException e)
+
+        for (int i = 0; Tables.hasRow(table, i); i++)
         {
-            // end of table
-        	// ignore error.
+            Object[] rowValues = new Object[columns.length];
+            for (int j = 0; j < columns.length; j++)
+            {
+                Column column = columns[j];
+                rowValues[j] = table.getValue(i, column.getColumnName());
+            }
+            _rowList.add(rowValues);
         }
     }
 
@@ -197,6 +189,14 @@ public class DefaultTable extends AbstractTable
         return rowValues[getColumnIndex(column)];
     }
 
+    public Object getValue(int row, int column) throws DataSetException
+    {
+        assertValidRowIndex(row);
+
+        Object[] rowValues = (Object[])_rowList.get(row);
+        return rowValues[column];
+    }
+
     public String toString()
     {
     	StringBuffer sb = new StringBuffer();
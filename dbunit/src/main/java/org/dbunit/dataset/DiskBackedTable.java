@@ -0,0 +1,589 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.dataset;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.RandomAccessFile;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Table keeping its rows in a temporary file instead of the heap. The rows are appended
+ * in a compact binary format and found by an index of their file offsets. The file is
+ * read through memory mapped pages of which only the least recently used are kept, so
+ * the heap needed by the table does not depend on the size of its values.
+ * <p>
+ * Values are restored as equal objects of the same class. Besides strings, numbers,
+ * dates, booleans and byte arrays any {@link Serializable} value can be stored.
+ * The temporary file is deleted by {@link #close()}, when the table is garbage collected
+ * or at the latest when the JVM exits.
+ * </p>
+ *
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.5.2
+ * @see SpillingTable
+ */
+public class DiskBackedTable extends AbstractTable
+{
+
+    /**
+     * Logger for this class
+     */
+    private static final Logger logger = LoggerFactory.getLogger(DiskBackedTable.class);
+
+    public static final int DEFAULT_PAGE_SIZE = 1024 * 1024;
+    public static final int DEFAULT_MAX_PAGES = 16;
+
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    private static final byte NULL = 0;
+    private static final byte NO_VALUE = 1;
+    private static final byte STRING = 2;
+    private static final byte INTEGER = 3;
+    private static final byte LONG = 4;
+    private static final byte DOUBLE = 5;
+    private static final byte FLOAT = 6;
+    private static final byte BIG_DECIMAL = 7;
+    private static final byte BIG_INTEGER = 8;
+    private static final byte SQL_DATE = 9;
+    private static final byte TIME = 10;
+    private static final byte TIMESTAMP = 11;
+    private static final byte BOOLEAN = 12;
+    private static final byte BYTES = 13;
+    private static final byte SHORT = 14;
+    private static final byte BYTE = 15;
+    private static final byte DATE = 16;
+    private static final byte SERIALIZED = 17;
+
+    private final ITableMetaData _metaData;
+    private final int _columnCount;
+    private final File _file;
+    private final RandomAccessFile _randomAccessFile;
+    private final FileChannel _channel;
+    private final int _pageSize;
+    /**
+     * Page index to its {@link MappedByteBuffer}, least recently used first
+     */
+    private final Map _pages;
+
+    /**
+     * Start offset of every row, followed by the end of the last row
+     */
+    private long[] _offsets = new long[17];
+    private int _rowCount;
+    private long _length;
+    private long _writtenLength;
+    private final ByteArrayOutputStream _writeBuffer = new ByteArrayOutputStream(WRITE_BUFFER_SIZE);
+    private final DataOutputStream _output = new DataOutputStream(_writeBuffer);
+
+    private int _lastRow = -1;
+    private Object[] _lastValues;
+    private boolean _closed;
+
+    /**
+     * Creates an empty table in a new temporary file of the default temporary directory
+     */
+    public DiskBackedTable(ITableMetaData metaData) throws DataSetException
+    {
+        this(metaData, null, DEFAULT_PAGE_SIZE, DEFAULT_MAX_PAGES);
+    }
+
+    /**
+     * Creates an empty table in a new temporary file
+     * @param metaData The table metadata
+     * @param directory The directory of the temporary file or <code>null</code> for the
+     * default temporary directory
+     * @param pageSize The size in bytes of the memory mapped pages of the file
+     * @param maxPages The maximum number of pages kept mapped
+     * @throws DataSetException If the temporary file cannot be created
+     */
+    public DiskBackedTable(ITableMetaData metaData, File directory, int pageSize, final int maxPages)
+    throws DataSetException
+    {
+        if (pageSize < 1 || maxPages < 1) {
+            throw new IllegalArgumentException("The page size and count must be positive but are "
+                    + pageSize + " and " + maxPages);
+        }
+        _metaData = metaData;
+        _columnCount = metaData.getColumns().length;
+        _pageSize = pageSize;
+        _pages = new LinkedHashMap(16, 0.75f, true)
+        {
+            private static final long serialVersionUID = 1L;
+
+            protected boolean removeEldestEntry(Map.Entry eldest)
+            {
+                return size() > maxPages;
+            }
+        };
+        try
+        {
+            _file = File.createTempFile("dbunit-table", ".bin", directory);
+            _file.deleteOnExit();
+            _randomAccessFile = new RandomAccessFile(_file, "rw");
+            _channel = _randomAccessFile.getChannel();
+        }
+        catch (IOException e)
+        {
+            throw new DataSetException("Cannot create the temporary file of table "
+                    + metaData.getTableName(), e);
+        }
+        logger.debug("Storing the rows of table {} in {}", metaData.getTableName(), _file);
+    }
+
+    /**
+     * Appends a row
+     * @param values The values of the row in the order of the columns of the metadata
+     */
+    public void addRow(Object[] values) throws DataSetException
+    {
+        assertOpen();
+        if (values.length != _columnCount)
+        {
+            throw new IllegalArgumentException("The row has " + values.length
+                    + " values but the table " + _metaData.getTableName() + " has " + _columnCount + " columns");
+        }
+        try
+        {
+            for (int i = 0; i < values.length; i++)
+            {
+                writeValue(values[i]);
+            }
+            if (_writeBuffer.size() >= WRITE_BUFFER_SIZE)
+            {
+                flush();
+            }
+        }
+        catch (IOException e)
+        {
+            throw new DataSetException("Cannot write to " + _file, e);
+        }
+
+        if (_rowCount + 1 >= _offsets.length)
+        {
+            long[] offsets = new long[_offsets.length * 2];
+            System.arraycopy(_offsets, 0, offsets, 0, _offsets.length);
+            _offsets = offsets;
+        }
+        _rowCount++;
+        _length = _writtenLength + _writeBuffer.size();
+        _offsets[_rowCount] = _length;
+    }
+
+    /**
+     * Appends all rows of the given table
+     */
+    public void addTableRows(ITable table) throws DataSetException
+    {
+        Column[] columns = _metaData.getColumns();
+        for (int row = 0; Tables.hasRow(table, row); row++)
+        {
+            Object[] values = new Object[columns.length];
+            for (int i = 0; i < columns.length; i++)
+            {
+                values[i] = table.getValue(row, columns[i].getColumnName());
+            }
+            addRow(values);
+        }
+    }
+
+    /**
+     * @return The size of the temporary file in bytes
+     */
+    public long getLength()
+    {
+        return _length;
+    }
+
+    /**
+     * Deletes the temporary file. The table cannot be used anymore afterwards.
+     */
+    public void close() throws DataSetException
+    {
+        if (_closed)
+        {
+            return;
+        }
+        _closed = true;
+        _pages.clear();
+        _lastValues = null;
+        try
+        {
+            _channel.close();
+            _randomAccessFile.close();
+        }
+        catch (IOException e)
+        {
+            throw new DataSetException("Cannot close " + _file, e);
+        }
+        finally
+        {
+            if (!_file.delete())
+            {
+                logger.debug("Could not delete {} yet, it is deleted when the JVM exits", _file);
+            }
+        }
+    }
+
+    protected void finalize() throws Throwable
+    {
+        try
+        {
+            close();
+        }
+        finally
+        {
+            super.finalize();
+        }
+    }
+
+    ////////////////////////////////////////////////////////////////////////////
+    // ITable interface
+
+    public ITableMetaData getTableMetaData()
+    {
+        return _metaData;
+    }
+
+    public int getRowCount()
+    {
+        return _rowCount;
+    }
+
+    public Object getValue(int row, String column) throws DataSetException
+    {
+        if (logger.isDebugEnabled())
+            logger.debug("getValue(row={}, column={}) - start", Integer.toString(row), column);
+
+        return getValue(row, getColumnIndex(column));
+    }
+
+    public Object getValue(int row, int column) throws DataSetException
+    {
+        assertValidRowIndex(row, _rowCount);
+        return readRow(row)[column];
+    }
+
+    ////////////////////////////////////////////////////////////////////////////
+    // Storage
+
+    private void assertOpen()
+    {
+        if (_closed)
+        {
+            throw new IllegalStateException("The table " + _metaData.getTableName() + " is closed");
+        }
+    }
+
+    private void flush() throws IOException
+    {
+        if (_writeBuffer.size() == 0)
+        {
+            return;
+        }
+        if (_writtenLength % _pageSize != 0)
+        {
+            // The last page was mapped before it was full
+            _pages.remove(new Long(_writtenLength / _pageSize));
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(_writeBuffer.toByteArray());
+        while (buffer.hasRemaining())
+        {
+            _writtenLength += _channel.write(buffer, _writtenLength);
+        }
+        _writeBuffer.reset();
+    }
+
+    private synchronized Object[] readRow(int row) throws DataSetException
+    {
+        assertOpen();
+        if (row == _lastRow)
+        {
+            return _lastValues;
+        }
+        try
+        {
+            if (_offsets[row + 1] > _writtenLength)
+            {
+                flush();
+            }
+            byte[] bytes = read(_offsets[row], (int) (_offsets[row + 1] - _offsets[row]));
+            DataInputStream input = new DataInputStream(new ByteArrayInputStream(bytes));
+            Object[] values = new Object[_columnCount];
+            for (int i = 0; i < values.length; i++)
+            {
+                values[i] = readValue(input);
+            }
+            _lastRow = row;
+            _lastValues = values;
+            return values;
+        }
+        catch (IOException e)
+        {
+            throw new DataSetException("Cannot read row " + row + " of table "
+                    + _metaData.getTableName() + " from " + _file, e);
+        }
+    }
+
+    /**
+     * Reads the given bytes of the file through the page cache
+     */
+    private byte[] read(long offset, int length) throws IOException
+    {
+        byte[] bytes = new byte[length];
+        int done = 0;
+        while (done < length)
+        {
+            long position = offset + done;
+            long pageIndex = position / _pageSize;
+            ByteBuffer page = getPage(pageIndex).duplicate();
+            page.position((int) (position - pageIndex * _pageSize));
+            int count = Math.min(length - done, page.remaining());
+            page.get(bytes, done, count);
+            done += count;
+        }
+        return bytes;
+    }
+
+    private MappedByteBuffer getPage(long pageIndex) throws IOException
+    {
+        Long key = new Long(pageIndex);
+        MappedByteBuffer page = (MappedByteBuffer) _pages.get(key);
+        if (page == null)
+        {
+            long start = pageIndex * _pageSize;
+            long size = Math.min(_pageSize, _writtenLength - start);
+            page = _channel.map(FileChannel.MapMode.READ_ONLY, start, size);
+            _pages.put(key, page);
+        }
+        return page;
+    }
+
+    private void writeValue(Object value) throws IOException, DataSetException
+    {
+        if (value == null)
+        {
+            _output.writeByte(NULL);
+        }
+        else if (value == ITable.NO_VALUE)
+        {
+            _output.writeByte(NO_VALUE);
+        }
+        else if (value.getClass() == String.class)
+        {
+            _output.writeByte(STRING);
+            writeBytes(((String) value).getBytes("UTF-8"));
+        }
+        else if (value.getClass() == Integer.class)
+        {
+            _output.writeByte(INTEGER);
+            _output.writeInt(((Integer) value).intValue());
+        }
+        else if (value.getClass() == Long.class)
+        {
+            _output.writeByte(LONG);
+            _output.writeLong(((Long) value).longValue());
+        }
+        else if (value.getClass() == Double.class)
+        {
+            _output.writeByte(DOUBLE);
+            _output.writeDouble(((Double) value).doubleValue());
+        }
+        else if (value.getClass() == Float.class)
+        {
+            _output.writeByte(FLOAT);
+            _output.writeFloat(((Float) value).floatValue());
+        }
+        else if (value.getClass() == BigDecimal.class)
+        {
+            _output.writeByte(BIG_DECIMAL);
+            _output.writeInt(((BigDecimal) value).scale());
+            writeBytes(((BigDecimal) value).unscaledValue().toByteArray());
+        }
+        else if (value.getClass() == BigInteger.class)
+        {
+            _output.writeByte(BIG_INTEGER);
+            writeBytes(((BigInteger) value).toByteArray());
+        }
+        else if (value.getClass() == java.sql.Date.class)
+        {
+            _output.writeByte(SQL_DATE);
+            _output.writeLong(((java.sql.Date) value).getTime());
+        }
+        else if (value.getClass() == Time.class)
+        {
+            _output.writeByte(TIME);
+            _output.writeLong(((Time) value).getTime());
+        }
+        else if (value.getClass() == Timestamp.class)
+        {
+            _output.writeByte(TIMESTAMP);
+            _output.writeLong(((Timestamp) value).getTime());
+            _output.writeInt(((Timestamp) value).getNanos());
+        }
+        else if (value.getClass() == java.util.Date.class)
+        {
+            _output.writeByte(DATE);
+            _output.writeLong(((java.util.Date) value).getTime());
+        }
+        else if (value.getClass() == Boolean.class)
+        {
+            _output.writeByte(BOOLEAN);
+            _output.writeBoolean(((Boolean) value).booleanValue());
+        }
+        else if (value.getClass() == byte[].class)
+        {
+            _output.writeByte(BYTES);
+            writeBytes((byte[]) value);
+        }
+        else if (value.getClass() == Short.class)
+        {
+            _output.writeByte(SHORT);
+            _output.writeShort(((Short) value).shortValue());
+        }
+        else if (value.getClass() == Byte.class)
+        {
+            _output.writeByte(BYTE);
+            _output.writeByte(((Byte) value).byteValue());
+        }
+        else if (value instanceof Serializable)
+        {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            ObjectOutputStream output = new ObjectOutputStream(bytes);
+            output.writeObject(value);
+            output.close();
+            _output.writeByte(SERIALIZED);
+            writeBytes(bytes.toByteArray());
+        }
+        else
+        {
+            throw new DataSetException("Cannot store the value " + value + " of class "
+                    + value.getClass().getName() + " of table " + _metaData.getTableName()
+                    + " on disk since it is not serializable");
+        }
+    }
+
+    private void writeBytes(byte[] bytes) throws IOException
+    {
+        _output.writeInt(bytes.length);
+        _output.write(bytes);
+    }
+
+    private Object readValue(DataInputStream input) throws IOException, DataSetException
+    {
+        byte type = input.readByte();
+        switch (type)
+        {
+        case NULL:
+            return null;
+        case NO_VALUE:
+            return ITable.NO_VALUE;
+        case STRING:
+            return new String(readBytes(input), "UTF-8");
+        case INTEGER:
+            return new Integer(input.readInt());
+        case LONG:
+            return new Long(input.readLong());
+        case DOUBLE:
+            return new Double(input.readDouble());
+        case FLOAT:
+            return new Float(input.readFloat());
+        case BIG_DECIMAL:
+            int scale = input.readInt();
+            return new BigDecimal(new BigInteger(readBytes(input)), scale);
+        case BIG_INTEGER:
+            return new BigInteger(readBytes(input));
+        case SQL_DATE:
+            return new java.sql.Date(input.readLong());
+        case TIME:
+            return new Time(input.readLong());
+        case TIMESTAMP:
+            Timestamp timestamp = new Timestamp(input.readLong());
+            timestamp.setNanos(input.readInt());
+            return timestamp;
+        case DATE:
+            return new java.util.Date(input.readLong());
+        case BOOLEAN:
+            return Boolean.valueOf(input.readBoolean());
+        case BYTES:
+            return readBytes(input);
+        case SHORT:
+            return new Short(input.readShort());
+        case BYTE:
+            return new Byte(input.readByte());
+        case SERIALIZED:
+            ObjectInputStream objectInput = new ObjectInputStream(
+                    new ByteArrayInputStream(readBytes(input)));
+            try
+            {
+                return objectInput.readObject();
+            }
+            catch (ClassNotFoundException e)
+            {
+                throw new DataSetException(e);
+            }
+            finally
+            {
+                objectInput.close();
+            }
+        default:
+            throw new DataSetException("Unknown value type " + type + " in " + _file);
+        }
+    }
+
+    private byte[] readBytes(DataInputStream input) throws IOException
+    {
+        byte[] bytes = new byte[input.readInt()];
+        input.readFully(bytes);
+        return bytes;
+    }
+
+    public String toString()
+    {
+        StringBuffer sb = new StringBuffer();
+        sb.append(getClass().getName()).append("[");
+        sb.append("_metaData=").append(_metaData);
+        sb.append(", _rowCount=").append(_rowCount);
+        sb.append(", _length=").append(_length);
+        sb.append(", _file=").append(_file);
+        sb.append("]");
+        return sb.toString();
+    }
+}
@@ -28,7 +28,7 @@ import org.slf4j.LoggerFactory;
  * @since Apr 9, 2003
  * @version $Revision$
  */
-public class ForwardOnlyTable implements ITable
+public class ForwardOnlyTable implements IIndexedTable
 {
 
     /**
@@ -70,4 +70,20 @@ public class ForwardOnlyTable implements ITable
         _lastRow = row;
         return _table.getValue(row, column);
     }
+
+    public Object getValue(int row, int column) throws DataSetException
+    {
+        if (row < _lastRow)
+        {
+            throw new UnsupportedOperationException("Cannot go backward!");
+        }
+
+        _lastRow = row;
+        return Tables.getValue(_table, row, column);
+    }
+
+    public boolean hasRow(int row) throws DataSetException
+    {
+        return Tables.hasRow(_table, row);
+    }
 }
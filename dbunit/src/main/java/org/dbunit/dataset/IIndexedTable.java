@@ -0,0 +1,71 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.dataset;
+
+/**
+ * An {@link ITable} that also provides access to its values by column index and
+ * lets callers probe for a row without knowing the row count. All tables of dbunit
+ * implement it. Code that works on any {@link ITable} should use
+ * {@link Tables#hasRow(ITable, int)} and {@link Tables#getValue(ITable, int, int)},
+ * which fall back to the {@link ITable} methods for other implementations.
+ * 
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.5.2
+ */
+public interface IIndexedTable extends ITable
+{
+    /**
+     * Returns this table value for the specified row and column index. The
+     * column index is the position of the column in the
+     * {@link ITableMetaData#getColumns()} array of this table, as returned by
+     * {@link ITableMetaData#getColumnIndex(String)}. Code reading many cells
+     * should resolve the column indexes once and use this method instead of
+     * {@link #getValue(int, String)} which looks up the column name on every
+     * call.
+     * <p>
+     * For performance reasons implementations are not required to validate
+     * the column index; an index outside of the columns array leads to an
+     * unspecified runtime exception.
+     * </p>
+     * @param row The row index, starting with 0
+     * @param column The column index, starting with 0
+     * @return The value
+     * @throws RowOutOfBoundsException if specified row is less than zero or
+     * equals or greater than <code>getRowCount</code>
+     */
+    public Object getValue(int row, int column) throws DataSetException;
+
+    /**
+     * Returns whether this table has a row with the specified index. This
+     * allows iterating over a table without knowing its row count up front
+     * and without catching a {@link RowOutOfBoundsException} at its end:
+     * <pre>
+     * for (int row = 0; table.hasRow(row); row++) { ... }
+     * </pre>
+     * Forward only tables may advance their cursor up to the requested row.
+     * @param row The row index, starting with 0
+     * @return <code>true</code> if the row exists, <code>false</code> if the
+     * index is less than zero or beyond the last row of this table
+     * @throws DataSetException
+     */
+    public boolean hasRow(int row) throws DataSetException;
+}
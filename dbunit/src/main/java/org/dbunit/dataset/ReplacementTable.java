@@ -35,7 +35,7 @@ import java.util.Map;
  * @since Mar 17, 2003
  * @version $Revision$
  */
-public class ReplacementTable implements ITable
+public class ReplacementTable implements IIndexedTable
 {
 
     /**
@@ -239,13 +239,26 @@ public class ReplacementTable implements ITable
         return _table.getRowCount();
     }
 
+    public boolean hasRow(int row) throws DataSetException
+    {
+        return Tables.hasRow(_table, row);
+    }
+
     public Object getValue(int row, String column) throws DataSetException
     {
         if(logger.isDebugEnabled())
             logger.debug("getValue(row={}, columnName={}) - start", Integer.toString(row), column);
 
-        Object value = _table.getValue(row, column);
+        return replaceValue(_table.getValue(row, column));
+    }
+
+    public Object getValue(int row, int column) throws DataSetException
+    {
+        return replaceValue(Tables.getValue(_table, row, column));
+    }
 
+    private Object replaceValue(Object value) throws DataSetException
+    {
         // Object replacement
         if (_objectMap.containsKey(value))
         {
@@ -39,7 +39,7 @@ import org.slf4j.LoggerFactory;
  * @version $Revision$ $Date$
  * @since 2.3.0
  */
-public class RowFilterTable implements ITable, IRowValueProvider {
+public class RowFilterTable implements IIndexedTable, IRowValueProvider {
 
 	
 	/** 
@@ -125,6 +125,11 @@ public class RowFilterTable implements ITable, IRowValueProvider {
 		return this.filteredRowIndexes.size();
 	}
 
+	public boolean hasRow(int row) throws DataSetException
+	{
+		return row >= 0 && row < this.filteredRowIndexes.size();
+	}
+
 	public Object getValue(int row, String column) throws DataSetException 
 	{
 	    if(logger.isDebugEnabled())
@@ -142,6 +147,18 @@ public class RowFilterTable implements ITable, IRowValueProvider {
 	}
 
 
+	public Object getValue(int row, int column) throws DataSetException 
+	{
+		int max = this.filteredRowIndexes.size();
+		if ( row < max ) {
+			int realRow = ((Integer) this.filteredRowIndexes.get( row )).intValue();
+			return Tables.getValue(this.originalTable, realRow, column);
+		} else {
+			throw new RowOutOfBoundsException( "tried to access row " + row + 
+					" but rowCount is " + max );
+		}
+	}
+
 	/**
 	 * Returns the column value for the column with the given name of the currently processed row
 	 * @throws DataSetException 
@@ -33,7 +33,10 @@ import org.slf4j.LoggerFactory;
 /**
  * This is a ITable decorator that provide a sorted view of the decorated table.
  * This implementation does not keep a separate copy of the decorated table
- * data.
+ * data. Unless a custom comparator is set, the values of the sort columns are
+ * read once into typed arrays and an <code>int</code> permutation of the rows
+ * is sorted, see {@link #setUseComparable(boolean)} and
+ * {@link #setParallelSort(boolean)}.
  * 
  * @author Manuel Laflamme
  * @author Last changed by: $Author$
@@ -51,13 +54,23 @@ public class SortedTable extends AbstractTable {
 
     private final ITable _table;
     private final Column[] _columns;
-    private Integer[] _indexes;
+    private int[] _indexes;
 
     /**
      * The row comparator which is used for sorting
      */
     private Comparator rowComparator;
 
+    /**
+     * Whether the rows are sorted by {@link #rowComparator} instead of the
+     * built-in sort engine
+     */
+    private boolean _customComparator;
+
+    private boolean _useComparable;
+
+    private boolean _parallelSort;
+
     /**
      * Sort the decorated table by specified columns order.
      * 
@@ -172,21 +185,35 @@ public class SortedTable extends AbstractTable {
         }
 
         if (_indexes == null) {
-            Integer[] indexes = new Integer[getRowCount()];
-            for (int i = 0; i < indexes.length; i++) {
-                indexes[i] = new Integer(i);
-            }
-
             try {
-                Arrays.sort(indexes, rowComparator);
+                if (_customComparator) {
+                    _indexes = sortByComparator();
+                } else {
+                    _indexes =
+                            new TableSorter(_table, _columns, _useComparable)
+                                    .sort(_parallelSort);
+                }
             } catch (DatabaseUnitRuntimeException e) {
                 throw (DataSetException) e.getCause();
             }
+        }
+
+        return _indexes[row];
+    }
 
-            _indexes = indexes;
+    private int[] sortByComparator() {
+        Integer[] indexes = new Integer[getRowCount()];
+        for (int i = 0; i < indexes.length; i++) {
+            indexes[i] = new Integer(i);
         }
 
-        return _indexes[row].intValue();
+        Arrays.sort(indexes, rowComparator);
+
+        int[] result = new int[indexes.length];
+        for (int i = 0; i < indexes.length; i++) {
+            result[i] = indexes[i].intValue();
+        }
+        return result;
     }
 
     /**
@@ -212,10 +239,30 @@ public class SortedTable extends AbstractTable {
             setRowComparator(new RowComparatorByString(this._table,
                     this._columns));
         }
+        this._useComparable = useComparable;
+        this._customComparator = false;
     }
 
     /**
-     * Sets the comparator to be used for sorting the table rows.
+     * Whether or not tables with many rows are sorted on several processors.
+     * Default value is <code>false</code>. Has no effect when a custom row
+     * comparator has been set with {@link #setRowComparator(Comparator)}.
+     * 
+     * @param parallelSort
+     * @since 2.5.2
+     */
+    public void setParallelSort(boolean parallelSort) {
+        if (logger.isDebugEnabled()) {
+            logger.debug("setParallelSort(parallelSort={}) - start", Boolean
+                    .valueOf(parallelSort));
+        }
+
+        this._parallelSort = parallelSort;
+    }
+
+    /**
+     * Sets the comparator to be used for sorting the table rows. The
+     * comparator is invoked with the boxed row indexes for every comparison.
      * 
      * @param comparator
      *            that sorts the table rows
@@ -236,6 +283,7 @@ public class SortedTable extends AbstractTable {
         }
 
         this.rowComparator = comparator;
+        this._customComparator = true;
     }
 
     // //////////////////////////////////////////////////////////////////////////
@@ -264,6 +312,12 @@ public class SortedTable extends AbstractTable {
         return _table.getValue(getOriginalRowIndex(row), columnName);
     }
 
+    public Object getValue(int row, int column) throws DataSetException {
+        assertValidRowIndex(row);
+
+        return Tables.getValue(_table, getOriginalRowIndex(row), column);
+    }
+
     // //////////////////////////////////////////////////////////////////////////
     // Comparator interface
 
@@ -279,6 +333,7 @@ public class SortedTable extends AbstractTable {
                 LoggerFactory.getLogger(AbstractRowComparator.class);
         private final ITable _table;
         private final Column[] _sortColumns;
+        private int[] _sortColumnIndexes;
 
         /**
          * @param table
@@ -298,11 +353,12 @@ public class SortedTable extends AbstractTable {
             Integer i2 = (Integer) o2;
 
             try {
+                int[] sortColumnIndexes = getSortColumnIndexes();
                 for (int i = 0; i < _sortColumns.length; i++) {
-                    String columnName = _sortColumns[i].getColumnName();
+                    int columnIndex = sortColumnIndexes[i];
 
-                    Object value1 = _table.getValue(i1.intValue(), columnName);
-                    Object value2 = _table.getValue(i2.intValue(), columnName);
+                    Object value1 = Tables.getValue(_table, i1.intValue(), columnIndex);
+                    Object value2 = Tables.getValue(_table, i2.intValue(), columnIndex);
 
                     if (value1 == null && value2 == null) {
                         continue;
@@ -330,6 +386,25 @@ public class SortedTable extends AbstractTable {
             return 0;
         }
 
+        /**
+         * Resolves the indexes of the sort columns in the wrapped table once,
+         * so that the comparison does not look up the column names for every
+         * single cell.
+         */
+        private int[] getSortColumnIndexes() throws DataSetException {
+            if (_sortColumnIndexes == null) {
+                ITableMetaData metaData = _table.getTableMetaData();
+                int[] indexes = new int[_sortColumns.length];
+                for (int i = 0; i < indexes.length; i++) {
+                    indexes[i] =
+                            metaData.getColumnIndex(_sortColumns[i]
+                                    .getColumnName());
+                }
+                _sortColumnIndexes = indexes;
+            }
+            return _sortColumnIndexes;
+        }
+
         /**
          * @param column
          *            The column to be compared
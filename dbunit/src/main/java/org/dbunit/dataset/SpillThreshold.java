@@ -0,0 +1,102 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.dataset;
+
+import java.io.File;
+
+/**
+ * Size above which a {@link SpillingTable} moves its rows from the heap to a
+ * {@link DiskBackedTable}.
+ *
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.5.2
+ */
+public class SpillThreshold
+{
+    private final int _rowCount;
+    private final long _byteCount;
+    private final File _directory;
+
+    /**
+     * @param rowCount The number of rows above which a table is moved to disk,
+     * <code>0</code> for no row limit
+     * @param byteCount The estimated heap size in bytes above which a table is moved
+     * to disk, <code>0</code> for no size limit
+     */
+    public SpillThreshold(int rowCount, long byteCount)
+    {
+        this(rowCount, byteCount, null);
+    }
+
+    /**
+     * @param rowCount The number of rows above which a table is moved to disk,
+     * <code>0</code> for no row limit
+     * @param byteCount The estimated heap size in bytes above which a table is moved
+     * to disk, <code>0</code> for no size limit
+     * @param directory The directory of the temporary files or <code>null</code> for
+     * the default temporary directory
+     */
+    public SpillThreshold(int rowCount, long byteCount, File directory)
+    {
+        if (rowCount < 0 || byteCount < 0) {
+            throw new IllegalArgumentException("The thresholds must not be negative but are "
+                    + rowCount + " rows and " + byteCount + " bytes");
+        }
+        _rowCount = rowCount;
+        _byteCount = byteCount;
+        _directory = directory;
+    }
+
+    public int getRowCount()
+    {
+        return _rowCount;
+    }
+
+    public long getByteCount()
+    {
+        return _byteCount;
+    }
+
+    public File getDirectory()
+    {
+        return _directory;
+    }
+
+    /**
+     * @return Whether a table of the given number of rows and estimated size must be moved to disk
+     */
+    public boolean isExceeded(int rowCount, long byteCount)
+    {
+        return (_rowCount > 0 && rowCount > _rowCount) || (_byteCount > 0 && byteCount > _byteCount);
+    }
+
+    public String toString()
+    {
+        StringBuffer sb = new StringBuffer();
+        sb.append(getClass().getName()).append("[");
+        sb.append("_rowCount=").append(_rowCount);
+        sb.append(", _byteCount=").append(_byteCount);
+        sb.append(", _directory=").append(_directory);
+        sb.append("]");
+        return sb.toString();
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.dataset;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Table holding its rows in the heap like a {@link DefaultTable} until they exceed a
+ * {@link SpillThreshold}, and in a {@link DiskBackedTable} afterwards.
+ *
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.5.2
+ */
+public class SpillingTable extends AbstractTable
+{
+
+    /**
+     * Logger for this class
+     */
+    private static final Logger logger = LoggerFactory.getLogger(SpillingTable.class);
+
+    private final ITableMetaData _metaData;
+    private final SpillThreshold _threshold;
+
+    private List _rowList = new ArrayList();
+    private long _estimatedSize;
+    private DiskBackedTable _diskTable;
+
+    public SpillingTable(ITableMetaData metaData, SpillThreshold threshold)
+    {
+        if (threshold == null) {
+            throw new NullPointerException("The parameter 'threshold' must not be null");
+        }
+        _metaData = metaData;
+        _threshold = threshold;
+    }
+
+    /**
+     * Inserts a new row initialized with specified array of values.
+     * @param values The array of values. Each value correspond to the column at the
+     * same index from {@link ITableMetaData#getColumns}.
+     */
+    public void addRow(Object[] values) throws DataSetException
+    {
+        if (_diskTable != null)
+        {
+            _diskTable.addRow(values);
+            return;
+        }
+
+        _rowList.add(values);
+        _estimatedSize += estimateSize(values);
+        if (_threshold.isExceeded(_rowList.size(), _estimatedSize))
+        {
+            spill();
+        }
+    }
+
+    /**
+     * Inserts all rows from the specified table.
+     * @param table The source table.
+     */
+    public void addTableRows(ITable table) throws DataSetException
+    {
+        logger.debug("addTableRows(table={}) - start", table);
+
+        Column[] columns = _metaData.getColumns();
+        for (int row = 0; Tables.hasRow(table, row); row++)
+        {
+            Object[] values = new Object[columns.length];
+            for (int i = 0; i < columns.length; i++)
+            {
+                values[i] = table.getValue(row, columns[i].getColumnName());
+            }
+            addRow(values);
+        }
+    }
+
+    /**
+     * @return Whether the rows have been moved to disk
+     */
+    public boolean isSpilled()
+    {
+        return _diskTable != null;
+    }
+
+    /**
+     * Deletes the temporary file of the rows, if any. The table cannot be used anymore
+     * afterwards.
+     */
+    public void close() throws DataSetException
+    {
+        if (_diskTable != null)
+        {
+            _diskTable.close();
+        }
+        else
+        {
+            _rowList.clear();
+        }
+    }
+
+    private void spill() throws DataSetException
+    {
+        logger.info("Table {} exceeds {} rows or an estimated {} bytes. Moving its rows to disk.",
+                new Object[] {_metaData.getTableName(), new Integer(_threshold.getRowCount()),
+                        new Long(_threshold.getByteCount())});
+
+        DiskBackedTable diskTable = new DiskBackedTable(_metaData, _threshold.getDirectory(),
+                DiskBackedTable.DEFAULT_PAGE_SIZE, DiskBackedTable.DEFAULT_MAX_PAGES);
+        for (int i = 0; i < _rowList.size(); i++)
+        {
+            diskTable.addRow((Object[]) _rowList.get(i));
+        }
+        _diskTable = diskTable;
+        _rowList = null;
+    }
+
+    /**
+     * @return A rough estimate of the heap size of the given row in bytes
+     */
+    public static long estimateSize(Object[] values)
+    {
+        long size = 16 + 4 * values.length;
+        for (int i = 0; i < values.length; i++)
+        {
+            Object value = values[i];
+            if (value instanceof String)
+            {
+                size += 40 + 2 * ((String) value).length();
+            }
+            else if (value instanceof byte[])
+            {
+                size += 16 + ((byte[]) value).length;
+            }
+            else if (value != null && value != ITable.NO_VALUE)
+            {
+                size += 32;
+            }
+        }
+        return size;
+    }
+
+    ////////////////////////////////////////////////////////////////////////////
+    // ITable interface
+
+    public ITableMetaData getTableMetaData()
+    {
+        return _metaData;
+    }
+
+    public int getRowCount()
+    {
+        return _diskTable != null ? _diskTable.getRowCount() : _rowList.size();
+    }
+
+    public Object getValue(int row, String column) throws DataSetException
+    {
+        if (logger.isDebugEnabled())
+            logger.debug("getValue(row={}, column={}) - start", Integer.toString(row), column);
+
+        return getValue(row, getColumnIndex(column));
+    }
+
+    public Object getValue(int row, int column) throws DataSetException
+    {
+        if (_diskTable != null)
+        {
+            return _diskTable.getValue(row, column);
+        }
+        assertValidRowIndex(row, _rowList.size());
+        return ((Object[]) _rowList.get(row))[column];
+    }
+
+    public String toString()
+    {
+        StringBuffer sb = new StringBuffer();
+        sb.append(getClass().getName()).append("[");
+        sb.append("_metaData=").append(_metaData);
+        sb.append(", _threshold=").append(_threshold);
+        sb.append(", rowCount=").append(getRowCount());
+        sb.append(", _diskTable=").append(_diskTable);
+        sb.append("]");
+        return sb.toString();
+    }
+}
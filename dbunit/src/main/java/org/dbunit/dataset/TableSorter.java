@@ -0,0 +1,565 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.dataset;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.dbunit.DatabaseUnitRuntimeException;
+import org.dbunit.dataset.datatype.BigIntegerDataType;
+import org.dbunit.dataset.datatype.BlobDataType;
+import org.dbunit.dataset.datatype.BytesDataType;
+import org.dbunit.dataset.datatype.ClobDataType;
+import org.dbunit.dataset.datatype.DataType;
+import org.dbunit.dataset.datatype.DateDataType;
+import org.dbunit.dataset.datatype.DoubleDataType;
+import org.dbunit.dataset.datatype.FloatDataType;
+import org.dbunit.dataset.datatype.IntegerDataType;
+import org.dbunit.dataset.datatype.LongDataType;
+import org.dbunit.dataset.datatype.NumberDataType;
+import org.dbunit.dataset.datatype.StringDataType;
+import org.dbunit.dataset.datatype.StringIgnoreCaseDataType;
+import org.dbunit.dataset.datatype.TimeDataType;
+import org.dbunit.dataset.datatype.TimestampDataType;
+import org.dbunit.dataset.datatype.TypeCastException;
+import org.dbunit.dataset.datatype.UnknownDataType;
+import org.dbunit.dataset.datatype.UuidAwareBytesDataType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Sort engine of {@link SortedTable}. The values of the sort columns are read
+ * from the table once and kept in typed arrays (<code>long</code>,
+ * <code>double</code>, {@link BigDecimal}, {@link String}, <code>byte[]</code>
+ * ...) depending on the {@link DataType} of the column, then a primitive
+ * <code>int</code> permutation of the row indexes is sorted with a stable
+ * merge sort. The ordering is the one of
+ * {@link SortedTable.RowComparatorByString} in string mode and the one of
+ * {@link SortedTable.RowComparator} otherwise, <code>null</code> values
+ * first in both modes.
+ * 
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.5.2
+ */
+class TableSorter {
+
+    /**
+     * Logger for this class
+     */
+    private static final Logger logger =
+            LoggerFactory.getLogger(TableSorter.class);
+
+    /**
+     * Minimum number of rows for which a parallel sort is worth the overhead.
+     * Smaller tables are always sorted on the calling thread.
+     */
+    static final int PARALLEL_SORT_THRESHOLD = 8192;
+
+    private static final int INSERTION_SORT_THRESHOLD = 16;
+
+    private static ExecutorService sharedExecutorService;
+
+    private final ITable _table;
+    private final Column[] _sortColumns;
+    private final boolean _useComparable;
+
+    /**
+     * @param table
+     *            The table to be sorted
+     * @param sortColumns
+     *            The columns to be used for sorting in the given order
+     * @param useComparable
+     *            <code>true</code> to compare the values by their data type,
+     *            <code>false</code> to compare their string representation
+     */
+    TableSorter(ITable table, Column[] sortColumns, boolean useComparable) {
+        _table = table;
+        _sortColumns = sortColumns;
+        _useComparable = useComparable;
+    }
+
+    /**
+     * Sorts the rows of the table.
+     * 
+     * @param parallel
+     *            Whether tables of at least {@link #PARALLEL_SORT_THRESHOLD}
+     *            rows are sorted on several processors
+     * @return The original row indexes in sorted order
+     * @throws DataSetException
+     */
+    int[] sort(boolean parallel) throws DataSetException {
+        return sort(parallel ? Runtime.getRuntime().availableProcessors() : 1);
+    }
+
+    /**
+     * Sorts the rows of the table.
+     * 
+     * @param threads
+     *            The number of threads sorting tables of at least
+     *            {@link #PARALLEL_SORT_THRESHOLD} rows
+     * @return The original row indexes in sorted order
+     * @throws DataSetException
+     */
+    int[] sort(int threads) throws DataSetException {
+        int rowCount = _table.getRowCount();
+        int[] indexes = new int[rowCount];
+        for (int i = 0; i < rowCount; i++) {
+            indexes[i] = i;
+        }
+        if (rowCount < 2) {
+            return indexes;
+        }
+
+        SortKey[] keys = extractKeys(rowCount);
+
+        if (threads > 1 && rowCount >= PARALLEL_SORT_THRESHOLD) {
+            logger.debug("sort() - sorting {} rows in parallel", new Integer(
+                    rowCount));
+            new MergeSort(keys, indexes).parallelSort(getSharedExecutorService(),
+                    threads);
+        } else {
+            new MergeSort(keys, indexes).sort(0, rowCount);
+        }
+        return indexes;
+    }
+
+    /**
+     * Reads the values of all sort columns once.
+     */
+    private SortKey[] extractKeys(int rowCount) throws DataSetException {
+        ITableMetaData metaData = _table.getTableMetaData();
+        SortKey[] keys = new SortKey[_sortColumns.length];
+        for (int i = 0; i < keys.length; i++) {
+            Column column = _sortColumns[i];
+            int columnIndex = metaData.getColumnIndex(column.getColumnName());
+            Object[] values = new Object[rowCount];
+            for (int row = 0; row < rowCount; row++) {
+                values[row] = Tables.getValue(_table, row, columnIndex);
+            }
+
+            if (_useComparable) {
+                keys[i] = createTypedKey(column.getDataType(), values);
+            } else {
+                keys[i] = createStringKey(values);
+            }
+        }
+        return keys;
+    }
+
+    private static SortKey createStringKey(Object[] values)
+            throws TypeCastException {
+        String[] strings = new String[values.length];
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != null) {
+                strings[i] = DataType.asString(values[i]);
+            }
+        }
+        return new StringKey(strings, false);
+    }
+
+    /**
+     * Creates the key of a column for the comparable mode. Only the data types
+     * of dbunit whose comparison is the plain comparison of their type cast
+     * values are converted up front; any other data type keeps the values as
+     * they are and compares them with {@link DataType#compare(Object, Object)}.
+     */
+    private static SortKey createTypedKey(DataType dataType, Object[] values)
+            throws TypeCastException {
+        Class type = dataType.getClass();
+
+        if (type == UnknownDataType.class) {
+            return createStringKey(values);
+        }
+
+        if (type == IntegerDataType.class || type == LongDataType.class) {
+            long[] longs = new long[values.length];
+            boolean[] nulls = new boolean[values.length];
+            for (int i = 0; i < values.length; i++) {
+                Number value = (Number) dataType.typeCast(values[i]);
+                if (value == null) {
+                    nulls[i] = true;
+                } else {
+                    longs[i] = value.longValue();
+                }
+            }
+            return new LongKey(longs, nulls);
+        }
+
+        if (type == FloatDataType.class || type == DoubleDataType.class) {
+            double[] doubles = new double[values.length];
+            boolean[] nulls = new boolean[values.length];
+            for (int i = 0; i < values.length; i++) {
+                Number value = (Number) dataType.typeCast(values[i]);
+                if (value == null) {
+                    nulls[i] = true;
+                } else {
+                    doubles[i] = value.doubleValue();
+                }
+            }
+            return new DoubleKey(doubles, nulls);
+        }
+
+        if (type == NumberDataType.class) {
+            BigDecimal[] decimals = new BigDecimal[values.length];
+            for (int i = 0; i < values.length; i++) {
+                decimals[i] = (BigDecimal) dataType.typeCast(values[i]);
+            }
+            return new ComparableKey(decimals);
+        }
+
+        if (type == StringDataType.class || type == ClobDataType.class
+                || type == StringIgnoreCaseDataType.class) {
+            String[] strings = new String[values.length];
+            for (int i = 0; i < values.length; i++) {
+                strings[i] = (String) dataType.typeCast(values[i]);
+            }
+            return new StringKey(strings,
+                    type == StringIgnoreCaseDataType.class);
+        }
+
+        if (type == BytesDataType.class || type == UuidAwareBytesDataType.class
+                || type == BlobDataType.class) {
+            byte[][] bytes = new byte[values.length][];
+            for (int i = 0; i < values.length; i++) {
+                bytes[i] = (byte[]) dataType.typeCast(values[i]);
+            }
+            return new BytesKey(bytes, (BytesDataType) dataType);
+        }
+
+        if (type == BigIntegerDataType.class || type == DateDataType.class
+                || type == TimeDataType.class
+                || type == TimestampDataType.class) {
+            Comparable[] comparables = new Comparable[values.length];
+            for (int i = 0; i < values.length; i++) {
+                comparables[i] = (Comparable) dataType.typeCast(values[i]);
+            }
+            return new ComparableKey(comparables);
+        }
+
+        return new DataTypeKey(values, dataType);
+    }
+
+    private static synchronized ExecutorService getSharedExecutorService() {
+        if (sharedExecutorService == null) {
+            sharedExecutorService = Executors.newFixedThreadPool(
+                    Runtime.getRuntime().availableProcessors(),
+                    new SorterThreadFactory());
+        }
+        return sharedExecutorService;
+    }
+
+    /**
+     * The values of one sort column, compared by row index.
+     */
+    private static abstract class SortKey {
+        /**
+         * @return A negative number, zero or a positive number as the value
+         *         of the first row is less than, equal to or greater than the
+         *         one of the second row
+         */
+        abstract int compare(int row1, int row2);
+
+        static int compareNulls(boolean null1, boolean null2) {
+            if (null1) {
+                return null2 ? 0 : -1;
+            }
+            return 1;
+        }
+    }
+
+    private static class LongKey extends SortKey {
+        private final long[] _values;
+        private final boolean[] _nulls;
+
+        LongKey(long[] values, boolean[] nulls) {
+            _values = values;
+            _nulls = nulls;
+        }
+
+        int compare(int row1, int row2) {
+            if (_nulls[row1] || _nulls[row2]) {
+                return compareNulls(_nulls[row1], _nulls[row2]);
+            }
+            long value1 = _values[row1];
+            long value2 = _values[row2];
+            return value1 < value2 ? -1 : (value1 == value2 ? 0 : 1);
+        }
+    }
+
+    private static class DoubleKey extends SortKey {
+        private final double[] _values;
+        private final boolean[] _nulls;
+
+        DoubleKey(double[] values, boolean[] nulls) {
+            _values = values;
+            _nulls = nulls;
+        }
+
+        int compare(int row1, int row2) {
+            if (_nulls[row1] || _nulls[row2]) {
+                return compareNulls(_nulls[row1], _nulls[row2]);
+            }
+            return Double.compare(_values[row1], _values[row2]);
+        }
+    }
+
+    private static class StringKey extends SortKey {
+        private final String[] _values;
+        private final boolean _ignoreCase;
+
+        StringKey(String[] values, boolean ignoreCase) {
+            _values = values;
+            _ignoreCase = ignoreCase;
+        }
+
+        int compare(int row1, int row2) {
+            String value1 = _values[row1];
+            String value2 = _values[row2];
+            if (value1 == null || value2 == null) {
+                return compareNulls(value1 == null, value2 == null);
+            }
+            return _ignoreCase ? value1.compareToIgnoreCase(value2) : value1
+                    .compareTo(value2);
+        }
+    }
+
+    private static class BytesKey extends SortKey {
+        private final byte[][] _values;
+        private final BytesDataType _dataType;
+
+        BytesKey(byte[][] values, BytesDataType dataType) {
+            _values = values;
+            _dataType = dataType;
+        }
+
+        int compare(int row1, int row2) {
+            byte[] value1 = _values[row1];
+            byte[] value2 = _values[row2];
+            if (value1 == null || value2 == null) {
+                return compareNulls(value1 == null, value2 == null);
+            }
+            try {
+                return _dataType.compare(value1, value2);
+            } catch (TypeCastException e) {
+                throw new DatabaseUnitRuntimeException(e);
+            }
+        }
+    }
+
+    private static class ComparableKey extends SortKey {
+        private final Comparable[] _values;
+
+        ComparableKey(Comparable[] values) {
+            _values = values;
+        }
+
+        int compare(int row1, int row2) {
+            Comparable value1 = _values[row1];
+            Comparable value2 = _values[row2];
+            if (value1 == null || value2 == null) {
+                return compareNulls(value1 == null, value2 == null);
+            }
+            return value1.compareTo(value2);
+        }
+    }
+
+    /**
+     * Fallback for data types with their own comparison, the values are
+     * compared exactly like {@link SortedTable.RowComparator} does.
+     */
+    private static class DataTypeKey extends SortKey {
+        private final Object[] _values;
+        private final DataType _dataType;
+
+        DataTypeKey(Object[] values, DataType dataType) {
+            _values = values;
+            _dataType = dataType;
+        }
+
+        int compare(int row1, int row2) {
+            Object value1 = _values[row1];
+            Object value2 = _values[row2];
+            if (value1 == null || value2 == null) {
+                return compareNulls(value1 == null, value2 == null);
+            }
+            try {
+                return _dataType.compare(value1, value2);
+            } catch (TypeCastException e) {
+                throw new DatabaseUnitRuntimeException(e);
+            }
+        }
+    }
+
+    /**
+     * Stable merge sort of a row index permutation. Runs of different ranges
+     * only touch their own range of the index and buffer arrays, so they can
+     * be sorted and merged concurrently.
+     */
+    private static class MergeSort {
+        private final SortKey[] _keys;
+        private final int[] _indexes;
+        private final int[] _buffer;
+
+        MergeSort(SortKey[] keys, int[] indexes) {
+            _keys = keys;
+            _indexes = indexes;
+            _buffer = new int[indexes.length];
+        }
+
+        private int compare(int row1, int row2) {
+            for (int i = 0; i < _keys.length; i++) {
+                int result = _keys[i].compare(row1, row2);
+                if (result != 0) {
+                    return result;
+                }
+            }
+            return 0;
+        }
+
+        void sort(int from, int to) {
+            if (to - from <= INSERTION_SORT_THRESHOLD) {
+                insertionSort(from, to);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            sort(from, mid);
+            sort(mid, to);
+            merge(from, mid, to);
+        }
+
+        private void insertionSort(int from, int to) {
+            int[] a = _indexes;
+            for (int i = from + 1; i < to; i++) {
+                int row = a[i];
+                int j = i;
+                while (j > from && compare(a[j - 1], row) > 0) {
+                    a[j] = a[j - 1];
+                    j--;
+                }
+                a[j] = row;
+            }
+        }
+
+        /**
+         * Merges the sorted ranges [from, mid) and [mid, to), the left row
+         * wins on equal keys so that the original order is kept.
+         */
+        void merge(int from, int mid, int to) {
+            int[] a = _indexes;
+            if (mid == from || mid == to || compare(a[mid - 1], a[mid]) <= 0) {
+                return;
+            }
+            System.arraycopy(a, from, _buffer, from, mid - from);
+            int i = from;
+            int j = mid;
+            int k = from;
+            while (i < mid && j < to) {
+                if (compare(a[j], _buffer[i]) < 0) {
+                    a[k++] = a[j++];
+                } else {
+                    a[k++] = _buffer[i++];
+                }
+            }
+            System.arraycopy(_buffer, i, a, k, mid - i);
+        }
+
+        /**
+         * Sorts one run per thread, then merges neighbouring runs pairwise
+         * until a single run is left.
+         */
+        void parallelSort(ExecutorService executor, int threads)
+                throws DataSetException {
+            int length = _indexes.length;
+            int[] bounds = new int[threads + 1];
+            for (int i = 0; i <= threads; i++) {
+                bounds[i] = (int) ((long) length * i / threads);
+            }
+
+            List futures = new ArrayList();
+            for (int i = 0; i < threads; i++) {
+                final int from = bounds[i];
+                final int to = bounds[i + 1];
+                futures.add(executor.submit(new Runnable() {
+                    public void run() {
+                        sort(from, to);
+                    }
+                }));
+            }
+            await(futures);
+
+            for (int width = 1; width < threads; width *= 2) {
+                futures.clear();
+                for (int i = 0; i + width < threads; i += 2 * width) {
+                    final int from = bounds[i];
+                    final int mid = bounds[i + width];
+                    final int to = bounds[Math.min(i + 2 * width, threads)];
+                    futures.add(executor.submit(new Runnable() {
+                        public void run() {
+                            merge(from, mid, to);
+                        }
+                    }));
+                }
+                await(futures);
+            }
+        }
+
+        private static void await(List futures) throws DataSetException {
+            try {
+                for (int i = 0; i < futures.size(); i++) {
+                    ((Future) futures.get(i)).get();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new DataSetException("Interrupted while sorting table", e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                throw new DataSetException(cause);
+            }
+        }
+    }
+
+    /**
+     * Creates the daemon threads of the shared pool so it never keeps the JVM
+     * alive.
+     */
+    private static class SorterThreadFactory implements ThreadFactory {
+        private final AtomicInteger _count = new AtomicInteger();
+
+        public Thread newThread(Runnable runnable) {
+            Thread thread =
+                    new Thread(runnable, "SortedTable-"
+                            + _count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.dataset;
+
+/**
+ * This class exclusively provides static methods that read {@link ITable}s by row
+ * and column index. Tables implementing {@link IIndexedTable} are accessed
+ * directly, any other {@link ITable} implementation through the methods of
+ * {@link ITable}.
+ * 
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.5.2
+ */
+public class Tables
+{
+    private Tables()
+    {
+    }
+
+    /**
+     * @param table The table
+     * @param row The row index, starting with 0
+     * @return Whether the table has a row with the specified index
+     * @throws DataSetException
+     * @see IIndexedTable#hasRow(int)
+     */
+    public static boolean hasRow(ITable table, int row) throws DataSetException
+    {
+        if (table instanceof IIndexedTable)
+        {
+            return ((IIndexedTable) table).hasRow(row);
+        }
+
+        if (row < 0)
+        {
+            return false;
+        }
+        try
+        {
+            return row < table.getRowCount();
+        }
+        catch (UnsupportedOperationException e)
+        {
+            return probeRow(table, row);
+        }
+    }
+
+    /**
+     * Checks the row of a forward only table that cannot report its row count
+     * by reading its first value.
+     * @param table The table
+     * @param row The row index, starting with 0
+     * @return Whether the table has a row with the specified index
+     * @throws DataSetException
+     */
+    static boolean probeRow(ITable table, int row) throws DataSetException
+    {
+        Column[] columns = table.getTableMetaData().getColumns();
+        if (columns.length == 0)
+        {
+            return false;
+        }
+        try
+        {
+            table.getValue(row, columns[0].getColumnName());
+            return true;
+        }
+        catch (RowOutOfBoundsException e)
+        {
+            return false;
+        }
+    }
+
+    /**
+     * @param table The table
+     * @param row The row index, starting with 0
+     * @param column The index of the column in the columns of the table metadata
+     * @return The value
+     * @throws DataSetException
+     * @see IIndexedTable#getValue(int, int)
+     */
+    public static Object getValue(ITable table, int row, int column) throws DataSetException
+    {
+        if (table instanceof IIndexedTable)
+        {
+            return ((IIndexedTable) table).getValue(row, column);
+        }
+
+        Column[] columns = table.getTableMetaData().getColumns();
+        return table.getValue(row, columns[column].getColumnName());
+    }
+}
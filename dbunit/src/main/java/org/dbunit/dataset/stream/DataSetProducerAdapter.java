@@ -26,7 +26,7 @@ import org.dbunit.dataset.IDataSet;
 import org.dbunit.dataset.ITable;
 import org.dbunit.dataset.ITableIterator;
 import org.dbunit.dataset.ITableMetaData;
-import org.dbunit.dataset.RowOutOfBoundsException;
+import org.dbunit.dataset.Tables;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -84,16 +84,10 @@ public class DataSetProducerAdapter implements IDataSetProducer
             ITableMetaData metaData = table.getTableMetaData();
 
             _consumer.startTable(metaData);
-            try
+            Column[] columns = metaData.getColumns();
+            if (columns.length > 0)
             {
-                Column[] columns = metaData.getColumns();
-                if (columns.length == 0)
-                {
-                    _consumer.endTable();
-                    continue;
-                }
-
-                for (int i = 0; ; i++)
+                for (int i = 0; Tables.hasRow(table, i); i++)
                 {
                     Object[] values = new Object[columns.length];
                     for (int j = 0; j < columns.length; j++)
@@ -104,15 +98,7 @@ public class DataSetProducerAdapter implements IDataSetProducer
                     _consumer.row(values);
                 }
             }
-            catch (RowOutOfBoundsException e)
-            {
-            	// This exception occurs when records are exhausted
-            	// and we reach the end of the table.  Ignore this error
-            	// and close table.
-
-                // end of table
-                _consumer.endTable();
-            }
+            _consumer.endTable();
         }
         _consumer.endDataSet();
     }
@@ -0,0 +1,162 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.dataset.stream;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Tuning of the pipeline between the producer thread of a {@link StreamingIterator}
+ * and the thread iterating over its tables. Rows are handed over in batches of
+ * {@link #getBatchSize()} rows and at most {@link #getCapacity()} batches are
+ * buffered before the producer has to wait for the consumer.
+ *
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.5.2
+ */
+public class StreamingConfig
+{
+    /**
+     * Logger for this class
+     */
+    private static final Logger logger = LoggerFactory.getLogger(StreamingConfig.class);
+
+    public static final int DEFAULT_CAPACITY = 8;
+    public static final int DEFAULT_BATCH_SIZE = 100;
+
+    /**
+     * Runs each producer in a new daemon thread like dbunit always did
+     */
+    public static final Executor DAEMON_THREAD_EXECUTOR = new Executor()
+    {
+        public void execute(Runnable command)
+        {
+            Thread thread = new Thread(command, "StreamingIterator");
+            thread.setDaemon(true);
+            thread.start();
+        }
+    };
+
+    private static Executor _virtualThreadExecutor;
+    private static boolean _virtualThreadExecutorResolved;
+
+    private final int _capacity;
+    private final int _batchSize;
+    private final Executor _executor;
+
+    /**
+     * Creates the default configuration which runs the producer in a virtual thread
+     * if the JVM supports them and in a new daemon thread otherwise.
+     */
+    public StreamingConfig()
+    {
+        this(DEFAULT_CAPACITY, DEFAULT_BATCH_SIZE, null);
+    }
+
+    /**
+     * @param capacity The number of batches buffered between producer and consumer
+     * @param batchSize The number of rows handed over at once
+     * @param executor The executor running the producer or <code>null</code> for the
+     * default one, see {@link #getDefaultExecutor()}
+     */
+    public StreamingConfig(int capacity, int batchSize, Executor executor)
+    {
+        if (capacity < 1 || batchSize < 1) {
+            throw new IllegalArgumentException("Capacity and batch size must be positive but are "
+                    + capacity + " and " + batchSize);
+        }
+        _capacity = capacity;
+        _batchSize = batchSize;
+        _executor = executor;
+    }
+
+    public int getCapacity()
+    {
+        return _capacity;
+    }
+
+    public int getBatchSize()
+    {
+        return _batchSize;
+    }
+
+    /**
+     * @return The executor running the producer, never <code>null</code>
+     */
+    public Executor getExecutor()
+    {
+        return _executor != null ? _executor : getDefaultExecutor();
+    }
+
+    /**
+     * @return The {@link #getVirtualThreadExecutor() virtual thread executor} if available,
+     * the {@link #DAEMON_THREAD_EXECUTOR} otherwise
+     */
+    public static Executor getDefaultExecutor()
+    {
+        Executor executor = getVirtualThreadExecutor();
+        return executor != null ? executor : DAEMON_THREAD_EXECUTOR;
+    }
+
+    /**
+     * Returns an executor that starts a new virtual thread per task. It is looked up
+     * reflectively since virtual threads are only available on Java 21 and later.
+     * @return The shared virtual thread executor or <code>null</code> if the running
+     * JVM does not support virtual threads
+     */
+    public static synchronized Executor getVirtualThreadExecutor()
+    {
+        if (!_virtualThreadExecutorResolved)
+        {
+            _virtualThreadExecutorResolved = true;
+            try
+            {
+                Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor", new Class[0]);
+                _virtualThreadExecutor = (Executor)factory.invoke(null, new Object[0]);
+            }
+            catch (NoSuchMethodException e)
+            {
+                logger.debug("Virtual threads are not supported by this JVM");
+            }
+            catch (Exception e)
+            {
+                logger.warn("Could not create a virtual thread executor", e);
+            }
+        }
+        return _virtualThreadExecutor;
+    }
+
+    public String toString()
+    {
+        StringBuffer sb = new StringBuffer();
+        sb.append(getClass().getName()).append("[");
+        sb.append("_capacity=").append(_capacity);
+        sb.append(", _batchSize=").append(_batchSize);
+        sb.append(", _executor=").append(_executor);
+        sb.append("]");
+        return sb.toString();
+    }
+}
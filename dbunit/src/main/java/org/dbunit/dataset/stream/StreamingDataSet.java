@@ -45,11 +45,34 @@ public class StreamingDataSet extends AbstractDataSet
     private static final Logger logger = LoggerFactory.getLogger(StreamingDataSet.class);
 
     private IDataSetProducer _source;
+    private final StreamingConfig _config;
     private int _iteratorCount;
+    private StreamingIterator _iterator;
 
     public StreamingDataSet(IDataSetProducer source)
+    {
+        this(source, new StreamingConfig());
+    }
+
+    /**
+     * @param source The producer of the data
+     * @param config The tuning of the pipeline between the producer and the iterator
+     * @since 2.5.2
+     */
+    public StreamingDataSet(IDataSetProducer source, StreamingConfig config)
     {
         _source = source;
+        _config = config;
+    }
+
+    /**
+     * @return The counters of the pipeline or <code>null</code> if the dataset
+     * has not been iterated yet
+     * @since 2.5.2
+     */
+    public StreamingStatistics getStatistics()
+    {
+        return _iterator == null ? null : _iterator.getStatistics();
     }
 
     ////////////////////////////////////////////////////////////////////////////
@@ -73,7 +96,8 @@ public class StreamingDataSet extends AbstractDataSet
         }
 
         _iteratorCount++;
-        return new StreamingIterator(_source);
+        _iterator = new StreamingIterator(_source, _config);
+        return _iterator;
     }
 
     ////////////////////////////////////////////////////////////////////////////
@@ -20,21 +20,23 @@
  */
 package org.dbunit.dataset.stream;
 
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+
 import org.dbunit.dataset.AbstractTable;
 import org.dbunit.dataset.DataSetException;
 import org.dbunit.dataset.ITable;
 import org.dbunit.dataset.ITableIterator;
 import org.dbunit.dataset.ITableMetaData;
 import org.dbunit.dataset.RowOutOfBoundsException;
-import org.dbunit.util.concurrent.BoundedBuffer;
-import org.dbunit.util.concurrent.Channel;
-import org.dbunit.util.concurrent.Puttable;
-import org.dbunit.util.concurrent.Takable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * Asynchronous table iterator that uses a new Thread for asynchronous processing.
+ * Asynchronous table iterator that runs the producer in another thread.
+ * The rows are handed over through a bounded queue in batches as configured
+ * by a {@link StreamingConfig}.
  * 
  * @author Manuel Laflamme
  * @author Last changed by: $Author$
@@ -50,38 +52,85 @@ public class StreamingIterator implements ITableIterator
     private static final Logger logger = LoggerFactory.getLogger(StreamingIterator.class);
 
     private static final Object EOD = new Object(); // end of dataset marker
+    private static final Object FAILURE = new Object(); // producer failure marker
 
-    private final Takable _channel;
+    private final BlockingQueue _queue;
+    private final StreamingStatistics _statistics = new StreamingStatistics();
     private StreamingTable _activeTable;
     private Object _taken = null;
     private boolean _eod = false;
     /**
      * Variable to store an exception that might occur in the asynchronous consumer
      */
-	private Exception _asyncException;
+	private volatile Exception _asyncException;
 
 	
     /**
      * Iterator that creates a table iterator by reading the input from
-     * the given source in an asynchronous way. Therefore a Thread is
-     * created.
+     * the given source in an asynchronous way using the default {@link StreamingConfig}.
      * @param source The source of the data
      * @throws DataSetException
      */
     public StreamingIterator(IDataSetProducer source) throws DataSetException
     {
-        Channel channel = new BoundedBuffer(30);
-        _channel = channel;
+        this(source, new StreamingConfig());
+    }
 
-        AsynchronousConsumer consumer = new AsynchronousConsumer(source, channel, this);
-        Thread thread = new Thread(consumer, "StreamingIterator");
-        thread.setDaemon(true);
-        thread.start();
+    /**
+     * Iterator that creates a table iterator by reading the input from
+     * the given source in an asynchronous way.
+     * @param source The source of the data
+     * @param config The capacity, batch size and executor of the pipeline
+     * @throws DataSetException
+     * @since 2.5.2
+     */
+    public StreamingIterator(IDataSetProducer source, StreamingConfig config) throws DataSetException
+    {
+        _queue = new ArrayBlockingQueue(config.getCapacity());
+
+        AsynchronousConsumer consumer = new AsynchronousConsumer(source, config.getBatchSize(), this);
+        try
+        {
+            config.getExecutor().execute(consumer);
+        }
+        catch (RejectedExecutionException e)
+        {
+            throw new DataSetException("The streaming producer could not be started", e);
+        }
 
         // Take first element from asynchronous handler
+        _taken = take();
+    }
+
+    /**
+     * @return The counters of the pipeline, updated while the iteration proceeds
+     * @since 2.5.2
+     */
+    public StreamingStatistics getStatistics()
+    {
+        return _statistics;
+    }
+
+    private Object take() throws DataSetException
+    {
         try
         {
-            _taken = _channel.take();
+            Object element = _queue.poll();
+            if (element == null)
+            {
+                long start = System.nanoTime();
+                element = _queue.take();
+                _statistics.consumerWaited(System.nanoTime() - start);
+            }
+
+            if (element == FAILURE)
+            {
+                // Keep reporting the failure on subsequent calls
+                _queue.offer(FAILURE);
+                throw new DataSetException("The streaming producer failed (Thread="
+                        + Thread.currentThread() + ")", _asyncException);
+            }
+            return element;
         }
         catch (InterruptedException e)
         {
@@ -126,7 +175,7 @@ public class StreamingIterator implements ITableIterator
             _eod = true;
             _activeTable = null;
 
-            logger.debug("End of iterator.");
+            logger.debug("End of iterator. {}", _statistics);
             return false;
         }
 
@@ -159,6 +208,9 @@ public class StreamingIterator implements ITableIterator
 	{
 		// Is invoked when the asynchronous thread reports an exception
 		this._asyncException = e;
+		// Nothing buffered is of interest anymore and the consumer must not wait forever
+		_queue.clear();
+		_queue.offer(FAILURE);
 	}
 
     ////////////////////////////////////////////////////////////////////////////
@@ -175,6 +227,8 @@ public class StreamingIterator implements ITableIterator
         private ITableMetaData _metaData;
         private int _lastRow = -1;
         private boolean _eot = false;
+        private Object[][] _batch;
+        private int _batchIndex;
         private Object[] _rowValues;
 
         public StreamingTable(ITableMetaData metaData)
@@ -192,23 +246,23 @@ public class StreamingIterator implements ITableIterator
                 return false;
             }
 
-            try
+            if (_batch == null || ++_batchIndex >= _batch.length)
             {
-                _taken = _channel.take();
-                if (!(_taken instanceof Object[]))
+                _taken = take();
+                if (!(_taken instanceof Object[][]))
                 {
+                    _batch = null;
                     _eot = true;
                     return false;
                 }
 
-                _lastRow++;
-                _rowValues = (Object[])_taken;
-                return true;
-            }
-            catch (InterruptedException e)
-            {
-            	throw resolveException(e);
+                _batch = (Object[][])_taken;
+                _batchIndex = 0;
             }
+
+            _lastRow++;
+            _rowValues = _batch[_batchIndex];
+            return true;
         }
 
         ////////////////////////////////////////////////////////////////////////
@@ -233,6 +287,11 @@ public class StreamingIterator implements ITableIterator
             if(logger.isDebugEnabled())
                 logger.debug("getValue(row={}, columnName={}) - start", Integer.toString(row), columnName);
 
+            return getValue(row, getColumnIndex(columnName));
+        }
+
+        public Object getValue(int row, int column) throws DataSetException
+        {
             // Iterate up to specified row
             while (!_eot && row > _lastRow)
             {
@@ -249,7 +308,21 @@ public class StreamingIterator implements ITableIterator
                 throw new RowOutOfBoundsException(row + " > " + _lastRow);
             }
 
-            return _rowValues[getColumnIndex(columnName)];
+            return _rowValues[column];
+        }
+
+        public boolean hasRow(int row) throws DataSetException
+        {
+            if(logger.isDebugEnabled())
+                logger.debug("hasRow(row={}) - start", Integer.toString(row));
+
+            // Iterate up to specified row
+            while (!_eot && row > _lastRow)
+            {
+                next();
+            }
+
+            return row >= 0 && row <= _lastRow;
         }
 
         public String toString()
@@ -281,16 +354,21 @@ public class StreamingIterator implements ITableIterator
         private static final Logger logger = LoggerFactory.getLogger(AsynchronousConsumer.class);
 
         private final IDataSetProducer _producer;
-        private final Puttable _channel;
-        private final StreamingIterator _exceptionHandler;
-        private final Thread _invokerThread;
-
-        public AsynchronousConsumer(IDataSetProducer source, Puttable channel, StreamingIterator exceptionHandler)
+        private final StreamingIterator _iterator;
+        private final BlockingQueue _queue;
+        private final StreamingStatistics _statistics;
+        private final int _batchSize;
+        private Object[][] _batch;
+        private int _batchRowCount;
+        private boolean _ended;
+
+        public AsynchronousConsumer(IDataSetProducer source, int batchSize, StreamingIterator iterator)
         {
             _producer = source;
-            _channel = channel;
-            _exceptionHandler = exceptionHandler;
-            _invokerThread = Thread.currentThread();
+            _iterator = iterator;
+            _queue = iterator._queue;
+            _statistics = iterator._statistics;
+            _batchSize = batchSize;
         }
 
         ////////////////////////////////////////////////////////////////////////
@@ -304,17 +382,59 @@ public class StreamingIterator implements ITableIterator
             {
                 _producer.setConsumer(this);
                 _producer.produce();
+
+                if (!_ended)
+                {
+                    throw new DataSetException("The producer " + _producer
+                            + " returned without ending the dataset");
+                }
             }
             catch (Exception e)
             {
-            	_exceptionHandler.handleException(e);
-            	// Since the invoker thread probably waits tell it that we have finished here
-            	_invokerThread.interrupt();
+            	_iterator.handleException(e);
             }
             
             logger.debug("End of thread " + Thread.currentThread());
         }
 
+        private void put(Object element) throws DataSetException
+        {
+            try
+            {
+                if (!_queue.offer(element))
+                {
+                    // Back pressure: the consumer did not keep up
+                    long start = System.nanoTime();
+                    _queue.put(element);
+                    _statistics.producerWaited(System.nanoTime() - start);
+                }
+            }
+            catch (InterruptedException e)
+            {
+                throw new DataSetException("Operation was interrupted");
+            }
+        }
+
+        private void flush() throws DataSetException
+        {
+            if (_batchRowCount == 0)
+            {
+                return;
+            }
+
+            Object[][] batch = _batch;
+            if (_batchRowCount < batch.length)
+            {
+                batch = new Object[_batchRowCount][];
+                System.arraycopy(_batch, 0, batch, 0, _batchRowCount);
+            }
+            _batch = null;
+            _batchRowCount = 0;
+
+            _statistics.batchProduced(batch.length);
+            put(batch);
+        }
+
         ////////////////////////////////////////////////////////////////////////
         // IDataSetConsumer interface
 
@@ -326,45 +446,36 @@ public class StreamingIterator implements ITableIterator
         {
             logger.debug("endDataSet() - start");
 
-            try
-            {
-                _channel.put(EOD);
-            }
-            catch (InterruptedException e)
-            {
-                throw new DataSetException("Operation was interrupted");
-            }
+            flush();
+            put(EOD);
+            _ended = true;
         }
 
         public void startTable(ITableMetaData metaData) throws DataSetException
         {
             logger.debug("startTable(metaData={}) - start", metaData);
 
-            try
-            {
-                _channel.put(metaData);
-            }
-            catch (InterruptedException e)
-            {
-                throw new DataSetException("Operation was interrupted");
-            }
+            flush();
+            put(metaData);
         }
 
         public void endTable() throws DataSetException
         {
+            flush();
         }
 
         public void row(Object[] values) throws DataSetException
         {
             logger.debug("row(values={}) - start", values);
 
-            try
+            if (_batch == null)
             {
-                _channel.put(values);
+                _batch = new Object[_batchSize][];
             }
-            catch (InterruptedException e)
+            _batch[_batchRowCount++] = values;
+            if (_batchRowCount == _batchSize)
             {
-                throw new DataSetException("Operation was interrupted");
+                flush();
             }
         }
     }
@@ -0,0 +1,123 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.dataset.stream;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters of the pipeline of a {@link StreamingIterator}. A high producer wait time
+ * means the consumer (e.g. the database operation) is the bottleneck and the buffer is
+ * full, a high consumer wait time means the producer (e.g. the XML parser) cannot keep up.
+ * Times are measured in nanoseconds and only while a thread actually blocks.
+ *
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.5.2
+ */
+public class StreamingStatistics
+{
+    private final AtomicLong _rowCount = new AtomicLong();
+    private final AtomicLong _batchCount = new AtomicLong();
+    private final AtomicLong _producerWaitCount = new AtomicLong();
+    private final AtomicLong _producerWaitTime = new AtomicLong();
+    private final AtomicLong _consumerWaitCount = new AtomicLong();
+    private final AtomicLong _consumerWaitTime = new AtomicLong();
+
+    void batchProduced(int rowCount)
+    {
+        _batchCount.incrementAndGet();
+        _rowCount.addAndGet(rowCount);
+    }
+
+    void producerWaited(long nanos)
+    {
+        _producerWaitCount.incrementAndGet();
+        _producerWaitTime.addAndGet(nanos);
+    }
+
+    void consumerWaited(long nanos)
+    {
+        _consumerWaitCount.incrementAndGet();
+        _consumerWaitTime.addAndGet(nanos);
+    }
+
+    /**
+     * @return The number of rows handed over to the consumer
+     */
+    public long getRowCount()
+    {
+        return _rowCount.get();
+    }
+
+    /**
+     * @return The number of row batches handed over to the consumer
+     */
+    public long getBatchCount()
+    {
+        return _batchCount.get();
+    }
+
+    /**
+     * @return How often the producer found the buffer full
+     */
+    public long getProducerWaitCount()
+    {
+        return _producerWaitCount.get();
+    }
+
+    /**
+     * @return The nanoseconds the producer spent waiting for free buffer capacity
+     */
+    public long getProducerWaitTime()
+    {
+        return _producerWaitTime.get();
+    }
+
+    /**
+     * @return How often the consumer found the buffer empty
+     */
+    public long getConsumerWaitCount()
+    {
+        return _consumerWaitCount.get();
+    }
+
+    /**
+     * @return The nanoseconds the consumer spent waiting for the producer
+     */
+    public long getConsumerWaitTime()
+    {
+        return _consumerWaitTime.get();
+    }
+
+    public String toString()
+    {
+        StringBuffer sb = new StringBuffer();
+        sb.append(getClass().getName()).append("[");
+        sb.append("_rowCount=").append(_rowCount);
+        sb.append(", _batchCount=").append(_batchCount);
+        sb.append(", _producerWaitCount=").append(_producerWaitCount);
+        sb.append(", _producerWaitTime=").append(_producerWaitTime);
+        sb.append(", _consumerWaitCount=").append(_consumerWaitCount);
+        sb.append(", _consumerWaitTime=").append(_consumerWaitTime);
+        sb.append("]");
+        return sb.toString();
+    }
+}
@@ -24,6 +24,7 @@ package org.dbunit.ext.db2;
 import org.dbunit.DatabaseUnitException;
 import org.dbunit.database.DatabaseConfig;
 import org.dbunit.database.DatabaseConnection;
+import org.dbunit.operation.MergeUpsertSqlBuilder;
 
 import java.sql.Connection;
 
@@ -44,6 +45,8 @@ public class Db2Connection extends DatabaseConnection
         super(connection, schema);
         getConfig().setProperty(DatabaseConfig.PROPERTY_DATATYPE_FACTORY,
                 new Db2DataTypeFactory());
+        getConfig().setProperty(DatabaseConfig.PROPERTY_UPSERT_SQL_BUILDER,
+                new MergeUpsertSqlBuilder());
         getConfig().setProperty(DatabaseConfig.PROPERTY_METADATA_HANDLER, 
                 new Db2MetadataHandler());
     }
@@ -40,5 +40,7 @@ public class H2Connection extends DatabaseConnection
         super(connection, schema);
         getConfig().setProperty(DatabaseConfig.PROPERTY_DATATYPE_FACTORY,
                 new H2DataTypeFactory());
+        getConfig().setProperty(DatabaseConfig.PROPERTY_UPSERT_SQL_BUILDER,
+                new H2UpsertSqlBuilder());
     }
 }
\ No newline at end of file
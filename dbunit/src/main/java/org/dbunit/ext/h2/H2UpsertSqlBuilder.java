@@ -0,0 +1,49 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.ext.h2;
+
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.dataset.Column;
+import org.dbunit.operation.AbstractUpsertSqlBuilder;
+
+/**
+ * Upsert statement builder for H2 using its <code>MERGE ... KEY</code> syntax:
+ * <pre>
+ * merge into TABLE (PK, COL) key (PK) values (?, ?)
+ * </pre>
+ *
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.5.2
+ */
+public class H2UpsertSqlBuilder extends AbstractUpsertSqlBuilder
+{
+    protected String getSql(String tableName, Column[] columns,
+            Column[] keyColumns, Column[] updateColumns, IDatabaseConnection connection)
+    {
+        StringBuffer sqlBuffer = new StringBuffer(128);
+        sqlBuffer.append("merge into ").append(tableName);
+        sqlBuffer.append(" (").append(getColumnList(columns, null, connection)).append(")");
+        sqlBuffer.append(" key (").append(getColumnList(keyColumns, null, connection)).append(")");
+        sqlBuffer.append(" values (").append(getParameterList(columns.length)).append(")");
+        return sqlBuffer.toString();
+    }
+}
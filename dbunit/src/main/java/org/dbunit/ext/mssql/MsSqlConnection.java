@@ -63,6 +63,8 @@ public class MsSqlConnection extends DatabaseConnection
         super(connection, schema);
         getConfig().setProperty(DatabaseConfig.PROPERTY_DATATYPE_FACTORY,
                 new MsSqlDataTypeFactory());
+        getConfig().setProperty(DatabaseConfig.PROPERTY_UPSERT_SQL_BUILDER,
+                new MsSqlUpsertSqlBuilder());
     }
 
     /**
@@ -76,6 +78,8 @@ public class MsSqlConnection extends DatabaseConnection
         super(connection);
         getConfig().setProperty(DatabaseConfig.PROPERTY_DATATYPE_FACTORY,
                 new MsSqlDataTypeFactory());
+        getConfig().setProperty(DatabaseConfig.PROPERTY_UPSERT_SQL_BUILDER,
+                new MsSqlUpsertSqlBuilder());
     }
 
     ////////////////////////////////////////////////////////////////////////////
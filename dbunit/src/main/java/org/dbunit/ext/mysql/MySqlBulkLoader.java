@@ -0,0 +1,188 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.ext.mysql;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.sql.SQLException;
+import java.sql.SQLWarning;
+import java.sql.Statement;
+
+import org.dbunit.DatabaseUnitException;
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.datatype.TypeCastException;
+import org.dbunit.operation.AbstractBulkLoader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Bulk loads tables with <code>LOAD DATA LOCAL INFILE</code>, streaming the rows
+ * from memory with <code>com.mysql.jdbc.Statement.setLocalInfileInputStream</code>
+ * of MySQL Connector/J (5.1.3 and later) instead of a file. The driver is accessed
+ * by reflection and must allow local infile loads (<code>allowLoadLocalInfile</code>).
+ * <p>
+ * Since a local load reports duplicate keys and conversion errors as warnings
+ * instead of failing, a chunk fails if it raised warnings or if the number of
+ * loaded rows differs from the number of rows sent.
+ * </p>
+ *
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.5.2
+ */
+public class MySqlBulkLoader extends AbstractBulkLoader
+{
+    /**
+     * Logger for this class
+     */
+    private static final Logger logger = LoggerFactory.getLogger(MySqlBulkLoader.class);
+
+    private static final String ENCODING = "UTF-8";
+
+    /** The maximum number of warnings reported when a load fails */
+    private static final int MAX_WARNINGS = 10;
+
+    public MySqlBulkLoader()
+    {
+        super();
+    }
+
+    /**
+     * @param chunkSize The number of characters sent with each <code>LOAD DATA</code>
+     */
+    public MySqlBulkLoader(int chunkSize)
+    {
+        super(chunkSize);
+    }
+
+    protected String getSql(String tableName, Column[] columns,
+            IDatabaseConnection connection)
+    {
+        // the file name is not used since the input stream replaces the file
+        StringBuffer sqlBuffer = new StringBuffer(128);
+        sqlBuffer.append("load data local infile 'dbunit.txt' into table ").append(tableName);
+        sqlBuffer.append(" character set utf8");
+        sqlBuffer.append(" (").append(getColumnList(columns, connection)).append(")");
+        return sqlBuffer.toString();
+    }
+
+    protected String toText(Object value) throws TypeCastException
+    {
+        // MySQL booleans are numbers
+        if (value instanceof Boolean)
+        {
+            return ((Boolean)value).booleanValue() ? "1" : "0";
+        }
+        return super.toText(value);
+    }
+
+    protected void loadChunk(String sql, String data, IDatabaseConnection connection)
+            throws DatabaseUnitException, SQLException
+    {
+        logger.debug("loadChunk(sql={}, data.length={}) - start", sql, String.valueOf(data.length()));
+
+        Statement statement = connection.getConnection().createStatement();
+        try
+        {
+            Class mySqlStatementClass = statement.getClass().getClassLoader().loadClass(
+                    "com.mysql.jdbc.Statement");
+            if (!mySqlStatementClass.isInstance(statement))
+            {
+                throw new DatabaseUnitException("The statement " + statement
+                        + " is not a MySQL statement");
+            }
+            Method setInputStreamMethod = mySqlStatementClass.getMethod(
+                    "setLocalInfileInputStream", new Class[]{InputStream.class});
+            setInputStreamMethod.invoke(statement, new Object[]{
+                    new ByteArrayInputStream(data.getBytes(ENCODING))});
+
+            statement.execute(sql);
+            checkLoaded(statement, getRowCount(data));
+        }
+        catch (InvocationTargetException e)
+        {
+            throw new DatabaseUnitException(e.getTargetException());
+        }
+        catch (ClassNotFoundException e)
+        {
+            throw new DatabaseUnitException(e);
+        }
+        catch (NoSuchMethodException e)
+        {
+            throw new DatabaseUnitException("The MySQL driver does not support input streams for LOAD DATA", e);
+        }
+        catch (IllegalAccessException e)
+        {
+            throw new DatabaseUnitException(e);
+        }
+        catch (UnsupportedEncodingException e)
+        {
+            throw new DatabaseUnitException(e);
+        }
+        finally
+        {
+            statement.close();
+        }
+    }
+
+    /**
+     * @return The number of rows of the data, each of them ending with a line
+     * break since line breaks in values are escaped
+     */
+    private static int getRowCount(String data)
+    {
+        int rowCount = 0;
+        for (int i = 0; i < data.length(); i++)
+        {
+            if (data.charAt(i) == '\n')
+            {
+                rowCount++;
+            }
+        }
+        return rowCount;
+    }
+
+    void checkLoaded(Statement statement, int expectedRowCount)
+            throws DatabaseUnitException, SQLException
+    {
+        int rowCount = statement.getUpdateCount();
+        // the driver reads the warnings with SHOW WARNINGS
+        SQLWarning warning = statement.getWarnings();
+        if (rowCount == expectedRowCount && warning == null)
+        {
+            return;
+        }
+
+        StringBuffer message = new StringBuffer(128);
+        message.append("Loaded ").append(rowCount).append(" of ");
+        message.append(expectedRowCount).append(" rows");
+        for (int i = 0; warning != null && i < MAX_WARNINGS; i++)
+        {
+            message.append(i == 0 ? ": " : "; ").append(warning.getMessage());
+            warning = warning.getNextWarning();
+        }
+        throw new DatabaseUnitException(message.toString());
+    }
+}
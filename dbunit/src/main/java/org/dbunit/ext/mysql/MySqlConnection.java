@@ -39,6 +39,8 @@ public class MySqlConnection extends DatabaseConnection
         super(connection, schema);
         getConfig().setProperty(DatabaseConfig.PROPERTY_DATATYPE_FACTORY,
                 new MySqlDataTypeFactory());
+        getConfig().setProperty(DatabaseConfig.PROPERTY_UPSERT_SQL_BUILDER,
+                new MySqlUpsertSqlBuilder());
         getConfig().setProperty(DatabaseConfig.PROPERTY_METADATA_HANDLER, 
                 new MySqlMetadataHandler());
     }
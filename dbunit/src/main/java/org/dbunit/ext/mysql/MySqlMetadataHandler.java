@@ -21,10 +21,11 @@
 package org.dbunit.ext.mysql;
 
 import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 
-import org.dbunit.database.IMetadataHandler;
+import org.dbunit.database.IDdlTimeMetadataHandler;
 import org.dbunit.util.SQLHelper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -38,7 +39,7 @@ import org.slf4j.LoggerFactory;
  * @version $Revision$ $Date$
  * @since 2.4.4
  */
-public class MySqlMetadataHandler implements IMetadataHandler {
+public class MySqlMetadataHandler implements IDdlTimeMetadataHandler {
 
     /**
      * Logger for this class
@@ -138,4 +139,45 @@ public class MySqlMetadataHandler implements IMetadataHandler {
         return resultSet;
     }
 
+    /**
+     * Returns the latest creation time of the tables of the schema together with
+     * their number, and the number and a checksum of the columns and key columns
+     * of the schema. MySQL recreates a table for most <code>ALTER TABLE</code>
+     * statements, but changes like renaming or instantly adding a column only
+     * show in the column checksum.
+     * @see IDdlTimeMetadataHandler#getLastDdlTime(DatabaseMetaData, String)
+     */
+    public String getLastDdlTime(DatabaseMetaData metaData, String schemaName)
+    throws SQLException
+    {
+        String sql = "select (select concat_ws('/', max(CREATE_TIME), count(*))"
+                + " from information_schema.TABLES"
+                + " where TABLE_SCHEMA = coalesce(?, database())),"
+                + " (select concat_ws('/', count(*), sum(crc32(concat_ws(' ', TABLE_NAME,"
+                + " ORDINAL_POSITION, COLUMN_NAME, COLUMN_TYPE, IS_NULLABLE, COLUMN_DEFAULT))))"
+                + " from information_schema.COLUMNS"
+                + " where TABLE_SCHEMA = coalesce(?, database())),"
+                + " (select concat_ws('/', count(*), sum(crc32(concat_ws(' ', TABLE_NAME,"
+                + " CONSTRAINT_NAME, ORDINAL_POSITION, COLUMN_NAME, REFERENCED_TABLE_SCHEMA,"
+                + " REFERENCED_TABLE_NAME))))"
+                + " from information_schema.KEY_COLUMN_USAGE"
+                + " where TABLE_SCHEMA = coalesce(?, database()))";
+        PreparedStatement statement = metaData.getConnection().prepareStatement(sql);
+        ResultSet resultSet = null;
+        try
+        {
+            statement.setString(1, schemaName);
+            statement.setString(2, schemaName);
+            statement.setString(3, schemaName);
+            resultSet = statement.executeQuery();
+            resultSet.next();
+            return resultSet.getString(1) + "/" + resultSet.getString(2)
+                    + "/" + resultSet.getString(3);
+        }
+        finally
+        {
+            SQLHelper.close(resultSet, statement);
+        }
+    }
+
 }
@@ -0,0 +1,70 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.ext.mysql;
+
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.dataset.Column;
+import org.dbunit.operation.AbstractUpsertSqlBuilder;
+
+/**
+ * Upsert statement builder for MySQL:
+ * <pre>
+ * insert into TABLE (PK, COL) values (?, ?)
+ * on duplicate key update COL = values(COL)
+ * </pre>
+ *
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.5.2
+ */
+public class MySqlUpsertSqlBuilder extends AbstractUpsertSqlBuilder
+{
+    protected String getSql(String tableName, Column[] columns,
+            Column[] keyColumns, Column[] updateColumns, IDatabaseConnection connection)
+    {
+        StringBuffer sqlBuffer = new StringBuffer(128);
+        sqlBuffer.append("insert into ").append(tableName);
+        sqlBuffer.append(" (").append(getColumnList(columns, null, connection)).append(")");
+        sqlBuffer.append(" values (").append(getParameterList(columns.length)).append(")");
+        sqlBuffer.append(" on duplicate key update ");
+
+        // an assignment is required, keep the key if there is nothing to update
+        Column[] assignedColumns = updateColumns.length > 0 ? updateColumns : keyColumns;
+        for (int i = 0; i < assignedColumns.length; i++)
+        {
+            String columnName = getQualifiedName(null, assignedColumns[i].getColumnName(), connection);
+            if (i > 0)
+            {
+                sqlBuffer.append(", ");
+            }
+            sqlBuffer.append(columnName);
+            if (updateColumns.length > 0)
+            {
+                sqlBuffer.append(" = values(").append(columnName).append(")");
+            }
+            else
+            {
+                sqlBuffer.append(" = ").append(columnName);
+            }
+        }
+        return sqlBuffer.toString();
+    }
+}
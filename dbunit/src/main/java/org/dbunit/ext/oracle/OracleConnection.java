@@ -46,5 +46,9 @@ public class OracleConnection extends DatabaseConnection
         super(connection, schema != null ? schema.toUpperCase() : null);
         getConfig().setProperty(DatabaseConfig.PROPERTY_DATATYPE_FACTORY,
                 new OracleDataTypeFactory());
+        getConfig().setProperty(DatabaseConfig.PROPERTY_UPSERT_SQL_BUILDER,
+                new OracleUpsertSqlBuilder());
+        getConfig().setProperty(DatabaseConfig.PROPERTY_METADATA_HANDLER,
+                new OracleMetadataHandler());
     }
 }
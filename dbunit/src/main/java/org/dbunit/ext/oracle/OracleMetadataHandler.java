@@ -0,0 +1,68 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.ext.oracle;
+
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import org.dbunit.database.DefaultMetadataHandler;
+import org.dbunit.database.IDdlTimeMetadataHandler;
+import org.dbunit.util.SQLHelper;
+
+/**
+ * Metadata handler for Oracle which reports the DDL changes of a schema using
+ * <code>ALL_OBJECTS.LAST_DDL_TIME</code>.
+ *
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.5.2
+ */
+public class OracleMetadataHandler extends DefaultMetadataHandler
+        implements IDdlTimeMetadataHandler
+{
+
+    /**
+     * Returns the latest DDL time of the objects of the schema together with their
+     * number, so that dropped objects are noticed as well.
+     * @see IDdlTimeMetadataHandler#getLastDdlTime(DatabaseMetaData, String)
+     */
+    public String getLastDdlTime(DatabaseMetaData databaseMetaData, String schemaName)
+    throws SQLException
+    {
+        String sql = "select to_char(max(LAST_DDL_TIME), 'YYYYMMDDHH24MISS'), count(*)"
+                + " from ALL_OBJECTS where OWNER = nvl(?, user)";
+        PreparedStatement statement = databaseMetaData.getConnection().prepareStatement(sql);
+        ResultSet resultSet = null;
+        try
+        {
+            statement.setString(1, schemaName);
+            resultSet = statement.executeQuery();
+            resultSet.next();
+            return resultSet.getString(1) + "/" + resultSet.getString(2);
+        }
+        finally
+        {
+            SQLHelper.close(resultSet, statement);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.ext.postgresql;
+
+import java.io.Reader;
+import java.io.StringReader;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import org.dbunit.DatabaseUnitException;
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.dataset.Column;
+import org.dbunit.operation.AbstractBulkLoader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Bulk loads tables with <code>COPY ... FROM STDIN</code> using the
+ * <code>CopyManager</code> of the PostgreSQL JDBC driver (8.4 and later).
+ * The driver is accessed by reflection, the JDBC connection must be the
+ * driver's own connection and not a wrapper.
+ *
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.5.2
+ */
+public class PostgresqlBulkLoader extends AbstractBulkLoader
+{
+    /**
+     * Logger for this class
+     */
+    private static final Logger logger = LoggerFactory.getLogger(PostgresqlBulkLoader.class);
+
+    public PostgresqlBulkLoader()
+    {
+        super();
+    }
+
+    /**
+     * @param chunkSize The number of characters sent with each <code>COPY</code>
+     */
+    public PostgresqlBulkLoader(int chunkSize)
+    {
+        super(chunkSize);
+    }
+
+    protected String getSql(String tableName, Column[] columns,
+            IDatabaseConnection connection)
+    {
+        StringBuffer sqlBuffer = new StringBuffer(128);
+        sqlBuffer.append("copy ").append(tableName);
+        sqlBuffer.append(" (").append(getColumnList(columns, connection)).append(")");
+        sqlBuffer.append(" from stdin");
+        return sqlBuffer.toString();
+    }
+
+    protected void loadChunk(String sql, String data, IDatabaseConnection connection)
+            throws DatabaseUnitException, SQLException
+    {
+        logger.debug("loadChunk(sql={}, data.length={}) - start", sql, String.valueOf(data.length()));
+
+        Connection jdbcConnection = connection.getConnection();
+        try
+        {
+            Class pgConnectionClass = jdbcConnection.getClass().getClassLoader().loadClass(
+                    "org.postgresql.PGConnection");
+            if (!pgConnectionClass.isInstance(jdbcConnection))
+            {
+                throw new DatabaseUnitException("The connection " + jdbcConnection
+                        + " is not a PostgreSQL connection");
+            }
+            Method getCopyApiMethod = pgConnectionClass.getMethod("getCopyAPI", new Class[0]);
+            Object copyManager = getCopyApiMethod.invoke(jdbcConnection, new Object[0]);
+
+            Method copyInMethod = copyManager.getClass().getMethod("copyIn",
+                    new Class[]{String.class, Reader.class});
+            copyInMethod.invoke(copyManager, new Object[]{sql, new StringReader(data)});
+        }
+        catch (InvocationTargetException e)
+        {
+            if (e.getTargetException() instanceof SQLException)
+            {
+                throw (SQLException)e.getTargetException();
+            }
+            throw new DatabaseUnitException(e.getTargetException());
+        }
+        catch (ClassNotFoundException e)
+        {
+            throw new DatabaseUnitException(e);
+        }
+        catch (NoSuchMethodException e)
+        {
+            throw new DatabaseUnitException("The PostgreSQL driver does not support COPY", e);
+        }
+        catch (IllegalAccessException e)
+        {
+            throw new DatabaseUnitException(e);
+        }
+    }
+}
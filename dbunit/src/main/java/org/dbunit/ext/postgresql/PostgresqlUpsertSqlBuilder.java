@@ -0,0 +1,68 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.ext.postgresql;
+
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.dataset.Column;
+import org.dbunit.operation.AbstractUpsertSqlBuilder;
+
+/**
+ * Upsert statement builder for PostgreSQL 9.5 and later:
+ * <pre>
+ * insert into TABLE (PK, COL) values (?, ?)
+ * on conflict (PK) do update set COL = excluded.COL
+ * </pre>
+ *
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.5.2
+ */
+public class PostgresqlUpsertSqlBuilder extends AbstractUpsertSqlBuilder
+{
+    protected String getSql(String tableName, Column[] columns,
+            Column[] keyColumns, Column[] updateColumns, IDatabaseConnection connection)
+    {
+        StringBuffer sqlBuffer = new StringBuffer(128);
+        sqlBuffer.append("insert into ").append(tableName);
+        sqlBuffer.append(" (").append(getColumnList(columns, null, connection)).append(")");
+        sqlBuffer.append(" values (").append(getParameterList(columns.length)).append(")");
+        sqlBuffer.append(" on conflict (").append(getColumnList(keyColumns, null, connection)).append(")");
+
+        // nothing to update if all columns are part of the primary key
+        if (updateColumns.length == 0)
+        {
+            sqlBuffer.append(" do nothing");
+            return sqlBuffer.toString();
+        }
+
+        sqlBuffer.append(" do update set ");
+        for (int i = 0; i < updateColumns.length; i++)
+        {
+            String columnName = getQualifiedName(null, updateColumns[i].getColumnName(), connection);
+            if (i > 0)
+            {
+                sqlBuffer.append(", ");
+            }
+            sqlBuffer.append(columnName).append(" = excluded.").append(columnName);
+        }
+        return sqlBuffer.toString();
+    }
+}
@@ -26,6 +26,7 @@ import org.slf4j.LoggerFactory;
 import org.dbunit.DatabaseUnitException;
 import org.dbunit.database.DatabaseConfig;
 import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.database.IDatabaseConnectionSupplier;
 import org.dbunit.database.statement.IPreparedBatchStatement;
 import org.dbunit.database.statement.IStatementFactory;
 import org.dbunit.dataset.Column;
@@ -34,12 +35,15 @@ import org.dbunit.dataset.IDataSet;
 import org.dbunit.dataset.ITable;
 import org.dbunit.dataset.ITableIterator;
 import org.dbunit.dataset.ITableMetaData;
-import org.dbunit.dataset.RowOutOfBoundsException;
+import org.dbunit.dataset.Tables;
 import org.dbunit.dataset.datatype.DataType;
 import org.dbunit.dataset.datatype.TypeCastException;
 
 import java.sql.SQLException;
 import java.util.BitSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * Base implementation for database operation that are executed in batch.
@@ -71,17 +75,8 @@ public abstract class AbstractBatchOperation extends AbstractOperation
             return true;
         }
 
-        // Try to fetch first table value
-        try
-        {
-            table.getValue(0, columns[0].getColumnName());
-            return false;
-        }
-        catch (RowOutOfBoundsException e)
-        {
-            // Not able to access first row thus empty
-            return true;
-        }
+        // No first row = empty
+        return !Tables.hasRow(table, 0);
     }
 
     /**
@@ -111,6 +106,17 @@ public abstract class AbstractBatchOperation extends AbstractOperation
         return true;
     }
 
+    /**
+     * Returns <code>true</code> if the rows of the given table may be written
+     * grouped by ignore mapping rather than in dataset order, so that each
+     * statement is executed with one large batch.
+     */
+    boolean isGroupingRows(IDatabaseConnection connection, ITableMetaData metaData)
+            throws SQLException
+    {
+        return false;
+    }
+
     abstract OperationData getOperationData(ITableMetaData metaData,
             BitSet ignoreMapping, IDatabaseConnection connection) throws DataSetException;
 
@@ -119,12 +125,28 @@ public abstract class AbstractBatchOperation extends AbstractOperation
 
     public void execute(IDatabaseConnection connection, IDataSet dataSet)
             throws DatabaseUnitException, SQLException
-            {
+    {
         logger.debug("execute(connection={}, dataSet={}) - start", connection, dataSet);
 
         DatabaseConfig databaseConfig = connection.getConfig();
-        IStatementFactory factory = (IStatementFactory)databaseConfig.getProperty(DatabaseConfig.PROPERTY_STATEMENT_FACTORY);
-        boolean allowEmptyFields = connection.getConfig().getFeature(DatabaseConfig.FEATURE_ALLOW_EMPTY_FIELDS);
+        IDatabaseConnectionSupplier connectionSupplier = (IDatabaseConnectionSupplier)databaseConfig.getProperty(
+                DatabaseConfig.PROPERTY_PARALLEL_CONNECTION_SUPPLIER);
+        if (connectionSupplier != null && !connection.getConnection().getAutoCommit())
+        {
+            // The workers commit on their own connections, which would silently
+            // bypass the transaction of the caller
+            logger.warn("The connection is not in auto commit mode, ignoring the parallel "
+                    + "connection supplier and processing the tables sequentially");
+            connectionSupplier = null;
+        }
+        if (connectionSupplier != null)
+        {
+            Integer threadCount = (Integer)databaseConfig.getProperty(DatabaseConfig.PROPERTY_PARALLEL_THREAD_COUNT);
+            ParallelTableExecutor executor = new ParallelTableExecutor(this,
+                    connectionSupplier, threadCount.intValue());
+            executor.execute(connection, iterator(dataSet));
+            return;
+        }
 
         // for each table
         ITableIterator iterator = iterator(dataSet);
@@ -132,9 +154,6 @@ public abstract class AbstractBatchOperation extends AbstractOperation
         {
             ITable table = iterator.getTable();
 
-            String tableName=table.getTableMetaData().getTableName();
-            logger.trace("execute: processing table='{}'", tableName);
-
             // Do not process empty table
             if (isEmpty(table))
             {
@@ -142,104 +161,141 @@ public abstract class AbstractBatchOperation extends AbstractOperation
             }
 
             ITableMetaData metaData = getOperationMetaData(connection, table.getTableMetaData());
-            BitSet ignoreMapping = null;
-            OperationData operationData = null;
-            IPreparedBatchStatement statement = null;
+            executeTable(connection, table, metaData);
+        }
+    }
 
-            try
-            {
-                // For each row
-                int start = _reverseRowOrder ? table.getRowCount() - 1 : 0;
-                int increment = _reverseRowOrder ? -1 : 1;
+    /**
+     * Resolves the index of each bound operation column in the given table
+     * once, so that the rows can be read without a column name lookup per
+     * cell.
+     * @return The column indexes, -1 for columns in the ignore mapping
+     */
+    static int[] getColumnIndexes(ITableMetaData tableMetaData, Column[] columns,
+            BitSet ignoreMapping) throws DataSetException
+    {
+        int[] columnIndexes = new int[columns.length];
+        for (int j = 0; j < columns.length; j++)
+        {
+            columnIndexes[j] = ignoreMapping.get(j) ? -1
+                    : tableMetaData.getColumnIndex(columns[j].getColumnName());
+        }
+        return columnIndexes;
+    }
 
-                try
+    /**
+     * Executes this operation on all rows of the given table.
+     * <p>
+     * A statement is prepared for each ignore mapping found in the table and kept
+     * open until the whole table is processed, so that rows alternating between
+     * a few ignore mappings do not rebuild and prepare the same statement again and
+     * again. The pending batch of a statement is executed when the next row uses
+     * another ignore mapping to preserve the row order, unless
+     * {@link #isGroupingRows(IDatabaseConnection, ITableMetaData)} allows to
+     * defer it to the end of the table.
+     * </p>
+     * @param connection The connection the statements are executed on
+     * @param table The table holding the rows
+     * @param metaData The operation metadata resolved by
+     * {@link #getOperationMetaData(IDatabaseConnection, ITableMetaData)}
+     */
+    void executeTable(IDatabaseConnection connection, ITable table,
+            ITableMetaData metaData) throws DatabaseUnitException, SQLException
+    {
+        DatabaseConfig databaseConfig = connection.getConfig();
+        boolean allowEmptyFields = databaseConfig.getFeature(DatabaseConfig.FEATURE_ALLOW_EMPTY_FIELDS);
+
+        String tableName=table.getTableMetaData().getTableName();
+        logger.trace("execute: processing table='{}'", tableName);
+
+        ITableMetaData tableMetaData = table.getTableMetaData();
+        TableStatements statements = new TableStatements(connection, tableMetaData, metaData);
+        MappedStatement current = null;
+
+        try
+        {
+            boolean groupRows = isGroupingRows(connection, metaData);
+
+            // For each row
+            int start = _reverseRowOrder ? table.getRowCount() - 1 : 0;
+            int increment = _reverseRowOrder ? -1 : 1;
+
+            for (int row = start; Tables.hasRow(table, row); row = row + increment)
+            {
+                // If current row have a different ignore value mapping than
+                // previous one, we switch to the statement of its mapping
+                if (current == null || !equalsIgnoreMapping(current.ignoreMapping, table, row))
                 {
-                    for (int i = start; ; i = i + increment)
+                    // Execute previous statement to keep the row order
+                    if (current != null && !groupRows)
                     {
-                        int row = i;
+                        current.statement.executeBatch();
+                        current.statement.clearBatch();
+                    }
 
-                        // If current row have a different ignore value mapping than
-                        // previous one, we generate a new statement
-                        if (ignoreMapping == null || !equalsIgnoreMapping(ignoreMapping, table, row))
+                    current = statements.get(getIgnoreMapping(table, row));
+                }
+
+                // for each column
+                BitSet ignoreMapping = current.ignoreMapping;
+                IPreparedBatchStatement statement = current.statement;
+                Column[] columns = current.operationData.getColumns();
+                for (int j = 0; j < columns.length; j++)
+                {
+                    // Bind value only if not in ignore mapping
+                    if (!ignoreMapping.get(j))
+                    {
+                        Column column = columns[j];
+                        String columnName = column.getColumnName();
+                        try
                         {
-                            // Execute and close previous statement
-                            if (statement != null)
+                            DataType dataType = column.getDataType();
+                            Object value = Tables.getValue(table, row, current.columnIndexes[j]);
+
+                            if ("".equals(value) && !allowEmptyFields)
                             {
-                                statement.executeBatch();
-                                statement.clearBatch();
-                                statement.close();
+                                handleColumnHasNoValue(tableName,
+                                        columnName);
                             }
 
-                            ignoreMapping = getIgnoreMapping(table, row);
-                            operationData = getOperationData(metaData, ignoreMapping, connection);
-                            statement = factory.createPreparedBatchStatement(
-                                    operationData.getSql(), connection);
+                            statement.addValue(value, dataType);
                         }
-
-
-                        // for each column
-                        Column[] columns = operationData.getColumns();
-                        for (int j = 0; j < columns.length; j++)
+                        catch (TypeCastException e)
                         {
-                            // Bind value only if not in ignore mapping
-                            if (!ignoreMapping.get(j))
-                            {
-                                Column column = columns[j];
-                                String columnName = column.getColumnName();
-                                try
-                                {
-                                    DataType dataType = column.getDataType();
-                                    Object value = table.getValue(row, columnName);
-
-                                    if ("".equals(value) && !allowEmptyFields)
-                                    {
-                                        handleColumnHasNoValue(tableName,
-                                                columnName);
-                                    }
-
-                                    statement.addValue(value, dataType);
-                                }
-                                catch (TypeCastException e)
-                                {
-                                    final String msg =
-                                            "Error casting value for table '"
-                                                    + tableName
-                                                    + "' and column '"
-                                                    + columnName + "'";
-                                    logger.error("execute: {}", msg);
-                                    throw new TypeCastException(msg, e);
-                                }
-                            }
+                            final String msg =
+                                    "Error casting value for table '"
+                                            + tableName
+                                            + "' and column '"
+                                            + columnName + "'";
+                            logger.error("execute: {}", msg);
+                            throw new TypeCastException(msg, e);
                         }
-                        statement.addBatch();
                     }
                 }
-                catch (RowOutOfBoundsException e)
-                {
-                    // This exception occurs when records are exhausted
-                    // and we reach the end of the table.  Ignore this error
-
-                    // end of table
-                }
-
-                statement.executeBatch();
-                statement.clearBatch();
+                statement.addBatch();
             }
-            catch (SQLException e)
+
+            if (groupRows)
             {
-                final String msg =
-                        "Exception processing table name='" + tableName + "'";
-                throw new DatabaseUnitException(msg, e);
+                statements.executeBatch();
             }
-            finally
+            else if (current != null)
             {
-                if (statement != null)
-                {
-                    statement.close();
-                }
+                current.statement.executeBatch();
+                current.statement.clearBatch();
             }
         }
-            }
+        catch (SQLException e)
+        {
+            final String msg =
+                    "Exception processing table name='" + tableName + "'";
+            throw new DatabaseUnitException(msg, e);
+        }
+        finally
+        {
+            statements.close();
+        }
+    }
 
     protected void handleColumnHasNoValue(String tableName, String columnName)
     {
@@ -262,4 +318,117 @@ public abstract class AbstractBatchOperation extends AbstractOperation
         return sb.toString();
     }
 
+
+    /**
+     * The statement of a table for one ignore mapping.
+     */
+    static class MappedStatement
+    {
+        final BitSet ignoreMapping;
+        final OperationData operationData;
+        final IPreparedBatchStatement statement;
+        /** The index of each bound column in the table, -1 for ignored columns */
+        final int[] columnIndexes;
+
+        MappedStatement(BitSet ignoreMapping, OperationData operationData,
+                IPreparedBatchStatement statement, int[] columnIndexes)
+        {
+            this.ignoreMapping = ignoreMapping;
+            this.operationData = operationData;
+            this.statement = statement;
+            this.columnIndexes = columnIndexes;
+        }
+    }
+
+    /**
+     * The statements of a table by ignore mapping. At most
+     * {@link #MAX_STATEMENTS} statements are kept open, the least recently
+     * used one is closed first.
+     */
+    class TableStatements
+    {
+        static final int MAX_STATEMENTS = 16;
+
+        private final IDatabaseConnection _connection;
+        private final IStatementFactory _factory;
+        private final ITableMetaData _tableMetaData;
+        private final ITableMetaData _metaData;
+        private final Map _statements = new LinkedHashMap(16, 0.75f, true);
+
+        TableStatements(IDatabaseConnection connection, ITableMetaData tableMetaData,
+                ITableMetaData metaData)
+        {
+            _connection = connection;
+            _factory = (IStatementFactory)connection.getConfig().getProperty(
+                    DatabaseConfig.PROPERTY_STATEMENT_FACTORY);
+            _tableMetaData = tableMetaData;
+            _metaData = metaData;
+        }
+
+        /**
+         * Returns the statement for the given ignore mapping, preparing it if
+         * needed.
+         */
+        MappedStatement get(BitSet ignoreMapping) throws DataSetException, SQLException
+        {
+            MappedStatement mappedStatement = (MappedStatement)_statements.get(ignoreMapping);
+            if (mappedStatement != null)
+            {
+                return mappedStatement;
+            }
+
+            if (_statements.size() >= MAX_STATEMENTS)
+            {
+                Iterator iterator = _statements.values().iterator();
+                MappedStatement eldest = (MappedStatement)iterator.next();
+                iterator.remove();
+                eldest.statement.executeBatch();
+                eldest.statement.clearBatch();
+                eldest.statement.close();
+            }
+
+            OperationData operationData = getOperationData(_metaData, ignoreMapping, _connection);
+            IPreparedBatchStatement statement = _factory.createPreparedBatchStatement(
+                    operationData.getSql(), _connection);
+            mappedStatement = new MappedStatement(ignoreMapping, operationData, statement,
+                    getColumnIndexes(_tableMetaData, operationData.getColumns(), ignoreMapping));
+            _statements.put(ignoreMapping, mappedStatement);
+            return mappedStatement;
+        }
+
+        /**
+         * Executes the pending batches of all statements.
+         */
+        void executeBatch() throws SQLException
+        {
+            for (Iterator it = _statements.values().iterator(); it.hasNext();)
+            {
+                IPreparedBatchStatement statement = ((MappedStatement)it.next()).statement;
+                statement.executeBatch();
+                statement.clearBatch();
+            }
+        }
+
+        void close() throws SQLException
+        {
+            SQLException exception = null;
+            for (Iterator it = _statements.values().iterator(); it.hasNext();)
+            {
+                try
+                {
+                    ((MappedStatement)it.next()).statement.close();
+                }
+                catch (SQLException e)
+                {
+                    exception = e;
+                }
+            }
+            _statements.clear();
+
+            if (exception != null)
+            {
+                throw exception;
+            }
+        }
+    }
 }
@@ -0,0 +1,245 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.operation;
+
+import java.sql.SQLException;
+import java.sql.Types;
+
+import org.dbunit.DatabaseUnitException;
+import org.dbunit.database.DatabaseConfig;
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.DataSetException;
+import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.ITableMetaData;
+import org.dbunit.dataset.Tables;
+import org.dbunit.dataset.datatype.DataType;
+import org.dbunit.dataset.datatype.TypeCastException;
+import org.dbunit.util.QualifiedTableName;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Base class for {@link IBulkLoader}s reading the tab separated text format shared
+ * by PostgreSQL <code>COPY</code> and MySQL <code>LOAD DATA</code>: one line per
+ * row, columns separated by tabs, <code>\N</code> for <code>null</code> and
+ * backslash escapes for backslashes, tabs and line breaks.
+ * <p>
+ * The rows are serialized into chunks of about {@link #getChunkSize()} characters,
+ * each chunk being handed to {@link #loadChunk(String, String, IDatabaseConnection)}
+ * so that the memory used does not depend on the table size. Binary columns are
+ * not supported.
+ * </p>
+ *
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.5.2
+ */
+public abstract class AbstractBulkLoader implements IBulkLoader
+{
+    /**
+     * Logger for this class
+     */
+    private static final Logger logger = LoggerFactory.getLogger(AbstractBulkLoader.class);
+
+    public static final int DEFAULT_CHUNK_SIZE = 4 * 1024 * 1024;
+
+    private final int _chunkSize;
+
+    protected AbstractBulkLoader()
+    {
+        this(DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * @param chunkSize The number of characters after which the serialized rows
+     * are sent to the database
+     */
+    protected AbstractBulkLoader(int chunkSize)
+    {
+        if (chunkSize <= 0)
+        {
+            throw new IllegalArgumentException("The chunk size must be positive but is " + chunkSize);
+        }
+        _chunkSize = chunkSize;
+    }
+
+    public int getChunkSize()
+    {
+        return _chunkSize;
+    }
+
+    public boolean canLoad(ITableMetaData metaData) throws DataSetException
+    {
+        Column[] columns = metaData.getColumns();
+        for (int i = 0; i < columns.length; i++)
+        {
+            int sqlType = columns[i].getDataType().getSqlType();
+            if (sqlType == Types.BINARY || sqlType == Types.VARBINARY
+                    || sqlType == Types.LONGVARBINARY || sqlType == Types.BLOB)
+            {
+                logger.debug("Column {} cannot be bulk loaded", columns[i]);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public void load(ITable table, IDatabaseConnection connection)
+            throws DatabaseUnitException, SQLException
+    {
+        logger.debug("load(table={}, connection={}) - start", table, connection);
+
+        ITableMetaData metaData = table.getTableMetaData();
+        Column[] columns = metaData.getColumns();
+        String tableName = getQualifiedName(connection.getSchema(),
+                metaData.getTableName(), connection);
+        String sql = getSql(tableName, columns, connection);
+
+        StringBuffer buffer = new StringBuffer();
+        for (int row = 0; Tables.hasRow(table, row); row++)
+        {
+            for (int j = 0; j < columns.length; j++)
+            {
+                if (j > 0)
+                {
+                    buffer.append('\t');
+                }
+                Object value = Tables.getValue(table, row, j);
+                try
+                {
+                    appendValue(buffer, value, columns[j].getDataType());
+                }
+                catch (TypeCastException e)
+                {
+                    throw new TypeCastException("Error casting value for table '"
+                            + metaData.getTableName() + "' and column '"
+                            + columns[j].getColumnName() + "'", e);
+                }
+            }
+            buffer.append('\n');
+
+            if (buffer.length() >= _chunkSize)
+            {
+                loadChunk(sql, buffer.toString(), connection);
+                buffer.setLength(0);
+            }
+        }
+
+        if (buffer.length() > 0)
+        {
+            loadChunk(sql, buffer.toString(), connection);
+        }
+    }
+
+    /**
+     * Appends the text representation of the given value with tabs, line breaks
+     * and backslashes escaped.
+     */
+    void appendValue(StringBuffer buffer, Object value, DataType dataType)
+            throws TypeCastException
+    {
+        Object castValue = dataType.typeCast(value);
+        if (castValue == null)
+        {
+            buffer.append("\\N");
+            return;
+        }
+
+        String text = toText(castValue);
+        for (int i = 0; i < text.length(); i++)
+        {
+            char c = text.charAt(i);
+            switch (c)
+            {
+                case '\\':
+                    buffer.append("\\\\");
+                    break;
+                case '\t':
+                    buffer.append("\\t");
+                    break;
+                case '\n':
+                    buffer.append("\\n");
+                    break;
+                case '\r':
+                    buffer.append("\\r");
+                    break;
+                default:
+                    buffer.append(c);
+            }
+        }
+    }
+
+    /**
+     * Returns the unescaped text representation of a value.
+     * @param value The value, already cast to the column data type, never <code>null</code>
+     * @return The text the database parses into the column value
+     * @throws TypeCastException
+     */
+    protected String toText(Object value) throws TypeCastException
+    {
+        return DataType.asString(value);
+    }
+
+    protected String getQualifiedName(String prefix, String name, IDatabaseConnection connection)
+    {
+        String escapePattern = (String)connection.getConfig().getProperty(DatabaseConfig.PROPERTY_ESCAPE_PATTERN);
+        return new QualifiedTableName(name, prefix, escapePattern).getQualifiedName();
+    }
+
+    /**
+     * @return The escaped column names separated by comma
+     */
+    protected String getColumnList(Column[] columns, IDatabaseConnection connection)
+    {
+        StringBuffer sqlBuffer = new StringBuffer();
+        for (int i = 0; i < columns.length; i++)
+        {
+            if (i > 0)
+            {
+                sqlBuffer.append(", ");
+            }
+            sqlBuffer.append(getQualifiedName(null, columns[i].getColumnName(), connection));
+        }
+        return sqlBuffer.toString();
+    }
+
+    /**
+     * Builds the bulk load statement.
+     * @param tableName The escaped and qualified table name
+     * @param columns The columns in the order of the serialized values
+     * @param connection The connection the statement is executed on
+     * @return The SQL statement
+     */
+    protected abstract String getSql(String tableName, Column[] columns,
+            IDatabaseConnection connection);
+
+    /**
+     * Sends a chunk of serialized rows to the database.
+     * @param sql The statement returned by {@link #getSql(String, Column[], IDatabaseConnection)}
+     * @param data Complete lines of serialized rows
+     * @param connection The connection to load the rows with
+     * @throws DatabaseUnitException
+     * @throws SQLException
+     */
+    protected abstract void loadChunk(String sql, String data,
+            IDatabaseConnection connection) throws DatabaseUnitException, SQLException;
+}
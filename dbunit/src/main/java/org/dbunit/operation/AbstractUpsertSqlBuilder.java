@@ -0,0 +1,145 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.operation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.dbunit.database.DatabaseConfig;
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.Columns;
+import org.dbunit.dataset.DataSetException;
+import org.dbunit.dataset.ITableMetaData;
+import org.dbunit.dataset.NoPrimaryKeyException;
+import org.dbunit.dataset.NoSuchColumnException;
+import org.dbunit.util.QualifiedTableName;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Base class for {@link IUpsertSqlBuilder}s. Validates the primary keys, splits the
+ * columns into key and update columns and provides name escaping helpers.
+ *
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.5.2
+ */
+public abstract class AbstractUpsertSqlBuilder implements IUpsertSqlBuilder
+{
+    /**
+     * Logger for this class
+     */
+    private static final Logger logger = LoggerFactory.getLogger(AbstractUpsertSqlBuilder.class);
+
+    public String getSql(ITableMetaData metaData, IDatabaseConnection connection)
+            throws DataSetException
+    {
+        logger.debug("getSql(metaData={}, connection={}) - start", metaData, connection);
+
+        String tableName = metaData.getTableName();
+        Column[] columns = metaData.getColumns();
+        Column[] primaryKeys = metaData.getPrimaryKeys();
+
+        // cannot match existing rows without primary key
+        if (primaryKeys.length == 0)
+        {
+            throw new NoPrimaryKeyException(tableName);
+        }
+
+        Column[] keyColumns = new Column[primaryKeys.length];
+        for (int i = 0; i < primaryKeys.length; i++)
+        {
+            keyColumns[i] = Columns.getColumn(primaryKeys[i].getColumnName(), columns);
+            if (keyColumns[i] == null)
+            {
+                throw new NoSuchColumnException(tableName, primaryKeys[i].getColumnName(),
+                        " Primary key columns must have a value in every row to be upserted.");
+            }
+        }
+
+        List updateColumns = new ArrayList();
+        for (int i = 0; i < columns.length; i++)
+        {
+            if (Columns.getColumn(columns[i].getColumnName(), keyColumns) == null)
+            {
+                updateColumns.add(columns[i]);
+            }
+        }
+
+        String qualifiedTableName = getQualifiedName(connection.getSchema(), tableName, connection);
+        return getSql(qualifiedTableName, columns, keyColumns,
+                (Column[])updateColumns.toArray(new Column[0]), connection);
+    }
+
+    /**
+     * Builds the upsert statement.
+     * @param tableName The escaped and qualified table name
+     * @param columns All columns in parameter order
+     * @param keyColumns The primary key columns
+     * @param updateColumns The columns which are not part of the primary key, possibly empty
+     * @param connection The connection the statement is executed on
+     * @return The SQL statement
+     */
+    protected abstract String getSql(String tableName, Column[] columns,
+            Column[] keyColumns, Column[] updateColumns, IDatabaseConnection connection);
+
+    protected String getQualifiedName(String prefix, String name, IDatabaseConnection connection)
+    {
+        String escapePattern = (String)connection.getConfig().getProperty(DatabaseConfig.PROPERTY_ESCAPE_PATTERN);
+        return new QualifiedTableName(name, prefix, escapePattern).getQualifiedName();
+    }
+
+    /**
+     * @return The escaped column names separated by comma, each one prefixed with
+     * the given alias unless it is <code>null</code>
+     */
+    protected String getColumnList(Column[] columns, String alias, IDatabaseConnection connection)
+    {
+        StringBuffer sqlBuffer = new StringBuffer();
+        for (int i = 0; i < columns.length; i++)
+        {
+            if (i > 0)
+            {
+                sqlBuffer.append(", ");
+            }
+            if (alias != null)
+            {
+                sqlBuffer.append(alias).append(".");
+            }
+            sqlBuffer.append(getQualifiedName(null, columns[i].getColumnName(), connection));
+        }
+        return sqlBuffer.toString();
+    }
+
+    /**
+     * @return The given number of parameter markers separated by comma
+     */
+    protected String getParameterList(int count)
+    {
+        StringBuffer sqlBuffer = new StringBuffer();
+        for (int i = 0; i < count; i++)
+        {
+            sqlBuffer.append(i > 0 ? ", ?" : "?");
+        }
+        return sqlBuffer.toString();
+    }
+}
@@ -44,6 +44,8 @@ public abstract class DatabaseOperation
     public static final DatabaseOperation INSERT = new InsertOperation();
     /** @see RefreshOperation */
     public static final DatabaseOperation REFRESH = new RefreshOperation();
+    /** @see UpsertOperation */
+    public static final DatabaseOperation UPSERT = new UpsertOperation();
     /** @see DeleteOperation */
     public static final DatabaseOperation DELETE = new DeleteOperation();
     /** @see DeleteAllOperation */
@@ -0,0 +1,67 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.operation;
+
+import java.sql.SQLException;
+
+import org.dbunit.DatabaseUnitException;
+import org.dbunit.database.DatabaseConfig;
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.dataset.DataSetException;
+import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.ITableMetaData;
+
+/**
+ * Loads the rows of a table with a native bulk loading facility of the database
+ * like <code>COPY</code> or <code>LOAD DATA</code> instead of batched insert
+ * statements. Used by the {@link InsertOperation} for tables exceeding
+ * {@link DatabaseConfig#PROPERTY_BULK_LOAD_THRESHOLD} rows when configured with
+ * {@link DatabaseConfig#PROPERTY_BULK_LOADER}.
+ *
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.5.2
+ * @see AbstractBulkLoader
+ */
+public interface IBulkLoader
+{
+    /**
+     * @param metaData The metadata of the database table, restricted to the
+     * columns having a value
+     * @return <code>true</code> if all the given columns can be bulk loaded;
+     * the table is inserted with statements otherwise
+     * @throws DataSetException
+     */
+    public boolean canLoad(ITableMetaData metaData) throws DataSetException;
+
+    /**
+     * Loads all rows of the given table into the database table of the same name.
+     * The table must be read in row order using {@link ITable#hasRow(int)} since it
+     * might be forward only; it has to be read up to the end.
+     * @param table The rows to load. Its metadata contains the columns to write,
+     * every row has a value for each of them.
+     * @param connection The connection to load the rows with
+     * @throws DatabaseUnitException
+     * @throws SQLException
+     */
+    public void load(ITable table, IDatabaseConnection connection)
+            throws DatabaseUnitException, SQLException;
+}
@@ -0,0 +1,51 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.operation;
+
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.dataset.DataSetException;
+import org.dbunit.dataset.ITableMetaData;
+
+/**
+ * Builds the database specific statement used by {@link DatabaseOperation#UPSERT}
+ * to insert a row or update it if a row with the same primary key already exists.
+ * An implementation for the current database is configured with the
+ * {@link org.dbunit.database.DatabaseConfig#PROPERTY_UPSERT_SQL_BUILDER} property.
+ *
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.5.2
+ */
+public interface IUpsertSqlBuilder
+{
+    /**
+     * Returns the upsert statement for the given table. The statement must have
+     * exactly one parameter per column of the given metadata, in the order of
+     * {@link ITableMetaData#getColumns()}.
+     * @param metaData The columns to be written and the primary keys of the table
+     * @param connection The connection the statement is executed on
+     * @return The SQL statement
+     * @throws DataSetException if no statement can be built for the table, for example
+     * because it has no primary key
+     */
+    public String getSql(ITableMetaData metaData, IDatabaseConnection connection)
+            throws DataSetException;
+}
@@ -24,19 +24,45 @@ package org.dbunit.operation;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import org.dbunit.DatabaseUnitException;
+import org.dbunit.DatabaseUnitRuntimeException;
+import org.dbunit.database.DatabaseConfig;
 import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.dataset.AbstractTable;
 import org.dbunit.dataset.Column;
 import org.dbunit.dataset.DataSetException;
+import org.dbunit.dataset.DefaultTable;
+import org.dbunit.dataset.DefaultTableMetaData;
 import org.dbunit.dataset.ITable;
 import org.dbunit.dataset.ITableMetaData;
+import org.dbunit.dataset.Tables;
+import org.dbunit.util.QualifiedTableName;
+import org.dbunit.util.SQLHelper;
 
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.BitSet;
+import java.util.List;
 
 /**
  * Inserts the dataset contents into the database. This operation assumes that
  * table data does not exist in the database and fails if this is not the case.
  * To prevent problems with foreign keys, tables must be sequenced appropriately
  * in dataset.
+ * <p>
+ * When a {@link IBulkLoader} is configured with {@link DatabaseConfig#PROPERTY_BULK_LOADER},
+ * tables having at least {@link DatabaseConfig#PROPERTY_BULK_LOAD_THRESHOLD} rows are
+ * loaded with it instead of insert statements. Up to that many rows of forward only
+ * tables, which cannot tell their row count in advance, are read into memory to
+ * find out whether they reach the threshold.
+ * </p>
+ * <p>
+ * With {@link DatabaseConfig#FEATURE_GROUP_ROWS_BY_IGNORE_MAPPING} enabled, the rows
+ * of a table are inserted grouped by the columns having a value instead of in
+ * dataset order, except for tables referencing themselves.
+ * </p>
  *
  * @author Manuel Laflamme
  * @version $Revision$
@@ -107,6 +133,166 @@ public class InsertOperation extends AbstractBatchOperation
         return new OperationData(sqlBuffer.toString(), columns);
     }
 
+    void executeTable(IDatabaseConnection connection, ITable table,
+            ITableMetaData metaData) throws DatabaseUnitException, SQLException
+    {
+        IBulkLoader bulkLoader = getBulkLoader(connection);
+        if (bulkLoader == null || !bulkLoader.canLoad(metaData))
+        {
+            super.executeTable(connection, table, metaData);
+            return;
+        }
+
+        int threshold = ((Integer)connection.getConfig().getProperty(
+                DatabaseConfig.PROPERTY_BULK_LOAD_THRESHOLD)).intValue();
+        try
+        {
+            if (table.getRowCount() < threshold)
+            {
+                super.executeTable(connection, table, metaData);
+                return;
+            }
+        }
+        catch (UnsupportedOperationException e)
+        {
+            // forward only table, the row count is not known in advance
+            DefaultTable rows = new DefaultTable(table.getTableMetaData());
+            int columnCount = table.getTableMetaData().getColumns().length;
+            for (int row = 0; row < threshold && Tables.hasRow(table, row); row++)
+            {
+                Object[] values = new Object[columnCount];
+                for (int j = 0; j < columnCount; j++)
+                {
+                    values[j] = Tables.getValue(table, row, j);
+                }
+                rows.addRow(values);
+            }
+
+            if (rows.getRowCount() < threshold)
+            {
+                super.executeTable(connection, rows, metaData);
+                return;
+            }
+            table = new BufferedTable(rows, table);
+        }
+
+        executeBulkLoad(connection, table, metaData, bulkLoader);
+    }
+
+    /**
+     * @return The bulk loader to use or <code>null</code> if the rows are inserted
+     * with statements
+     */
+    IBulkLoader getBulkLoader(IDatabaseConnection connection)
+    {
+        return (IBulkLoader)connection.getConfig().getProperty(DatabaseConfig.PROPERTY_BULK_LOADER);
+    }
+
+    /**
+     * Rows are grouped by ignore mapping if
+     * {@link DatabaseConfig#FEATURE_GROUP_ROWS_BY_IGNORE_MAPPING} is enabled and
+     * the table has no foreign key referencing itself, whose rows must be
+     * inserted in dataset order.
+     */
+    boolean isGroupingRows(IDatabaseConnection connection, ITableMetaData metaData)
+            throws SQLException
+    {
+        if (!connection.getConfig().getFeature(DatabaseConfig.FEATURE_GROUP_ROWS_BY_IGNORE_MAPPING))
+        {
+            return false;
+        }
+
+        if (isSelfReferencing(connection, metaData.getTableName()))
+        {
+            logger.debug("Table {} references itself, keeping the row order", metaData.getTableName());
+            return false;
+        }
+        return true;
+    }
+
+    static boolean isSelfReferencing(IDatabaseConnection connection, String tableName)
+            throws SQLException
+    {
+        QualifiedTableName qualifiedTableName = new QualifiedTableName(tableName,
+                connection.getSchema());
+        String schema = qualifiedTableName.getSchema();
+        String table = qualifiedTableName.getTable();
+
+        DatabaseMetaData databaseMetaData = connection.getConnection().getMetaData();
+        ResultSet resultSet = databaseMetaData.getImportedKeys(null, schema, table);
+        try
+        {
+            while (resultSet.next())
+            {
+                // PKTABLE_SCHEM, PKTABLE_NAME
+                String referencedSchema = resultSet.getString(2);
+                String referencedTable = resultSet.getString(3);
+                if (table.equalsIgnoreCase(referencedTable)
+                        && (schema == null || referencedSchema == null
+                                || schema.equalsIgnoreCase(referencedSchema)))
+                {
+                    return true;
+                }
+            }
+            return false;
+        }
+        finally
+        {
+            SQLHelper.close(resultSet);
+        }
+    }
+
+    /**
+     * Bulk loads the table, one load for each sequence of rows having the same
+     * ignore mapping.
+     */
+    private void executeBulkLoad(IDatabaseConnection connection, ITable table,
+            ITableMetaData metaData, IBulkLoader bulkLoader)
+            throws DatabaseUnitException, SQLException
+    {
+        String tableName = metaData.getTableName();
+        logger.debug("executeBulkLoad: loading table='{}' with {}", tableName, bulkLoader);
+
+        boolean allowEmptyFields = connection.getConfig().getFeature(
+                DatabaseConfig.FEATURE_ALLOW_EMPTY_FIELDS);
+        ITableMetaData tableMetaData = table.getTableMetaData();
+        Column[] columns = metaData.getColumns();
+
+        try
+        {
+            int row = 0;
+            while (Tables.hasRow(table, row))
+            {
+                BitSet ignoreMapping = getIgnoreMapping(table, row);
+                int[] columnIndexes = getColumnIndexes(tableMetaData, columns, ignoreMapping);
+
+                List columnList = new ArrayList();
+                List indexList = new ArrayList();
+                for (int j = 0; j < columns.length; j++)
+                {
+                    if (!ignoreMapping.get(j))
+                    {
+                        columnList.add(columns[j]);
+                        indexList.add(new Integer(columnIndexes[j]));
+                    }
+                }
+                ITableMetaData loadMetaData = new DefaultTableMetaData(tableName,
+                        (Column[])columnList.toArray(new Column[0]), metaData.getPrimaryKeys());
+
+                BulkLoadTable rows = new BulkLoadTable(table, row, ignoreMapping,
+                        loadMetaData, indexList, allowEmptyFields);
+                bulkLoader.load(rows, connection);
+                row += rows.getRowCount();
+            }
+        }
+        catch (SQLException e)
+        {
+            final String msg =
+                    "Exception processing table name='" + tableName + "'";
+            throw new DatabaseUnitException(msg, e);
+        }
+    }
+
     protected BitSet getIgnoreMapping(ITable table, int row) throws DataSetException
     {
     	if(logger.isDebugEnabled())
@@ -118,7 +304,7 @@ public class InsertOperation extends AbstractBatchOperation
         for (int i = 0; i < columns.length; i++)
         {
             Column column = columns[i];
-            Object value = table.getValue(row, column.getColumnName());
+            Object value = Tables.getValue(table, row, i);
             if (value == ITable.NO_VALUE
                 || (value == null && column.isNotNullable() && column.hasDefaultValue()))
             {
@@ -142,7 +328,7 @@ public class InsertOperation extends AbstractBatchOperation
         for (int i = 0; i < columns.length; i++)
         {
             boolean bit = ignoreMapping.get(i);
-            Object value = table.getValue(row, columns[i].getColumnName());
+            Object value = Tables.getValue(table, row, i);
             if ((bit && value != ITable.NO_VALUE) || (!bit && value == ITable.NO_VALUE))
             {
                 return false;
@@ -151,4 +337,142 @@ public class InsertOperation extends AbstractBatchOperation
 
         return true;
     }
+
+    /**
+     * The rows of a table starting at a given row up to the first row having a
+     * different ignore mapping, restricted to the columns having a value.
+     */
+    private class BulkLoadTable extends AbstractTable
+    {
+        private final ITable _table;
+        private final int _startRow;
+        private final BitSet _ignoreMapping;
+        private final ITableMetaData _metaData;
+        private final int[] _columnIndexes;
+        private final boolean _allowEmptyFields;
+        /** The highest row known to belong to this table */
+        private int _lastRow = -1;
+        /** The row count once the end of the rows has been reached, -1 before */
+        private int _rowCount = -1;
+
+        public BulkLoadTable(ITable table, int startRow, BitSet ignoreMapping,
+                ITableMetaData metaData, List columnIndexes, boolean allowEmptyFields)
+        {
+            _table = table;
+            _startRow = startRow;
+            _ignoreMapping = ignoreMapping;
+            _metaData = metaData;
+            _columnIndexes = new int[columnIndexes.size()];
+            for (int i = 0; i < _columnIndexes.length; i++)
+            {
+                _columnIndexes[i] = ((Integer)columnIndexes.get(i)).intValue();
+            }
+            _allowEmptyFields = allowEmptyFields;
+        }
+
+        public ITableMetaData getTableMetaData()
+        {
+            return _metaData;
+        }
+
+        /**
+         * Reads the rows up to the end of this table if needed.
+         */
+        public int getRowCount()
+        {
+            try
+            {
+                while (_rowCount < 0)
+                {
+                    hasRow(_lastRow + 1);
+                }
+                return _rowCount;
+            }
+            catch (DataSetException e)
+            {
+                throw new DatabaseUnitRuntimeException("Cannot read the rows of table '"
+                        + _metaData.getTableName() + "'", e);
+            }
+        }
+
+        public boolean hasRow(int row) throws DataSetException
+        {
+            // rows are probed in order since the table might be forward only
+            while (_rowCount < 0 && _lastRow < row)
+            {
+                int tableRow = _startRow + _lastRow + 1;
+                if (Tables.hasRow(_table, tableRow) && equalsIgnoreMapping(_ignoreMapping, _table, tableRow))
+                {
+                    _lastRow++;
+                }
+                else
+                {
+                    _rowCount = _lastRow + 1;
+                }
+            }
+            return row >= 0 && row <= _lastRow;
+        }
+
+        public Object getValue(int row, int column) throws DataSetException
+        {
+            Object value = Tables.getValue(_table, _startRow + row, _columnIndexes[column]);
+            if ("".equals(value) && !_allowEmptyFields)
+            {
+                handleColumnHasNoValue(_metaData.getTableName(),
+                        _metaData.getColumns()[column].getColumnName());
+            }
+            return value;
+        }
+
+        public Object getValue(int row, String columnName) throws DataSetException
+        {
+            return getValue(row, getColumnIndex(columnName));
+        }
+    }
+
+    /**
+     * A forward only table whose first rows have already been read into memory.
+     */
+    private static class BufferedTable extends AbstractTable
+    {
+        private final ITable _rows;
+        private final int _rowCount;
+        private final ITable _table;
+
+        public BufferedTable(ITable rows, ITable table)
+        {
+            _rows = rows;
+            _rowCount = rows.getRowCount();
+            _table = table;
+        }
+
+        public ITableMetaData getTableMetaData()
+        {
+            return _table.getTableMetaData();
+        }
+
+        public int getRowCount()
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        public boolean hasRow(int row) throws DataSetException
+        {
+            return row < _rowCount ? row >= 0 : Tables.hasRow(_table, row);
+        }
+
+        public Object getValue(int row, int column) throws DataSetException
+        {
+            if (row < _rowCount)
+            {
+                return Tables.getValue(_rows, row, column);
+            }
+            return Tables.getValue(_table, row, column);
+        }
+
+        public Object getValue(int row, String columnName) throws DataSetException
+        {
+            return getValue(row, getColumnIndex(columnName));
+        }
+    }
 }
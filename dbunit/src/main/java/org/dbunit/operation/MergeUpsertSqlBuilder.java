@@ -0,0 +1,104 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.operation;
+
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.dataset.Column;
+
+/**
+ * Builds a SQL:2003 <code>MERGE</code> statement with a single row
+ * <code>VALUES</code> source:
+ * <pre>
+ * merge into TABLE t using (values (?, ?)) as s (PK, COL) on (t.PK = s.PK)
+ * when matched then update set t.COL = s.COL
+ * when not matched then insert (PK, COL) values (s.PK, s.COL)
+ * </pre>
+ * This syntax is understood by DB2 and HSQLDB 2.x. Subclasses adapt it to other
+ * databases supporting <code>MERGE</code>.
+ *
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.5.2
+ */
+public class MergeUpsertSqlBuilder extends AbstractUpsertSqlBuilder
+{
+    protected static final String TARGET_ALIAS = "t";
+    protected static final String SOURCE_ALIAS = "s";
+
+    protected String getSql(String tableName, Column[] columns,
+            Column[] keyColumns, Column[] updateColumns, IDatabaseConnection connection)
+    {
+        StringBuffer sqlBuffer = new StringBuffer(256);
+        sqlBuffer.append("merge into ").append(tableName).append(" ").append(TARGET_ALIAS);
+        sqlBuffer.append(" using ").append(getSource(columns, connection));
+
+        // on
+        sqlBuffer.append(" on (");
+        for (int i = 0; i < keyColumns.length; i++)
+        {
+            String columnName = getQualifiedName(null, keyColumns[i].getColumnName(), connection);
+            if (i > 0)
+            {
+                sqlBuffer.append(" and ");
+            }
+            sqlBuffer.append(TARGET_ALIAS).append(".").append(columnName);
+            sqlBuffer.append(" = ");
+            sqlBuffer.append(SOURCE_ALIAS).append(".").append(columnName);
+        }
+        sqlBuffer.append(")");
+
+        // update
+        if (updateColumns.length > 0)
+        {
+            sqlBuffer.append(" when matched then update set ");
+            for (int i = 0; i < updateColumns.length; i++)
+            {
+                String columnName = getQualifiedName(null, updateColumns[i].getColumnName(), connection);
+                if (i > 0)
+                {
+                    sqlBuffer.append(", ");
+                }
+                sqlBuffer.append(TARGET_ALIAS).append(".").append(columnName);
+                sqlBuffer.append(" = ");
+                sqlBuffer.append(SOURCE_ALIAS).append(".").append(columnName);
+            }
+        }
+
+        // insert
+        sqlBuffer.append(" when not matched then insert (");
+        sqlBuffer.append(getColumnList(columns, null, connection));
+        sqlBuffer.append(") values (");
+        sqlBuffer.append(getColumnList(columns, SOURCE_ALIAS, connection));
+        sqlBuffer.append(")");
+
+        return sqlBuffer.toString();
+    }
+
+    /**
+     * Returns the source of the merge statement: a single row holding one parameter
+     * per column, aliased {@value #SOURCE_ALIAS}.
+     */
+    protected String getSource(Column[] columns, IDatabaseConnection connection)
+    {
+        return "(values (" + getParameterList(columns.length) + ")) as " + SOURCE_ALIAS
+                + " (" + getColumnList(columns, null, connection) + ")";
+    }
+}
@@ -0,0 +1,512 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.operation;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.dbunit.DatabaseUnitException;
+import org.dbunit.database.DatabaseSequenceFilter;
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.database.IDatabaseConnectionSupplier;
+import org.dbunit.dataset.CachedTable;
+import org.dbunit.dataset.DataSetException;
+import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.ITableIterator;
+import org.dbunit.dataset.ITableMetaData;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Executes an {@link AbstractBatchOperation} on several tables concurrently.
+ * <p>
+ * The tables are grouped into layers using
+ * {@link DatabaseSequenceFilter#getTableLayers(IDatabaseConnection, String[])} so that
+ * tables related by a foreign key are never processed at the same time. The layers
+ * are processed one after another. The tables of one layer are distributed over at
+ * most <code>threadCount</code> workers. Every worker owns a connection created by
+ * the {@link IDatabaseConnectionSupplier} and processes its share of a layer in one
+ * transaction which is committed before the next layer is started.
+ * </p>
+ * <p>
+ * When a worker fails its transaction is rolled back and no further layer is started.
+ * The failures of all workers are reported in the order of the tables in the dataset,
+ * independently of the order in which the workers finished.
+ * </p>
+ * <p>
+ * The workers commit their own transactions, so the changes of a parallel operation
+ * are not part of the transaction of the calling connection.
+ * </p>
+ *
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.5.2
+ */
+class ParallelTableExecutor
+{
+
+    /**
+     * Logger for this class
+     */
+    private static final Logger logger = LoggerFactory.getLogger(ParallelTableExecutor.class);
+
+    private final AbstractBatchOperation _operation;
+    private final IDatabaseConnectionSupplier _connectionSupplier;
+    private final int _threadCount;
+
+    private final List _tables = new ArrayList();
+    private final List _metaData = new ArrayList();
+    private IDatabaseConnection[] _workerConnections;
+
+    /**
+     * @param operation The operation to be executed on every table
+     * @param connectionSupplier Supplies one connection per worker
+     * @param threadCount The maximum number of concurrently processed tables
+     */
+    ParallelTableExecutor(AbstractBatchOperation operation,
+            IDatabaseConnectionSupplier connectionSupplier, int threadCount)
+    {
+        if (operation == null) {
+            throw new NullPointerException("The parameter 'operation' must not be null");
+        }
+        if (connectionSupplier == null) {
+            throw new NullPointerException("The parameter 'connectionSupplier' must not be null");
+        }
+        if (threadCount < 1) {
+            throw new IllegalArgumentException("The thread count must be at least 1 but is " + threadCount);
+        }
+        _operation = operation;
+        _connectionSupplier = connectionSupplier;
+        _threadCount = threadCount;
+    }
+
+    /**
+     * Executes the operation on all tables of the given iterator.
+     * @param connection The connection used to resolve the table metadata and
+     * the foreign key dependencies
+     * @param iterator The tables in the order they would be processed sequentially
+     */
+    void execute(IDatabaseConnection connection, ITableIterator iterator)
+            throws DatabaseUnitException, SQLException
+    {
+        logger.debug("execute(connection={}, iterator={}) - start", connection, iterator);
+
+        // Collect the tables and resolve their metadata on the calling thread.
+        // A table may occur several times in a streamed dataset, so the
+        // occurrences of every name are queued in dataset order.
+        Map indexesByName = new HashMap();
+        List tableNames = new ArrayList();
+        while (iterator.next())
+        {
+            ITable table = iterator.getTable();
+            if (AbstractBatchOperation.isEmpty(table))
+            {
+                continue;
+            }
+
+            table = toRandomAccessTable(table);
+            ITableMetaData metaData = AbstractOperation.getOperationMetaData(
+                    connection, table.getTableMetaData());
+            String tableName = table.getTableMetaData().getTableName();
+
+            List indexes = (List)indexesByName.get(tableName);
+            if (indexes == null)
+            {
+                indexes = new LinkedList();
+                indexesByName.put(tableName, indexes);
+            }
+            indexes.add(new Integer(_tables.size()));
+            tableNames.add(tableName);
+            _tables.add(table);
+            _metaData.add(metaData);
+        }
+
+        if (_tables.isEmpty())
+        {
+            return;
+        }
+
+        String[][] layers = DatabaseSequenceFilter.getTableLayers(connection,
+                (String[])tableNames.toArray(new String[0]));
+
+        _workerConnections = new IDatabaseConnection[_threadCount];
+        ExecutorService executorService = Executors.newFixedThreadPool(
+                _threadCount, new WorkerThreadFactory());
+        try
+        {
+            // The layers keep the dataset order and place every repeated table
+            // after its previous occurrence, so the queued occurrences are taken
+            // in the right order
+            for (int i = 0; i < layers.length; i++)
+            {
+                int[] tableIndexes = new int[layers[i].length];
+                for (int j = 0; j < tableIndexes.length; j++)
+                {
+                    LinkedList indexes = (LinkedList)indexesByName.get(layers[i][j]);
+                    tableIndexes[j] = ((Integer)indexes.removeFirst()).intValue();
+                }
+                executeLayer(executorService, tableIndexes);
+            }
+        }
+        finally
+        {
+            executorService.shutdownNow();
+            closeWorkerConnections();
+        }
+    }
+
+    private void executeLayer(ExecutorService executorService, int[] tableIndexes)
+            throws DatabaseUnitException
+    {
+        if (logger.isDebugEnabled())
+        {
+            logger.debug("executeLayer(tableIndexes={}) - start", toString(tableIndexes));
+        }
+
+        List[] assignments = assignTables(tableIndexes);
+
+        List futures = new ArrayList(assignments.length);
+        for (int i = 0; i < assignments.length; i++)
+        {
+            futures.add(executorService.submit(new Worker(i, assignments[i])));
+        }
+
+        List failures = new ArrayList();
+        try
+        {
+            for (int i = 0; i < futures.size(); i++)
+            {
+                Failure failure = (Failure)((Future)futures.get(i)).get();
+                if (failure != null)
+                {
+                    failures.add(failure);
+                }
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new DatabaseUnitException("Interrupted while waiting for the parallel workers", e);
+        }
+        catch (ExecutionException e)
+        {
+            // Workers report their failures as result, so this is unexpected
+            throw new DatabaseUnitException(e.getCause());
+        }
+
+        if (!failures.isEmpty())
+        {
+            throw createException(failures);
+        }
+    }
+
+    /**
+     * Distributes the given tables over the workers, always assigning the next
+     * largest table to the worker with the fewest rows so far.
+     */
+    private List[] assignTables(int[] tableIndexes)
+    {
+        int workerCount = Math.min(_threadCount, tableIndexes.length);
+        List[] assignments = new List[workerCount];
+        long[] load = new long[workerCount];
+        for (int i = 0; i < workerCount; i++)
+        {
+            assignments[i] = new ArrayList();
+        }
+
+        List bySize = new ArrayList(tableIndexes.length);
+        for (int i = 0; i < tableIndexes.length; i++)
+        {
+            bySize.add(new Integer(tableIndexes[i]));
+        }
+        Collections.sort(bySize, new Comparator() {
+            public int compare(Object o1, Object o2)
+            {
+                int rows1 = getTable((Integer)o1).getRowCount();
+                int rows2 = getTable((Integer)o2).getRowCount();
+                // Largest first, then dataset order
+                return rows1 != rows2 ? (rows2 < rows1 ? -1 : 1) : ((Integer)o1).compareTo((Integer)o2);
+            }
+        });
+
+        for (int i = 0; i < bySize.size(); i++)
+        {
+            Integer tableIndex = (Integer)bySize.get(i);
+            int worker = 0;
+            for (int j = 1; j < workerCount; j++)
+            {
+                if (load[j] < load[worker])
+                {
+                    worker = j;
+                }
+            }
+            assignments[worker].add(tableIndex);
+            load[worker] += getTable(tableIndex).getRowCount();
+        }
+
+        // Process the tables of each worker in dataset order
+        for (int i = 0; i < workerCount; i++)
+        {
+            Collections.sort(assignments[i]);
+        }
+        return assignments;
+    }
+
+    private ITable getTable(Integer tableIndex)
+    {
+        return (ITable)_tables.get(tableIndex.intValue());
+    }
+
+    private DatabaseUnitException createException(List failures)
+    {
+        Collections.sort(failures);
+
+        StringBuffer tableNames = new StringBuffer();
+        for (int i = 0; i < failures.size(); i++)
+        {
+            Failure failure = (Failure)failures.get(i);
+            if (i > 0)
+            {
+                tableNames.append(", ");
+            }
+            tableNames.append(failure.getTableName());
+            logger.error("Parallel processing of table '" + failure.getTableName() + "' failed",
+                    failure.getCause());
+        }
+
+        Failure first = (Failure)failures.get(0);
+        String msg = "Exception processing table name(s) [" + tableNames
+                + "] in parallel mode. The transactions of the affected workers have been rolled back.";
+        return new DatabaseUnitException(msg, first.getCause());
+    }
+
+    private IDatabaseConnection getWorkerConnection(int worker)
+            throws DatabaseUnitException, SQLException
+    {
+        // Each worker index is used by exactly one task at a time and the layers
+        // are separated by Future.get(), so no further synchronization is needed
+        if (_workerConnections[worker] == null)
+        {
+            _workerConnections[worker] = _connectionSupplier.createConnection();
+        }
+        return _workerConnections[worker];
+    }
+
+    private void closeWorkerConnections()
+    {
+        for (int i = 0; i < _workerConnections.length; i++)
+        {
+            if (_workerConnections[i] != null)
+            {
+                try
+                {
+                    _workerConnections[i].close();
+                }
+                catch (SQLException e)
+                {
+                    logger.warn("Exception while closing worker connection " + i, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Makes sure the given table can be read by a worker thread after the
+     * dataset iterator has moved on. Tables that do not know their row count
+     * (streamed or forward only tables) are cached in memory.
+     */
+    private static ITable toRandomAccessTable(ITable table) throws DataSetException
+    {
+        try
+        {
+            table.getRowCount();
+            return table;
+        }
+        catch (UnsupportedOperationException e)
+        {
+            return new CachedTable(table);
+        }
+    }
+
+    private static String toString(int[] values)
+    {
+        StringBuffer sb = new StringBuffer("[");
+        for (int i = 0; i < values.length; i++)
+        {
+            if (i > 0)
+            {
+                sb.append(", ");
+            }
+            sb.append(values[i]);
+        }
+        return sb.append("]").toString();
+    }
+
+    public String toString()
+    {
+        StringBuffer sb = new StringBuffer();
+        sb.append(getClass().getName()).append("[");
+        sb.append("_operation=").append(_operation);
+        sb.append(", _threadCount=").append(_threadCount);
+        sb.append("]");
+        return sb.toString();
+    }
+
+
+    /**
+     * Processes the tables assigned to one worker in a single transaction.
+     */
+    private class Worker implements Callable
+    {
+        private final int _worker;
+        private final List _tableIndexes;
+
+        Worker(int worker, List tableIndexes)
+        {
+            _worker = worker;
+            _tableIndexes = tableIndexes;
+        }
+
+        public Object call()
+        {
+            int current = ((Integer)_tableIndexes.get(0)).intValue();
+            Connection jdbcConnection = null;
+            boolean autoCommit = true;
+            try
+            {
+                IDatabaseConnection connection = getWorkerConnection(_worker);
+                jdbcConnection = connection.getConnection();
+                autoCommit = jdbcConnection.getAutoCommit();
+                jdbcConnection.setAutoCommit(false);
+
+                for (int i = 0; i < _tableIndexes.size(); i++)
+                {
+                    current = ((Integer)_tableIndexes.get(i)).intValue();
+                    _operation.executeTable(connection, (ITable)_tables.get(current),
+                            (ITableMetaData)_metaData.get(current));
+                }
+                jdbcConnection.commit();
+                return null;
+            }
+            catch (Exception e)
+            {
+                rollback(jdbcConnection);
+                String tableName = ((ITable)_tables.get(current)).getTableMetaData().getTableName();
+                return new Failure(current, tableName, e);
+            }
+            finally
+            {
+                restoreAutoCommit(jdbcConnection, autoCommit);
+            }
+        }
+
+        private void rollback(Connection jdbcConnection)
+        {
+            if (jdbcConnection != null)
+            {
+                try
+                {
+                    jdbcConnection.rollback();
+                }
+                catch (SQLException e)
+                {
+                    logger.warn("Exception while rolling back worker " + _worker, e);
+                }
+            }
+        }
+
+        private void restoreAutoCommit(Connection jdbcConnection, boolean autoCommit)
+        {
+            if (jdbcConnection != null)
+            {
+                try
+                {
+                    jdbcConnection.setAutoCommit(autoCommit);
+                }
+                catch (SQLException e)
+                {
+                    logger.warn("Exception while resetting auto commit of worker " + _worker, e);
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Failure of a worker, ordered by the dataset position of the failed table.
+     */
+    private static class Failure implements Comparable
+    {
+        private final int _tableIndex;
+        private final String _tableName;
+        private final Exception _cause;
+
+        Failure(int tableIndex, String tableName, Exception cause)
+        {
+            _tableIndex = tableIndex;
+            _tableName = tableName;
+            _cause = cause;
+        }
+
+        String getTableName()
+        {
+            return _tableName;
+        }
+
+        Exception getCause()
+        {
+            return _cause;
+        }
+
+        public int compareTo(Object o)
+        {
+            int other = ((Failure)o)._tableIndex;
+            return _tableIndex < other ? -1 : (_tableIndex == other ? 0 : 1);
+        }
+    }
+
+
+    private static class WorkerThreadFactory implements ThreadFactory
+    {
+        private final AtomicInteger _count = new AtomicInteger();
+
+        public Thread newThread(Runnable runnable)
+        {
+            Thread thread = new Thread(runnable, "ParallelTableExecutor-" + _count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -25,29 +25,50 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import org.dbunit.DatabaseUnitException;
+import org.dbunit.DatabaseUnitRuntimeException;
+import org.dbunit.database.DatabaseConfig;
 import org.dbunit.database.IDatabaseConnection;
 import org.dbunit.database.statement.IPreparedBatchStatement;
+import org.dbunit.database.statement.IStatementFactory;
+import org.dbunit.database.statement.PreparedStatementCache;
 import org.dbunit.database.statement.SimplePreparedStatement;
 import org.dbunit.dataset.Column;
 import org.dbunit.dataset.DataSetException;
+import org.dbunit.dataset.DefaultTable;
 import org.dbunit.dataset.IDataSet;
 import org.dbunit.dataset.ITable;
 import org.dbunit.dataset.ITableIterator;
 import org.dbunit.dataset.ITableMetaData;
 import org.dbunit.dataset.NoPrimaryKeyException;
-import org.dbunit.dataset.RowOutOfBoundsException;
+import org.dbunit.dataset.Tables;
 import org.dbunit.dataset.datatype.DataType;
+import org.dbunit.dataset.datatype.TypeCastException;
 
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.BitSet;
+import java.util.Comparator;
+import java.util.Set;
+import java.util.TreeSet;
 
 /**
  * This operation literally refreshes dataset contents into the database. This
  * means that data of existing rows is updated and non-existing row get
  * inserted. Any rows which exist in the database but not in dataset stay
  * unaffected.
+ * <p>
+ * Tables having a primary key are refreshed in chunks of
+ * {@link DatabaseConfig#PROPERTY_BATCH_SIZE} rows: the primary keys of a
+ * chunk are looked up in the database with a single select statement, then
+ * the existing rows are updated with one batch. The missing rows are inserted
+ * with one batch as well if all primary key columns are numeric. Otherwise
+ * the database may consider keys equal that differ in the dataset (e.g. case
+ * insensitive collations or padded <code>CHAR</code> columns), so the rows
+ * whose key was not found are refreshed row by row and only inserted if the
+ * update did not affect any row. Tables without primary key are processed
+ * row by row.
+ * </p>
  *
  * @author Manuel Laflamme
  * @version $Revision$
@@ -100,6 +121,21 @@ public class RefreshOperation extends AbstractOperation
 
             ITableMetaData metaData = getOperationMetaData(connection,
                     table.getTableMetaData());
+            if (metaData.getPrimaryKeys().length > 0)
+            {
+                try
+                {
+                    executeChunked(connection, table, metaData);
+                }
+                catch (SQLException e)
+                {
+                    final String msg =
+                        "Exception processing table name='" + tableName + "'";
+                    throw new DatabaseUnitException(msg, e);
+                }
+                continue;
+            }
+
             RowOperation updateRowOperation = createUpdateOperation(connection,
                     metaData);
             RowOperation insertRowOperation = new InsertRowOperation(connection,
@@ -108,7 +144,7 @@ public class RefreshOperation extends AbstractOperation
             try
             {
                 // refresh all rows
-                for (int i = 0; ; i++)
+                for (int i = 0; Tables.hasRow(table, i); i++)
                 {
                     if (!updateRowOperation.execute(table, i))
                     {
@@ -116,13 +152,6 @@ public class RefreshOperation extends AbstractOperation
                     }
                 }
             }
-            catch (RowOutOfBoundsException e)
-            {
-            	// This exception occurs when records are exhausted
-            	// and we reach the end of the table.  Ignore this error.
-
-                // end of table
-            }
             catch (SQLException e)
             {
                 final String msg =
@@ -139,6 +168,195 @@ public class RefreshOperation extends AbstractOperation
 
     }
 
+    /**
+     * Refreshes all rows of the specified table chunk by chunk. The rows of
+     * a chunk are copied into memory first, so forward only tables can be
+     * processed as well.
+     */
+    private void executeChunked(IDatabaseConnection connection, ITable table,
+            ITableMetaData metaData) throws DatabaseUnitException, SQLException
+    {
+        logger.debug("executeChunked(connection={}, table={}, metaData={}) - start",
+                new Object[] {connection, table, metaData});
+
+        DatabaseConfig config = connection.getConfig();
+        IStatementFactory factory = (IStatementFactory)config.getProperty(
+                DatabaseConfig.PROPERTY_STATEMENT_FACTORY);
+        int chunkSize = ((Integer)config.getProperty(
+                DatabaseConfig.PROPERTY_BATCH_SIZE)).intValue();
+        if (chunkSize < 1)
+        {
+            chunkSize = 1;
+        }
+
+        ITableMetaData tableMetaData = table.getTableMetaData();
+        Column[] tableColumns = tableMetaData.getColumns();
+        Column[] primaryKeys = metaData.getPrimaryKeys();
+        int[] keyIndexes = AbstractBatchOperation.getColumnIndexes(
+                tableMetaData, primaryKeys, new BitSet());
+
+        // update only if columns are not all primary keys
+        OperationData updateData = null;
+        int[] updateIndexes = null;
+        if (metaData.getColumns().length > primaryKeys.length)
+        {
+            updateData = _updateOperation.getOperationData(metaData, null, connection);
+            updateIndexes = AbstractBatchOperation.getColumnIndexes(
+                    tableMetaData, updateData.getColumns(), new BitSet());
+        }
+
+        PrimaryKeyProbe probe = new PrimaryKeyProbe(connection, metaData, keyIndexes);
+        RowOperation updateRowOperation = null;
+        RowOperation insertRowOperation = null;
+        IPreparedBatchStatement insertStatement = null;
+        IPreparedBatchStatement updateStatement = null;
+        BitSet ignoreMapping = null;
+        OperationData insertData = null;
+        int[] insertIndexes = null;
+        try
+        {
+            int row = 0;
+            while (Tables.hasRow(table, row))
+            {
+                // Copy the next chunk of rows
+                DefaultTable chunk = new DefaultTable(tableMetaData);
+                for (int i = 0; i < chunkSize && Tables.hasRow(table, row); i++, row++)
+                {
+                    Object[] values = new Object[tableColumns.length];
+                    for (int j = 0; j < values.length; j++)
+                    {
+                        values[j] = Tables.getValue(table, row, j);
+                    }
+                    chunk.addRow(values);
+                }
+
+                int rowCount = chunk.getRowCount();
+                boolean[] existing = probe.execute(chunk);
+                boolean hasUpdates = false;
+
+                if (!probe.isKeyMatchExact())
+                {
+                    // Let the database decide whether a row whose key was
+                    // not found exists, since its key equality may differ
+                    // from the one of the dataset values.
+                    if (updateRowOperation == null)
+                    {
+                        updateRowOperation = createUpdateOperation(connection,
+                                metaData);
+                        insertRowOperation = new InsertRowOperation(connection,
+                                metaData);
+                    }
+                    for (int i = 0; i < rowCount; i++)
+                    {
+                        if (existing[i])
+                        {
+                            hasUpdates = true;
+                        }
+                        else if (!updateRowOperation.execute(chunk, i))
+                        {
+                            insertRowOperation.execute(chunk, i);
+                        }
+                    }
+                }
+                else
+                {
+                    // Insert the missing rows first since updated rows may
+                    // reference them. A key occurring twice in the chunk is
+                    // inserted once and then updated like in the row by row mode.
+                    Set insertedKeys = new TreeSet(probe.getKeyComparator());
+                    for (int i = 0; i < rowCount; i++)
+                    {
+                        if (existing[i] || !probe.add(insertedKeys, chunk, i))
+                        {
+                            existing[i] = true;
+                            hasUpdates = true;
+                            continue;
+                        }
+
+                        if (ignoreMapping == null
+                                || !_insertOperation.equalsIgnoreMapping(ignoreMapping, chunk, i))
+                        {
+                            // Execute and close previous statement
+                            if (insertStatement != null)
+                            {
+                                insertStatement.executeBatch();
+                                insertStatement.clearBatch();
+                                insertStatement.close();
+                            }
+
+                            ignoreMapping = _insertOperation.getIgnoreMapping(chunk, i);
+                            insertData = _insertOperation.getOperationData(metaData,
+                                    ignoreMapping, connection);
+                            insertIndexes = AbstractBatchOperation.getColumnIndexes(
+                                    tableMetaData, insertData.getColumns(), ignoreMapping);
+                            insertStatement = factory.createPreparedBatchStatement(
+                                    insertData.getSql(), connection);
+                        }
+                        addBatch(insertStatement, chunk, i, insertData.getColumns(),
+                                insertIndexes);
+                    }
+                    if (insertStatement != null)
+                    {
+                        insertStatement.executeBatch();
+                        insertStatement.clearBatch();
+                    }
+                }
+
+                if (updateData != null && hasUpdates)
+                {
+                    if (updateStatement == null)
+                    {
+                        updateStatement = factory.createPreparedBatchStatement(
+                                updateData.getSql(), connection);
+                    }
+                    for (int i = 0; i < rowCount; i++)
+                    {
+                        if (existing[i])
+                        {
+                            addBatch(updateStatement, chunk, i,
+                                    updateData.getColumns(), updateIndexes);
+                        }
+                    }
+                    updateStatement.executeBatch();
+                    updateStatement.clearBatch();
+                }
+            }
+        }
+        finally
+        {
+            if (updateRowOperation != null)
+            {
+                updateRowOperation.close();
+                insertRowOperation.close();
+            }
+            if (insertStatement != null)
+            {
+                insertStatement.close();
+            }
+            if (updateStatement != null)
+            {
+                updateStatement.close();
+            }
+            probe.close();
+        }
+    }
+
+    private void addBatch(IPreparedBatchStatement statement, ITable table,
+            int row, Column[] columns, int[] columnIndexes)
+            throws DataSetException, SQLException
+    {
+        for (int j = 0; j < columns.length; j++)
+        {
+            // Bind value only if not in ignore mapping
+            if (columnIndexes[j] >= 0)
+            {
+                Object value = Tables.getValue(table, row, columnIndexes[j]);
+                statement.addValue(value, columns[j].getDataType());
+            }
+        }
+        statement.addBatch();
+    }
+
     private RowOperation createUpdateOperation(IDatabaseConnection connection,
             ITableMetaData metaData)
             throws DataSetException, SQLException
@@ -252,7 +470,8 @@ public class RefreshOperation extends AbstractOperation
                 _operationData = _insertOperation.getOperationData(_metaData,
                         _ignoreMapping, _connection);
                 _statement = new SimplePreparedStatement(_operationData.getSql(),
-                        _connection.getConnection());
+                        _connection.getConnection(),
+                        PreparedStatementCache.getCache(_connection));
             }
 
             return super.execute(table, row);
@@ -275,7 +494,8 @@ public class RefreshOperation extends AbstractOperation
             _operationData = _updateOperation.getOperationData(
                     metaData, null, connection);
             _statement = new SimplePreparedStatement(_operationData.getSql(),
-                    connection.getConnection());
+                    connection.getConnection(),
+                    PreparedStatementCache.getCache(connection));
         }
     }
 
@@ -291,15 +511,17 @@ public class RefreshOperation extends AbstractOperation
         private final Logger logger = LoggerFactory.getLogger(RowExistOperation.class);
 
         PreparedStatement _countStatement;
+        private final IDatabaseConnection _connection;
 
         public RowExistOperation(IDatabaseConnection connection,
                 ITableMetaData metaData)
                 throws DataSetException, SQLException
         {
             // setup select count statement
+            _connection = connection;
             _operationData = getSelectCountData(metaData, connection);
-            _countStatement = connection.getConnection().prepareStatement(
-                    _operationData.getSql());
+            _countStatement = PreparedStatementCache.prepareStatement(
+                    _operationData.getSql(), connection);
         }
 
         private OperationData getSelectCountData(
@@ -373,7 +595,259 @@ public class RefreshOperation extends AbstractOperation
         {
             logger.debug("close() - start");
 
-            _countStatement.close();
+            PreparedStatementCache.release(_countStatement, _connection);
+        }
+    }
+
+
+    /**
+     * Looks up which primary keys of a chunk of rows already exist in the
+     * database using one select statement per chunk.
+     */
+    private class PrimaryKeyProbe
+    {
+
+        /**
+         * Logger for this class
+         */
+        private final Logger logger = LoggerFactory.getLogger(PrimaryKeyProbe.class);
+
+        private final IDatabaseConnection _connection;
+        private final ITableMetaData _metaData;
+        private final Column[] _primaryKeys;
+        private final int[] _keyIndexes;
+        private final Comparator _keyComparator;
+        private final boolean _keyMatchExact;
+        private PreparedStatement _statement;
+        private int _statementRowCount;
+
+        public PrimaryKeyProbe(IDatabaseConnection connection,
+                ITableMetaData metaData, int[] keyIndexes) throws DataSetException
+        {
+            _connection = connection;
+            _metaData = metaData;
+            _primaryKeys = metaData.getPrimaryKeys();
+            _keyIndexes = keyIndexes;
+            _keyComparator = new KeyComparator(_primaryKeys);
+
+            boolean keyMatchExact = true;
+            for (int j = 0; j < _primaryKeys.length; j++)
+            {
+                if (!_primaryKeys[j].getDataType().isNumber())
+                {
+                    keyMatchExact = false;
+                }
+            }
+            _keyMatchExact = keyMatchExact;
+        }
+
+        public Comparator getKeyComparator()
+        {
+            return _keyComparator;
+        }
+
+        /**
+         * @return <code>true</code> if all primary key columns are numeric, so
+         * that a key not matching any key found in the database is known to be
+         * missing. Text keys may be equal for the database but not for the
+         * dataset, e.g. with case insensitive collations or padded columns.
+         */
+        public boolean isKeyMatchExact()
+        {
+            return _keyMatchExact;
+        }
+
+        /**
+         * Adds the primary key of the specified row to the given set.
+         * @return <code>false</code> if the set already contained the key
+         */
+        public boolean add(Set keys, ITable table, int row) throws DataSetException
+        {
+            try
+            {
+                return keys.add(getKey(table, row));
+            }
+            catch (DatabaseUnitRuntimeException e)
+            {
+                throw (DataSetException)e.getCause();
+            }
+        }
+
+        /**
+         * @return For each row of the table whether its primary key exists in
+         * the database
+         */
+        public boolean[] execute(ITable table) throws DataSetException, SQLException
+        {
+            logger.debug("execute(table={}) - start", table);
+
+            int rowCount = table.getRowCount();
+            PreparedStatement statement = getStatement(rowCount);
+
+            int parameter = 1;
+            for (int i = 0; i < rowCount; i++)
+            {
+                for (int j = 0; j < _primaryKeys.length; j++)
+                {
+                    Object value = Tables.getValue(table, i, _keyIndexes[j]);
+                    _primaryKeys[j].getDataType().setSqlValue(value, parameter++,
+                            statement);
+                }
+            }
+
+            Set existingKeys = new TreeSet(_keyComparator);
+            ResultSet resultSet = statement.executeQuery();
+            try
+            {
+                while (resultSet.next())
+                {
+                    Object[] key = new Object[_primaryKeys.length];
+                    for (int j = 0; j < key.length; j++)
+                    {
+                        key[j] = _primaryKeys[j].getDataType().getSqlValue(j + 1,
+                                resultSet);
+                    }
+                    existingKeys.add(key);
+                }
+
+                boolean[] existing = new boolean[rowCount];
+                for (int i = 0; i < rowCount; i++)
+                {
+                    existing[i] = existingKeys.contains(getKey(table, i));
+                }
+                return existing;
+            }
+            catch (DatabaseUnitRuntimeException e)
+            {
+                throw (DataSetException)e.getCause();
+            }
+            finally
+            {
+                resultSet.close();
+            }
+        }
+
+        private Object[] getKey(ITable table, int row) throws DataSetException
+        {
+            Object[] key = new Object[_keyIndexes.length];
+            for (int j = 0; j < key.length; j++)
+            {
+                key[j] = Tables.getValue(table, row, _keyIndexes[j]);
+            }
+            return key;
+        }
+
+        /**
+         * Returns the select statement for the given number of rows. The
+         * statement is kept for the following chunks of the same size.
+         */
+        private PreparedStatement getStatement(int rowCount) throws SQLException
+        {
+            if (_statement != null && _statementRowCount == rowCount)
+            {
+                return _statement;
+            }
+            close();
+
+            StringBuffer sqlBuffer = new StringBuffer(128);
+            sqlBuffer.append("select ");
+            for (int j = 0; j < _primaryKeys.length; j++)
+            {
+                if (j > 0)
+                {
+                    sqlBuffer.append(", ");
+                }
+                sqlBuffer.append(getQualifiedName(null,
+                        _primaryKeys[j].getColumnName(), _connection));
+            }
+            sqlBuffer.append(" from ");
+            sqlBuffer.append(getQualifiedName(_connection.getSchema(),
+                    _metaData.getTableName(), _connection));
+            sqlBuffer.append(" where ");
+
+            if (_primaryKeys.length == 1)
+            {
+                // pk in (?, ?, ...)
+                sqlBuffer.append(getQualifiedName(null,
+                        _primaryKeys[0].getColumnName(), _connection));
+                sqlBuffer.append(" in (");
+                for (int i = 0; i < rowCount; i++)
+                {
+                    sqlBuffer.append(i > 0 ? ", ?" : "?");
+                }
+                sqlBuffer.append(")");
+            }
+            else
+            {
+                // (pk1 = ? and pk2 = ?) or (...)
+                for (int i = 0; i < rowCount; i++)
+                {
+                    sqlBuffer.append(i > 0 ? " or (" : "(");
+                    for (int j = 0; j < _primaryKeys.length; j++)
+                    {
+                        if (j > 0)
+                        {
+                            sqlBuffer.append(" and ");
+                        }
+                        sqlBuffer.append(getQualifiedName(null,
+                                _primaryKeys[j].getColumnName(), _connection));
+                        sqlBuffer.append(" = ?");
+                    }
+                    sqlBuffer.append(")");
+                }
+            }
+
+            _statement = PreparedStatementCache.prepareStatement(
+                    sqlBuffer.toString(), _connection);
+            _statementRowCount = rowCount;
+            return _statement;
+        }
+
+        public void close() throws SQLException
+        {
+            logger.debug("close() - start");
+
+            if (_statement != null)
+            {
+                PreparedStatementCache.release(_statement, _connection);
+                _statement = null;
+            }
+        }
+    }
+
+    /**
+     * Orders primary key values using the data types of the key columns, so
+     * that dataset values match the values read from the database.
+     */
+    private static class KeyComparator implements Comparator
+    {
+        private final Column[] _primaryKeys;
+
+        public KeyComparator(Column[] primaryKeys)
+        {
+            _primaryKeys = primaryKeys;
+        }
+
+        public int compare(Object o1, Object o2)
+        {
+            Object[] key1 = (Object[])o1;
+            Object[] key2 = (Object[])o2;
+            try
+            {
+                for (int j = 0; j < _primaryKeys.length; j++)
+                {
+                    int result = _primaryKeys[j].getDataType().compare(key1[j], key2[j]);
+                    if (result != 0)
+                    {
+                        return result;
+                    }
+                }
+                return 0;
+            }
+            catch (TypeCastException e)
+            {
+                throw new DatabaseUnitRuntimeException(e);
+            }
         }
     }
 
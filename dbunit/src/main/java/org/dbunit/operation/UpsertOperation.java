@@ -0,0 +1,134 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.operation;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+import org.dbunit.DatabaseUnitException;
+import org.dbunit.database.DatabaseConfig;
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.DataSetException;
+import org.dbunit.dataset.DefaultTableMetaData;
+import org.dbunit.dataset.IDataSet;
+import org.dbunit.dataset.ITableMetaData;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Inserts the dataset rows or updates them if a row with the same primary key
+ * already exists, using a single native statement per row like
+ * <code>MERGE</code> or <code>INSERT ... ON CONFLICT</code>. The statements are
+ * executed in batches like the ones of the {@link InsertOperation}.
+ * <p>
+ * The statement is built by the {@link IUpsertSqlBuilder} configured with
+ * {@link DatabaseConfig#PROPERTY_UPSERT_SQL_BUILDER}; the database specific
+ * connections in the <code>org.dbunit.ext</code> packages configure one where
+ * available. Without builder this operation behaves like
+ * {@link DatabaseOperation#REFRESH}.
+ * </p>
+ *
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.5.2
+ */
+public class UpsertOperation extends InsertOperation
+{
+
+    /**
+     * Logger for this class
+     */
+    private static final Logger logger = LoggerFactory.getLogger(UpsertOperation.class);
+
+    UpsertOperation()
+    {
+    }
+
+    ////////////////////////////////////////////////////////////////////////////
+    // AbstractBatchOperation class
+
+    public OperationData getOperationData(ITableMetaData metaData,
+            BitSet ignoreMapping, IDatabaseConnection connection) throws DataSetException
+    {
+        if (logger.isDebugEnabled())
+        {
+            logger.debug("getOperationData(metaData={}, ignoreMapping={}, connection={}) - start",
+                    new Object[]{ metaData, ignoreMapping, connection });
+        }
+
+        IUpsertSqlBuilder sqlBuilder = getSqlBuilder(connection);
+
+        // only the columns having a value are written
+        Column[] columns = metaData.getColumns();
+        List columnList = new ArrayList();
+        for (int i = 0; i < columns.length; i++)
+        {
+            if (!ignoreMapping.get(i))
+            {
+                columnList.add(columns[i]);
+            }
+        }
+        ITableMetaData upsertMetaData = new DefaultTableMetaData(metaData.getTableName(),
+                (Column[])columnList.toArray(new Column[0]), metaData.getPrimaryKeys());
+
+        // the ignored columns are skipped when binding the values
+        return new OperationData(sqlBuilder.getSql(upsertMetaData, connection), columns);
+    }
+
+    boolean isGroupingRows(IDatabaseConnection connection, ITableMetaData metaData)
+    {
+        // the last of several rows with the same key must win
+        return false;
+    }
+
+    IBulkLoader getBulkLoader(IDatabaseConnection connection)
+    {
+        // bulk loaders cannot update existing rows
+        return null;
+    }
+
+    ////////////////////////////////////////////////////////////////////////////
+    // DatabaseOperation class
+
+    public void execute(IDatabaseConnection connection, IDataSet dataSet)
+            throws DatabaseUnitException, SQLException
+    {
+        logger.debug("execute(connection={}, dataSet={}) - start", connection, dataSet);
+
+        if (getSqlBuilder(connection) == null)
+        {
+            logger.debug("No upsert SQL builder configured, executing a REFRESH instead");
+            DatabaseOperation.REFRESH.execute(connection, dataSet);
+            return;
+        }
+
+        super.execute(connection, dataSet);
+    }
+
+    private IUpsertSqlBuilder getSqlBuilder(IDatabaseConnection connection)
+    {
+        return (IUpsertSqlBuilder)connection.getConfig().getProperty(
+                DatabaseConfig.PROPERTY_UPSERT_SQL_BUILDER);
+    }
+}
@@ -413,6 +413,36 @@ public class SQLHelper {
             logger.debug(msg, tableName, columnName, e);
         }
 
+        return createColumn(tableName, columnName, sqlType, sqlTypeName, nullable,
+                remarks, columnDefaultValue, isAutoIncrement, dataTypeFactory, datatypeWarning);
+                    }
+
+    /**
+     * Utility method to create a {@link Column} object from the values of one row
+     * of {@link DatabaseMetaData#getColumns(String, String, String, String)}.
+     * 
+     * @param tableName The table name
+     * @param columnName The column name
+     * @param sqlType The SQL type, already resolved for {@link java.sql.Types#DISTINCT} columns
+     * @param sqlTypeName The SQL type name
+     * @param nullable The nullability as defined by {@link DatabaseMetaData#columnNullable} and friends
+     * @param remarks The remarks
+     * @param columnDefaultValue The default value
+     * @param isAutoIncrement The auto increment flag ("YES", "NO" or empty)
+     * @param dataTypeFactory The factory used to lookup the {@link DataType} for this column
+     * @param datatypeWarning Whether or not a warning should be printed if the column could not
+     * be created because of an unknown datatype.
+     * @return The {@link Column} or <code>null</code> if the column could not be initialized because of an
+     * unknown datatype.
+     * @throws DataTypeException
+     * @since 2.5.2
+     */
+    public static final Column createColumn(String tableName, String columnName,
+            int sqlType, String sqlTypeName, int nullable, String remarks,
+            String columnDefaultValue, String isAutoIncrement,
+            IDataTypeFactory dataTypeFactory, boolean datatypeWarning)
+                    throws DataTypeException
+                    {
         // Convert SQL type to DataType
         DataType dataType =
                 dataTypeFactory.createDataType(sqlType, sqlTypeName, tableName, columnName);
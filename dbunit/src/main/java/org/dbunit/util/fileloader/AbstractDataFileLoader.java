@@ -24,8 +24,16 @@ import java.io.IOException;
 import java.net.URL;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.dbunit.DatabaseUnitRuntimeException;
+import org.dbunit.dataset.CachedDataSet;
 import org.dbunit.dataset.DataSetException;
 import org.dbunit.dataset.DefaultDataSet;
 import org.dbunit.dataset.IDataSet;
@@ -45,8 +53,12 @@ public abstract class AbstractDataFileLoader implements DataFileLoader {
     private final Logger LOG =
             LoggerFactory.getLogger(AbstractDataFileLoader.class);
 
+    private static ExecutorService sharedExecutorService;
+
     private Map replacementObjects;
     private Map replacementSubstrings;
+    private ExecutorService executorService;
+    private ParsedDataSetCache dataSetCache;
 
     /** Create new instance. */
     public AbstractDataFileLoader() {
@@ -111,7 +123,9 @@ public abstract class AbstractDataFileLoader implements DataFileLoader {
             }
 
             try {
-                ds = loadDataSet(url);
+                ParsedDataSetCache cache = this.dataSetCache;
+                ds = cache == null ? loadDataSet(url)
+                        : cache.getDataSet(this, url);
                 ds = processReplacementTokens(ds);
             } catch (DataSetException e) {
                 final String msg =
@@ -131,6 +145,178 @@ public abstract class AbstractDataFileLoader implements DataFileLoader {
         return ds;
     }
 
+    /**
+     * Load the specified files from the classpath into dbUnit datasets, see
+     * {@link #load(String)}. When parallel loading is enabled the files are
+     * parsed concurrently and the replacement tokens of each dataset are
+     * resolved in the loading thread, otherwise the files are loaded one
+     * after the other.
+     * 
+     * @param fileNames
+     *            The dbUnit files to load.
+     * @return The datasets of the specified files, in the same order.
+     * @throws DatabaseUnitRuntimeException
+     *             When file load errors occur, the one of the first failing
+     *             file is thrown.
+     * @since 2.5.2
+     */
+    public IDataSet[] loadAll(String[] fileNames)
+            throws DatabaseUnitRuntimeException {
+        IDataSet[] dataSets = new IDataSet[fileNames.length];
+
+        ExecutorService executor = this.executorService;
+        if (executor == null || fileNames.length < 2) {
+            for (int i = 0; i < fileNames.length; i++) {
+                dataSets[i] = load(fileNames[i]);
+            }
+            return dataSets;
+        }
+
+        LOG.debug("load: loading {} files in parallel", new Integer(fileNames.length));
+
+        Future[] futures = new Future[fileNames.length];
+        for (int i = 0; i < fileNames.length; i++) {
+            final String fileName = fileNames[i];
+            futures[i] = executor.submit(new Callable() {
+                public Object call() throws Exception {
+                    return loadResolved(fileName);
+                }
+            });
+        }
+
+        try {
+            for (int i = 0; i < futures.length; i++) {
+                dataSets[i] = (IDataSet) futures[i].get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DatabaseUnitRuntimeException(
+                    "Interrupted while loading data set files", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new DatabaseUnitRuntimeException(cause);
+        } finally {
+            for (int i = 0; i < futures.length; i++) {
+                futures[i].cancel(true);
+            }
+        }
+
+        return dataSets;
+    }
+
+    /**
+     * Loads the file and copies it so the replacement tokens are resolved
+     * once in the calling thread rather than on every read.
+     */
+    private IDataSet loadResolved(String fileName)
+            throws DatabaseUnitRuntimeException {
+        IDataSet ds = load(fileName);
+        try {
+            return new CachedDataSet(ds);
+        } catch (DataSetException e) {
+            final String msg =
+                    "DataSetException occurred resolving replacements of data set file name='"
+                            + fileName + "', msg='"
+                            + e.getLocalizedMessage() + "'";
+            throw new DatabaseUnitRuntimeException(msg, e);
+        }
+    }
+
+    /**
+     * Set the cache sharing the parsed files between loaders and calls of
+     * {@link #load(String)}, usually
+     * {@link ParsedDataSetCache#getSharedInstance()}.
+     * 
+     * @param dataSetCache
+     *            The cache or <code>null</code> to parse the file on every
+     *            load.
+     * @since 2.5.2
+     */
+    public void setDataSetCache(ParsedDataSetCache dataSetCache) {
+        this.dataSetCache = dataSetCache;
+    }
+
+    /**
+     * @return The cache of parsed files or <code>null</code> if none is set.
+     * @since 2.5.2
+     */
+    public ParsedDataSetCache getDataSetCache() {
+        return this.dataSetCache;
+    }
+
+    /**
+     * Return the part of the {@link ParsedDataSetCache} key identifying how
+     * this loader parses files. Subclasses with parse options must include
+     * them.
+     * 
+     * @return The loader type and parse options.
+     * @since 2.5.2
+     */
+    protected String getCacheKey() {
+        return getClass().getName();
+    }
+
+    /**
+     * Return the fingerprint {@link ParsedDataSetCache} compares to decide
+     * whether the cached dataset of the url is up to date. Subclasses reading
+     * more than the file at the url must include the other files.
+     * 
+     * @param url
+     *            The data file url.
+     * @return A fingerprint that changes when the parsed data changes.
+     * @throws IOException
+     *             On file errors.
+     * @since 2.5.2
+     */
+    protected String getFingerprint(URL url) throws IOException {
+        return ParsedDataSetCache.getFingerprint(url);
+    }
+
+    /**
+     * Enable or disable the parallel loading of {@link #loadAll(String[])} on a
+     * pool shared by all loaders with one daemon thread per processor.
+     * 
+     * @param parallel
+     *            Whether to load multiple files concurrently.
+     * @since 2.5.2
+     */
+    public void setParallelLoading(boolean parallel) {
+        this.executorService = parallel ? getSharedExecutorService() : null;
+    }
+
+    /**
+     * Set the executor service used by {@link #loadAll(String[])} to load files
+     * concurrently. The caller remains responsible for shutting it down.
+     * 
+     * @param executorService
+     *            The executor service or <code>null</code> to load files
+     *            sequentially.
+     * @since 2.5.2
+     */
+    public void setExecutorService(ExecutorService executorService) {
+        this.executorService = executorService;
+    }
+
+    /**
+     * @return Whether {@link #loadAll(String[])} loads files concurrently.
+     * @since 2.5.2
+     */
+    public boolean isParallelLoading() {
+        return this.executorService != null;
+    }
+
+    private static synchronized ExecutorService getSharedExecutorService() {
+        if (sharedExecutorService == null) {
+            sharedExecutorService = Executors.newFixedThreadPool(
+                    Runtime.getRuntime().availableProcessors(),
+                    new LoaderThreadFactory());
+        }
+        return sharedExecutorService;
+    }
+
     /** 
      * Add the replacements in the maps (objects and substrings) to the
      * specified dataset.
@@ -178,4 +364,20 @@ public abstract class AbstractDataFileLoader implements DataFileLoader {
     public void removeAllReplacementSubstrings() {
         this.replacementSubstrings.clear();
     }
+
+    /**
+     * Creates the daemon threads of the shared pool so it never keeps the JVM
+     * alive.
+     */
+    private static class LoaderThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        public Thread newThread(Runnable runnable) {
+            Thread thread =
+                    new Thread(runnable, "DataFileLoader-"
+                            + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
 }
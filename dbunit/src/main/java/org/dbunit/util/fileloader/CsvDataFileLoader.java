@@ -23,10 +23,13 @@ package org.dbunit.util.fileloader;
 
 import java.io.IOException;
 import java.net.URL;
+import java.util.Iterator;
 import java.util.Map;
 
 import org.dbunit.dataset.DataSetException;
 import org.dbunit.dataset.IDataSet;
+import org.dbunit.dataset.csv.CsvDataSet;
+import org.dbunit.dataset.csv.CsvProducer;
 import org.dbunit.dataset.csv.CsvURLDataSet;
 
 /**
@@ -75,4 +78,24 @@ public class CsvDataFileLoader extends AbstractDataFileLoader {
 
         return ds;
     }
+
+    /**
+     * The url is the directory of the table ordering file and the table files,
+     * so the fingerprint covers all of them.
+     * 
+     * {@inheritDoc}
+     */
+    protected String getFingerprint(URL url) throws IOException {
+        StringBuffer fingerprint = new StringBuffer();
+        fingerprint.append(ParsedDataSetCache.getFingerprint(
+                new URL(url, CsvDataSet.TABLE_ORDERING_FILE)));
+
+        for (Iterator iter = CsvProducer.getTables(url,
+                CsvDataSet.TABLE_ORDERING_FILE).iterator(); iter.hasNext();) {
+            String table = (String) iter.next();
+            fingerprint.append('|').append(ParsedDataSetCache.getFingerprint(
+                    new URL(url, table + ".csv")));
+        }
+        return fingerprint.toString();
+    }
 }
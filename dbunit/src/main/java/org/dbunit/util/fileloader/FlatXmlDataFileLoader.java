@@ -107,6 +107,13 @@ public class FlatXmlDataFileLoader extends AbstractDataFileLoader {
         return ds;
     }
 
+    /**
+     * {@inheritDoc} The key includes the builder settings.
+     */
+    protected String getCacheKey() {
+        return super.getCacheKey() + builder;
+    }
+
     /**
      * Get the builder.
      * 
@@ -0,0 +1,291 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.util.fileloader;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.jar.JarEntry;
+import java.util.zip.CRC32;
+
+import org.dbunit.dataset.CachedDataSet;
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.DataSetException;
+import org.dbunit.dataset.IDataSet;
+import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.ITableIterator;
+import org.dbunit.dataset.SpillingTable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Cache of parsed data files shared by the data file loaders it is set on with
+ * {@link AbstractDataFileLoader#setDataSetCache(ParsedDataSetCache)}, usually
+ * the JVM-wide {@link #getSharedInstance() shared instance}. A file referenced
+ * by several tests is parsed once and the loaders wrap the shared
+ * {@link CachedDataSet} into their own
+ * {@link org.dbunit.dataset.ReplacementDataSet} on every load.
+ * <p>
+ * Entries are keyed by the loader configuration and the file URL and are
+ * reparsed when the fingerprint of the file changes: last modification time
+ * and size for files, the entry checksum for jar entries and a checksum of the
+ * content otherwise. Loaders reading several files, like the
+ * {@link CsvDataFileLoader} of a directory, combine the fingerprints of all
+ * of them in {@link AbstractDataFileLoader#getFingerprint(URL)}. The cache evicts the least recently used datasets when
+ * their estimated heap size exceeds the configured maximum.
+ * </p>
+ * 
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.5.2
+ */
+public class ParsedDataSetCache {
+    private static final Logger LOG =
+            LoggerFactory.getLogger(ParsedDataSetCache.class);
+
+    public static final long DEFAULT_MAX_BYTE_SIZE = 64 * 1024 * 1024;
+
+    private static final ParsedDataSetCache SHARED_INSTANCE =
+            new ParsedDataSetCache(DEFAULT_MAX_BYTE_SIZE);
+
+    private final long maxByteSize;
+    private final Map entries = new LinkedHashMap(16, 0.75f, true);
+    private long byteSize;
+    private int hitCount;
+    private int missCount;
+    private int evictionCount;
+
+    /**
+     * Create new instance.
+     * 
+     * @param maxByteSize
+     *            The estimated heap size in bytes of all cached datasets above
+     *            which the least recently used ones are evicted.
+     */
+    public ParsedDataSetCache(long maxByteSize) {
+        if (maxByteSize < 1) {
+            throw new IllegalArgumentException(
+                    "The maximum size must be positive but is " + maxByteSize);
+        }
+        this.maxByteSize = maxByteSize;
+    }
+
+    /**
+     * @return The cache shared by the whole JVM.
+     */
+    public static ParsedDataSetCache getSharedInstance() {
+        return SHARED_INSTANCE;
+    }
+
+    /**
+     * Return the parsed dataset of the specified file, parsing it with the
+     * loader unless an up to date copy is cached.
+     * 
+     * @param loader
+     *            The loader parsing the file on a cache miss.
+     * @param url
+     *            The data file url.
+     * @return The shared dataset of the file, which must not be modified.
+     * @throws DataSetException
+     *             On data errors.
+     * @throws IOException
+     *             On file errors.
+     */
+    public IDataSet getDataSet(AbstractDataFileLoader loader, URL url)
+            throws DataSetException, IOException {
+        String key = loader.getCacheKey() + '|' + url.toExternalForm();
+        String fingerprint = loader.getFingerprint(url);
+
+        synchronized (this) {
+            Entry entry = (Entry) entries.get(key);
+            if (entry != null && entry.fingerprint.equals(fingerprint)) {
+                hitCount++;
+                return entry.dataSet;
+            }
+            missCount++;
+        }
+
+        LOG.debug("getDataSet: parsing url={}", url);
+
+        IDataSet ds = loader.loadDataSet(url);
+        CachedDataSet dataSet =
+                ds instanceof CachedDataSet ? (CachedDataSet) ds
+                        : new CachedDataSet(ds);
+        long size = estimateSize(dataSet);
+
+        synchronized (this) {
+            Entry stale = (Entry) entries.remove(key);
+            if (stale != null) {
+                byteSize -= stale.size;
+            }
+
+            if (size <= maxByteSize) {
+                entries.put(key, new Entry(fingerprint, dataSet, size));
+                byteSize += size;
+                evict();
+            } else {
+                LOG.debug("getDataSet: not caching url={} of estimated size={}",
+                        url, new Long(size));
+            }
+        }
+        return dataSet;
+    }
+
+    /** Evict the least recently used entries until the maximum size is met. */
+    private void evict() {
+        for (Iterator iter = entries.values().iterator(); byteSize > maxByteSize
+                && iter.hasNext();) {
+            Entry entry = (Entry) iter.next();
+            iter.remove();
+            byteSize -= entry.size;
+            evictionCount++;
+        }
+    }
+
+    /**
+     * @return A fingerprint of the single file at the url that changes when
+     *         its content changes.
+     */
+    static String getFingerprint(URL url) throws IOException {
+        if ("file".equals(url.getProtocol())) {
+            try {
+                File file = new File(url.toURI());
+                if (file.isFile()) {
+                    return "file:" + file.lastModified() + ':' + file.length();
+                }
+            } catch (URISyntaxException e) {
+                LOG.debug("getFingerprint: no file url={}, hashing content",
+                        url);
+            } catch (IllegalArgumentException e) {
+                LOG.debug("getFingerprint: no file url={}, hashing content",
+                        url);
+            }
+        }
+
+        URLConnection connection = url.openConnection();
+        if (connection instanceof JarURLConnection) {
+            JarEntry entry = ((JarURLConnection) connection).getJarEntry();
+            if (entry != null && entry.getCrc() != -1) {
+                return "jar:" + entry.getSize() + ':' + entry.getCrc();
+            }
+        }
+
+        CRC32 crc = new CRC32();
+        long length = 0;
+        InputStream in = connection.getInputStream();
+        try {
+            byte[] buffer = new byte[8192];
+            int count;
+            while ((count = in.read(buffer)) != -1) {
+                crc.update(buffer, 0, count);
+                length += count;
+            }
+        } finally {
+            in.close();
+        }
+        return "crc:" + length + ':' + crc.getValue();
+    }
+
+    /**
+     * @return A rough estimate of the heap size of the dataset in bytes.
+     */
+    static long estimateSize(IDataSet dataSet) throws DataSetException {
+        long size = 0;
+        ITableIterator iterator = dataSet.iterator();
+        while (iterator.next()) {
+            ITable table = iterator.getTable();
+            Column[] columns = table.getTableMetaData().getColumns();
+            Object[] values = new Object[columns.length];
+            for (int row = 0; row < table.getRowCount(); row++) {
+                for (int i = 0; i < columns.length; i++) {
+                    values[i] = table.getValue(row, columns[i].getColumnName());
+                }
+                size += SpillingTable.estimateSize(values);
+            }
+        }
+        return size;
+    }
+
+    /** Remove all entries. */
+    public synchronized void invalidate() {
+        entries.clear();
+        byteSize = 0;
+    }
+
+    public long getMaxByteSize() {
+        return maxByteSize;
+    }
+
+    /**
+     * @return The estimated heap size in bytes of all cached datasets.
+     */
+    public synchronized long getByteSize() {
+        return byteSize;
+    }
+
+    public synchronized int getSize() {
+        return entries.size();
+    }
+
+    public synchronized int getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized int getMissCount() {
+        return missCount;
+    }
+
+    public synchronized int getEvictionCount() {
+        return evictionCount;
+    }
+
+    public String toString() {
+        StringBuffer sb = new StringBuffer();
+        sb.append(getClass().getName()).append("[");
+        sb.append("maxByteSize=").append(maxByteSize);
+        sb.append(", byteSize=").append(getByteSize());
+        sb.append(", size=").append(getSize());
+        sb.append(", hitCount=").append(getHitCount());
+        sb.append(", missCount=").append(getMissCount());
+        sb.append(", evictionCount=").append(getEvictionCount());
+        sb.append("]");
+        return sb.toString();
+    }
+
+    private static class Entry {
+        private final String fingerprint;
+        private final IDataSet dataSet;
+        private final long size;
+
+        Entry(String fingerprint, IDataSet dataSet, long size) {
+            this.fingerprint = fingerprint;
+            this.dataSet = dataSet;
+            this.size = size;
+        }
+    }
+}
@@ -36,7 +36,11 @@ public class AllTests extends TestSuite
         TestSuite suite = new TestSuite();
         suite.addTest(new TestSuite(DefaultFailureHandlerTest.class));
         suite.addTest(new TestSuite(DbUnitAssertIT.class));
+        suite.addTest(new TestSuite(DbUnitAssertByKeyTest.class));
+        suite.addTest(new TestSuite(DbUnitAssertOrderedByKeyTest.class));
+        suite.addTest(new TestSuite(DbUnitAssertParallelTest.class));
         suite.addTest(new TestSuite(DiffCollectingFailureHandlerTest.class));
+        suite.addTest(new TestSuite(LimitingFailureHandlerTest.class));
         return suite;
     }
 
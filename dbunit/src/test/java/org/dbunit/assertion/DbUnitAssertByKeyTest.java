@@ -0,0 +1,164 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.assertion;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import junit.framework.ComparisonFailure;
+import junit.framework.TestCase;
+
+import org.dbunit.DatabaseUnitException;
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.DefaultDataSet;
+import org.dbunit.dataset.DefaultTable;
+import org.dbunit.dataset.DefaultTableMetaData;
+import org.dbunit.dataset.datatype.DataType;
+
+/**
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.5.2
+ */
+public class DbUnitAssertByKeyTest extends TestCase
+{
+    private static final Column[] COLUMNS = new Column[] {
+        new Column("ID", DataType.NUMERIC),
+        new Column("NAME", DataType.VARCHAR)
+    };
+
+    private DbUnitAssert assertion = new DbUnitAssert();
+
+    public DbUnitAssertByKeyTest(String s)
+    {
+        super(s);
+    }
+
+    private DefaultTable createTable(String[] primaryKeys, Object[][] rows) throws Exception
+    {
+        DefaultTable table = new DefaultTable(new DefaultTableMetaData("T", COLUMNS, primaryKeys));
+        for (int i = 0; i < rows.length; i++)
+        {
+            table.addRow(rows[i]);
+        }
+        return table;
+    }
+
+    public void testRowsInDifferentOrder() throws Exception
+    {
+        DefaultTable expected = createTable(new String[0], new Object[][] {
+            {"1", "a"}, {"2", "b"}, {"3", "c"}
+        });
+        DefaultTable actual = createTable(new String[] {"ID"}, new Object[][] {
+            {new BigDecimal("3"), "c"}, {new BigDecimal("1.00"), "a"}, {new BigDecimal("2"), "b"}
+        });
+
+        assertion.assertEqualsByKey(expected, actual, null);
+        assertion.assertEqualsByKey(new DefaultDataSet(expected), new DefaultDataSet(actual), null);
+    }
+
+    public void testMissingUnexpectedAndChangedRows() throws Exception
+    {
+        DefaultTable expected = createTable(new String[] {"ID"}, new Object[][] {
+            {"1", "a"}, {"2", "b"}, {"3", "c"}
+        });
+        DefaultTable actual = createTable(new String[] {"ID"}, new Object[][] {
+            {"4", "d"}, {"3", "changed"}, {"1", "a"}
+        });
+
+        DiffCollectingFailureHandler handler = new DiffCollectingFailureHandler();
+        assertion.assertEqualsByKey(expected, actual, null, handler);
+
+        List diffs = handler.getDiffList();
+        assertEquals(diffs.toString(), 3, diffs.size());
+
+        Difference missing = (Difference) diffs.get(0);
+        assertTrue(missing.isMissingRow());
+        assertEquals(1, missing.getRowIndex());
+        assertEquals("[ID=2]", missing.getExpectedValue());
+
+        Difference changed = (Difference) diffs.get(1);
+        assertEquals(2, changed.getRowIndex());
+        assertEquals(1, changed.getActualRowIndex());
+        assertEquals("NAME", changed.getColumnName());
+        assertEquals("changed", changed.getActualValue());
+
+        Difference unexpected = (Difference) diffs.get(2);
+        assertTrue(unexpected.isUnexpectedRow());
+        assertEquals(0, unexpected.getActualRowIndex());
+        assertEquals("[ID=4]", unexpected.getActualValue());
+    }
+
+    public void testCompositeKeyWithDuplicates() throws Exception
+    {
+        DefaultTable expected = createTable(new String[0], new Object[][] {
+            {"1", "a"}, {"1", "a"}, {"2", "a"}
+        });
+        DefaultTable actual = createTable(new String[0], new Object[][] {
+            {"2", "a"}, {"1", "a"}, {"1", "a"}, {"1", "a"}
+        });
+
+        DiffCollectingFailureHandler handler = new DiffCollectingFailureHandler();
+        assertion.assertEqualsByKey(expected, actual, new String[] {"ID", "NAME"}, handler);
+
+        List diffs = handler.getDiffList();
+        assertEquals(diffs.toString(), 1, diffs.size());
+        Difference unexpected = (Difference) diffs.get(0);
+        assertTrue(unexpected.isUnexpectedRow());
+        assertEquals(3, unexpected.getActualRowIndex());
+        assertEquals("[ID=1, NAME=a]", unexpected.getActualValue());
+    }
+
+    public void testDefaultFailureHandler() throws Exception
+    {
+        DefaultTable expected = createTable(new String[] {"ID"}, new Object[][] {
+            {"1", "a"}, {"2", "b"}
+        });
+        DefaultTable actual = createTable(new String[] {"ID"}, new Object[][] {
+            {"2", "b"}, {"1", "x"}
+        });
+
+        try
+        {
+            assertion.assertEqualsByKey(expected, actual, null);
+            fail("Should throw a comparison failure");
+        }
+        catch (ComparisonFailure expectedFailure)
+        {
+            String message = expectedFailure.getMessage();
+            assertTrue(message, message.indexOf("row=0, actualRow=1, col=NAME") != -1);
+        }
+    }
+
+    public void testNoPrimaryKey() throws Exception
+    {
+        DefaultTable table = createTable(new String[0], new Object[][] {{"1", "a"}});
+        try
+        {
+            assertion.assertEqualsByKey(table, createTable(new String[0], new Object[0][]), null);
+            fail("Should not compare tables without key");
+        }
+        catch (DatabaseUnitException expected)
+        {
+            assertTrue(expected.getMessage(), expected.getMessage().indexOf("no primary key") != -1);
+        }
+    }
+}
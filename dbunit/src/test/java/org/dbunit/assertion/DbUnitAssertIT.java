@@ -41,6 +41,7 @@ import org.dbunit.dataset.FilteredDataSet;
 import org.dbunit.dataset.IDataSet;
 import org.dbunit.dataset.ITable;
 import org.dbunit.dataset.ITableMetaData;
+import org.dbunit.dataset.Tables;
 import org.dbunit.dataset.datatype.DataType;
 import org.dbunit.dataset.xml.FlatXmlDataSetBuilder;
 import org.dbunit.dataset.xml.XmlDataSet;
@@ -575,6 +576,10 @@ public class DbUnitAssertIT extends TestCase
 			return this._wrappedTable.getRowCount();
 		}
 
+		public boolean hasRow(int row) throws DataSetException {
+			return Tables.hasRow(this._wrappedTable, row);
+		}
+
 		public ITableMetaData getTableMetaData() {
 			return this._wrappedTable.getTableMetaData();
 		}
@@ -588,6 +593,11 @@ public class DbUnitAssertIT extends TestCase
 			}
 			return originalValue;
 		}
+
+		public Object getValue(int row, int column) throws DataSetException {
+			String columnName = getTableMetaData().getColumns()[column].getColumnName();
+			return getValue(row, columnName);
+		}
     	
     	
     }
@@ -0,0 +1,255 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.assertion;
+
+import java.io.StringReader;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.Comparator;
+import java.util.List;
+
+import junit.framework.ComparisonFailure;
+import junit.framework.TestCase;
+
+import org.dbunit.HypersonicEnvironment;
+import org.dbunit.database.DatabaseConfig;
+import org.dbunit.database.DatabaseConnection;
+import org.dbunit.database.ForwardOnlyResultSetTableFactory;
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.dataset.DataSetException;
+import org.dbunit.dataset.IDataSet;
+import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.ITableIterator;
+import org.dbunit.dataset.stream.StreamingDataSet;
+import org.dbunit.dataset.xml.FlatXmlProducer;
+import org.dbunit.testutil.TestUtils;
+import org.xml.sax.InputSource;
+
+/**
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.5.2
+ */
+public class DbUnitAssertOrderedByKeyTest extends TestCase
+{
+    private static final String DATABASE = "orderedassertdb";
+
+    private Connection _jdbcConnection;
+    private IDatabaseConnection _connection;
+    private DbUnitAssert assertion = new DbUnitAssert();
+
+    public DbUnitAssertOrderedByKeyTest(String s)
+    {
+        super(s);
+    }
+
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+
+        _jdbcConnection = HypersonicEnvironment.createJdbcConnection(DATABASE);
+        HypersonicEnvironment.executeDdlFile(TestUtils.getFile("sql/hypersonic_fk.sql"),
+                _jdbcConnection);
+        _connection = new DatabaseConnection(_jdbcConnection);
+        _connection.getConfig().setProperty(DatabaseConfig.PROPERTY_RESULTSET_TABLE_FACTORY,
+                new ForwardOnlyResultSetTableFactory());
+    }
+
+    protected void tearDown() throws Exception
+    {
+        super.tearDown();
+
+        HypersonicEnvironment.shutdown(_jdbcConnection);
+        _jdbcConnection.close();
+
+        HypersonicEnvironment.deleteFiles(DATABASE);
+    }
+
+    private void insert(String tableName, int[] keys) throws Exception
+    {
+        PreparedStatement statement = _jdbcConnection.prepareStatement(
+                "insert into " + tableName + " values (?)");
+        for (int i = 0; i < keys.length; i++)
+        {
+            statement.setInt(1, keys[i]);
+            statement.executeUpdate();
+        }
+        statement.close();
+    }
+
+    private IDataSet createStreamingDataSet(String tableName, int[] keys)
+    {
+        String[] values = new String[keys.length];
+        for (int i = 0; i < keys.length; i++)
+        {
+            values[i] = String.valueOf(keys[i]);
+        }
+        return createStreamingDataSet(tableName, values);
+    }
+
+    private IDataSet createStreamingDataSet(String tableName, String[] keys)
+    {
+        StringBuffer xml = new StringBuffer("<dataset>");
+        for (int i = 0; i < keys.length; i++)
+        {
+            xml.append('<').append(tableName).append(" PK").append(tableName)
+                    .append("='").append(keys[i]).append("'/>");
+        }
+        xml.append("</dataset>");
+        return new StreamingDataSet(new FlatXmlProducer(
+                new InputSource(new StringReader(xml.toString()))));
+    }
+
+    private ITable createStreamingTable(String tableName, String[] keys) throws Exception
+    {
+        ITableIterator iterator = createStreamingDataSet(tableName, keys).iterator();
+        iterator.next();
+        return iterator.getTable();
+    }
+
+    private int[] range(int count)
+    {
+        int[] keys = new int[count];
+        for (int i = 0; i < count; i++)
+        {
+            keys[i] = i + 1;
+        }
+        return keys;
+    }
+
+    public void testEqualForwardOnlyTables() throws Exception
+    {
+        int[] keys = range(500);
+        insert("G", keys);
+
+        assertion.assertEqualsOrderedByKey(createStreamingDataSet("G", keys),
+                _connection.createDataSet(new String[] {"G"}), null);
+    }
+
+    public void testDifferences() throws Exception
+    {
+        insert("G", new int[] {1, 3, 4, 5});
+
+        DiffCollectingFailureHandler handler = new DiffCollectingFailureHandler();
+        IDataSet actualDataSet = _connection.createDataSet(new String[] {"G"});
+        assertion.assertEqualsOrderedByKey(createStreamingDataSet("G", new int[] {1, 2, 4, 10}),
+                actualDataSet, handler);
+
+        List diffs = handler.getDiffList();
+        assertEquals(diffs.toString(), 4, diffs.size());
+        Difference missing = (Difference) diffs.get(0);
+        assertTrue(missing.isMissingRow());
+        assertEquals(1, missing.getRowIndex());
+        assertEquals("[PKG=2]", missing.getExpectedValue());
+        Difference unexpected = (Difference) diffs.get(1);
+        assertTrue(unexpected.isUnexpectedRow());
+        assertEquals(1, unexpected.getActualRowIndex());
+        assertEquals("[PKG=3]", unexpected.getActualValue());
+        assertTrue(((Difference) diffs.get(2)).isUnexpectedRow());
+        assertTrue(((Difference) diffs.get(3)).isMissingRow());
+        assertEquals("[PKG=10]", ((Difference) diffs.get(3)).getExpectedValue());
+    }
+
+    public void testUnorderedTable() throws Exception
+    {
+        insert("G", new int[] {1, 2, 3});
+
+        try
+        {
+            assertion.assertEqualsOrderedByKey(createStreamingDataSet("G", new int[] {1, 3, 2}),
+                    _connection.createDataSet(new String[] {"G"}),
+                    new DiffCollectingFailureHandler());
+            fail("Should not compare an unordered table");
+        }
+        catch (DataSetException expected)
+        {
+            assertTrue(expected.getMessage(), expected.getMessage().indexOf("not ordered") != -1);
+        }
+    }
+
+    public void testStringKeysInBinaryOrder() throws Exception
+    {
+        HypersonicEnvironment.executeSql(_jdbcConnection,
+                "create table S (PKS varchar(10) primary key)");
+        String[] keys = {"B", "a", "c"};
+        for (int i = 0; i < keys.length; i++)
+        {
+            HypersonicEnvironment.executeSql(_jdbcConnection,
+                    "insert into S values ('" + keys[i] + "')");
+        }
+
+        assertion.assertEqualsOrderedByKey(createStreamingDataSet("S", keys),
+                _connection.createDataSet(new String[] {"S"}), null);
+    }
+
+    public void testStringKeysWithComparator() throws Exception
+    {
+        HypersonicEnvironment.executeSql(_jdbcConnection,
+                "create table S (PKS varchar(10) primary key)");
+        String[] keys = {"a", "B", "c"};
+        for (int i = 0; i < keys.length; i++)
+        {
+            HypersonicEnvironment.executeSql(_jdbcConnection,
+                    "insert into S values ('" + keys[i] + "')");
+        }
+        String sql = "select * from S order by lower(PKS)";
+
+        try
+        {
+            assertion.assertEqualsOrderedByKey(
+                    createStreamingTable("S", keys),
+                    _connection.createQueryTable("S", sql), new String[] {"PKS"}, null);
+            fail("Should not accept an order different from the data type");
+        }
+        catch (DataSetException expected)
+        {
+            assertTrue(expected.getMessage(), expected.getMessage().indexOf("not ordered") != -1);
+        }
+
+        Comparator ignoreCase = new Comparator()
+        {
+            public int compare(Object o1, Object o2)
+            {
+                String key1 = (String) ((Object[]) o1)[0];
+                String key2 = (String) ((Object[]) o2)[0];
+                return key1.compareToIgnoreCase(key2);
+            }
+        };
+        assertion.assertEqualsOrderedByKey(createStreamingTable("S", keys),
+                _connection.createQueryTable("S", sql), new String[] {"PKS"}, ignoreCase, null);
+    }
+
+    public void testDifferentTables() throws Exception
+    {
+        insert("G", new int[] {1});
+
+        try
+        {
+            assertion.assertEqualsOrderedByKey(createStreamingDataSet("H", new int[] {1}),
+                    _connection.createDataSet(new String[] {"G"}), null);
+            fail("Should not compare different tables");
+        }
+        catch (ComparisonFailure expected)
+        {
+            assertTrue(expected.getMessage(), expected.getMessage().indexOf("expected:<[H]> but was:<[G]>") != -1);
+        }
+    }
+}
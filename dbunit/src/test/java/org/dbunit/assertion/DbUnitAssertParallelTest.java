@@ -0,0 +1,310 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.assertion;
+
+import java.io.StringReader;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+import junit.framework.ComparisonFailure;
+import junit.framework.TestCase;
+
+import org.dbunit.DatabaseUnitException;
+import org.dbunit.HypersonicEnvironment;
+import org.dbunit.database.DatabaseConfig;
+import org.dbunit.database.DatabaseConnection;
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.database.IDatabaseConnectionSupplier;
+import org.dbunit.dataset.DataSetException;
+import org.dbunit.dataset.DefaultDataSet;
+import org.dbunit.dataset.IDataSet;
+import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.ITableMetaData;
+import org.dbunit.dataset.NoSuchTableException;
+import org.dbunit.dataset.xml.FlatXmlDataSetBuilder;
+import org.dbunit.operation.DatabaseOperation;
+import org.dbunit.testutil.TestUtils;
+
+/**
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.5.2
+ */
+public class DbUnitAssertParallelTest extends TestCase
+{
+    private static final String DATABASE = "parallelassertdb";
+
+    private static final String DATASET =
+        "<dataset>" +
+        "<D PKD='1'/><D PKD='2'/>" +
+        "<A PKA='1' FKD='1'/><A PKA='2' FKD='2'/>" +
+        "<F PKF='1' FKD='2'/>" +
+        "<G PKG='1'/><G PKG='2'/>" +
+        "<H PKH='1'/>" +
+        "</dataset>";
+
+    private Connection _jdbcConnection;
+    private IDatabaseConnection _connection;
+    private int _createdConnections;
+    private DbUnitAssert assertion = new DbUnitAssert();
+
+    public DbUnitAssertParallelTest(String s)
+    {
+        super(s);
+    }
+
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+
+        _jdbcConnection = HypersonicEnvironment.createJdbcConnection(DATABASE);
+        HypersonicEnvironment.executeDdlFile(TestUtils.getFile("sql/hypersonic_fk.sql"),
+                _jdbcConnection);
+        _connection = new DatabaseConnection(_jdbcConnection);
+        DatabaseOperation.INSERT.execute(_connection, createDataSet(DATASET));
+
+        _connection.getConfig().setProperty(DatabaseConfig.PROPERTY_PARALLEL_CONNECTION_SUPPLIER,
+                new IDatabaseConnectionSupplier()
+                {
+                    public IDatabaseConnection createConnection()
+                            throws DatabaseUnitException, SQLException
+                    {
+                        synchronized (DbUnitAssertParallelTest.this)
+                        {
+                            _createdConnections++;
+                        }
+                        try
+                        {
+                            return new DatabaseConnection(
+                                    HypersonicEnvironment.createJdbcConnection(DATABASE));
+                        }
+                        catch (Exception e)
+                        {
+                            throw new DatabaseUnitException(e);
+                        }
+                    }
+                });
+        _connection.getConfig().setProperty(DatabaseConfig.PROPERTY_PARALLEL_THREAD_COUNT,
+                new Integer(3));
+    }
+
+    protected void tearDown() throws Exception
+    {
+        super.tearDown();
+
+        HypersonicEnvironment.shutdown(_jdbcConnection);
+        _jdbcConnection.close();
+
+        HypersonicEnvironment.deleteFiles(DATABASE);
+    }
+
+    private IDataSet createDataSet(String xml) throws Exception
+    {
+        return new FlatXmlDataSetBuilder().build(new StringReader(xml));
+    }
+
+    public void testEquals() throws Exception
+    {
+        assertion.assertEqualsParallel(createDataSet(DATASET), _connection, null);
+
+        assertTrue("worker connections", _createdConnections > 0);
+        assertTrue("worker connections", _createdConnections <= 3);
+    }
+
+    public void testDifferencesInTableOrder() throws Exception
+    {
+        IDataSet expected = createDataSet("<dataset>" +
+                "<H PKH='2'/>" +
+                "<G PKG='1'/><G PKG='3'/>" +
+                "<D PKD='1'/><D PKD='2'/>" +
+                "<A PKA='1' FKD='2'/><A PKA='2' FKD='1'/>" +
+                "<F PKF='1' FKD='2'/>" +
+                "</dataset>");
+
+        for (int run = 0; run < 5; run++)
+        {
+            DiffCollectingFailureHandler handler = new DiffCollectingFailureHandler();
+            assertion.assertEqualsParallel(expected, _connection, handler);
+
+            List diffs = handler.getDiffList();
+            assertEquals(diffs.toString(), 4, diffs.size());
+            String[] tables = new String[] {"A", "A", "G", "H"};
+            String[] columns = new String[] {"FKD", "FKD", "PKG", "PKH"};
+            for (int i = 0; i < diffs.size(); i++)
+            {
+                Difference diff = (Difference) diffs.get(i);
+                assertEquals(tables[i], diff.getExpectedTable().getTableMetaData().getTableName());
+                assertEquals(columns[i], diff.getColumnName());
+            }
+            assertEquals(0, ((Difference) diffs.get(0)).getRowIndex());
+            assertEquals(1, ((Difference) diffs.get(1)).getRowIndex());
+        }
+    }
+
+    public void testDifferencesInSequentialTableOrder() throws Exception
+    {
+        HypersonicEnvironment.executeSql(_jdbcConnection,
+                "CREATE TABLE ORDERS (ID INTEGER NOT NULL PRIMARY KEY)");
+        HypersonicEnvironment.executeSql(_jdbcConnection,
+                "CREATE TABLE ORDER_ITEM (ID INTEGER NOT NULL PRIMARY KEY)");
+        HypersonicEnvironment.executeSql(_jdbcConnection, "INSERT INTO ORDERS VALUES (1)");
+        HypersonicEnvironment.executeSql(_jdbcConnection, "INSERT INTO ORDER_ITEM VALUES (1)");
+        IDataSet expected = createDataSet("<dataset>" +
+                "<ORDER_ITEM ID='2'/>" +
+                "<ORDERS ID='2'/>" +
+                "</dataset>");
+
+        DiffCollectingFailureHandler sequentialHandler = new DiffCollectingFailureHandler();
+        // A new connection as the table list of the existing one is cached
+        IDatabaseConnection connection = new DatabaseConnection(_jdbcConnection);
+        assertion.assertEquals(expected,
+                connection.createDataSet(expected.getTableNames()), sequentialHandler);
+        List sequentialDiffs = sequentialHandler.getDiffList();
+        assertEquals(sequentialDiffs.toString(), 2, sequentialDiffs.size());
+
+        DiffCollectingFailureHandler handler = new DiffCollectingFailureHandler();
+        assertion.assertEqualsParallel(expected, _connection, handler);
+
+        List diffs = handler.getDiffList();
+        assertEquals(diffs.toString(), 2, diffs.size());
+        for (int i = 0; i < diffs.size(); i++)
+        {
+            assertEquals(
+                    ((Difference) sequentialDiffs.get(i)).getExpectedTable().getTableMetaData().getTableName(),
+                    ((Difference) diffs.get(i)).getExpectedTable().getTableMetaData().getTableName());
+        }
+        assertEquals("ORDERS",
+                ((Difference) diffs.get(0)).getExpectedTable().getTableMetaData().getTableName());
+    }
+
+    public void testDifferenceLimit() throws Exception
+    {
+        IDataSet expected = createDataSet("<dataset>" +
+                "<A PKA='1' FKD='2'/><A PKA='2' FKD='1'/>" +
+                "<G PKG='3'/><G PKG='4'/>" +
+                "<H PKH='2'/>" +
+                "</dataset>");
+
+        DiffCollectingFailureHandler collector = new DiffCollectingFailureHandler();
+        LimitingFailureHandler handler = new LimitingFailureHandler(collector);
+        handler.setMaxDifferencesPerTable(1);
+        handler.setMaxDifferences(2);
+        assertion.assertEqualsParallel(expected, _connection, handler);
+
+        List diffs = collector.getDiffList();
+        assertEquals(diffs.toString(), 2, diffs.size());
+        assertEquals("A", ((Difference) diffs.get(0)).getExpectedTable().getTableMetaData().getTableName());
+        assertEquals("G", ((Difference) diffs.get(1)).getExpectedTable().getTableMetaData().getTableName());
+        assertEquals(5, handler.getDifferenceCount());
+        assertEquals(2, handler.getDifferenceCount("A"));
+    }
+
+    public void testDefaultFailureHandlerFailsWithFirstTable() throws Exception
+    {
+        IDataSet expected = createDataSet("<dataset>" +
+                "<H PKH='2'/>" +
+                "<G PKG='1'/>" +
+                "<F PKF='1' FKD='1'/>" +
+                "</dataset>");
+
+        try
+        {
+            assertion.assertEqualsParallel(expected, _connection, null);
+            fail("Should fail");
+        }
+        catch (ComparisonFailure expectedFailure)
+        {
+            String message = expectedFailure.getMessage();
+            assertTrue(message, message.indexOf("table=F") != -1);
+        }
+    }
+
+    public void testDefaultFailureHandlerStopsTableAtFirstDifference() throws Exception
+    {
+        RowRecordingTable expectedTable = new RowRecordingTable(createDataSet(
+                "<dataset><G PKG='3'/><G PKG='4'/></dataset>").getTable("G"));
+
+        try
+        {
+            assertion.assertEqualsParallel(new DefaultDataSet(expectedTable), _connection, null);
+            fail("Should fail");
+        }
+        catch (ComparisonFailure expectedFailure)
+        {
+            String message = expectedFailure.getMessage();
+            assertTrue(message, message.indexOf("row=0") != -1);
+        }
+        assertEquals(0, expectedTable._lastRow);
+    }
+
+    public void testMissingTable() throws Exception
+    {
+        IDataSet expected = createDataSet("<dataset><G PKG='1'/><G PKG='2'/><UNKNOWN X='1'/></dataset>");
+
+        try
+        {
+            assertion.assertEqualsParallel(expected, _connection, null);
+            fail("Should not find the table");
+        }
+        catch (NoSuchTableException expectedException)
+        {
+        }
+    }
+
+    public void testWithoutConnectionSupplier() throws Exception
+    {
+        _connection.getConfig().setProperty(DatabaseConfig.PROPERTY_PARALLEL_CONNECTION_SUPPLIER, null);
+
+        assertion.assertEqualsParallel(createDataSet(DATASET), _connection, null);
+        assertEquals(0, _createdConnections);
+    }
+
+    /**
+     * Records the last row read from the table.
+     */
+    private static class RowRecordingTable implements ITable
+    {
+        private final ITable _table;
+        private int _lastRow = -1;
+
+        RowRecordingTable(ITable table)
+        {
+            _table = table;
+        }
+
+        public ITableMetaData getTableMetaData()
+        {
+            return _table.getTableMetaData();
+        }
+
+        public int getRowCount()
+        {
+            return _table.getRowCount();
+        }
+
+        public Object getValue(int row, String column) throws DataSetException
+        {
+            _lastRow = Math.max(_lastRow, row);
+            return _table.getValue(row, column);
+        }
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.assertion;
+
+import java.util.List;
+
+import junit.framework.ComparisonFailure;
+import junit.framework.TestCase;
+
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.DefaultDataSet;
+import org.dbunit.dataset.DefaultTable;
+import org.dbunit.dataset.DefaultTableMetaData;
+import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.datatype.DataType;
+
+/**
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.5.2
+ */
+public class LimitingFailureHandlerTest extends TestCase
+{
+    private static final Column[] COLUMNS = new Column[] {
+        new Column("ID", DataType.NUMERIC),
+        new Column("NAME", DataType.VARCHAR)
+    };
+
+    private DbUnitAssert assertion = new DbUnitAssert();
+    private DiffCollectingFailureHandler collector;
+    private LimitingFailureHandler handler;
+
+    public LimitingFailureHandlerTest(String s)
+    {
+        super(s);
+    }
+
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+        collector = new DiffCollectingFailureHandler();
+        handler = new LimitingFailureHandler(collector);
+    }
+
+    /**
+     * Creates a table with the given number of rows, the names start with the prefix
+     */
+    private DefaultTable createTable(String tableName, int rowCount, String prefix)
+            throws Exception
+    {
+        DefaultTable table = new DefaultTable(
+                new DefaultTableMetaData(tableName, COLUMNS, new String[] {"ID"}));
+        for (int i = 0; i < rowCount; i++)
+        {
+            table.addRow(new Object[] {String.valueOf(i), prefix + i});
+        }
+        return table;
+    }
+
+    public void testLimitPerTable() throws Exception
+    {
+        handler.setMaxDifferencesPerTable(3);
+
+        assertion.assertEquals(createTable("T", 10, "a"), createTable("T", 10, "b"), handler);
+
+        List diffs = collector.getDiffList();
+        assertEquals(3, diffs.size());
+        assertEquals(2, ((Difference) diffs.get(2)).getRowIndex());
+        assertEquals(10, handler.getDifferenceCount());
+        assertEquals(10, handler.getDifferenceCount("T"));
+        assertEquals(3, handler.getReportedDifferenceCount());
+        assertEquals("10 differences (3 reported): T=10", handler.getSummary());
+    }
+
+    public void testLimitPerDataSet() throws Exception
+    {
+        handler.setMaxDifferencesPerTable(3);
+        handler.setMaxDifferences(5);
+        DefaultDataSet expected = new DefaultDataSet(new ITable[] {
+            createTable("T1", 4, "a"), createTable("T2", 4, "a"), createTable("T3", 4, "a")
+        });
+        DefaultDataSet actual = new DefaultDataSet(new ITable[] {
+            createTable("T1", 4, "b"), createTable("T2", 4, "b"), createTable("T3", 4, "a")
+        });
+
+        assertion.assertEquals(expected, actual, handler);
+
+        List diffs = collector.getDiffList();
+        assertEquals(5, diffs.size());
+        assertEquals("T2", ((Difference) diffs.get(4)).getExpectedTable()
+                .getTableMetaData().getTableName());
+        assertEquals(8, handler.getDifferenceCount());
+        assertEquals(0, handler.getDifferenceCount("T3"));
+        assertFalse(handler.isExhausted());
+    }
+
+    public void testFailFastStopsScanning() throws Exception
+    {
+        handler.setMaxDifferencesPerTable(2);
+        handler.setFailFast(true);
+
+        assertion.assertEquals(createTable("T", 1000, "a"), createTable("T", 1000, "b"), handler);
+
+        assertEquals(2, collector.getDiffList().size());
+        assertEquals(2, handler.getDifferenceCount());
+        assertTrue(handler.isExhausted("T"));
+        assertFalse(handler.isExhausted());
+    }
+
+    public void testFailFastSkipsRemainingTables() throws Exception
+    {
+        handler.setMaxDifferences(1);
+        handler.setFailFast(true);
+        DefaultDataSet expected = new DefaultDataSet(new ITable[] {
+            createTable("T1", 4, "a"), createTable("T2", 4, "a")
+        });
+        DefaultDataSet actual = new DefaultDataSet(new ITable[] {
+            createTable("T1", 4, "b"), createTable("T2", 4, "b")
+        });
+
+        assertion.assertEquals(expected, actual, handler);
+
+        assertEquals(1, collector.getDiffList().size());
+        assertEquals(0, handler.getDifferenceCount("T2"));
+        assertTrue(handler.isExhausted());
+        assertEquals("at least 1 differences (1 reported): T1=1", handler.getSummary());
+    }
+
+    public void testLimitByKey() throws Exception
+    {
+        handler.setMaxDifferencesPerTable(2);
+        DefaultTable expected = createTable("T", 5, "a");
+        DefaultTable actual = new DefaultTable(
+                new DefaultTableMetaData("T", COLUMNS, new String[] {"ID"}));
+        actual.addRow(new Object[] {"0", "a0"});
+        actual.addRow(new Object[] {"7", "a7"});
+
+        assertion.assertEqualsByKey(expected, actual, null, handler);
+
+        List diffs = collector.getDiffList();
+        assertEquals(2, diffs.size());
+        assertTrue(((Difference) diffs.get(0)).isMissingRow());
+        // 4 missing expected rows and 1 unexpected actual row
+        assertEquals(5, handler.getDifferenceCount());
+    }
+
+    public void testLimitOrderedByKey() throws Exception
+    {
+        handler.setMaxDifferencesPerTable(1);
+        handler.setFailFast(true);
+
+        assertion.assertEqualsOrderedByKey(createTable("T", 50, "a"), createTable("T", 50, "b"),
+                null, handler);
+
+        assertEquals(1, collector.getDiffList().size());
+        assertEquals(1, handler.getDifferenceCount());
+    }
+
+    public void testDefaultFailureHandlerDelegate() throws Exception
+    {
+        handler = new LimitingFailureHandler(assertion.getDefaultFailureHandler());
+        handler.setMaxDifferences(1);
+
+        try
+        {
+            assertion.assertEquals(createTable("T", 3, "a"), createTable("T", 3, "b"), handler);
+            fail("Should throw the first difference");
+        }
+        catch (ComparisonFailure expected)
+        {
+            assertEquals(1, handler.getReportedDifferenceCount());
+        }
+    }
+
+    public void testInvalidLimit() throws Exception
+    {
+        try
+        {
+            handler.setMaxDifferences(0);
+            fail("Should not accept a limit of 0");
+        }
+        catch (IllegalArgumentException expected)
+        {
+        }
+    }
+}
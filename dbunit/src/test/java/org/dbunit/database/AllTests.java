@@ -35,13 +35,20 @@ public class AllTests extends TestSuite
         TestSuite suite = new TestSuite();
         suite.addTest(org.dbunit.database.statement.AllTests.suite());
         suite.addTest(new TestSuite(CachedResultSetTableIT.class));
+        suite.addTest(new TestSuite(ColumnarResultSetTableIT.class));
+        suite.addTest(new TestSuite(ColumnarResultSetTableTest.class));
+        suite.addTest(new TestSuite(SpillingResultSetTableIT.class));
         suite.addTest(new TestSuite(DatabaseConfigTest.class));
         suite.addTest(new TestSuite(DatabaseConnectionIT.class));
         suite.addTest(new TestSuite(DatabaseDataSetIT.class));
+        suite.addTest(new TestSuite(DatabaseDataSetTest.class));
         suite.addTest(new TestSuite(DatabaseSequenceFilterTest.class));
         suite.addTest(new TestSuite(DatabaseTableIteratorTest.class));
         suite.addTest(new TestSuite(DatabaseTableMetaDataIT.class));
         suite.addTest(new TestSuite(ForwardOnlyResultSetTableIT.class));
+        suite.addTest(new TestSuite(MetadataSnapshotStoreTest.class));
+        suite.addTest(new TestSuite(MetadataCacheTest.class));
+        suite.addTest(new TestSuite(PrefetchedSchemaMetaDataTest.class));
         suite.addTest(new TestSuite(QueryDataSetIT.class));
         suite.addTest(new TestSuite(PrimaryKeyFilteredTableWrapperTest.class));  
         suite.addTest(new TestSuite(JdbcDatabaseTesterConnectionIT.class));
@@ -0,0 +1,186 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.database;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.DataSetException;
+import org.dbunit.dataset.DefaultTable;
+import org.dbunit.dataset.ITableMetaData;
+import org.dbunit.dataset.RowOutOfBoundsException;
+import org.dbunit.dataset.datatype.DataType;
+
+/**
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.5.2
+ */
+public class ColumnarResultSetTableTest extends TestCase
+{
+    private static final Object[][] ROWS = new Object[][] {
+        {new Integer(1), new Long(10), "a", new BigDecimal("1.50"), timestamp(1000, 123456789),
+                new java.sql.Date(86400000L), new Time(3600000L), new Float(1.5f),
+                new BigInteger("12"), null, new byte[] {1}, new Integer(1)},
+        {null, null, "b", null, null, null, null, null, null, null, null, "mixed"},
+        {new Integer(-3), new Long(Long.MIN_VALUE), "a", new BigDecimal("-7"), timestamp(-5000, 0),
+                new java.sql.Date(0L), new Time(0L), new Float(-0.25f),
+                new BigInteger("123456789012345678901234567890"), null, new byte[] {2, 3}, null},
+    };
+
+    private static Timestamp timestamp(long time, int nanos)
+    {
+        Timestamp timestamp = new Timestamp(time);
+        timestamp.setNanos(nanos);
+        return timestamp;
+    }
+
+    private ColumnarResultSetTable createTable() throws Exception
+    {
+        return createTable(ROWS);
+    }
+
+    private ColumnarResultSetTable createTable(Object[][] rows) throws Exception
+    {
+        Column[] columns = new Column[rows[0].length];
+        for (int i = 0; i < columns.length; i++)
+        {
+            columns[i] = new Column("C" + i, DataType.UNKNOWN);
+        }
+        final DefaultTable table = new DefaultTable("TEST", columns);
+        for (int i = 0; i < rows.length; i++)
+        {
+            table.addRow(rows[i]);
+        }
+        return new ColumnarResultSetTable(new IResultSetTable()
+        {
+            public ITableMetaData getTableMetaData()
+            {
+                return table.getTableMetaData();
+            }
+
+            public int getRowCount()
+            {
+                throw new UnsupportedOperationException();
+            }
+
+            public Object getValue(int row, String column) throws DataSetException
+            {
+                return table.getValue(row, column);
+            }
+
+            public Object getValue(int row, int column) throws DataSetException
+            {
+                return table.getValue(row, column);
+            }
+
+            public boolean hasRow(int row) throws DataSetException
+            {
+                return table.hasRow(row);
+            }
+
+            public void close() throws DataSetException
+            {
+            }
+        });
+    }
+
+    public void testValuesAreRestored() throws Exception
+    {
+        ColumnarResultSetTable table = createTable();
+        assertEquals(ROWS.length, table.getRowCount());
+        for (int row = 0; row < ROWS.length; row++)
+        {
+            for (int column = 0; column < ROWS[row].length; column++)
+            {
+                Object expected = ROWS[row][column];
+                Object actual = table.getValue(row, column);
+                String message = "row " + row + ", column " + column;
+                if (expected instanceof byte[])
+                {
+                    assertTrue(message, Arrays.equals((byte[]) expected, (byte[]) actual));
+                }
+                else
+                {
+                    assertEquals(message, expected, actual);
+                    assertEquals(message, expected == null ? null : expected.getClass(),
+                            actual == null ? null : actual.getClass());
+                }
+                assertEquals(message, actual == null, table.getValue(row, "C" + column) == null);
+            }
+        }
+        assertEquals(123456789, ((Timestamp) table.getValue(0, 4)).getNanos());
+        assertEquals(2, ((BigDecimal) table.getValue(0, 3)).scale());
+    }
+
+    public void testRepeatedStringsAreShared() throws Exception
+    {
+        ColumnarResultSetTable table = createTable();
+        assertSame(table.getValue(0, 2), table.getValue(2, 2));
+    }
+
+    public void testDistinctStringsAreKeptAsObjects() throws Exception
+    {
+        Object[][] rows = new Object[3000][];
+        for (int i = 0; i < rows.length; i++)
+        {
+            rows[i] = new Object[] {"value" + i, "value" + (i % 10)};
+        }
+
+        ColumnarResultSetTable table = createTable(rows);
+        String description = table.toString();
+        assertTrue(description, description.indexOf("_columns=[ObjectColumn, StringColumn]") != -1);
+        for (int i = 0; i < rows.length; i++)
+        {
+            assertEquals(rows[i][0], table.getValue(i, 0));
+            assertEquals(rows[i][1], table.getValue(i, 1));
+        }
+    }
+
+    public void testColumnStorage() throws Exception
+    {
+        String description = createTable().toString();
+        assertTrue(description, description.indexOf("_columns=[IntColumn, LongColumn, StringColumn, "
+                + "DecimalColumn, TimestampColumn, LongColumn, LongColumn, DoubleColumn, "
+                + "ObjectColumn, PendingColumn, ObjectColumn, ObjectColumn]") != -1);
+    }
+
+    public void testRowOutOfBounds() throws Exception
+    {
+        ColumnarResultSetTable table = createTable();
+        assertTrue(table.hasRow(2));
+        assertFalse(table.hasRow(3));
+        try
+        {
+            table.getValue(3, 0);
+            fail("Should not have a fourth row");
+        }
+        catch (RowOutOfBoundsException expected)
+        {
+        }
+    }
+}
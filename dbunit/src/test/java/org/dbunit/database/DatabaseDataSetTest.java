@@ -0,0 +1,110 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.database;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+
+import junit.framework.TestCase;
+
+import org.dbunit.HypersonicEnvironment;
+import org.dbunit.dataset.IDataSet;
+import org.dbunit.dataset.ITableMetaData;
+import org.dbunit.dataset.NoSuchTableException;
+import org.dbunit.testutil.TestUtils;
+
+/**
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.5.2
+ */
+public class DatabaseDataSetTest extends TestCase
+{
+    private static final String DATABASE = "databasedatasetdb";
+
+    private Connection _jdbcConnection;
+    private IDatabaseConnection _connection;
+    private int _tableExistsCalls;
+
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+
+        _jdbcConnection = HypersonicEnvironment.createJdbcConnection(DATABASE);
+        HypersonicEnvironment.executeDdlFile(TestUtils.getFile("sql/hypersonic_fk.sql"),
+                _jdbcConnection);
+        _connection = new DatabaseConnection(_jdbcConnection);
+        _connection.getConfig().setProperty(DatabaseConfig.PROPERTY_METADATA_HANDLER,
+                new DefaultMetadataHandler()
+                {
+                    public boolean tableExists(DatabaseMetaData metaData, String schemaName,
+                            String tableName) throws SQLException
+                    {
+                        _tableExistsCalls++;
+                        return super.tableExists(metaData, schemaName, tableName);
+                    }
+                });
+    }
+
+    protected void tearDown() throws Exception
+    {
+        super.tearDown();
+
+        HypersonicEnvironment.shutdown(_jdbcConnection);
+        _jdbcConnection.close();
+        HypersonicEnvironment.deleteFiles(DATABASE);
+    }
+
+    public void testListedTablesAreNotValidatedAgain() throws Exception
+    {
+        IDataSet dataSet = _connection.createDataSet();
+        String[] tableNames = dataSet.getTableNames();
+        for (int i = 0; i < tableNames.length; i++)
+        {
+            ITableMetaData metaData = dataSet.getTableMetaData(tableNames[i]);
+            assertEquals(tableNames[i], metaData.getTableName());
+            assertTrue(metaData.getColumns().length > 0);
+        }
+        assertEquals(0, _tableExistsCalls);
+    }
+
+    public void testTableNameIsTheListedOne() throws Exception
+    {
+        IDataSet dataSet = _connection.createDataSet();
+        ITableMetaData metaData = dataSet.getTableMetaData("b");
+        assertEquals("B", metaData.getTableName());
+        assertEquals("PKB", metaData.getPrimaryKeys()[0].getColumnName());
+        assertSame(metaData, dataSet.getTableMetaData("B"));
+    }
+
+    public void testUnknownTable() throws Exception
+    {
+        try
+        {
+            _connection.createDataSet().getTableMetaData("UNKNOWN");
+            fail("Should not find an unknown table");
+        }
+        catch (NoSuchTableException expected)
+        {
+        }
+    }
+}
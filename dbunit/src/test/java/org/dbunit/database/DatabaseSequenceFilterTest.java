@@ -86,6 +86,68 @@ public class DatabaseSequenceFilterTest extends TestCase
     }
 
 
+    public void testGetTableLayers() throws Exception
+    {
+        HypersonicEnvironment.executeDdlFile(TestUtils.getFile("sql/hypersonic_fk.sql"),
+                _jdbcConnection);
+        IDatabaseConnection connection = new DatabaseConnection(_jdbcConnection);
+
+        String[][] layers = DatabaseSequenceFilter.getTableLayers(connection,
+                new String[] {"D","A","F","C","G","E","H","B"});
+        assertEquals(4, layers.length);
+        assertEquals(Arrays.asList(new String[] {"D","G","H"}), Arrays.asList(layers[0]));
+        assertEquals(Arrays.asList(new String[] {"A","F"}), Arrays.asList(layers[1]));
+        assertEquals(Arrays.asList(new String[] {"C","E"}), Arrays.asList(layers[2]));
+        assertEquals(Arrays.asList(new String[] {"B"}), Arrays.asList(layers[3]));
+    }
+
+    public void testGetTableLayersReversed() throws Exception
+    {
+        HypersonicEnvironment.executeDdlFile(TestUtils.getFile("sql/hypersonic_fk.sql"),
+                _jdbcConnection);
+        IDatabaseConnection connection = new DatabaseConnection(_jdbcConnection);
+
+        String[][] layers = DatabaseSequenceFilter.getTableLayers(connection,
+                new String[] {"B","H","E","G","C","F","A","D"});
+        assertEquals(4, layers.length);
+        assertEquals(Arrays.asList(new String[] {"B"}), Arrays.asList(layers[0]));
+        assertEquals(Arrays.asList(new String[] {"H","E","C"}), Arrays.asList(layers[1]));
+        assertEquals(Arrays.asList(new String[] {"G","F","A"}), Arrays.asList(layers[2]));
+        assertEquals(Arrays.asList(new String[] {"D"}), Arrays.asList(layers[3]));
+    }
+
+    public void testGetTableLayersRepeatedTable() throws Exception
+    {
+        HypersonicEnvironment.executeDdlFile(TestUtils.getFile("sql/hypersonic_fk.sql"),
+                _jdbcConnection);
+        IDatabaseConnection connection = new DatabaseConnection(_jdbcConnection);
+
+        String[][] layers = DatabaseSequenceFilter.getTableLayers(connection,
+                new String[] {"D","G","D","H"});
+        assertEquals(2, layers.length);
+        assertEquals(Arrays.asList(new String[] {"D","G","H"}), Arrays.asList(layers[0]));
+        assertEquals(Arrays.asList(new String[] {"D"}), Arrays.asList(layers[1]));
+    }
+
+    public void testGetTableNamesAfterSchemaChange() throws Exception
+    {
+        HypersonicEnvironment.executeDdlFile(TestUtils.getFile("sql/hypersonic_fk.sql"),
+                _jdbcConnection);
+        IDatabaseConnection connection = new DatabaseConnection(_jdbcConnection);
+        new DatabaseSequenceFilter(connection);
+
+        HypersonicEnvironment.executeSql(_jdbcConnection,
+                "CREATE TABLE I (PKI NUMERIC, PRIMARY KEY (PKI))");
+        HypersonicEnvironment.executeSql(_jdbcConnection,
+                "ALTER TABLE G ADD COLUMN FKI NUMERIC");
+        HypersonicEnvironment.executeSql(_jdbcConnection,
+                "ALTER TABLE G ADD CONSTRAINT GI FOREIGN KEY (FKI) REFERENCES I (PKI)");
+
+        String[] actualSorted = DatabaseSequenceFilter.sortTableNames(connection,
+                new String[] {"G", "I"});
+        assertEquals(Arrays.asList(new String[] {"I", "G"}), Arrays.asList(actualSorted));
+    }
+
     public void testGetTableNamesCyclic() throws Exception
     {
         String[] expectedNoFilter = {"A","B","C","D","E",};
@@ -107,8 +169,8 @@ public class DatabaseSequenceFilterTest extends TestCase
         }
         catch (CyclicTablesDependencyException expected)
         {
-            Set expectedCycle = new HashSet(Arrays.asList(new String[]{"A", "C", "E"}));
-            String expectedMsg = new CyclicTablesDependencyException("D", expectedCycle).getMessage();
+            Set expectedCycle = new HashSet(Arrays.asList(new String[]{"C", "D", "E"}));
+            String expectedMsg = new CyclicTablesDependencyException("A", expectedCycle).getMessage();
             assertEquals(expectedMsg, expected.getMessage());
         }
     }
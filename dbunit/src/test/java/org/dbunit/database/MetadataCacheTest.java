@@ -0,0 +1,248 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.database;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+import org.dbunit.HypersonicEnvironment;
+import org.dbunit.testutil.TestUtils;
+
+/**
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.5.2
+ */
+public class MetadataCacheTest extends TestCase
+{
+    private static final String DATABASE = "metadatacachedb";
+
+    private Connection _jdbcConnection;
+    private int _loadCount;
+
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+
+        _jdbcConnection = HypersonicEnvironment.createJdbcConnection(DATABASE);
+        HypersonicEnvironment.executeDdlFile(TestUtils.getFile("sql/hypersonic_fk.sql"),
+                _jdbcConnection);
+    }
+
+    protected void tearDown() throws Exception
+    {
+        super.tearDown();
+
+        HypersonicEnvironment.shutdown(_jdbcConnection);
+        _jdbcConnection.close();
+        HypersonicEnvironment.deleteFiles(DATABASE);
+    }
+
+    private IDatabaseConnection createConnection(MetadataCache cache) throws Exception
+    {
+        IDatabaseConnection connection = new DatabaseConnection(_jdbcConnection);
+        connection.getConfig().setProperty(DatabaseConfig.PROPERTY_METADATA_CACHE, cache);
+        return connection;
+    }
+
+    private void dropTableB() throws Exception
+    {
+        Statement statement = _jdbcConnection.createStatement();
+        statement.execute("DROP TABLE B");
+        statement.close();
+    }
+
+    private MetadataSnapshot.Loader countingLoader(final Object value)
+    {
+        return new MetadataSnapshot.Loader()
+        {
+            public Object load() throws SQLException
+            {
+                synchronized (MetadataCacheTest.this)
+                {
+                    _loadCount++;
+                }
+                return value;
+            }
+        };
+    }
+
+    public void testConnectionsShareEntries() throws Exception
+    {
+        MetadataCache cache = new MetadataCache(MetadataCache.DEFAULT_MAX_SIZE);
+        IDatabaseConnection connection = createConnection(cache);
+        assertEquals(8, connection.createDataSet().getTableNames().length);
+        assertEquals(4, connection.createDataSet().getTableMetaData("B").getColumns().length);
+        int missCount = cache.getMissCount();
+        int hitCount = cache.getHitCount();
+
+        // The second connection reads nothing from the database
+        dropTableB();
+        IDatabaseConnection laterConnection = createConnection(cache);
+        assertEquals(8, laterConnection.createDataSet().getTableNames().length);
+        assertEquals(4, laterConnection.createDataSet().getTableMetaData("B").getColumns().length);
+        assertEquals(missCount, cache.getMissCount());
+        assertTrue(cache.getHitCount() > hitCount);
+
+        cache.invalidate(laterConnection, "B");
+        IDatabaseConnection lastConnection = createConnection(cache);
+        assertEquals(7, lastConnection.createDataSet().getTableNames().length);
+        assertFalse(Arrays.asList(lastConnection.createDataSet().getTableNames()).contains("B"));
+    }
+
+    public void testInvalidate() throws Exception
+    {
+        MetadataCache cache = new MetadataCache(MetadataCache.DEFAULT_MAX_SIZE);
+        IDatabaseConnection connection = createConnection(cache);
+        connection.createDataSet().getTableMetaData("A").getColumns();
+        connection.createDataSet().getTableMetaData("B").getColumns();
+        int size = cache.getSize();
+        assertTrue(size > 0);
+
+        cache.invalidate(connection, "B");
+        assertTrue(cache.getSize() < size);
+        assertTrue(cache.getSize() > 0);
+
+        cache.invalidate();
+        assertEquals(0, cache.getSize());
+    }
+
+    public void testLeastRecentlyUsedEntriesAreEvicted() throws Exception
+    {
+        MetadataCache cache = new MetadataCache(2);
+        MetadataSnapshot snapshot = cache.getConnectionSnapshot(createConnection(cache));
+
+        snapshot.getImportedKeys(null, "A", countingLoader(Arrays.asList(new Object[0])));
+        snapshot.getImportedKeys(null, "B", countingLoader(Arrays.asList(new Object[0])));
+        snapshot.getImportedKeys(null, "A", countingLoader(Arrays.asList(new Object[0])));
+        snapshot.getImportedKeys(null, "C", countingLoader(Arrays.asList(new Object[0])));
+        assertEquals(2, cache.getSize());
+        assertEquals(3, _loadCount);
+
+        // B was the least recently used entry
+        snapshot.getImportedKeys(null, "A", countingLoader(Arrays.asList(new Object[0])));
+        assertEquals(3, _loadCount);
+        snapshot.getImportedKeys(null, "B", countingLoader(Arrays.asList(new Object[0])));
+        assertEquals(4, _loadCount);
+    }
+
+    public void testConcurrentLookupsLoadOnce() throws Exception
+    {
+        MetadataCache cache = new MetadataCache(MetadataCache.DEFAULT_MAX_SIZE);
+        final MetadataSnapshot snapshot = cache.getConnectionSnapshot(createConnection(cache));
+        final Object monitor = new Object();
+        final boolean[] released = new boolean[1];
+        final MetadataSnapshot.Loader slowLoader = new MetadataSnapshot.Loader()
+        {
+            public Object load() throws SQLException
+            {
+                synchronized (monitor)
+                {
+                    _loadCount++;
+                    while (!released[0])
+                    {
+                        try
+                        {
+                            monitor.wait();
+                        }
+                        catch (InterruptedException e)
+                        {
+                            throw new SQLException(e.toString());
+                        }
+                    }
+                }
+                return new String[] {"PKA"};
+            }
+        };
+        final String[][] results = new String[4][];
+        Thread[] threads = new Thread[results.length];
+        for (int i = 0; i < threads.length; i++)
+        {
+            final int index = i;
+            threads[i] = new Thread()
+            {
+                public void run()
+                {
+                    try
+                    {
+                        results[index] = snapshot.getPrimaryKeys(null, "A", slowLoader);
+                    }
+                    catch (SQLException e)
+                    {
+                        throw new RuntimeException(e);
+                    }
+                }
+            };
+            threads[i].start();
+        }
+        while (cache.getHitCount() + cache.getMissCount() < threads.length)
+        {
+            Thread.sleep(10);
+        }
+        synchronized (monitor)
+        {
+            released[0] = true;
+            monitor.notifyAll();
+        }
+        for (int i = 0; i < threads.length; i++)
+        {
+            threads[i].join();
+            assertEquals("PKA", results[i][0]);
+        }
+        assertEquals(1, _loadCount);
+        assertEquals(1, cache.getMissCount());
+    }
+
+    public void testFailedLoadIsRetried() throws Exception
+    {
+        MetadataCache cache = new MetadataCache(MetadataCache.DEFAULT_MAX_SIZE);
+        MetadataSnapshot snapshot = cache.getConnectionSnapshot(createConnection(cache));
+        try
+        {
+            snapshot.getTableExists(null, "A", new MetadataSnapshot.Loader()
+            {
+                public Object load() throws SQLException
+                {
+                    throw new SQLException("expected");
+                }
+            });
+            fail("Should have thrown the exception of the loader");
+        }
+        catch (SQLException expected)
+        {
+            assertEquals("expected", expected.getMessage());
+        }
+        assertEquals(0, cache.getSize());
+
+        assertTrue(snapshot.getTableExists(null, "A", countingLoader(Boolean.TRUE)));
+        assertEquals(1, _loadCount);
+    }
+
+    public void testNoCache() throws Exception
+    {
+        IDatabaseConnection connection = new DatabaseConnection(_jdbcConnection);
+        assertNull(MetadataCache.getSnapshot(connection));
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.database;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+import org.dbunit.HypersonicEnvironment;
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.ITableMetaData;
+import org.dbunit.testutil.TestUtils;
+
+/**
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.5.2
+ */
+public class MetadataSnapshotStoreTest extends TestCase
+{
+    private static final String DATABASE = "snapshotdb";
+
+    private Connection _jdbcConnection;
+    private File _directory;
+    private String _lastDdlTime = "1";
+
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+
+        _jdbcConnection = HypersonicEnvironment.createJdbcConnection(DATABASE);
+        HypersonicEnvironment.executeDdlFile(TestUtils.getFile("sql/hypersonic_fk.sql"),
+                _jdbcConnection);
+
+        _directory = File.createTempFile("metadataSnapshot", "");
+        _directory.delete();
+    }
+
+    protected void tearDown() throws Exception
+    {
+        super.tearDown();
+
+        HypersonicEnvironment.shutdown(_jdbcConnection);
+        _jdbcConnection.close();
+        HypersonicEnvironment.deleteFiles(DATABASE);
+
+        File[] files = _directory.listFiles();
+        for (int i = 0; files != null && i < files.length; i++)
+        {
+            files[i].delete();
+        }
+        _directory.delete();
+    }
+
+    private IDatabaseConnection createConnection(MetadataSnapshotStore store) throws Exception
+    {
+        IDatabaseConnection connection = new DatabaseConnection(_jdbcConnection);
+        connection.getConfig().setProperty(DatabaseConfig.PROPERTY_METADATA_HANDLER,
+                new DdlTimeMetadataHandler());
+        connection.getConfig().setProperty(DatabaseConfig.PROPERTY_METADATA_SNAPSHOT_STORE, store);
+        return connection;
+    }
+
+    private void dropTableB() throws Exception
+    {
+        Statement statement = _jdbcConnection.createStatement();
+        statement.execute("DROP TABLE B");
+        statement.close();
+    }
+
+    public void testSnapshotIsReusedByLaterStore() throws Exception
+    {
+        MetadataSnapshotStore store = new MetadataSnapshotStore(_directory);
+        IDatabaseConnection connection = createConnection(store);
+        assertEquals(8, connection.createDataSet().getTableNames().length);
+        ITableMetaData metaData = connection.createDataSet().getTableMetaData("B");
+        assertEquals(4, metaData.getColumns().length);
+        assertEquals("PKB", metaData.getPrimaryKeys()[0].getColumnName());
+        String[] sorted = DatabaseSequenceFilter.sortTableNames(connection, new String[] {"B", "D"});
+
+        assertTrue(MetadataSnapshotStore.getSnapshot(connection).isModified());
+        store.save();
+        assertEquals(1, _directory.listFiles().length);
+
+        // The metadata of the next JVM comes from the snapshot only
+        dropTableB();
+        IDatabaseConnection laterConnection = createConnection(new MetadataSnapshotStore(_directory));
+        assertEquals(8, laterConnection.createDataSet().getTableNames().length);
+        ITableMetaData laterMetaData = laterConnection.createDataSet().getTableMetaData("B");
+        Column[] columns = laterMetaData.getColumns();
+        assertEquals(4, columns.length);
+        for (int i = 0; i < columns.length; i++)
+        {
+            assertEquals(metaData.getColumns()[i].getColumnName(), columns[i].getColumnName());
+            assertEquals(metaData.getColumns()[i].getDataType(), columns[i].getDataType());
+            assertEquals(metaData.getColumns()[i].getNullable(), columns[i].getNullable());
+        }
+        assertEquals("PKB", laterMetaData.getPrimaryKeys()[0].getColumnName());
+        assertEquals(Arrays.asList(sorted), Arrays.asList(
+                DatabaseSequenceFilter.sortTableNames(laterConnection, new String[] {"B", "D"})));
+        assertFalse(MetadataSnapshotStore.getSnapshot(laterConnection).isModified());
+    }
+
+    public void testSnapshotIsDiscardedWhenDdlTimeChanges() throws Exception
+    {
+        MetadataSnapshotStore store = new MetadataSnapshotStore(_directory);
+        IDatabaseConnection connection = createConnection(store);
+        assertEquals(8, connection.createDataSet().getTableNames().length);
+        store.save();
+
+        dropTableB();
+        _lastDdlTime = "2";
+        IDatabaseConnection laterConnection = createConnection(new MetadataSnapshotStore(_directory));
+        assertEquals(7, laterConnection.createDataSet().getTableNames().length);
+        assertEquals("2", MetadataSnapshotStore.getSnapshot(laterConnection).getLastDdlTime());
+    }
+
+    public void testNoSnapshotWithoutDdlTime() throws Exception
+    {
+        MetadataSnapshotStore store = new MetadataSnapshotStore(_directory);
+        IDatabaseConnection connection = new DatabaseConnection(_jdbcConnection);
+        connection.getConfig().setProperty(DatabaseConfig.PROPERTY_METADATA_SNAPSHOT_STORE, store);
+
+        assertNull(MetadataSnapshotStore.getSnapshot(connection));
+        assertEquals(8, connection.createDataSet().getTableNames().length);
+        store.save();
+        assertFalse(_directory.exists());
+    }
+
+    public void testNoStore() throws Exception
+    {
+        IDatabaseConnection connection = new DatabaseConnection(_jdbcConnection);
+        assertNull(MetadataSnapshotStore.getSnapshot(connection));
+    }
+
+    private class DdlTimeMetadataHandler extends DefaultMetadataHandler
+            implements IDdlTimeMetadataHandler
+    {
+        public String getLastDdlTime(DatabaseMetaData databaseMetaData,
+                String schemaName) throws SQLException
+        {
+            return _lastDdlTime;
+        }
+    }
+}
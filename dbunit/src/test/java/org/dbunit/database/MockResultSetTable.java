@@ -64,11 +64,21 @@ public class MockResultSetTable implements IResultSetTable, Verifiable
         return null;
     }
 
+    public Object getValue(int row, int column) throws DataSetException
+    {
+        return null;
+    }
+
     public int getRowCount()
     {
         return 0;
     }
 
+    public boolean hasRow(int row)
+    {
+        return false;
+    }
+
     public ITableMetaData getTableMetaData()
     {
         return _metaData;
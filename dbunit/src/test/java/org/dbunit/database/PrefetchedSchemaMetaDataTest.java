@@ -0,0 +1,171 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.database;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+import org.dbunit.HypersonicEnvironment;
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.IDataSet;
+import org.dbunit.dataset.ITableMetaData;
+import org.dbunit.testutil.TestUtils;
+
+/**
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.5.2
+ */
+public class PrefetchedSchemaMetaDataTest extends TestCase
+{
+    private static final String DATABASE = "prefetchdb";
+
+    private Connection _jdbcConnection;
+    private int _columnsCalls;
+    private int _primaryKeysCalls;
+    private boolean _failBulkPrimaryKeys;
+    private boolean _emptyBulkPrimaryKeys;
+
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+
+        _jdbcConnection = HypersonicEnvironment.createJdbcConnection(DATABASE);
+        HypersonicEnvironment.executeDdlFile(TestUtils.getFile("sql/hypersonic_fk.sql"),
+                _jdbcConnection);
+    }
+
+    protected void tearDown() throws Exception
+    {
+        super.tearDown();
+
+        HypersonicEnvironment.shutdown(_jdbcConnection);
+        _jdbcConnection.close();
+        HypersonicEnvironment.deleteFiles(DATABASE);
+    }
+
+    private IDatabaseConnection createConnection(boolean prefetch) throws Exception
+    {
+        IDatabaseConnection connection = new DatabaseConnection(_jdbcConnection);
+        connection.getConfig().setProperty(DatabaseConfig.PROPERTY_METADATA_HANDLER,
+                new DefaultMetadataHandler()
+                {
+                    public ResultSet getColumns(DatabaseMetaData databaseMetaData,
+                            String schemaName, String tableName) throws SQLException
+                    {
+                        _columnsCalls++;
+                        return super.getColumns(databaseMetaData, schemaName, tableName);
+                    }
+
+                    public ResultSet getPrimaryKeys(DatabaseMetaData metaData,
+                            String schemaName, String tableName) throws SQLException
+                    {
+                        _primaryKeysCalls++;
+                        if (tableName == null && _failBulkPrimaryKeys)
+                        {
+                            throw new SQLException("Table not specified");
+                        }
+                        if (tableName == null && _emptyBulkPrimaryKeys)
+                        {
+                            return super.getPrimaryKeys(metaData, schemaName, "NO_SUCH_TABLE");
+                        }
+                        return super.getPrimaryKeys(metaData, schemaName, tableName);
+                    }
+                });
+        connection.getConfig().setFeature(DatabaseConfig.FEATURE_PREFETCH_METADATA, prefetch);
+        return connection;
+    }
+
+    private void assertSameMetaData(IDataSet expected, IDataSet actual) throws Exception
+    {
+        String[] tableNames = expected.getTableNames();
+        assertEquals(Arrays.asList(tableNames), Arrays.asList(actual.getTableNames()));
+        for (int i = 0; i < tableNames.length; i++)
+        {
+            ITableMetaData expectedMetaData = expected.getTableMetaData(tableNames[i]);
+            ITableMetaData actualMetaData = actual.getTableMetaData(tableNames[i]);
+            assertColumnsEquals(expectedMetaData.getColumns(), actualMetaData.getColumns());
+            assertColumnsEquals(expectedMetaData.getPrimaryKeys(), actualMetaData.getPrimaryKeys());
+        }
+    }
+
+    private void assertColumnsEquals(Column[] expected, Column[] actual)
+    {
+        assertEquals(expected.length, actual.length);
+        for (int i = 0; i < expected.length; i++)
+        {
+            assertEquals(expected[i].getColumnName(), actual[i].getColumnName());
+            assertEquals(expected[i].getDataType(), actual[i].getDataType());
+            assertEquals(expected[i].getNullable(), actual[i].getNullable());
+        }
+    }
+
+    public void testPrefetchReadsSchemaOnce() throws Exception
+    {
+        IDataSet expected = createConnection(false).createDataSet();
+        IDataSet actual = createConnection(true).createDataSet();
+        int tableCount = expected.getTableNames().length;
+
+        _columnsCalls = 0;
+        _primaryKeysCalls = 0;
+        assertSameMetaData(expected, actual);
+        assertEquals(tableCount + 1, _columnsCalls);
+        assertEquals(tableCount + 1, _primaryKeysCalls);
+    }
+
+    public void testPrimaryKeysAreReadPerTableWithoutBulkSupport() throws Exception
+    {
+        _failBulkPrimaryKeys = true;
+        IDataSet expected = createConnection(false).createDataSet();
+        IDataSet actual = createConnection(true).createDataSet();
+        int tableCount = expected.getTableNames().length;
+
+        _columnsCalls = 0;
+        _primaryKeysCalls = 0;
+        assertSameMetaData(expected, actual);
+        assertEquals(tableCount + 1, _columnsCalls);
+        assertEquals(2 * tableCount + 1, _primaryKeysCalls);
+    }
+
+    public void testPrimaryKeysAreReadPerTableWithEmptyBulkResult() throws Exception
+    {
+        _emptyBulkPrimaryKeys = true;
+        IDataSet expected = createConnection(false).createDataSet();
+        IDataSet actual = createConnection(true).createDataSet();
+        int tableCount = expected.getTableNames().length;
+
+        _columnsCalls = 0;
+        _primaryKeysCalls = 0;
+        assertSameMetaData(expected, actual);
+        assertEquals(tableCount + 1, _columnsCalls);
+        assertEquals(2 * tableCount + 1, _primaryKeysCalls);
+    }
+
+    public void testPrefetchIsOffByDefault() throws Exception
+    {
+        assertFalse(new DatabaseConfig().getFeature(DatabaseConfig.FEATURE_PREFETCH_METADATA));
+    }
+}
@@ -44,6 +44,7 @@ public class AllTests extends TestSuite
         suite.addTest(new TestSuite(ImportedAndExportedKeysFilteredByPKsCyclicTest.class));        
         suite.addTest(new TestSuite(ImportedAndExportedKeysFilteredByPKsSingleTest.class));        
         suite.addTest(new TestSuite(ImportedAndExportedKeysFilteredByPKsTest.class));        
+        suite.addTest(new TestSuite(TableDependencyGraphTest.class));
         suite.addTest(new TestSuite(TablesDependencyHelperTest.class));        
         return suite;
     }
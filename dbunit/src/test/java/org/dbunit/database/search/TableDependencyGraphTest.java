@@ -0,0 +1,160 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.database.search;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+import org.dbunit.HypersonicEnvironment;
+import org.dbunit.database.CyclicTablesDependencyException;
+import org.dbunit.database.DatabaseConnection;
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.dataset.NoSuchTableException;
+import org.dbunit.testutil.TestUtils;
+
+/**
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.5.2
+ */
+public class TableDependencyGraphTest extends TestCase
+{
+    private Connection _jdbcConnection;
+    private IDatabaseConnection _connection;
+
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+
+        _jdbcConnection = HypersonicEnvironment.createJdbcConnection("mem:graphdb");
+        _connection = new DatabaseConnection(_jdbcConnection);
+    }
+
+    protected void tearDown() throws Exception
+    {
+        super.tearDown();
+
+        HypersonicEnvironment.shutdown(_jdbcConnection);
+        _jdbcConnection.close();
+    }
+
+    private void executeDdlFile(String fileName) throws Exception
+    {
+        HypersonicEnvironment.executeDdlFile(TestUtils.getFile("sql/" + fileName), _jdbcConnection);
+    }
+
+    public void testGetDirectDependsOnTables() throws Exception
+    {
+        executeDdlFile("hypersonic_fk.sql");
+        TableDependencyGraph graph = TableDependencyGraph.createGraph(_connection);
+
+        assertEquals(Arrays.asList(new String[] {"C", "E", "H"}),
+                Arrays.asList(graph.getDirectDependsOnTables(_connection, "B").toArray()));
+        assertEquals(0, graph.getDirectDependsOnTables(_connection, "D").size());
+    }
+
+    public void testSortKeepsOrderOfUnrelatedTables() throws Exception
+    {
+        executeDdlFile("hypersonic_fk.sql");
+
+        String[] actual = TableDependencyGraph.createGraph(_connection).sortTableNames(_connection,
+                new String[] {"H", "G", "B"});
+        assertEquals(Arrays.asList(new String[] {"H", "G", "B"}), Arrays.asList(actual));
+    }
+
+    public void testSortCaseInsensitiveTableNames() throws Exception
+    {
+        executeDdlFile("hypersonic_fk.sql");
+
+        String[] actual = TableDependencyGraph.createGraph(_connection).sortTableNames(_connection,
+                new String[] {"b", "a", "d"});
+        assertEquals(Arrays.asList(new String[] {"b", "d", "a"}), Arrays.asList(actual));
+    }
+
+    public void testSortSelfReferencingTable() throws Exception
+    {
+        executeDdlFile("hypersonic_fk.sql");
+        Statement statement = _jdbcConnection.createStatement();
+        statement.execute("CREATE TABLE S (PKS NUMERIC, FKS NUMERIC, FKD NUMERIC, PRIMARY KEY (PKS))");
+        statement.execute("ALTER TABLE S ADD CONSTRAINT SS FOREIGN KEY (FKS) REFERENCES S (PKS)");
+        statement.execute("ALTER TABLE S ADD CONSTRAINT SD FOREIGN KEY (FKD) REFERENCES D (PKD)");
+        statement.close();
+
+        TableDependencyGraph graph = TableDependencyGraph.createGraph(_connection);
+        assertEquals(Arrays.asList(new String[] {"D"}),
+                Arrays.asList(graph.getDirectDependsOnTables(_connection, "S").toArray()));
+        String[] actual = graph.sortTableNames(_connection, new String[] {"S", "D"});
+        assertEquals(Arrays.asList(new String[] {"D", "S"}), Arrays.asList(actual));
+    }
+
+    public void testCycleThroughOtherTables() throws Exception
+    {
+        executeDdlFile("hypersonic_cyclic.sql");
+
+        try
+        {
+            TableDependencyGraph.createGraph(_connection).sortTableNames(_connection,
+                    new String[] {"B", "D"});
+            fail("Should not be able to sort cyclic tables");
+        }
+        catch (CyclicTablesDependencyException expected)
+        {
+            assertEquals("Table: D ([A, C, E])", expected.getMessage());
+        }
+    }
+
+    public void testNoSuchTable() throws Exception
+    {
+        executeDdlFile("hypersonic_fk.sql");
+
+        try
+        {
+            TableDependencyGraph.createGraph(_connection).sortTableNames(_connection,
+                    new String[] {"A", "UNKNOWN"});
+            fail("Should not be able to sort an unknown table");
+        }
+        catch (NoSuchTableException expected)
+        {
+        }
+    }
+
+    public void testNewGraphSeesSchemaChanges() throws Exception
+    {
+        executeDdlFile("hypersonic_fk.sql");
+        TableDependencyGraph graph = TableDependencyGraph.createGraph(_connection);
+        assertEquals(0, graph.getDirectDependsOnTables(_connection, "G").size());
+
+        Statement statement = _jdbcConnection.createStatement();
+        statement.execute("CREATE TABLE S (PKS NUMERIC, PRIMARY KEY (PKS))");
+        statement.execute("ALTER TABLE G ADD COLUMN FKS NUMERIC");
+        statement.execute("ALTER TABLE G ADD CONSTRAINT GS FOREIGN KEY (FKS) REFERENCES S (PKS)");
+        statement.close();
+
+        graph = TableDependencyGraph.createGraph(_connection);
+        assertEquals(Arrays.asList(new String[] {"S"}),
+                Arrays.asList(graph.getDirectDependsOnTables(_connection, "G").toArray()));
+        String[] actual = graph.sortTableNames(_connection, new String[] {"G", "S"});
+        assertEquals(Arrays.asList(new String[] {"S", "G"}), Arrays.asList(actual));
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.database.statement;
+
+import java.io.StringReader;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+
+import junit.framework.TestCase;
+
+import org.dbunit.database.DatabaseConfig;
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.dataset.IDataSet;
+import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.datatype.DataType;
+import org.dbunit.dataset.xml.FlatXmlDataSetBuilder;
+import org.dbunit.ext.h2.H2Connection;
+import org.dbunit.operation.DatabaseOperation;
+
+/**
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.5.2
+ */
+public class MultiRowInsertStatementFactoryTest extends TestCase
+{
+    private Connection _jdbcConnection;
+    private IDatabaseConnection _connection;
+
+    public MultiRowInsertStatementFactoryTest(String s)
+    {
+        super(s);
+    }
+
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+
+        Class.forName("org.h2.Driver");
+        _jdbcConnection = DriverManager.getConnection("jdbc:h2:mem:multirow", "sa", "");
+        Statement statement = _jdbcConnection.createStatement();
+        try
+        {
+            statement.execute("create table MULTI_ROW_TABLE (ID integer primary key, NAME varchar(20))");
+        }
+        finally
+        {
+            statement.close();
+        }
+        _connection = new H2Connection(_jdbcConnection, "PUBLIC");
+    }
+
+    protected void tearDown() throws Exception
+    {
+        super.tearDown();
+
+        _jdbcConnection.close();
+    }
+
+    public void testGetRowValuesIndex() throws Exception
+    {
+        assertEquals(35, MultiRowInsertStatementFactory.getRowValuesIndex(
+                "insert into SCHEMA.T (A, B) values (?, ?)"));
+        assertEquals(21, MultiRowInsertStatementFactory.getRowValuesIndex(
+                "INSERT INTO T VALUES (?,?)"));
+        assertEquals(-1, MultiRowInsertStatementFactory.getRowValuesIndex(
+                "update T set A = ? where B = ?"));
+        assertEquals(-1, MultiRowInsertStatementFactory.getRowValuesIndex(
+                "insert into T (A) values (?) on duplicate key update A = values(A)"));
+        assertEquals(-1, MultiRowInsertStatementFactory.getRowValuesIndex(
+                "insert into T (A, B) values (?, 'b')"));
+        assertEquals(-1, MultiRowInsertStatementFactory.getRowValuesIndex(
+                "merge into T (A) key (A) values (?)"));
+    }
+
+    public void testGetSql() throws Exception
+    {
+        MultiRowInsertStatement statement = new MultiRowInsertStatement(
+                "insert into T (A, B) values ", "(?, ?)", 3, _jdbcConnection, null);
+        assertEquals("insert into T (A, B) values (?, ?)", statement.getSql(1));
+        assertEquals("insert into T (A, B) values (?, ?), (?, ?), (?, ?)", statement.getSql(3));
+    }
+
+    public void testCreatePreparedBatchStatement() throws Exception
+    {
+        IStatementFactory factory = new MultiRowInsertStatementFactory(3);
+
+        IPreparedBatchStatement statement = factory.createPreparedBatchStatement(
+                "insert into MULTI_ROW_TABLE (ID, NAME) values (?, ?)", _connection);
+        assertTrue(statement instanceof MultiRowInsertStatement);
+        statement.close();
+
+        statement = factory.createPreparedBatchStatement(
+                "update MULTI_ROW_TABLE set NAME = ? where ID = ?", _connection);
+        assertFalse(statement instanceof MultiRowInsertStatement);
+        statement.close();
+    }
+
+    public void testExecuteBatch() throws Exception
+    {
+        IStatementFactory factory = new MultiRowInsertStatementFactory(3);
+        IPreparedBatchStatement statement = factory.createPreparedBatchStatement(
+                "insert into MULTI_ROW_TABLE (ID, NAME) values (?, ?)", _connection);
+        try
+        {
+            for (int i = 0; i < 7; i++)
+            {
+                statement.addValue(new Integer(i), DataType.INTEGER);
+                statement.addValue(i == 3 ? null : "name" + i, DataType.VARCHAR);
+                statement.addBatch();
+            }
+            // two statements of three rows and one of a single row
+            assertEquals(7, statement.executeBatch());
+            statement.clearBatch();
+            assertEquals(0, statement.executeBatch());
+        }
+        finally
+        {
+            statement.close();
+        }
+
+        ITable table = _connection.createQueryTable("MULTI_ROW_TABLE",
+                "select * from MULTI_ROW_TABLE order by ID");
+        assertEquals(7, table.getRowCount());
+        assertEquals("name6", table.getValue(6, "NAME"));
+        assertNull(table.getValue(3, "NAME"));
+    }
+
+    public void testInsertOperation() throws Exception
+    {
+        _connection.getConfig().setProperty(DatabaseConfig.PROPERTY_STATEMENT_FACTORY,
+                new MultiRowInsertStatementFactory(2));
+        IDataSet dataSet = new FlatXmlDataSetBuilder().build(new StringReader(
+                "<dataset>" +
+                "<MULTI_ROW_TABLE ID='1' NAME='one'/>" +
+                "<MULTI_ROW_TABLE ID='2' NAME='two'/>" +
+                "<MULTI_ROW_TABLE ID='3' NAME='three'/>" +
+                "</dataset>"));
+
+        DatabaseOperation.INSERT.execute(_connection, dataSet);
+
+        assertEquals(3, _connection.getRowCount("MULTI_ROW_TABLE"));
+    }
+}
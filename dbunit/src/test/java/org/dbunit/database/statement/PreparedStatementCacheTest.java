@@ -0,0 +1,204 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.database.statement;
+
+import java.io.StringReader;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import junit.framework.TestCase;
+
+import org.dbunit.database.DatabaseConfig;
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.dataset.IDataSet;
+import org.dbunit.dataset.xml.FlatXmlDataSetBuilder;
+import org.dbunit.ext.h2.H2Connection;
+import org.dbunit.operation.DatabaseOperation;
+
+/**
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.5.2
+ */
+public class PreparedStatementCacheTest extends TestCase
+{
+    private static final String SQL_A = "select NAME from CACHE_TABLE where ID = ?";
+    private static final String SQL_B = "select ID from CACHE_TABLE where NAME = ?";
+    private static final String SQL_C = "select count(*) from CACHE_TABLE";
+
+    private Connection _jdbcConnection;
+
+    public PreparedStatementCacheTest(String s)
+    {
+        super(s);
+    }
+
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+
+        Class.forName("org.h2.Driver");
+        _jdbcConnection = DriverManager.getConnection("jdbc:h2:mem:statementcache", "sa", "");
+        Statement statement = _jdbcConnection.createStatement();
+        try
+        {
+            statement.execute("create table CACHE_TABLE (ID integer primary key, NAME varchar(20))");
+        }
+        finally
+        {
+            statement.close();
+        }
+    }
+
+    protected void tearDown() throws Exception
+    {
+        super.tearDown();
+
+        _jdbcConnection.close();
+    }
+
+    private void assertClosed(PreparedStatement statement) throws Exception
+    {
+        try
+        {
+            statement.clearParameters();
+            fail("Statement should be closed");
+        }
+        catch (SQLException expected)
+        {
+        }
+    }
+
+    public void testPrepareStatement() throws Exception
+    {
+        PreparedStatementCache cache = new PreparedStatementCache();
+
+        PreparedStatement statement = cache.prepareStatement(SQL_A, _jdbcConnection);
+        cache.release(statement);
+        assertSame(statement, cache.prepareStatement(SQL_A, _jdbcConnection));
+        PreparedStatement other = cache.prepareStatement(SQL_B, _jdbcConnection);
+        assertNotSame(statement, other);
+
+        assertEquals("hits", 1, cache.getHitCount());
+        assertEquals("misses", 2, cache.getMissCount());
+        assertEquals("size", 2, cache.getSize());
+    }
+
+    public void testPrepareStatementInUse() throws Exception
+    {
+        PreparedStatementCache cache = new PreparedStatementCache();
+
+        PreparedStatement statement = cache.prepareStatement(SQL_A, _jdbcConnection);
+        PreparedStatement other = cache.prepareStatement(SQL_A, _jdbcConnection);
+        assertNotSame(statement, other);
+        assertEquals("misses", 2, cache.getMissCount());
+
+        // only the first statement is cached
+        cache.release(other);
+        assertClosed(other);
+        cache.release(statement);
+        assertSame(statement, cache.prepareStatement(SQL_A, _jdbcConnection));
+        assertEquals("size", 1, cache.getSize());
+    }
+
+    public void testLeastRecentlyUsedIsClosed() throws Exception
+    {
+        PreparedStatementCache cache = new PreparedStatementCache(2);
+
+        PreparedStatement statementA = cache.prepareStatement(SQL_A, _jdbcConnection);
+        cache.release(statementA);
+        PreparedStatement statementB = cache.prepareStatement(SQL_B, _jdbcConnection);
+        cache.release(statementB);
+        // A becomes the most recently used
+        cache.release(cache.prepareStatement(SQL_A, _jdbcConnection));
+        PreparedStatement statementC = cache.prepareStatement(SQL_C, _jdbcConnection);
+        cache.release(statementC);
+
+        assertEquals("size", 2, cache.getSize());
+        assertClosed(statementB);
+        assertSame(statementA, cache.prepareStatement(SQL_A, _jdbcConnection));
+        assertSame(statementC, cache.prepareStatement(SQL_C, _jdbcConnection));
+    }
+
+    public void testEvictedStatementInUseIsClosedOnRelease() throws Exception
+    {
+        PreparedStatementCache cache = new PreparedStatementCache(1);
+
+        PreparedStatement statementA = cache.prepareStatement(SQL_A, _jdbcConnection);
+        cache.release(cache.prepareStatement(SQL_B, _jdbcConnection));
+        statementA.clearParameters();
+
+        cache.release(statementA);
+        assertClosed(statementA);
+    }
+
+    public void testClearOnOtherConnection() throws Exception
+    {
+        PreparedStatementCache cache = new PreparedStatementCache();
+        PreparedStatement statement = cache.prepareStatement(SQL_A, _jdbcConnection);
+        cache.release(statement);
+
+        Connection otherConnection = DriverManager.getConnection("jdbc:h2:mem:statementcache", "sa", "");
+        try
+        {
+            PreparedStatement other = cache.prepareStatement(SQL_A, otherConnection);
+            assertNotSame(statement, other);
+            assertClosed(statement);
+            assertEquals("size", 1, cache.getSize());
+            cache.release(other);
+        }
+        finally
+        {
+            cache.clear();
+            otherConnection.close();
+        }
+    }
+
+    public void testOperationsReuseStatements() throws Exception
+    {
+        PreparedStatementCache cache = new PreparedStatementCache();
+        IDatabaseConnection connection = new H2Connection(_jdbcConnection, "PUBLIC");
+        connection.getConfig().setProperty(DatabaseConfig.PROPERTY_PREPARED_STATEMENT_CACHE, cache);
+        IDataSet dataSet = new FlatXmlDataSetBuilder().build(new StringReader(
+                "<dataset>" +
+                "<CACHE_TABLE ID='1' NAME='one'/>" +
+                "<CACHE_TABLE ID='2'/>" +
+                "</dataset>"));
+
+        DatabaseOperation.CLEAN_INSERT.execute(connection, dataSet);
+        int misses = cache.getMissCount();
+        DatabaseOperation.CLEAN_INSERT.execute(connection, dataSet);
+        assertEquals("no new statement for the second insert", misses, cache.getMissCount());
+
+        DatabaseOperation.REFRESH.execute(connection, dataSet);
+        misses = cache.getMissCount();
+        DatabaseOperation.REFRESH.execute(connection, dataSet);
+        assertEquals("no new statement for the second refresh", misses, cache.getMissCount());
+        assertTrue("hits", cache.getHitCount() > 0);
+        assertEquals(2, connection.getRowCount("CACHE_TABLE"));
+
+        connection.close();
+        assertEquals("size", 0, cache.getSize());
+    }
+}
@@ -135,6 +135,35 @@ public abstract class AbstractTableTest extends TestCase
         }
     }
 
+    public void testGetValueByColumnIndex() throws Exception
+    {
+        ITable table = createTable();
+        ITableMetaData metaData = table.getTableMetaData();
+        for (int i = 0; i < ROW_COUNT; i++)
+        {
+            for (int j = 0; j < COLUMN_COUNT; j++)
+            {
+                int columnIndex = metaData.getColumnIndex("COLUMN" + j);
+                String expected = "row " + i + " col " + j;
+                Object value = Tables.getValue(table, i, columnIndex);
+                assertEquals("value", expected, value);
+            }
+        }
+    }
+
+    public void testHasRow() throws Exception
+    {
+        ITable table = createTable();
+        assertEquals("row -1", false, Tables.hasRow(table, -1));
+        for (int i = 0; i < ROW_COUNT; i++)
+        {
+            assertEquals("row " + i, true, Tables.hasRow(table, i));
+            assertEquals("value", "row " + i + " col 0", table.getValue(i, "COLUMN0"));
+        }
+        assertEquals("row " + ROW_COUNT, false, Tables.hasRow(table, ROW_COUNT));
+        assertEquals("row " + (ROW_COUNT + 1), false, Tables.hasRow(table, ROW_COUNT + 1));
+    }
+
     public void testGetValueAndNoSuchColumn() throws Exception
     {
         ITable table = createTable();
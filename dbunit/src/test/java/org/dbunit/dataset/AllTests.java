@@ -54,6 +54,7 @@ public class AllTests extends TestSuite
         suite.addTest(new TestSuite(DefaultTableIteratorTest.class));
         suite.addTest(new TestSuite(DefaultTableMetaDataTest.class));
         suite.addTest(new TestSuite(DefaultTableTest.class));
+        suite.addTest(new TestSuite(DiskBackedTableTest.class));
         suite.addTest(new TestSuite(FilteredDataSetTest.class));
         suite.addTest(new TestSuite(FilteredTableMetaDataTest.class));
         suite.addTest(new TestSuite(ForwardOnlyDataSetTest.class));
@@ -64,6 +65,8 @@ public class AllTests extends TestSuite
         suite.addTest(new TestSuite(ReplacementTableTest.class));
         suite.addTest(new TestSuite(SortedDataSetTest.class));
         suite.addTest(new TestSuite(SortedTableTest.class));
+        suite.addTest(new TestSuite(SpillingTableTest.class));
+        suite.addTest(new TestSuite(TablesTest.class));
 
         return suite;
     }
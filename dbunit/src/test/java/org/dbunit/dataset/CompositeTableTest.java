@@ -43,6 +43,28 @@ public class CompositeTableTest extends DefaultTableTest
 
         return new CompositeTable(metaData, tables);
     }
+
+    public void testGetValueByColumnIndexWithDifferentColumnOrder() throws Exception
+    {
+        Column[] columns = createTableMetaData(COLUMN_COUNT).getColumns();
+        Column[] reversedColumns = new Column[columns.length];
+        for (int i = 0; i < columns.length; i++)
+        {
+            reversedColumns[i] = columns[columns.length - 1 - i];
+        }
+        DefaultTable reversedTable = new DefaultTable(
+                new DefaultTableMetaData("myTable", reversedColumns));
+        reversedTable.addRow(new Object[] {"c3", "c2", "c1", "c0"});
+
+        ITable table = new CompositeTable(createTableMetaData(COLUMN_COUNT),
+                new ITable[] {createTable(COLUMN_COUNT, 1, 0), reversedTable});
+        assertEquals("row 0 col 1", Tables.getValue(table, 0, 1));
+        for (int j = 0; j < COLUMN_COUNT; j++)
+        {
+            assertEquals("c" + j, Tables.getValue(table, 1, j));
+            assertEquals("c" + j, table.getValue(1, "COLUMN" + j));
+        }
+    }
 }
 
 
@@ -0,0 +1,178 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.dataset;
+
+import java.io.File;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.Locale;
+
+import org.dbunit.dataset.datatype.DataType;
+
+/**
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.5.2
+ */
+public class DiskBackedTableTest extends AbstractTableTest
+{
+    public DiskBackedTableTest(String s)
+    {
+        super(s);
+    }
+
+    protected ITable createTable() throws Exception
+    {
+        // Small pages to read rows spanning several pages
+        DiskBackedTable table = new DiskBackedTable(createTableMetaData(COLUMN_COUNT), null, 16, 2);
+        for (int i = 0; i < ROW_COUNT; i++)
+        {
+            Object[] rowValues = new Object[COLUMN_COUNT];
+            for (int j = 0; j < rowValues.length; j++)
+            {
+                rowValues[j] = "row " + i + " col " + j;
+            }
+            table.addRow(rowValues);
+        }
+        return table;
+    }
+
+    private ITableMetaData createTableMetaData(int columnCount)
+    {
+        Column[] columns = new Column[columnCount];
+        for (int i = 0; i < columns.length; i++)
+        {
+            columns[i] = new Column("COLUMN" + i, DataType.UNKNOWN);
+        }
+        return new DefaultTableMetaData("myTable", columns);
+    }
+
+    public void testGetMissingValue() throws Exception
+    {
+        DiskBackedTable table = new DiskBackedTable(createTableMetaData(COLUMN_COUNT));
+        table.addRow(new Object[] {ITable.NO_VALUE, ITable.NO_VALUE, ITable.NO_VALUE, ITable.NO_VALUE});
+        assertSame(ITable.NO_VALUE, table.getValue(0, "COLUMN0"));
+        table.close();
+    }
+
+    public void testValuesAreRestored() throws Exception
+    {
+        Timestamp timestamp = new Timestamp(1000);
+        timestamp.setNanos(123456789);
+        Object[] values = new Object[] {null, ITable.NO_VALUE, "\u00e4\u00f6\u00fc text", new Integer(-1),
+                new Long(Long.MAX_VALUE), new Double(0.1), new Float(-2.5f), new BigDecimal("-12.340"),
+                new BigInteger("123456789012345678901234567890"), new java.sql.Date(86400000L),
+                new Time(3600000L), timestamp, new java.util.Date(5L), Boolean.TRUE,
+                new Short((short) 7), new Byte((byte) -8), Locale.GERMANY};
+        DiskBackedTable table = new DiskBackedTable(createTableMetaData(values.length + 1));
+        Object[] row = new Object[values.length + 1];
+        System.arraycopy(values, 0, row, 0, values.length);
+        row[values.length] = new byte[] {1, 2, 3};
+        table.addRow(row);
+
+        for (int i = 0; i < values.length; i++)
+        {
+            Object actual = table.getValue(0, i);
+            assertEquals("column " + i, values[i], actual);
+            if (values[i] != null)
+            {
+                assertEquals("column " + i, values[i].getClass(), actual.getClass());
+            }
+        }
+        assertSame(ITable.NO_VALUE, table.getValue(0, 1));
+        assertEquals(123456789, ((Timestamp) table.getValue(0, 11)).getNanos());
+        assertEquals(3, ((BigDecimal) table.getValue(0, 7)).scale());
+        assertTrue(Arrays.equals(new byte[] {1, 2, 3}, (byte[]) table.getValue(0, values.length)));
+        table.close();
+    }
+
+    public void testNotSerializableValue() throws Exception
+    {
+        DiskBackedTable table = new DiskBackedTable(createTableMetaData(1));
+        try
+        {
+            table.addRow(new Object[] {new Object()});
+            fail("Should not store an object that is not serializable");
+        }
+        catch (DataSetException expected)
+        {
+        }
+        table.close();
+    }
+
+    public void testReadWhileAppending() throws Exception
+    {
+        DiskBackedTable table = new DiskBackedTable(createTableMetaData(2), null, 64, 1);
+        for (int i = 0; i < 1000; i++)
+        {
+            table.addRow(new Object[] {new Integer(i), "value " + i});
+            // Reads the last row from the partially filled last page
+            assertEquals("value " + i, table.getValue(i, 1));
+            if (i % 100 == 0)
+            {
+                assertEquals(new Integer(i / 2), table.getValue(i / 2, 0));
+            }
+        }
+        assertEquals(1000, table.getRowCount());
+        for (int i = 999; i >= 0; i--)
+        {
+            assertEquals(new Integer(i), table.getValue(i, "COLUMN0"));
+            assertEquals("value " + i, table.getValue(i, "COLUMN1"));
+        }
+        table.close();
+    }
+
+    public void testCloseDeletesFile() throws Exception
+    {
+        File directory = File.createTempFile("diskBackedTable", "");
+        directory.delete();
+        directory.mkdir();
+        try
+        {
+            DiskBackedTable table = new DiskBackedTable(createTableMetaData(1), directory, 1024, 1);
+            table.addRow(new Object[] {"value"});
+            assertEquals(1, directory.listFiles().length);
+            assertTrue(table.getLength() > 0);
+
+            table.close();
+            try
+            {
+                table.getValue(0, 0);
+                fail("Should not read a closed table");
+            }
+            catch (IllegalStateException expected)
+            {
+            }
+        }
+        finally
+        {
+            File[] files = directory.listFiles();
+            for (int i = 0; i < files.length; i++)
+            {
+                files[i].delete();
+            }
+            directory.delete();
+        }
+    }
+}
@@ -114,4 +114,12 @@ public class ForwardOnlyTableTest extends DefaultTableTest
         }
     }
 
+    public void testHasRowOnEmptyTable() throws Exception
+    {
+        MockTableMetaData metaData =
+                new MockTableMetaData("TABLE", new String[] {"C1"});
+        ITable table = new ForwardOnlyTable(new DefaultTable(metaData));
+        assertEquals(false, Tables.hasRow(table, 0));
+    }
+
 }
@@ -23,6 +23,8 @@ package org.dbunit.dataset;
 
 import java.io.File;
 import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Random;
 
 import org.dbunit.dataset.datatype.DataType;
 import org.dbunit.dataset.xml.FlatXmlDataSetBuilder;
@@ -202,13 +204,156 @@ public class SortedTableTest extends AbstractTableTest
         assertEquals(Column.NULLABLE, actualSortColumn.getNullable());
     }
 
-}
+    private ITable createMixedTable(int rowCount) throws Exception
+    {
+        Column[] columns = new Column[]{
+                new Column("ID", DataType.INTEGER),
+                new Column("INT_COL", DataType.INTEGER),
+                new Column("DOUBLE_COL", DataType.DOUBLE),
+                new Column("NUMERIC_COL", DataType.NUMERIC),
+                new Column("VARCHAR_COL", DataType.VARCHAR),
+                new Column("BOOLEAN_COL", DataType.BOOLEAN)
+        };
+        DefaultTable table = new DefaultTable("MIXED_TABLE", columns);
+        Random random = new Random(42);
+        for (int i = 0; i < rowCount; i++)
+        {
+            table.addRow(new Object[]{
+                    new Integer(i),
+                    random.nextInt(10) == 0 ? null : new Integer(random.nextInt(50) - 25),
+                    random.nextInt(10) == 0 ? null : new Double(random.nextInt(20) / 4.0),
+                    random.nextInt(10) == 0 ? null : String.valueOf(random.nextInt(30) - 15),
+                    random.nextInt(10) == 0 ? null : "v" + random.nextInt(12),
+                    random.nextBoolean() ? Boolean.TRUE : Boolean.FALSE
+            });
+        }
+        return table;
+    }
 
+    private void assertSameOrder(ITable table, Column[] sortColumns, boolean useComparable,
+            boolean parallelSort) throws Exception
+    {
+        SortedTable expected = new SortedTable(table, sortColumns);
+        if (useComparable)
+        {
+            expected.setRowComparator(new SortedTable.RowComparator(table, expected.getSortColumns()));
+        }
+        else
+        {
+            expected.setRowComparator(new SortedTable.RowComparatorByString(table, expected.getSortColumns()));
+        }
 
+        SortedTable actual = new SortedTable(table, sortColumns);
+        actual.setUseComparable(useComparable);
+        actual.setParallelSort(parallelSort);
 
+        assertEquals("row count", expected.getRowCount(), actual.getRowCount());
+        for (int i = 0; i < expected.getRowCount(); i++)
+        {
+            assertEquals("row " + i, expected.getValue(i, "ID"), actual.getValue(i, "ID"));
+        }
+    }
 
+    public void testTypedSortMatchesRowComparators() throws Exception
+    {
+        ITable table = createMixedTable(500);
+        Column[] sortColumns = table.getTableMetaData().getColumns();
+        Column[] keyColumns = new Column[]{
+                sortColumns[4], sortColumns[1], sortColumns[2], sortColumns[3], sortColumns[5]
+        };
+
+        assertSameOrder(table, keyColumns, true, false);
+        assertSameOrder(table, keyColumns, false, false);
+        assertSameOrder(table, new Column[]{sortColumns[3], sortColumns[2]}, true, false);
+        assertSameOrder(table, new Column[]{sortColumns[3], sortColumns[2]}, false, false);
+    }
 
+    public void testParallelSort() throws Exception
+    {
+        ITable table = createMixedTable(TableSorter.PARALLEL_SORT_THRESHOLD * 3 + 7);
+        Column[] sortColumns = table.getTableMetaData().getColumns();
+        Column[] keyColumns = new Column[]{sortColumns[2], sortColumns[1]};
+
+        assertSameOrder(table, keyColumns, true, true);
+        assertSameOrder(table, keyColumns, false, true);
+    }
 
+    public void testParallelSortRuns() throws Exception
+    {
+        ITable table = createMixedTable(TableSorter.PARALLEL_SORT_THRESHOLD * 3 + 7);
+        Column[] sortColumns = table.getTableMetaData().getColumns();
+        Column[] keyColumns = new Column[]{sortColumns[4], sortColumns[3], sortColumns[2]};
 
+        int[] sequential = new TableSorter(table, keyColumns, true).sort(1);
+        int[] parallel = new TableSorter(table, keyColumns, true).sort(3);
+        assertEquals(sequential.length, parallel.length);
+        for (int i = 0; i < sequential.length; i++)
+        {
+            assertEquals("row " + i, sequential[i], parallel[i]);
+        }
+    }
 
+    public void testSortIsStable() throws Exception
+    {
+        ITable table = createMixedTable(200);
+        SortedTable sortedTable = new SortedTable(table, new String[]{"BOOLEAN_COL"});
+        sortedTable.setUseComparable(true);
 
+        Object previousFlag = null;
+        int previousId = -1;
+        for (int i = 0; i < sortedTable.getRowCount(); i++)
+        {
+            Object flag = sortedTable.getValue(i, "BOOLEAN_COL");
+            int id = ((Integer) sortedTable.getValue(i, "ID")).intValue();
+            if (flag.equals(previousFlag))
+            {
+                assertTrue("row " + i, id > previousId);
+            }
+            previousFlag = flag;
+            previousId = id;
+        }
+        assertEquals(Boolean.FALSE, sortedTable.getValue(0, "BOOLEAN_COL"));
+    }
+
+    public void testSortByComparableWithNullsAndDecimals() throws Exception
+    {
+        Column[] columns = new Column[]{
+                new Column("COLUMN0", DataType.NUMERIC),
+                new Column("COLUMN1", DataType.VARCHAR)
+        };
+        DefaultTable table = new DefaultTable("TEST_TABLE", columns);
+        table.addRow(new Object[]{"10.50", "a"});
+        table.addRow(new Object[]{null, "b"});
+        table.addRow(new Object[]{new BigDecimal("9.9"), "c"});
+        table.addRow(new Object[]{new Integer(-3), "d"});
+
+        SortedTable sortedTable = new SortedTable(table, new String[]{"COLUMN0"});
+        sortedTable.setUseComparable(true);
+
+        Object[] expected = {"b", "d", "c", "a"};
+        for (int i = 0; i < sortedTable.getRowCount(); i++)
+        {
+            assertEquals("value row " + i, expected[i], sortedTable.getValue(i, "COLUMN1"));
+        }
+    }
+
+    public void testSortWithInvalidValue() throws Exception
+    {
+        Column[] columns = new Column[]{new Column("COLUMN0", DataType.INTEGER)};
+        DefaultTable table = new DefaultTable("TEST_TABLE", columns);
+        table.addRow(new Object[]{"1"});
+        table.addRow(new Object[]{"not a number"});
+
+        SortedTable sortedTable = new SortedTable(table);
+        sortedTable.setUseComparable(true);
+        try
+        {
+            sortedTable.getValue(0, "COLUMN0");
+            fail("Should not be able to sort an invalid number");
+        }
+        catch (DataSetException expected)
+        {
+        }
+    }
+
+}
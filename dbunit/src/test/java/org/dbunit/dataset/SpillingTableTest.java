@@ -0,0 +1,123 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.dataset;
+
+import java.io.StringReader;
+
+import org.dbunit.dataset.datatype.DataType;
+import org.dbunit.dataset.xml.FlatXmlProducer;
+import org.xml.sax.InputSource;
+
+/**
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.5.2
+ */
+public class SpillingTableTest extends AbstractTableTest
+{
+    public SpillingTableTest(String s)
+    {
+        super(s);
+    }
+
+    protected ITable createTable() throws Exception
+    {
+        SpillingTable table = new SpillingTable(createTableMetaData(), new SpillThreshold(2, 0));
+        for (int i = 0; i < ROW_COUNT; i++)
+        {
+            Object[] rowValues = new Object[COLUMN_COUNT];
+            for (int j = 0; j < rowValues.length; j++)
+            {
+                rowValues[j] = "row " + i + " col " + j;
+            }
+            table.addRow(rowValues);
+        }
+        assertTrue(table.isSpilled());
+        return table;
+    }
+
+    private ITableMetaData createTableMetaData()
+    {
+        Column[] columns = new Column[COLUMN_COUNT];
+        for (int i = 0; i < columns.length; i++)
+        {
+            columns[i] = new Column("COLUMN" + i, DataType.UNKNOWN);
+        }
+        return new DefaultTableMetaData("myTable", columns);
+    }
+
+    public void testGetMissingValue() throws Exception
+    {
+        SpillingTable table = new SpillingTable(createTableMetaData(), new SpillThreshold(0, 1));
+        table.addRow(new Object[] {ITable.NO_VALUE, ITable.NO_VALUE, ITable.NO_VALUE, ITable.NO_VALUE});
+        assertSame(ITable.NO_VALUE, table.getValue(0, "COLUMN0"));
+        table.close();
+    }
+
+    public void testRowThreshold() throws Exception
+    {
+        SpillingTable table = new SpillingTable(createTableMetaData(), new SpillThreshold(3, 0));
+        for (int i = 0; i < 3; i++)
+        {
+            table.addRow(new Object[] {"a", "b", "c", new Integer(i)});
+        }
+        assertFalse(table.isSpilled());
+        table.addRow(new Object[] {"a", "b", "c", new Integer(3)});
+        assertTrue(table.isSpilled());
+        assertEquals(4, table.getRowCount());
+        assertEquals(new Integer(0), table.getValue(0, 3));
+        assertEquals(new Integer(3), table.getValue(3, "COLUMN3"));
+        table.close();
+    }
+
+    public void testByteThreshold() throws Exception
+    {
+        SpillingTable table = new SpillingTable(createTableMetaData(), new SpillThreshold(0, 1000));
+        table.addRow(new Object[] {"short", null, null, null});
+        assertFalse(table.isSpilled());
+        table.addRow(new Object[] {new String(new char[1000]), null, null, null});
+        assertTrue(table.isSpilled());
+        assertEquals("short", table.getValue(0, 0));
+        table.close();
+    }
+
+    public void testCachedDataSet() throws Exception
+    {
+        String xml = "<dataset>"
+                + "<A COL='1'/><A COL='2'/><A COL='3'/>"
+                + "<B COL='1'/>"
+                + "<A COL='4'/>"
+                + "</dataset>";
+        IDataSet dataSet = new CachedDataSet(new FlatXmlProducer(
+                new InputSource(new StringReader(xml))), false, new SpillThreshold(2, 0));
+
+        ITable tableA = dataSet.getTable("A");
+        assertTrue(((SpillingTable) tableA).isSpilled());
+        assertEquals(4, tableA.getRowCount());
+        assertEquals("4", tableA.getValue(3, "COL"));
+        assertFalse(((SpillingTable) dataSet.getTable("B")).isSpilled());
+
+        CachedDataSet copy = new CachedDataSet(dataSet, new SpillThreshold(3, 0));
+        assertTrue(((SpillingTable) copy.getTable("A")).isSpilled());
+        assertEquals("3", copy.getTable("A").getValue(2, "COL"));
+        assertEquals("1", copy.getTable("B").getValue(0, "COL"));
+    }
+}
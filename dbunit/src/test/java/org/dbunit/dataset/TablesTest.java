@@ -0,0 +1,153 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.dataset;
+
+import junit.framework.TestCase;
+
+import org.dbunit.dataset.datatype.DataType;
+
+/**
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.5.2
+ */
+public class TablesTest extends TestCase
+{
+    public TablesTest(String s)
+    {
+        super(s);
+    }
+
+    private DefaultTable createTable() throws Exception
+    {
+        DefaultTable table = new DefaultTable("T", new Column[] {
+            new Column("C0", DataType.VARCHAR),
+            new Column("C1", DataType.VARCHAR)
+        });
+        table.addRow(new Object[] {"a0", "a1"});
+        table.addRow(new Object[] {"b0", "b1"});
+        return table;
+    }
+
+    public void testIndexedTable() throws Exception
+    {
+        ITable table = createTable();
+
+        assertTrue(Tables.hasRow(table, 1));
+        assertFalse(Tables.hasRow(table, 2));
+        assertEquals("b1", Tables.getValue(table, 1, 1));
+    }
+
+    public void testPlainTable() throws Exception
+    {
+        ITable table = new PlainTable(createTable(), false);
+
+        assertFalse(Tables.hasRow(table, -1));
+        assertTrue(Tables.hasRow(table, 1));
+        assertFalse(Tables.hasRow(table, 2));
+        assertEquals("a1", Tables.getValue(table, 0, 1));
+    }
+
+    public void testPlainTableWithoutRowCount() throws Exception
+    {
+        ITable table = new PlainTable(createTable(), true);
+
+        assertTrue(Tables.hasRow(table, 0));
+        assertTrue(Tables.hasRow(table, 1));
+        assertFalse(Tables.hasRow(table, 2));
+        assertEquals("b0", Tables.getValue(table, 1, 0));
+    }
+
+    public void testForwardOnlyAbstractTable() throws Exception
+    {
+        ITable table = new ForwardOnlyAbstractTable(createTable());
+
+        assertFalse(Tables.hasRow(table, -1));
+        assertTrue(Tables.hasRow(table, 0));
+        assertTrue(Tables.hasRow(table, 1));
+        assertFalse(Tables.hasRow(table, 2));
+        assertEquals("b1", Tables.getValue(table, 1, 1));
+    }
+
+    /**
+     * A forward only {@link AbstractTable} of a third party that does not
+     * override {@link AbstractTable#hasRow(int)}
+     */
+    private static class ForwardOnlyAbstractTable extends AbstractTable
+    {
+        private final ITable _table;
+
+        ForwardOnlyAbstractTable(ITable table)
+        {
+            _table = table;
+        }
+
+        public ITableMetaData getTableMetaData()
+        {
+            return _table.getTableMetaData();
+        }
+
+        public int getRowCount()
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        public Object getValue(int row, String column) throws DataSetException
+        {
+            assertValidRowIndex(row, _table.getRowCount());
+            return _table.getValue(row, column);
+        }
+    }
+
+    /**
+     * An {@link ITable} implementation that only knows the methods of {@link ITable}
+     */
+    private static class PlainTable implements ITable
+    {
+        private final ITable _table;
+        private final boolean _forwardOnly;
+
+        PlainTable(ITable table, boolean forwardOnly)
+        {
+            _table = table;
+            _forwardOnly = forwardOnly;
+        }
+
+        public ITableMetaData getTableMetaData()
+        {
+            return _table.getTableMetaData();
+        }
+
+        public int getRowCount()
+        {
+            if (_forwardOnly)
+            {
+                throw new UnsupportedOperationException();
+            }
+            return _table.getRowCount();
+        }
+
+        public Object getValue(int row, String column) throws DataSetException
+        {
+            return _table.getValue(row, column);
+        }
+    }
+}
@@ -0,0 +1,215 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.dataset.stream;
+
+import java.util.concurrent.Executor;
+
+import junit.framework.TestCase;
+
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.DataSetException;
+import org.dbunit.dataset.DefaultTableMetaData;
+import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.ITableIterator;
+import org.dbunit.dataset.Tables;
+
+/**
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.5.2
+ */
+public class StreamingIteratorTest extends TestCase
+{
+    public StreamingIteratorTest(String s)
+    {
+        super(s);
+    }
+
+    private MockDataSetProducer createProducer(int tableCount, int rowCount)
+    {
+        MockDataSetProducer producer = new MockDataSetProducer();
+        producer.setupTableCount(tableCount);
+        producer.setupColumnCount(2);
+        producer.setupRowCount(rowCount);
+        return producer;
+    }
+
+    public void testRowsAreHandedOverInBatches() throws Exception
+    {
+        StreamingIterator iterator = new StreamingIterator(createProducer(2, 250),
+                new StreamingConfig(2, 100, null));
+
+        for (int i = 0; i < 2; i++)
+        {
+            assertTrue(iterator.next());
+            ITable table = iterator.getTable();
+            assertEquals("TABLE" + i, table.getTableMetaData().getTableName());
+            for (int row = 0; row < 250; row++)
+            {
+                assertEquals(row + ",1", table.getValue(row, "COLUMN1"));
+            }
+            assertFalse(Tables.hasRow(table, 250));
+        }
+        assertFalse(iterator.next());
+
+        StreamingStatistics statistics = iterator.getStatistics();
+        assertEquals(500, statistics.getRowCount());
+        assertEquals(6, statistics.getBatchCount());
+    }
+
+    public void testSkippedTables() throws Exception
+    {
+        StreamingIterator iterator = new StreamingIterator(createProducer(3, 7),
+                new StreamingConfig(1, 3, null));
+
+        assertTrue(iterator.next());
+        assertTrue(iterator.next());
+        assertEquals("TABLE1", iterator.getTableMetaData().getTableName());
+        assertEquals("4,0", iterator.getTable().getValue(4, "COLUMN0"));
+        assertTrue(iterator.next());
+        assertEquals("TABLE2", iterator.getTableMetaData().getTableName());
+        assertFalse(iterator.next());
+        assertFalse(iterator.next());
+    }
+
+    public void testCustomExecutor() throws Exception
+    {
+        final int[] executions = new int[1];
+        Executor executor = new Executor()
+        {
+            public void execute(Runnable command)
+            {
+                executions[0]++;
+                StreamingConfig.DAEMON_THREAD_EXECUTOR.execute(command);
+            }
+        };
+
+        StreamingDataSet dataSet = new StreamingDataSet(createProducer(1, 5),
+                new StreamingConfig(4, 10, executor));
+        assertNull(dataSet.getStatistics());
+
+        ITableIterator iterator = dataSet.iterator();
+        assertEquals(1, executions[0]);
+        assertTrue(iterator.next());
+        assertTrue(Tables.hasRow(iterator.getTable(), 4));
+        assertFalse(iterator.next());
+        assertEquals(5, dataSet.getStatistics().getRowCount());
+    }
+
+    public void testBackPressure() throws Exception
+    {
+        StreamingIterator iterator = new StreamingIterator(createProducer(1, 20),
+                new StreamingConfig(1, 1, null));
+
+        assertTrue(iterator.next());
+        ITable table = iterator.getTable();
+        for (int row = 0; row < 20; row++)
+        {
+            // Give the producer time to fill the buffer
+            Thread.sleep(5);
+            assertEquals(row + ",0", table.getValue(row, "COLUMN0"));
+        }
+        assertFalse(iterator.next());
+
+        StreamingStatistics statistics = iterator.getStatistics();
+        assertEquals(20, statistics.getBatchCount());
+        assertTrue(statistics.toString(), statistics.getProducerWaitCount() > 0);
+        assertTrue(statistics.toString(), statistics.getProducerWaitTime() > 0);
+    }
+
+    public void testFailureAfterRows() throws Exception
+    {
+        final IllegalStateException failure = new IllegalStateException("failure");
+        IDataSetProducer producer = new MockDataSetProducer()
+        {
+            private IDataSetConsumer _consumer;
+
+            public void setConsumer(IDataSetConsumer consumer) throws DataSetException
+            {
+                _consumer = consumer;
+            }
+
+            public void produce() throws DataSetException
+            {
+                _consumer.startDataSet();
+                _consumer.startTable(new DefaultTableMetaData("T", new Column[0]));
+                _consumer.row(new Object[0]);
+                throw failure;
+            }
+        };
+
+        try
+        {
+            // The failure may already be reported while taking the first element
+            StreamingIterator iterator = new StreamingIterator(producer,
+                    new StreamingConfig(4, 10, null));
+            iterator.next();
+            Tables.getValue(iterator.getTable(), 0, 0);
+            fail("Should not be able to read past the failure");
+        }
+        catch (DataSetException expected)
+        {
+            assertSame(failure, expected.getCause());
+        }
+    }
+
+    public void testProducerWithoutEndDataSet() throws Exception
+    {
+        IDataSetProducer producer = new MockDataSetProducer()
+        {
+            public void produce() throws DataSetException
+            {
+            }
+        };
+
+        try
+        {
+            new StreamingIterator(producer, new StreamingConfig(4, 10, null));
+            fail("Should not wait for a producer that returned");
+        }
+        catch (DataSetException expected)
+        {
+            assertTrue(expected.getCause().getMessage(),
+                    expected.getCause().getMessage().indexOf("without ending") != -1);
+        }
+    }
+
+    public void testInvalidConfig() throws Exception
+    {
+        try
+        {
+            new StreamingConfig(0, 10, null);
+            fail("Should not accept a capacity of 0");
+        }
+        catch (IllegalArgumentException expected)
+        {
+        }
+    }
+
+    public void testDefaultExecutor() throws Exception
+    {
+        assertNotNull(new StreamingConfig().getExecutor());
+        if (StreamingConfig.getVirtualThreadExecutor() == null)
+        {
+            assertSame(StreamingConfig.DAEMON_THREAD_EXECUTOR, StreamingConfig.getDefaultExecutor());
+        }
+    }
+}
@@ -32,6 +32,7 @@ public class AllTests extends TestSuite
     {
         TestSuite suite = new TestSuite();
         suite.addTest(new TestSuite(H2DataTypeFactoryTest.class));
+        suite.addTest(new TestSuite(H2UpsertSqlBuilderTest.class));
         return suite;
     }
 }
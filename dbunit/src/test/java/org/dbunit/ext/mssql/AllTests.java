@@ -37,6 +37,7 @@ public class AllTests extends TestSuite
         suite.addTest(new TestSuite(InsertIdentityOperationIT.class));
         suite.addTest(new TestSuite(MsSqlDataTypeFactoryTest.class));
         suite.addTest(new TestSuite(UniqueIdentifierTypeTest.class));
+        suite.addTest(new TestSuite(MsSqlUpsertSqlBuilderTest.class));
 
         return suite;
     }
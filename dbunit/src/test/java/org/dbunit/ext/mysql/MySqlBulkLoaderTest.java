@@ -0,0 +1,122 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.ext.mysql;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.SQLWarning;
+import java.sql.Statement;
+
+import junit.framework.TestCase;
+
+import org.dbunit.DatabaseUnitException;
+import org.dbunit.database.MockDatabaseConnection;
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.datatype.DataType;
+
+/**
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.5.2
+ */
+public class MySqlBulkLoaderTest extends TestCase
+{
+    public MySqlBulkLoaderTest(String s)
+    {
+        super(s);
+    }
+
+    public void testGetSql() throws Exception
+    {
+        MockDatabaseConnection connection = new MockDatabaseConnection();
+        Column[] columns = new Column[] {
+                new Column("ID", DataType.INTEGER),
+                new Column("NAME", DataType.VARCHAR)};
+
+        MySqlBulkLoader bulkLoader = new MySqlBulkLoader();
+        assertEquals("load data local infile 'dbunit.txt' into table SCHEMA.TABLE1 character set utf8 (ID, NAME)",
+                bulkLoader.getSql("SCHEMA.TABLE1", columns, connection));
+    }
+
+    public void testToText() throws Exception
+    {
+        MySqlBulkLoader bulkLoader = new MySqlBulkLoader();
+        assertEquals("1", bulkLoader.toText(Boolean.TRUE));
+        assertEquals("0", bulkLoader.toText(Boolean.FALSE));
+        assertEquals("abc", bulkLoader.toText("abc"));
+    }
+
+    public void testCheckLoaded() throws Exception
+    {
+        new MySqlBulkLoader().checkLoaded(createStatement(3, null), 3);
+    }
+
+    public void testCheckLoadedWithMissingRows() throws Exception
+    {
+        try
+        {
+            new MySqlBulkLoader().checkLoaded(createStatement(2, null), 3);
+            fail("Should not be here!");
+        }
+        catch (DatabaseUnitException expected)
+        {
+            assertEquals("Loaded 2 of 3 rows", expected.getMessage());
+        }
+    }
+
+    public void testCheckLoadedWithWarnings() throws Exception
+    {
+        SQLWarning warning = new SQLWarning("Data truncated for column 'ID' at row 1");
+        warning.setNextWarning(new SQLWarning("Data truncated for column 'ID' at row 2"));
+        try
+        {
+            new MySqlBulkLoader().checkLoaded(createStatement(3, warning), 3);
+            fail("Should not be here!");
+        }
+        catch (DatabaseUnitException expected)
+        {
+            assertEquals("Loaded 3 of 3 rows: Data truncated for column 'ID' at row 1; "
+                    + "Data truncated for column 'ID' at row 2", expected.getMessage());
+        }
+    }
+
+    private Statement createStatement(final int updateCount, final SQLWarning warning)
+    {
+        InvocationHandler handler = new InvocationHandler()
+        {
+            public Object invoke(Object proxy, Method method, Object[] args)
+            {
+                if (method.getName().equals("getUpdateCount"))
+                {
+                    return new Integer(updateCount);
+                }
+                if (method.getName().equals("getWarnings"))
+                {
+                    return warning;
+                }
+                throw new UnsupportedOperationException(method.getName());
+            }
+        };
+        return (Statement)Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class[] {Statement.class}, handler);
+    }
+}
@@ -35,6 +35,7 @@ public class AllTests extends TestSuite
         TestSuite suite = new TestSuite();
         suite.addTest(new TestSuite(OracleDataTypeFactoryTest.class));
         suite.addTest(new TestSuite(Oracle10DataTypeFactoryTest.class));
+        suite.addTest(new TestSuite(OracleUpsertSqlBuilderTest.class));
         return suite;
     }
 }
@@ -0,0 +1,78 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.ext.oracle;
+
+import junit.framework.TestCase;
+
+import org.dbunit.database.MockDatabaseConnection;
+import org.dbunit.dataset.ITableMetaData;
+import org.dbunit.operation.IUpsertSqlBuilder;
+import org.dbunit.operation.MergeUpsertSqlBuilderTest;
+
+/**
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.5.2
+ */
+public class OracleUpsertSqlBuilderTest extends TestCase
+{
+    private MockDatabaseConnection _connection;
+
+    public OracleUpsertSqlBuilderTest(String s)
+    {
+        super(s);
+    }
+
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+
+        _connection = new MockDatabaseConnection();
+        _connection.setupSchema("SCHEMA");
+    }
+
+    public void testGetSql() throws Exception
+    {
+        String expected = "merge into SCHEMA.TABLE1 t"
+            + " using (select ? PK0, ? COL0, ? COL1 from dual) s"
+            + " on (t.PK0 = s.PK0)"
+            + " when matched then update set t.COL0 = s.COL0, t.COL1 = s.COL1"
+            + " when not matched then insert (PK0, COL0, COL1) values (s.PK0, s.COL0, s.COL1)";
+
+        ITableMetaData metaData = MergeUpsertSqlBuilderTest.createMetaData(
+                new String[] {"PK0", "COL0", "COL1"}, new String[] {"PK0"});
+        IUpsertSqlBuilder builder = new OracleUpsertSqlBuilder();
+        assertEquals(expected, builder.getSql(metaData, _connection));
+    }
+
+    public void testGetSqlOnlyPrimaryKey() throws Exception
+    {
+        String expected = "merge into SCHEMA.TABLE1 t"
+            + " using (select ? PK0 from dual) s"
+            + " on (t.PK0 = s.PK0)"
+            + " when not matched then insert (PK0) values (s.PK0)";
+
+        ITableMetaData metaData = MergeUpsertSqlBuilderTest.createMetaData(
+                new String[] {"PK0"}, new String[] {"PK0"});
+        IUpsertSqlBuilder builder = new OracleUpsertSqlBuilder();
+        assertEquals(expected, builder.getSql(metaData, _connection));
+    }
+}
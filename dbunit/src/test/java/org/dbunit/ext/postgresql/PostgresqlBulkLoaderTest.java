@@ -0,0 +1,52 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.ext.postgresql;
+
+import junit.framework.TestCase;
+
+import org.dbunit.database.MockDatabaseConnection;
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.datatype.DataType;
+
+/**
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.5.2
+ */
+public class PostgresqlBulkLoaderTest extends TestCase
+{
+    public PostgresqlBulkLoaderTest(String s)
+    {
+        super(s);
+    }
+
+    public void testGetSql() throws Exception
+    {
+        MockDatabaseConnection connection = new MockDatabaseConnection();
+        Column[] columns = new Column[] {
+                new Column("ID", DataType.INTEGER),
+                new Column("NAME", DataType.VARCHAR)};
+
+        PostgresqlBulkLoader bulkLoader = new PostgresqlBulkLoader();
+        assertEquals("copy SCHEMA.TABLE1 (ID, NAME) from stdin",
+                bulkLoader.getSql("SCHEMA.TABLE1", columns, connection));
+    }
+}
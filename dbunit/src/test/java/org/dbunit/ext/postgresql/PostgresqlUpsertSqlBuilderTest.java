@@ -0,0 +1,77 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.ext.postgresql;
+
+import junit.framework.TestCase;
+
+import org.dbunit.database.MockDatabaseConnection;
+import org.dbunit.dataset.ITableMetaData;
+import org.dbunit.operation.IUpsertSqlBuilder;
+import org.dbunit.operation.MergeUpsertSqlBuilderTest;
+
+/**
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.5.2
+ */
+public class PostgresqlUpsertSqlBuilderTest extends TestCase
+{
+    private MockDatabaseConnection _connection;
+
+    public PostgresqlUpsertSqlBuilderTest(String s)
+    {
+        super(s);
+    }
+
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+
+        _connection = new MockDatabaseConnection();
+        _connection.setupSchema("SCHEMA");
+    }
+
+    public void testGetSql() throws Exception
+    {
+        String expected = "insert into SCHEMA.TABLE1 (PK0, COL0, COL1)"
+            + " values (?, ?, ?)"
+            + " on conflict (PK0)"
+            + " do update set COL0 = excluded.COL0, COL1 = excluded.COL1";
+
+        ITableMetaData metaData = MergeUpsertSqlBuilderTest.createMetaData(
+                new String[] {"PK0", "COL0", "COL1"}, new String[] {"PK0"});
+        IUpsertSqlBuilder builder = new PostgresqlUpsertSqlBuilder();
+        assertEquals(expected, builder.getSql(metaData, _connection));
+    }
+
+    public void testGetSqlOnlyPrimaryKey() throws Exception
+    {
+        String expected = "insert into SCHEMA.TABLE1 (PK0)"
+            + " values (?)"
+            + " on conflict (PK0)"
+            + " do nothing";
+
+        ITableMetaData metaData = MergeUpsertSqlBuilderTest.createMetaData(
+                new String[] {"PK0"}, new String[] {"PK0"});
+        IUpsertSqlBuilder builder = new PostgresqlUpsertSqlBuilder();
+        assertEquals(expected, builder.getSql(metaData, _connection));
+    }
+}
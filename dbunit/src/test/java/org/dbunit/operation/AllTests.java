@@ -36,15 +36,20 @@ public class AllTests extends TestSuite
         TestSuite suite = new TestSuite();
 
         suite.addTest(new TestSuite(AbstractBatchOperationIT.class));
+        suite.addTest(new TestSuite(BulkLoadTest.class));
         suite.addTest(new TestSuite(CloseConnectionOperationIT.class));
         suite.addTest(new TestSuite(CompositeOperationIT.class));
         suite.addTest(new TestSuite(DeleteAllOperationIT.class));
         suite.addTest(new TestSuite(DeleteOperationIT.class));
+        suite.addTest(new TestSuite(GroupRowsByIgnoreMappingTest.class));
         suite.addTest(new TestSuite(InsertOperationIT.class));
+        suite.addTest(new TestSuite(MergeUpsertSqlBuilderTest.class));
+        suite.addTest(new TestSuite(ParallelTableExecutorTest.class));
         suite.addTest(new TestSuite(RefreshOperationIT.class));
         suite.addTest(new TestSuite(TransactionOperationIT.class));
         suite.addTest(new TestSuite(TruncateTableOperationIT.class));
         suite.addTest(new TestSuite(UpdateOperationIT.class));
+        suite.addTest(new TestSuite(UpsertOperationTest.class));
 
         return suite;
     }
@@ -0,0 +1,243 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.operation;
+
+import java.io.StringReader;
+import java.sql.Connection;
+import java.sql.Statement;
+
+import junit.framework.TestCase;
+
+import org.dbunit.HypersonicEnvironment;
+import org.dbunit.database.DatabaseConfig;
+import org.dbunit.database.DatabaseConnection;
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.DefaultDataSet;
+import org.dbunit.dataset.DefaultTable;
+import org.dbunit.dataset.DefaultTableMetaData;
+import org.dbunit.dataset.IDataSet;
+import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.datatype.DataType;
+import org.dbunit.dataset.stream.StreamingDataSet;
+import org.dbunit.dataset.xml.FlatXmlDataSetBuilder;
+import org.dbunit.dataset.xml.FlatXmlProducer;
+import org.xml.sax.InputSource;
+
+/**
+ * Tests the bulk load path of the {@link InsertOperation} with the
+ * {@link JdbcBulkLoader} stand-in.
+ *
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.5.2
+ */
+public class BulkLoadTest extends TestCase
+{
+    private static final String DATABASE = "bulkloaddb";
+
+    private static final String DATASET = "<dataset>" +
+        "<BULK_TABLE ID='1' NAME='one' AMOUNT='10'/>" +
+        "<BULK_TABLE ID='2' NAME='two'/>" +
+        "<BULK_TABLE ID='3' NAME='three' AMOUNT='30'/>" +
+        "<SMALL_TABLE ID='1'/>" +
+        "</dataset>";
+
+    private Connection _jdbcConnection;
+    private IDatabaseConnection _connection;
+    private JdbcBulkLoader _bulkLoader;
+
+    public BulkLoadTest(String s)
+    {
+        super(s);
+    }
+
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+
+        _jdbcConnection = HypersonicEnvironment.createJdbcConnection(DATABASE);
+        Statement statement = _jdbcConnection.createStatement();
+        try
+        {
+            statement.execute("create table BULK_TABLE (ID integer primary key, "
+                    + "NAME varchar(50), AMOUNT integer default 99)");
+            statement.execute("create table SMALL_TABLE (ID integer primary key)");
+        }
+        finally
+        {
+            statement.close();
+        }
+
+        _bulkLoader = new JdbcBulkLoader();
+        _connection = new DatabaseConnection(_jdbcConnection);
+        _connection.getConfig().setProperty(DatabaseConfig.PROPERTY_BULK_LOADER, _bulkLoader);
+        _connection.getConfig().setProperty(DatabaseConfig.PROPERTY_BULK_LOAD_THRESHOLD,
+                new Integer(3));
+    }
+
+    protected void tearDown() throws Exception
+    {
+        super.tearDown();
+
+        HypersonicEnvironment.shutdown(_jdbcConnection);
+        _jdbcConnection.close();
+
+        HypersonicEnvironment.deleteFiles(DATABASE);
+    }
+
+    public void testExecuteAboveThreshold() throws Exception
+    {
+        IDataSet dataSet = new FlatXmlDataSetBuilder().build(new StringReader(DATASET));
+
+        DatabaseOperation.INSERT.execute(_connection, dataSet);
+
+        // only the large table is bulk loaded
+        assertEquals(1, _bulkLoader.getLoadCount());
+        assertEquals("1\tone\t10\n2\ttwo\t\\N\n3\tthree\t30\n", _bulkLoader.getChunks().get(0));
+        assertEquals(3, _connection.getRowCount("BULK_TABLE"));
+        assertEquals(1, _connection.getRowCount("SMALL_TABLE"));
+    }
+
+    public void testExecuteBelowThreshold() throws Exception
+    {
+        _connection.getConfig().setProperty(DatabaseConfig.PROPERTY_BULK_LOAD_THRESHOLD,
+                new Integer(4));
+        IDataSet dataSet = new FlatXmlDataSetBuilder().build(new StringReader(DATASET));
+
+        DatabaseOperation.INSERT.execute(_connection, dataSet);
+
+        assertEquals(0, _bulkLoader.getLoadCount());
+        assertEquals(3, _connection.getRowCount("BULK_TABLE"));
+    }
+
+    public void testExecuteForwardOnly() throws Exception
+    {
+        IDataSet dataSet = new StreamingDataSet(new FlatXmlProducer(
+                new InputSource(new StringReader(DATASET))));
+
+        DatabaseOperation.INSERT.execute(_connection, dataSet);
+
+        // streamed tables are read up to the threshold to find out their size
+        assertEquals(1, _bulkLoader.getLoadCount());
+        assertEquals("1\tone\t10\n2\ttwo\t\\N\n3\tthree\t30\n", _bulkLoader.getChunks().get(0));
+        assertEquals(3, _connection.getRowCount("BULK_TABLE"));
+        assertEquals(1, _connection.getRowCount("SMALL_TABLE"));
+    }
+
+    public void testExecuteForwardOnlyBeyondThreshold() throws Exception
+    {
+        _connection.getConfig().setProperty(DatabaseConfig.PROPERTY_BULK_LOAD_THRESHOLD,
+                new Integer(2));
+        IDataSet dataSet = new StreamingDataSet(new FlatXmlProducer(
+                new InputSource(new StringReader(DATASET))));
+
+        DatabaseOperation.INSERT.execute(_connection, dataSet);
+
+        // the rows read to find out the size are loaded with the remaining ones
+        assertEquals(1, _bulkLoader.getLoadCount());
+        assertEquals("1\tone\t10\n2\ttwo\t\\N\n3\tthree\t30\n", _bulkLoader.getChunks().get(0));
+        assertEquals(3, _connection.getRowCount("BULK_TABLE"));
+        assertEquals(1, _connection.getRowCount("SMALL_TABLE"));
+    }
+
+    public void testExecuteWithDifferentIgnoreMappings() throws Exception
+    {
+        DefaultTable table = new DefaultTable("BULK_TABLE", new Column[] {
+                new Column("ID", DataType.INTEGER),
+                new Column("NAME", DataType.VARCHAR),
+                new Column("AMOUNT", DataType.INTEGER)});
+        table.addRow(new Object[] {new Integer(1), "one", new Integer(10)});
+        table.addRow(new Object[] {new Integer(2), "two", ITable.NO_VALUE});
+        table.addRow(new Object[] {new Integer(3), "three", ITable.NO_VALUE});
+        table.addRow(new Object[] {new Integer(4), "four", new Integer(40)});
+
+        DatabaseOperation.INSERT.execute(_connection, new DefaultDataSet(table));
+
+        assertEquals(3, _bulkLoader.getLoadCount());
+        assertEquals("2\ttwo\n3\tthree\n", _bulkLoader.getChunks().get(1));
+        ITable actual = _connection.createQueryTable("BULK_TABLE",
+                "select * from BULK_TABLE order by ID");
+        assertEquals(4, actual.getRowCount());
+        assertEquals("99", String.valueOf(actual.getValue(1, "AMOUNT")));
+        assertEquals("99", String.valueOf(actual.getValue(2, "AMOUNT")));
+        assertEquals("40", String.valueOf(actual.getValue(3, "AMOUNT")));
+    }
+
+    public void testExecuteWithSpecialCharacters() throws Exception
+    {
+        String name = "a\tb\\c\nd\re";
+        DefaultTable table = new DefaultTable("BULK_TABLE", new Column[] {
+                new Column("ID", DataType.INTEGER),
+                new Column("NAME", DataType.VARCHAR)});
+        table.addRow(new Object[] {new Integer(1), name});
+        table.addRow(new Object[] {new Integer(2), null});
+        table.addRow(new Object[] {new Integer(3), "\\N"});
+
+        DatabaseOperation.INSERT.execute(_connection, new DefaultDataSet(table));
+
+        assertEquals("1\ta\\tb\\\\c\\nd\\re\n2\t\\N\n3\t\\\\N\n", _bulkLoader.getChunks().get(0));
+        ITable actual = _connection.createQueryTable("BULK_TABLE",
+                "select * from BULK_TABLE order by ID");
+        assertEquals(name, actual.getValue(0, "NAME"));
+        assertNull(actual.getValue(1, "NAME"));
+        assertEquals("\\N", actual.getValue(2, "NAME"));
+    }
+
+    public void testExecuteInChunks() throws Exception
+    {
+        _bulkLoader = new JdbcBulkLoader(9);
+        _connection.getConfig().setProperty(DatabaseConfig.PROPERTY_BULK_LOADER, _bulkLoader);
+        IDataSet dataSet = new FlatXmlDataSetBuilder().build(new StringReader(DATASET));
+
+        DatabaseOperation.INSERT.execute(_connection, dataSet);
+
+        // every row reaches the chunk size
+        assertEquals(3, _bulkLoader.getChunks().size());
+        assertEquals("1\tone\t10\n", _bulkLoader.getChunks().get(0));
+        assertEquals("2\ttwo\t\\N\n", _bulkLoader.getChunks().get(1));
+        assertEquals("3\tthree\t30\n", _bulkLoader.getChunks().get(2));
+        assertEquals(3, _connection.getRowCount("BULK_TABLE"));
+    }
+
+    public void testCanLoad() throws Exception
+    {
+        Column[] columns = new Column[] {
+                new Column("ID", DataType.INTEGER),
+                new Column("NAME", DataType.VARCHAR)};
+        assertTrue(_bulkLoader.canLoad(new DefaultTableMetaData("T", columns)));
+
+        columns = new Column[] {
+                new Column("ID", DataType.INTEGER),
+                new Column("DATA", DataType.VARBINARY)};
+        assertFalse(_bulkLoader.canLoad(new DefaultTableMetaData("T", columns)));
+    }
+
+    public void testUpsertDoesNotBulkLoad() throws Exception
+    {
+        IDataSet dataSet = new FlatXmlDataSetBuilder().build(new StringReader(DATASET));
+
+        DatabaseOperation.UPSERT.execute(_connection, dataSet);
+
+        assertEquals(0, _bulkLoader.getLoadCount());
+        assertEquals(3, _connection.getRowCount("BULK_TABLE"));
+    }
+}
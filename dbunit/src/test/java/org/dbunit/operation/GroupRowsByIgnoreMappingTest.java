@@ -0,0 +1,209 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.operation;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.dbunit.HypersonicEnvironment;
+import org.dbunit.database.DatabaseConfig;
+import org.dbunit.database.DatabaseConnection;
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.database.statement.IPreparedBatchStatement;
+import org.dbunit.database.statement.PreparedStatementFactory;
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.DefaultDataSet;
+import org.dbunit.dataset.DefaultTable;
+import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.datatype.DataType;
+import org.dbunit.dataset.datatype.TypeCastException;
+
+/**
+ * Tests the {@link DatabaseConfig#FEATURE_GROUP_ROWS_BY_IGNORE_MAPPING} mode of
+ * the {@link InsertOperation}.
+ *
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.5.2
+ */
+public class GroupRowsByIgnoreMappingTest extends TestCase
+{
+    private static final String DATABASE = "grouprowsdb";
+
+    private Connection _jdbcConnection;
+    private IDatabaseConnection _connection;
+    /** The number of rows of each executed batch */
+    private List _batchSizes = new ArrayList();
+
+    public GroupRowsByIgnoreMappingTest(String s)
+    {
+        super(s);
+    }
+
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+
+        _jdbcConnection = HypersonicEnvironment.createJdbcConnection(DATABASE);
+        Statement statement = _jdbcConnection.createStatement();
+        try
+        {
+            statement.execute("create table GROUP_TABLE (ID integer primary key, "
+                    + "NAME varchar(20), AMOUNT integer)");
+            statement.execute("create table SELF_TABLE (ID integer primary key, "
+                    + "PARENT_ID integer, NAME varchar(20), "
+                    + "foreign key (PARENT_ID) references SELF_TABLE (ID))");
+        }
+        finally
+        {
+            statement.close();
+        }
+
+        _connection = new DatabaseConnection(_jdbcConnection);
+        DatabaseConfig config = _connection.getConfig();
+        config.setFeature(DatabaseConfig.FEATURE_BATCHED_STATEMENTS, true);
+        config.setFeature(DatabaseConfig.FEATURE_GROUP_ROWS_BY_IGNORE_MAPPING, true);
+        config.setProperty(DatabaseConfig.PROPERTY_STATEMENT_FACTORY,
+                new PreparedStatementFactory()
+                {
+                    public IPreparedBatchStatement createPreparedBatchStatement(String sql,
+                            IDatabaseConnection connection) throws SQLException
+                    {
+                        return new BatchSizeRecorder(
+                                super.createPreparedBatchStatement(sql, connection));
+                    }
+                });
+    }
+
+    protected void tearDown() throws Exception
+    {
+        super.tearDown();
+
+        HypersonicEnvironment.shutdown(_jdbcConnection);
+        _jdbcConnection.close();
+
+        HypersonicEnvironment.deleteFiles(DATABASE);
+    }
+
+    private DefaultTable createAlternatingTable() throws Exception
+    {
+        DefaultTable table = new DefaultTable("GROUP_TABLE", new Column[] {
+                new Column("ID", DataType.INTEGER),
+                new Column("NAME", DataType.VARCHAR),
+                new Column("AMOUNT", DataType.INTEGER)});
+        for (int i = 0; i < 6; i++)
+        {
+            table.addRow(new Object[] {new Integer(i), "name" + i,
+                    i % 2 == 0 ? (Object)new Integer(i) : ITable.NO_VALUE});
+        }
+        return table;
+    }
+
+    public void testGroupRows() throws Exception
+    {
+        DatabaseOperation.INSERT.execute(_connection, new DefaultDataSet(createAlternatingTable()));
+
+        assertEquals("batch sizes", "[3, 3]", _batchSizes.toString());
+        assertEquals(6, _connection.getRowCount("GROUP_TABLE"));
+    }
+
+    public void testKeepRowOrderWhenDisabled() throws Exception
+    {
+        _connection.getConfig().setFeature(DatabaseConfig.FEATURE_GROUP_ROWS_BY_IGNORE_MAPPING, false);
+
+        DatabaseOperation.INSERT.execute(_connection, new DefaultDataSet(createAlternatingTable()));
+
+        assertEquals("batch sizes", "[1, 1, 1, 1, 1, 1]", _batchSizes.toString());
+        assertEquals(6, _connection.getRowCount("GROUP_TABLE"));
+    }
+
+    public void testKeepRowOrderOfSelfReferencingTable() throws Exception
+    {
+        DefaultTable table = new DefaultTable("SELF_TABLE", new Column[] {
+                new Column("ID", DataType.INTEGER),
+                new Column("PARENT_ID", DataType.INTEGER),
+                new Column("NAME", DataType.VARCHAR)});
+        table.addRow(new Object[] {new Integer(1), ITable.NO_VALUE, "root"});
+        table.addRow(new Object[] {new Integer(2), new Integer(1), ITable.NO_VALUE});
+        table.addRow(new Object[] {new Integer(3), new Integer(2), "leaf"});
+        table.addRow(new Object[] {new Integer(4), new Integer(3), ITable.NO_VALUE});
+
+        assertTrue(InsertOperation.isSelfReferencing(_connection, "SELF_TABLE"));
+        assertFalse(InsertOperation.isSelfReferencing(_connection, "GROUP_TABLE"));
+
+        // grouping would insert a child before its parent
+        DatabaseOperation.INSERT.execute(_connection, new DefaultDataSet(table));
+
+        assertEquals("batch sizes", "[1, 1, 1, 1]", _batchSizes.toString());
+        assertEquals(4, _connection.getRowCount("SELF_TABLE"));
+    }
+
+    /**
+     * Records the number of rows of each executed batch.
+     */
+    private class BatchSizeRecorder implements IPreparedBatchStatement
+    {
+        private final IPreparedBatchStatement _statement;
+        private int _rowCount;
+
+        public BatchSizeRecorder(IPreparedBatchStatement statement)
+        {
+            _statement = statement;
+        }
+
+        public void addValue(Object value, DataType dataType)
+                throws TypeCastException, SQLException
+        {
+            _statement.addValue(value, dataType);
+        }
+
+        public void addBatch() throws SQLException
+        {
+            _statement.addBatch();
+            _rowCount++;
+        }
+
+        public int executeBatch() throws SQLException
+        {
+            if (_rowCount > 0)
+            {
+                _batchSizes.add(new Integer(_rowCount));
+                _rowCount = 0;
+            }
+            return _statement.executeBatch();
+        }
+
+        public void clearBatch() throws SQLException
+        {
+            _statement.clearBatch();
+        }
+
+        public void close() throws SQLException
+        {
+            _statement.close();
+        }
+    }
+}
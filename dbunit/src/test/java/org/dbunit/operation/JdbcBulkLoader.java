@@ -0,0 +1,159 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.operation;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.dbunit.DatabaseUnitException;
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.dataset.Column;
+
+/**
+ * Stand-in for the vendor bulk loaders which parses the serialized rows back and
+ * inserts them with plain JDBC statements, so that the bulk load path can be
+ * tested on any database.
+ *
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.5.2
+ */
+public class JdbcBulkLoader extends AbstractBulkLoader
+{
+    private final List _chunks = new ArrayList();
+    private int _loadCount;
+
+    public JdbcBulkLoader()
+    {
+        super();
+    }
+
+    public JdbcBulkLoader(int chunkSize)
+    {
+        super(chunkSize);
+    }
+
+    /**
+     * @return The data of all chunks loaded so far
+     */
+    public List getChunks()
+    {
+        return _chunks;
+    }
+
+    /**
+     * @return The number of statements the chunks were loaded with, one per
+     * column set
+     */
+    public int getLoadCount()
+    {
+        return _loadCount;
+    }
+
+    protected String getSql(String tableName, Column[] columns,
+            IDatabaseConnection connection)
+    {
+        _loadCount++;
+        StringBuffer sqlBuffer = new StringBuffer(128);
+        sqlBuffer.append("insert into ").append(tableName);
+        sqlBuffer.append(" (").append(getColumnList(columns, connection)).append(")");
+        sqlBuffer.append(" values (");
+        for (int i = 0; i < columns.length; i++)
+        {
+            sqlBuffer.append(i > 0 ? ", ?" : "?");
+        }
+        sqlBuffer.append(")");
+        return sqlBuffer.toString();
+    }
+
+    protected void loadChunk(String sql, String data, IDatabaseConnection connection)
+            throws DatabaseUnitException, SQLException
+    {
+        _chunks.add(data);
+
+        PreparedStatement statement = connection.getConnection().prepareStatement(sql);
+        try
+        {
+            String[] lines = data.split("\n");
+            for (int i = 0; i < lines.length; i++)
+            {
+                String[] fields = lines[i].split("\t", -1);
+                for (int j = 0; j < fields.length; j++)
+                {
+                    String value = unescape(fields[j]);
+                    if (value == null)
+                    {
+                        statement.setNull(j + 1, Types.VARCHAR);
+                    }
+                    else
+                    {
+                        statement.setString(j + 1, value);
+                    }
+                }
+                statement.executeUpdate();
+            }
+        }
+        finally
+        {
+            statement.close();
+        }
+    }
+
+    /**
+     * Reverses the escaping of {@link AbstractBulkLoader}.
+     */
+    public static String unescape(String field)
+    {
+        if (field.equals("\\N"))
+        {
+            return null;
+        }
+
+        StringBuffer buffer = new StringBuffer(field.length());
+        for (int i = 0; i < field.length(); i++)
+        {
+            char c = field.charAt(i);
+            if (c == '\\')
+            {
+                c = field.charAt(++i);
+                switch (c)
+                {
+                    case 't':
+                        c = '\t';
+                        break;
+                    case 'n':
+                        c = '\n';
+                        break;
+                    case 'r':
+                        c = '\r';
+                        break;
+                    default:
+                        break;
+                }
+            }
+            buffer.append(c);
+        }
+        return buffer.toString();
+    }
+}
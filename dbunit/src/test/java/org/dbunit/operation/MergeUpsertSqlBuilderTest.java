@@ -0,0 +1,133 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.operation;
+
+import junit.framework.TestCase;
+
+import org.dbunit.database.DatabaseConfig;
+import org.dbunit.database.MockDatabaseConnection;
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.DefaultTableMetaData;
+import org.dbunit.dataset.ITableMetaData;
+import org.dbunit.dataset.NoPrimaryKeyException;
+import org.dbunit.dataset.NoSuchColumnException;
+import org.dbunit.dataset.datatype.DataType;
+
+/**
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.5.2
+ */
+public class MergeUpsertSqlBuilderTest extends TestCase
+{
+    private MockDatabaseConnection _connection;
+
+    public MergeUpsertSqlBuilderTest(String s)
+    {
+        super(s);
+    }
+
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+
+        _connection = new MockDatabaseConnection();
+        _connection.setupSchema("SCHEMA");
+    }
+
+    public static ITableMetaData createMetaData(String[] columnNames, String[] keyNames)
+    {
+        Column[] columns = new Column[columnNames.length];
+        for (int i = 0; i < columns.length; i++)
+        {
+            columns[i] = new Column(columnNames[i], DataType.VARCHAR);
+        }
+        Column[] primaryKeys = new Column[keyNames.length];
+        for (int i = 0; i < primaryKeys.length; i++)
+        {
+            primaryKeys[i] = new Column(keyNames[i], DataType.VARCHAR);
+        }
+        return new DefaultTableMetaData("TABLE1", columns, primaryKeys);
+    }
+
+    public void testGetSql() throws Exception
+    {
+        String expected = "merge into SCHEMA.TABLE1 t"
+            + " using (values (?, ?, ?)) as s (PK0, PK1, COL0)"
+            + " on (t.PK0 = s.PK0 and t.PK1 = s.PK1)"
+            + " when matched then update set t.COL0 = s.COL0"
+            + " when not matched then insert (PK0, PK1, COL0) values (s.PK0, s.PK1, s.COL0)";
+
+        ITableMetaData metaData = createMetaData(
+                new String[] {"PK0", "PK1", "COL0"}, new String[] {"PK0", "PK1"});
+        assertEquals(expected, new MergeUpsertSqlBuilder().getSql(metaData, _connection));
+    }
+
+    public void testGetSqlOnlyPrimaryKey() throws Exception
+    {
+        String expected = "merge into SCHEMA.TABLE1 t"
+            + " using (values (?)) as s (PK0)"
+            + " on (t.PK0 = s.PK0)"
+            + " when not matched then insert (PK0) values (s.PK0)";
+
+        ITableMetaData metaData = createMetaData(new String[] {"PK0"}, new String[] {"PK0"});
+        assertEquals(expected, new MergeUpsertSqlBuilder().getSql(metaData, _connection));
+    }
+
+    public void testGetSqlWithEscapePattern() throws Exception
+    {
+        _connection.getConfig().setProperty(DatabaseConfig.PROPERTY_ESCAPE_PATTERN, "[?]");
+        String expected = "merge into [SCHEMA].[TABLE1] t"
+            + " using (values (?, ?)) as s ([PK0], [COL0])"
+            + " on (t.[PK0] = s.[PK0])"
+            + " when matched then update set t.[COL0] = s.[COL0]"
+            + " when not matched then insert ([PK0], [COL0]) values (s.[PK0], s.[COL0])";
+
+        ITableMetaData metaData = createMetaData(new String[] {"PK0", "COL0"}, new String[] {"PK0"});
+        assertEquals(expected, new MergeUpsertSqlBuilder().getSql(metaData, _connection));
+    }
+
+    public void testGetSqlNoPrimaryKey() throws Exception
+    {
+        ITableMetaData metaData = createMetaData(new String[] {"COL0"}, new String[0]);
+        try
+        {
+            new MergeUpsertSqlBuilder().getSql(metaData, _connection);
+            fail("Should not be able to match rows without primary key");
+        }
+        catch (NoPrimaryKeyException expected)
+        {
+        }
+    }
+
+    public void testGetSqlPrimaryKeyWithoutValue() throws Exception
+    {
+        ITableMetaData metaData = createMetaData(new String[] {"COL0"}, new String[] {"PK0"});
+        try
+        {
+            new MergeUpsertSqlBuilder().getSql(metaData, _connection);
+            fail("Should not be able to match rows without primary key value");
+        }
+        catch (NoSuchColumnException expected)
+        {
+        }
+    }
+}
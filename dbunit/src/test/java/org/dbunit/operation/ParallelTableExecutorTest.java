@@ -0,0 +1,202 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.operation;
+
+import java.io.StringReader;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import junit.framework.TestCase;
+
+import org.dbunit.DatabaseUnitException;
+import org.dbunit.HypersonicEnvironment;
+import org.dbunit.database.DatabaseConfig;
+import org.dbunit.database.DatabaseConnection;
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.database.IDatabaseConnectionSupplier;
+import org.dbunit.dataset.IDataSet;
+import org.dbunit.dataset.stream.StreamingDataSet;
+import org.dbunit.dataset.xml.FlatXmlDataSetBuilder;
+import org.dbunit.dataset.xml.FlatXmlProducer;
+import org.dbunit.testutil.TestUtils;
+import org.xml.sax.InputSource;
+
+/**
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.5.2
+ */
+public class ParallelTableExecutorTest extends TestCase
+{
+    private static final String DATABASE = "paralleldb";
+
+    private static final String FK_DATASET =
+        "<dataset>" +
+        "<D PKD='1'/><D PKD='2'/>" +
+        "<A PKA='1' FKD='1'/><A PKA='2' FKD='2'/>" +
+        "<F PKF='1' FKD='2'/>" +
+        "<C PKC='1' FKA='1' FKF='1'/>" +
+        "<G PKG='1'/>" +
+        "<E PKE='1' FKA='2' FKG='1'/>" +
+        "<H PKH='1'/>" +
+        "<B PKB='1' FKC='1' FKE='1' FKH='1'/>" +
+        "</dataset>";
+
+    private Connection _jdbcConnection;
+    private IDatabaseConnection _connection;
+    private int _createdConnections;
+
+    public ParallelTableExecutorTest(String s)
+    {
+        super(s);
+    }
+
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+
+        _jdbcConnection = HypersonicEnvironment.createJdbcConnection(DATABASE);
+        HypersonicEnvironment.executeDdlFile(TestUtils.getFile("sql/hypersonic_fk.sql"),
+                _jdbcConnection);
+        _connection = new DatabaseConnection(_jdbcConnection);
+        _connection.getConfig().setProperty(DatabaseConfig.PROPERTY_PARALLEL_CONNECTION_SUPPLIER,
+                new IDatabaseConnectionSupplier()
+                {
+                    public IDatabaseConnection createConnection()
+                            throws DatabaseUnitException, SQLException
+                    {
+                        _createdConnections++;
+                        try
+                        {
+                            return new DatabaseConnection(
+                                    HypersonicEnvironment.createJdbcConnection(DATABASE));
+                        }
+                        catch (Exception e)
+                        {
+                            throw new DatabaseUnitException(e);
+                        }
+                    }
+                });
+        _connection.getConfig().setProperty(DatabaseConfig.PROPERTY_PARALLEL_THREAD_COUNT,
+                new Integer(3));
+    }
+
+    protected void tearDown() throws Exception
+    {
+        super.tearDown();
+
+        HypersonicEnvironment.shutdown(_jdbcConnection);
+        _jdbcConnection.close();
+
+        HypersonicEnvironment.deleteFiles(DATABASE);
+    }
+
+    public void testInsertAndDelete() throws Exception
+    {
+        IDataSet dataSet = new FlatXmlDataSetBuilder().build(new StringReader(FK_DATASET));
+
+        DatabaseOperation.INSERT.execute(_connection, dataSet);
+
+        assertEquals(2, _connection.getRowCount("D"));
+        assertEquals(2, _connection.getRowCount("A"));
+        assertEquals(1, _connection.getRowCount("C"));
+        assertEquals(1, _connection.getRowCount("B"));
+        assertTrue("worker connections", _createdConnections > 0);
+        assertTrue("worker connections", _createdConnections <= 3);
+
+        DatabaseOperation.DELETE.execute(_connection, dataSet);
+
+        String[] tableNames = dataSet.getTableNames();
+        for (int i = 0; i < tableNames.length; i++)
+        {
+            assertEquals(tableNames[i], 0, _connection.getRowCount(tableNames[i]));
+        }
+    }
+
+    public void testStreamedDataSet() throws Exception
+    {
+        IDataSet dataSet = new StreamingDataSet(new FlatXmlProducer(
+                new InputSource(new StringReader(FK_DATASET))));
+
+        DatabaseOperation.INSERT.execute(_connection, dataSet);
+
+        assertEquals(2, _connection.getRowCount("D"));
+        assertEquals(1, _connection.getRowCount("F"));
+        assertEquals(1, _connection.getRowCount("B"));
+    }
+
+    public void testRepeatedTableInStreamedDataSet() throws Exception
+    {
+        String xml = "<dataset>" +
+            "<D PKD='1'/>" +
+            "<G PKG='1'/>" +
+            "<D PKD='2'/>" +
+            "</dataset>";
+        IDataSet dataSet = new StreamingDataSet(new FlatXmlProducer(
+                new InputSource(new StringReader(xml))));
+
+        DatabaseOperation.INSERT.execute(_connection, dataSet);
+
+        assertEquals(2, _connection.getRowCount("D"));
+        assertEquals(1, _connection.getRowCount("G"));
+    }
+
+    public void testSequentialWithoutAutoCommit() throws Exception
+    {
+        IDataSet dataSet = new FlatXmlDataSetBuilder().build(new StringReader(FK_DATASET));
+
+        _jdbcConnection.setAutoCommit(false);
+        DatabaseOperation.INSERT.execute(_connection, dataSet);
+        assertEquals(0, _createdConnections);
+        assertEquals(2, _connection.getRowCount("D"));
+
+        // The rows belong to the transaction of the caller
+        _jdbcConnection.rollback();
+        _jdbcConnection.setAutoCommit(true);
+        assertEquals(0, _connection.getRowCount("D"));
+    }
+
+    public void testFailuresAreReportedInDataSetOrder() throws Exception
+    {
+        // G and H are in the same layer and both violate their primary key
+        String xml = "<dataset>" +
+            "<G PKG='1'/><G PKG='1'/>" +
+            "<H PKH='1'/><H PKH='1'/>" +
+            "<B PKB='1' FKH='1'/>" +
+            "</dataset>";
+        IDataSet dataSet = new FlatXmlDataSetBuilder().build(new StringReader(xml));
+
+        try
+        {
+            DatabaseOperation.INSERT.execute(_connection, dataSet);
+            fail("Should not be able to insert duplicate primary keys");
+        }
+        catch (DatabaseUnitException expected)
+        {
+            assertTrue(expected.getMessage(), expected.getMessage().indexOf("[G, H]") != -1);
+        }
+
+        // Both workers rolled back and the dependent layer was never started
+        assertEquals(0, _connection.getRowCount("G"));
+        assertEquals(0, _connection.getRowCount("H"));
+        assertEquals(0, _connection.getRowCount("B"));
+    }
+}
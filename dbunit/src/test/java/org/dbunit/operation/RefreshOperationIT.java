@@ -23,9 +23,15 @@ package org.dbunit.operation;
 
 import java.io.FileReader;
 import java.io.Reader;
+import java.io.StringReader;
+import java.sql.Connection;
 
 import org.dbunit.AbstractDatabaseIT;
 import org.dbunit.Assertion;
+import org.dbunit.HypersonicEnvironment;
+import org.dbunit.database.DatabaseConfig;
+import org.dbunit.database.DatabaseConnection;
+import org.dbunit.database.IDatabaseConnection;
 import org.dbunit.database.MockDatabaseConnection;
 import org.dbunit.database.statement.MockBatchStatement;
 import org.dbunit.database.statement.MockStatementFactory;
@@ -79,6 +85,79 @@ public class RefreshOperationIT extends AbstractDatabaseIT
         testExecute(new ForwardOnlyDataSet(dataSet));
     }
 
+    public void testExecuteInChunks() throws Exception
+    {
+        DatabaseConfig config = _connection.getConfig();
+        Object batchSize = config.getProperty(DatabaseConfig.PROPERTY_BATCH_SIZE);
+        config.setProperty(DatabaseConfig.PROPERTY_BATCH_SIZE, new Integer(2));
+        try
+        {
+            Reader reader = TestUtils.getFileReader("xml/refreshOperationTest.xml");
+            IDataSet dataSet = new FlatXmlDataSetBuilder().build(reader);
+
+            testExecute(new ForwardOnlyDataSet(dataSet));
+        }
+        finally
+        {
+            config.setProperty(DatabaseConfig.PROPERTY_BATCH_SIZE, batchSize);
+        }
+    }
+
+    public void testExecuteWithDuplicateKeys() throws Exception
+    {
+        String xml = "<dataset>" +
+            "<PK_TABLE PK0='7' PK1='7' PK2='7' NORMAL0='first' NORMAL1='first'/>" +
+            "<PK_TABLE PK0='7' PK1='7' PK2='7' NORMAL0='second' NORMAL1='second'/>" +
+            "<ONLY_PK_TABLE PK0='7'/>" +
+            "<ONLY_PK_TABLE PK0='7'/>" +
+            "</dataset>";
+        IDataSet dataSet = new FlatXmlDataSetBuilder().build(new StringReader(xml));
+
+        DatabaseOperation.REFRESH.execute(_connection, dataSet);
+
+        ITable table = _connection.createQueryTable("PK_TABLE",
+                "select * from PK_TABLE where PK0 = 7");
+        assertEquals("row count", 1, table.getRowCount());
+        assertEquals("second", table.getValue(0, "NORMAL0"));
+        assertEquals("row count", 1,
+                _connection.getRowCount("ONLY_PK_TABLE", "where PK0 = 7"));
+    }
+
+    public void testExecuteCaseInsensitiveKey() throws Exception
+    {
+        Connection jdbcConnection = HypersonicEnvironment.createJdbcConnection("refreshdb");
+        try
+        {
+            HypersonicEnvironment.executeSql(jdbcConnection,
+                    "CREATE TABLE CI_TABLE (ID VARCHAR_IGNORECASE(10) PRIMARY KEY, NAME VARCHAR(10))");
+            HypersonicEnvironment.executeSql(jdbcConnection,
+                    "INSERT INTO CI_TABLE VALUES ('abc', 'before')");
+            IDatabaseConnection connection = new DatabaseConnection(jdbcConnection);
+
+            // the key only differs in case from the existing row
+            String xml = "<dataset>" +
+                "<CI_TABLE ID='ABC' NAME='after'/>" +
+                "<CI_TABLE ID='def' NAME='new'/>" +
+                "<CI_TABLE ID='DEF' NAME='newer'/>" +
+                "</dataset>";
+            IDataSet dataSet = new FlatXmlDataSetBuilder().build(new StringReader(xml));
+
+            DatabaseOperation.REFRESH.execute(connection, dataSet);
+
+            ITable table = connection.createQueryTable("CI_TABLE",
+                    "select * from CI_TABLE order by ID");
+            assertEquals("row count", 2, table.getRowCount());
+            assertEquals("after", table.getValue(0, "NAME"));
+            assertEquals("newer", table.getValue(1, "NAME"));
+        }
+        finally
+        {
+            HypersonicEnvironment.shutdown(jdbcConnection);
+            jdbcConnection.close();
+            HypersonicEnvironment.deleteFiles("refreshdb");
+        }
+    }
+
     private void testExecute(IDataSet dataSet) throws Exception
     {
         String[] tableNames = {"PK_TABLE", "ONLY_PK_TABLE"};
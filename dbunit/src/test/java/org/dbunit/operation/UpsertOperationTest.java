@@ -0,0 +1,125 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package org.dbunit.operation;
+
+import java.io.StringReader;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+
+import junit.framework.TestCase;
+
+import org.dbunit.database.DatabaseConfig;
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.dataset.IDataSet;
+import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.xml.FlatXmlDataSetBuilder;
+import org.dbunit.ext.h2.H2Connection;
+
+/**
+ * Executes the upsert operation against an in-memory H2 database.
+ *
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.5.2
+ */
+public class UpsertOperationTest extends TestCase
+{
+    private static final String DATASET = "<dataset>" +
+        "<UPSERT_TABLE ID='1' NAME='updated' AMOUNT='10'/>" +
+        "<UPSERT_TABLE ID='2' NAME='inserted' AMOUNT='20'/>" +
+        "<UPSERT_TABLE ID='3' NAME='no amount'/>" +
+        "<ONLY_PK_TABLE ID='1'/>" +
+        "<ONLY_PK_TABLE ID='2'/>" +
+        "</dataset>";
+
+    private Connection _jdbcConnection;
+    private IDatabaseConnection _connection;
+
+    public UpsertOperationTest(String s)
+    {
+        super(s);
+    }
+
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+
+        Class.forName("org.h2.Driver");
+        _jdbcConnection = DriverManager.getConnection("jdbc:h2:mem:upsert", "sa", "");
+        Statement statement = _jdbcConnection.createStatement();
+        try
+        {
+            statement.execute("create table UPSERT_TABLE (ID integer primary key, "
+                    + "NAME varchar(20), AMOUNT integer)");
+            statement.execute("create table ONLY_PK_TABLE (ID integer primary key)");
+            statement.execute("insert into UPSERT_TABLE values (1, 'original', 1)");
+            statement.execute("insert into UPSERT_TABLE values (3, 'original', 3)");
+            statement.execute("insert into ONLY_PK_TABLE values (1)");
+        }
+        finally
+        {
+            statement.close();
+        }
+        _connection = new H2Connection(_jdbcConnection, "PUBLIC");
+    }
+
+    protected void tearDown() throws Exception
+    {
+        super.tearDown();
+
+        _jdbcConnection.close();
+    }
+
+    public void testExecute() throws Exception
+    {
+        IDataSet dataSet = new FlatXmlDataSetBuilder().build(new StringReader(DATASET));
+
+        DatabaseOperation.UPSERT.execute(_connection, dataSet);
+
+        verifyTables();
+    }
+
+    public void testExecuteWithoutSqlBuilder() throws Exception
+    {
+        _connection.getConfig().setProperty(DatabaseConfig.PROPERTY_UPSERT_SQL_BUILDER, null);
+        IDataSet dataSet = new FlatXmlDataSetBuilder().build(new StringReader(DATASET));
+
+        DatabaseOperation.UPSERT.execute(_connection, dataSet);
+
+        verifyTables();
+    }
+
+    private void verifyTables() throws Exception
+    {
+        ITable table = _connection.createQueryTable("UPSERT_TABLE",
+                "select * from UPSERT_TABLE order by ID");
+        assertEquals("row count", 3, table.getRowCount());
+        assertEquals("updated", table.getValue(0, "NAME"));
+        assertEquals("10", String.valueOf(table.getValue(0, "AMOUNT")));
+        assertEquals("inserted", table.getValue(1, "NAME"));
+        assertEquals("20", String.valueOf(table.getValue(1, "AMOUNT")));
+        assertEquals("no amount", table.getValue(2, "NAME"));
+        assertNull(table.getValue(2, "AMOUNT"));
+
+        assertEquals("row count", 2, _connection.getRowCount("ONLY_PK_TABLE"));
+    }
+}
@@ -21,10 +21,17 @@
 
 package org.dbunit.util.fileloader;
 
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 import junit.framework.TestCase;
 
+import org.dbunit.DatabaseUnitRuntimeException;
 import org.dbunit.dataset.DataSetException;
 import org.dbunit.dataset.IDataSet;
+import org.dbunit.dataset.ITable;
 
 /**
  * @author Jeff Jensen jeffjensen AT users.sourceforge.net
@@ -48,4 +55,70 @@ public class AbstractDataFileLoaderTest extends TestCase {
         assertEquals("Default dataset had tables in it.",
                 ds.getTableNames().length, 0);
     }
+
+    public void testLoadMultipleFilesInParallel() throws DataSetException {
+        String[] fileNames =
+                new String[] {"/xml/flatXmlDataSetTest.xml", null,
+                        "/xml/flatXmlDataSetDuplicateTest.xml",
+                        "/xml/flatXmlTableTest.xml"};
+
+        IDataSet[] expected = loader.loadAll(fileNames);
+        assertFalse(loader.isParallelLoading());
+
+        loader.setParallelLoading(true);
+        assertTrue(loader.isParallelLoading());
+        IDataSet[] actual = loader.loadAll(fileNames);
+
+        assertEquals(expected.length, actual.length);
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(fileNames[i], expected[i].getTableNames().length,
+                    actual[i].getTableNames().length);
+            String[] tableNames = expected[i].getTableNames();
+            for (int j = 0; j < tableNames.length; j++) {
+                assertEquals(tableNames[j], actual[i].getTableNames()[j]);
+            }
+        }
+    }
+
+    public void testReplacementsAppliedInParallel() throws DataSetException {
+        Map replacements = new HashMap();
+        replacements.put("row 0 col 0", "replaced");
+        Map substrings = new HashMap();
+        substrings.put("col 1", "column 1");
+        loader.addReplacementObjects(replacements);
+        loader.addReplacementSubstrings(substrings);
+
+        ExecutorService executorService = Executors.newFixedThreadPool(2);
+        try {
+            loader.setExecutorService(executorService);
+            IDataSet[] dataSets =
+                    loader.loadAll(new String[] {"/xml/flatXmlDataSetTest.xml",
+                            "/xml/flatXmlDataSetTest.xml"});
+
+            for (int i = 0; i < dataSets.length; i++) {
+                ITable table = dataSets[i].getTable("TEST_TABLE");
+                assertEquals("replaced", table.getValue(0, "COLUMN0"));
+                assertEquals("row 2 column 1", table.getValue(2, "COLUMN1"));
+            }
+
+            // Resolved while loading, later changes do not apply anymore
+            loader.removeAllReplacementObjects();
+            assertEquals("replaced",
+                    dataSets[0].getTable("TEST_TABLE").getValue(0, "COLUMN0"));
+        } finally {
+            executorService.shutdown();
+        }
+    }
+
+    public void testParallelLoadFailure() {
+        loader.setParallelLoading(true);
+        try {
+            loader.loadAll(new String[] {"/xml/flatXmlDataSetTest.xml",
+                    "/xml/doesNotExist.xml"});
+            fail("Should not load a missing file");
+        } catch (DatabaseUnitRuntimeException expected) {
+            assertTrue(expected.getMessage(), expected.getMessage().indexOf(
+                    "doesNotExist.xml") != -1);
+        }
+    }
 }
@@ -0,0 +1,167 @@
+/*
+ *
+ * The DbUnit Database Testing Framework
+ * Copyright (C)2002-2009, DbUnit.org
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+
+package org.dbunit.util.fileloader;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.net.URL;
+import java.util.HashMap;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import org.dbunit.dataset.IDataSet;
+
+/**
+ * @author Last changed by: $Author$
+ * @version $Revision$ $Date$
+ * @since 2.5.2
+ */
+public class ParsedDataSetCacheTest extends TestCase {
+    private static final String FILE_NAME = "/xml/flatXmlDataSetTest.xml";
+
+    private ParsedDataSetCache cache;
+
+    /**
+     * {@inheritDoc}
+     */
+    protected void setUp() throws Exception {
+        cache = new ParsedDataSetCache(ParsedDataSetCache.DEFAULT_MAX_BYTE_SIZE);
+    }
+
+    public void testSharedBetweenLoaders() throws Exception {
+        Map replacements = new HashMap();
+        replacements.put("row 0 col 0", "replaced");
+        FlatXmlDataFileLoader replacingLoader =
+                new FlatXmlDataFileLoader(replacements);
+        replacingLoader.setDataSetCache(cache);
+        FlatXmlDataFileLoader loader = new FlatXmlDataFileLoader();
+        loader.setDataSetCache(cache);
+
+        IDataSet replaced = replacingLoader.load(FILE_NAME);
+        IDataSet original = loader.load(FILE_NAME);
+
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getSize());
+        assertTrue(cache.getByteSize() > 0);
+        assertEquals("replaced",
+                replaced.getTable("TEST_TABLE").getValue(0, "COLUMN0"));
+        assertEquals("row 0 col 0",
+                original.getTable("TEST_TABLE").getValue(0, "COLUMN0"));
+    }
+
+    public void testLoaderSettingsArePartOfTheKey() throws Exception {
+        FlatXmlDataFileLoader loader = new FlatXmlDataFileLoader();
+        loader.setDataSetCache(cache);
+        FlatXmlDataFileLoader sensingLoader = new FlatXmlDataFileLoader();
+        sensingLoader.getBuilder().setColumnSensing(true);
+        sensingLoader.setDataSetCache(cache);
+
+        loader.load(FILE_NAME);
+        sensingLoader.load(FILE_NAME);
+
+        assertEquals(2, cache.getMissCount());
+        assertEquals(2, cache.getSize());
+    }
+
+    public void testChangedFileIsParsedAgain() throws Exception {
+        File file = File.createTempFile("parsedDataSetCacheTest", ".xml");
+        try {
+            URL url = file.toURI().toURL();
+            FlatXmlDataFileLoader loader = new FlatXmlDataFileLoader();
+
+            write(file, "<dataset><T A='1'/></dataset>");
+            IDataSet dataSet = cache.getDataSet(loader, url);
+            assertSame(dataSet, cache.getDataSet(loader, url));
+
+            write(file, "<dataset><T A='1'/><T A='2'/></dataset>");
+            IDataSet changed = cache.getDataSet(loader, url);
+            assertEquals(2, changed.getTable("T").getRowCount());
+            assertEquals(2, cache.getMissCount());
+            assertEquals(1, cache.getHitCount());
+            assertEquals(1, cache.getSize());
+        } finally {
+            file.delete();
+        }
+    }
+
+    public void testChangedCsvFileIsParsedAgain() throws Exception {
+        File directory = File.createTempFile("parsedDataSetCacheTest", "");
+        directory.delete();
+        directory.mkdir();
+        File tableOrdering = new File(directory, "table-ordering.txt");
+        File table = new File(directory, "T.csv");
+        try {
+            URL url = directory.toURI().toURL();
+            CsvDataFileLoader loader = new CsvDataFileLoader();
+
+            write(tableOrdering, "T\n");
+            write(table, "A\n1\n");
+            IDataSet dataSet = cache.getDataSet(loader, url);
+            assertSame(dataSet, cache.getDataSet(loader, url));
+
+            write(table, "A\n1\n2\n");
+            IDataSet changed = cache.getDataSet(loader, url);
+            assertEquals(2, changed.getTable("T").getRowCount());
+            assertEquals(2, cache.getMissCount());
+            assertEquals(1, cache.getHitCount());
+        } finally {
+            table.delete();
+            tableOrdering.delete();
+            directory.delete();
+        }
+    }
+
+    public void testLeastRecentlyUsedEviction() throws Exception {
+        FlatXmlDataFileLoader loader = new FlatXmlDataFileLoader();
+        URL first = getClass().getResource(FILE_NAME);
+        URL second = getClass().getResource("/xml/flatXmlTableTest.xml");
+        long firstSize =
+                ParsedDataSetCache.estimateSize(loader.loadDataSet(first));
+        long secondSize =
+                ParsedDataSetCache.estimateSize(loader.loadDataSet(second));
+
+        cache = new ParsedDataSetCache(Math.max(firstSize, secondSize));
+        cache.getDataSet(loader, first);
+        cache.getDataSet(loader, second);
+
+        assertEquals(1, cache.getSize());
+        assertEquals(1, cache.getEvictionCount());
+        assertEquals(secondSize, cache.getByteSize());
+
+        cache = new ParsedDataSetCache(1);
+        cache.getDataSet(loader, first);
+        assertEquals("Datasets above the maximum are not cached", 0,
+                cache.getSize());
+    }
+
+    private void write(File file, String content) throws IOException {
+        FileWriter writer = new FileWriter(file);
+        try {
+            writer.write(content);
+        } finally {
+            writer.close();
+        }
+    }
+}